@@ -0,0 +1,86 @@
+package framework.ui.effect;
+
+import java.util.Random;
+import java.util.Vector;
+
+import javax.microedition.lcdui.Font;
+
+import framework.util.PixelKernelBenchmark;
+import framework.util.PixelKernelBenchmark.Kernel;
+
+/**
+ * The effect kernels of {@link PixelKernelBenchmark}: rendering a line of
+ * text with {@link Effect#getTextArgb(String, int)}, which includes the drop
+ * shadow, and the drop shadow alone with
+ * {@link DropShadowEffect#filterArgb(Effect.ARGBInfo, int[])} on text and
+ * logo pixels.
+ *
+ * @author Oscar Cai
+ */
+
+public final class EffectKernels {
+
+    private EffectKernels() {
+    }
+
+    public static void addKernels(Vector kernels) {
+        // The colors of Theme.getTitleEffect() and getListSummaryEffect()
+        final DropShadowEffect effect = new DropShadowEffect(
+                Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_BOLD, Font.SIZE_LARGE), 0xFFFFFFFF, 0xC0000000);
+        final PlainEffect plain = new PlainEffect(
+                Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_PLAIN, Font.SIZE_MEDIUM), 0xFF000000);
+
+        kernels.addElement(new Kernel("text shadow title 13 chars") {
+            public Object run() {
+                // title bar label
+                return effect.getTextArgb("Rice Store 应用", 0xFFFFFFFF).argb;
+            }
+        });
+        kernels.addElement(new Kernel("text plain 40 chars") {
+            public Object run() {
+                // list row summary
+                return plain.getTextArgb("The quick brown fox jumps over a lazy dog", 0xFF000000).argb;
+            }
+        });
+
+        Random random = new Random(20100315L);
+
+        // A line of glyph-like opaque boxes on a transparent background
+        final int textWidth = 160;
+        final int textHeight = 20;
+        int[] text = new int[textWidth * textHeight];
+        for (int x = 2; x < textWidth - 12; x += 9) {
+            int top = 3 + random.nextInt(4);
+            for (int y = top; y < textHeight - 4; y++) {
+                for (int i = 0; i < 7; i++) {
+                    if (random.nextInt(3) > 0) {
+                        text[y * textWidth + x + i] = 0xFFFFFFFF;
+                    }
+                }
+            }
+        }
+        final Effect.ARGBInfo textInfo = effect.new ARGBInfo(text, textWidth, textHeight);
+        final int[] paddings = new int[4];
+        kernels.addElement(new Kernel("drop shadow text 160x20") {
+            public Object run() {
+                return effect.filterArgb(textInfo, paddings).argb;
+            }
+        });
+
+        // An opaque logo with a transparent margin
+        int[] logo = PixelKernelBenchmark.randomArgb(random, 48 * 48, false);
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 48; x++) {
+                if (x < 4 || y < 4 || x >= 44 || y >= 44) {
+                    logo[y * 48 + x] = 0;
+                }
+            }
+        }
+        final Effect.ARGBInfo logoInfo = effect.new ARGBInfo(logo, 48, 48);
+        kernels.addElement(new Kernel("drop shadow logo 48x48") {
+            public Object run() {
+                return effect.filterArgb(logoInfo, paddings).argb;
+            }
+        });
+    }
+}
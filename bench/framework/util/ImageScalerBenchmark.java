@@ -0,0 +1,200 @@
+package framework.util;
+
+import java.util.Random;
+
+/**
+ * Compares {@link ImageScaler} with the bilinear kernel which DrawUtil used
+ * before, on the image sizes the store scales: logos shrunk into list rows,
+ * and snapshots fitted into the AppInfoActivity screen. Times are per
+ * destination pixel; the box filtered cases read every source pixel while the
+ * legacy kernel reads four per destination pixel.
+ * <p>
+ * Runs on J2SE, from the project directory:
+ * <pre>
+ * javac -d /tmp/bench src/framework/util/ImageScaler.java bench/framework/util/ImageScalerBenchmark.java
+ * java -cp /tmp/bench framework.util.ImageScalerBenchmark
+ * </pre>
+ *
+ * @author Oscar Cai
+ */
+
+public final class ImageScalerBenchmark {
+    private static final int WARMUP_ROUNDS = 3000;
+    private static final int MEASURE_ROUNDS = 1000;
+
+    /**
+     * Source and destination sizes: {srcWidth, srcHeight, dstWidth, dstHeight}.
+     */
+    private static final int[][] CASES = {
+        {72, 72, 48, 48},       // logo into a list row
+        {128, 128, 40, 40},     // large logo into a list row, box filtered
+        {480, 640, 180, 240},   // snapshot into AppInfoActivity, box filtered
+        {240, 320, 180, 240},   // snapshot into AppInfoActivity
+        {48, 48, 96, 96},       // enlarging
+    };
+
+    public static void main(String[] args) {
+        Random random = new Random(20100315L);
+        System.out.println("case                  legacy ns/px  scaler ns/px  speedup");
+        for (int i = 0; i < CASES.length; i++) {
+            int srcWidth = CASES[i][0];
+            int srcHeight = CASES[i][1];
+            int dstWidth = CASES[i][2];
+            int dstHeight = CASES[i][3];
+
+            int[] src = new int[srcWidth * srcHeight];
+            for (int j = 0; j < src.length; j++) {
+                src[j] = random.nextInt();
+            }
+            int[] dst = new int[dstWidth * dstHeight];
+
+            double legacy = measure(true, src, srcWidth, srcHeight, dst, dstWidth, dstHeight);
+            double scaler = measure(false, src, srcWidth, srcHeight, dst, dstWidth, dstHeight);
+            System.out.println(pad(srcWidth + "x" + srcHeight + " -> " + dstWidth + "x" + dstHeight, 22)
+                    + pad(format(legacy), 14) + pad(format(scaler), 14)
+                    + format(legacy / scaler) + "x");
+        }
+    }
+
+    private static double measure(boolean legacy, int[] src, int srcWidth, int srcHeight,
+            int[] dst, int dstWidth, int dstHeight) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(legacy, src, srcWidth, srcHeight, dst, dstWidth, dstHeight);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            run(legacy, src, srcWidth, srcHeight, dst, dstWidth, dstHeight);
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) elapsed / MEASURE_ROUNDS / (dstWidth * dstHeight);
+    }
+
+    private static void run(boolean legacy, int[] src, int srcWidth, int srcHeight,
+            int[] dst, int dstWidth, int dstHeight) {
+        if (legacy) {
+            legacyScale(src, srcWidth, srcHeight, dst, dstWidth, dstHeight);
+        } else {
+            ImageScaler.scale(src, srcWidth, srcHeight, dst, dstWidth, dstHeight);
+        }
+    }
+
+    private static String format(double value) {
+        return String.valueOf(Math.round(value * 100) / 100.0);
+    }
+
+    private static String pad(String text, int width) {
+        StringBuffer sb = new StringBuffer(text);
+        while (sb.length() < width) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    /*
+     * The kernel below is a verbatim copy of the bilinear scaling DrawUtil
+     * used before ImageScaler, kept here as the baseline.
+     */
+
+    /**
+     * Bilinear image scaling.<br>
+     * See <a href='http://blog.csdn.net/hhygcy/article/details/4434870'>
+     * http://blog.csdn.net/hhygcy/article/details/4434870</a>
+     * <p>
+     * This function scales images using <a href='http://en.wikipedia.org/wiki/Bilinear_interpolation'>
+     * Bilinear interpolation</a>.
+     *
+     * @param srcArgb the source image data
+     * @param srcWidth the width of source image
+     * @param srcHeight the height of source image
+     * @param dstArgb the destination image data
+     * @param dstWidth the destination width of scaling
+     * @param dstHeight the destination height of scaling
+     */
+    static void legacyScale(
+            final int[] srcArgb, int srcWidth, int srcHeight,
+            final int[] dstArgb, int dstWidth, int dstHeight) {
+        int x, y;
+        int ox, oy;
+        int tmpx,tmpy;
+        int ratio = (100 << 8) / (dstWidth * 100 / srcWidth);
+        int srcYOffset, dstYOffset = 0;
+        int srcLTOffset, srcRTOffset, srcLBOffset, srcRBOffset;
+        for (int j = 0; j < dstHeight; j ++) {
+            for (int i = 0; i < dstWidth; i ++) {
+                tmpx = i * ratio;
+                tmpy = j * ratio;
+                ox = tmpx >> 8;
+                oy = tmpy >> 8;
+                x = tmpx & 0xFF;
+                y = tmpy & 0xFF;
+
+                srcYOffset = oy * srcWidth;
+                srcLTOffset = srcYOffset + ox;
+                srcRTOffset = srcYOffset + ox + (ox < srcWidth - 1 ? 1 : 0);
+                srcLBOffset = oy < srcHeight - 1 ? srcLTOffset + srcWidth : srcLTOffset;
+                srcRBOffset = oy < srcHeight - 1 ? srcRTOffset + srcWidth : srcRTOffset;
+                dstArgb[dstYOffset + i] =
+                    bilinearCalculateColor(
+                            x, y,
+                            tryGetColor(srcArgb, srcLTOffset), tryGetColor(srcArgb, srcRTOffset),
+                            tryGetColor(srcArgb, srcLBOffset), tryGetColor(srcArgb, srcRBOffset));
+            }
+            dstYOffset += dstWidth;
+        }
+    }
+
+    /**
+     * Try to get the color of the specified point in the specified image.
+     * @param argb The ARGB array of the image.
+     * @param offset The linear logical offset of the point.
+     * @return if the specified point does inside the ARGB array, return its color. Otherwise,
+     * return full transparent, i.e. 0.
+     */
+    private static int tryGetColor(final int[] argb, int offset) {
+        return (offset >= 0 && offset < argb.length) ? argb[offset] : 0;
+    }
+
+    /**
+     * Calculate the color of bilinear interpolation point.
+     * <p>
+     * See <a href='http://en.wikipedia.org/wiki/Bilinear_interpolation'>
+     * Bilinear interpolation</a>.
+     *
+     * @return the color value
+     */
+    private static int bilinearCalculateColor(int x, int y, int color00, int color10, int color01, int color11) {
+        int b1 = (0x100 - x) * (0x100 - y);
+        int b2 = x * (0x100 - y);
+        int b3 = y * (0x100 - x);
+        int b4 = x * y;
+        int a = b1 * ((color00 >> 24) & 0x0FF) + b2 * ((color10 >> 24) & 0x0FF) + b3 * ((color01 >> 24) & 0x0FF) + b4 * ((color11 >> 24) & 0x0FF);
+        int r = b1 * ((color00 >> 16) & 0x0FF) + b2 * ((color10 >> 16) & 0x0FF) + b3 * ((color01 >> 16) & 0x0FF) + b4 * ((color11 >> 16) & 0x0FF);
+        int g = b1 * ((color00 >> 8) & 0x0FF) + b2 * ((color10 >> 8) & 0x0FF) + b3 * ((color01 >> 8) & 0x0FF) + b4 * ((color11 >> 8) & 0x0FF);
+        int b = b1 * (color00 & 0x0FF) + b2 * (color10 & 0x0FF) + b3 * (color01 & 0x0FF) + b4 * (color11 & 0x0FF);
+        a = a >> 16;
+        r = r >> 16;
+        g = g >> 16;
+        b = b >> 16;
+        if (a > 255) {
+            a = 255;
+        } else if (a < 0) {
+            a = 0;
+        }
+        if (r > 255) {
+            r = 255;
+        } else if (r < 0) {
+            r = 0;
+        }
+        if (g > 255) {
+            g = 255;
+        } else if (g < 0) {
+            g = 0;
+        }
+        if (b > 255) {
+            b = 255;
+        } else if (b < 0) {
+            b = 0;
+        }
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,277 @@
+package framework.util;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Hashtable;
+import java.util.Random;
+import java.util.Vector;
+
+import javax.microedition.lcdui.Image;
+
+import framework.ui.effect.EffectKernels;
+
+/**
+ * Measures the pixel kernels of the UI framework on fixed inputs: the
+ * gradients, nine-patch stretching and image scaling of {@link DrawUtil},
+ * and the text rendering and drop shadow of the effects, see
+ * {@link EffectKernels}. Times are per destination pixel; allocations are the
+ * bytes allocated by the benchmark thread per operation.
+ * <p>
+ * The output of every case is checked against its checksum in
+ * bench/checksums.txt, so that an optimization can not change pixels
+ * unnoticed; the run fails if any differs. Run with --update to record the
+ * checksums again after an intended change. The text cases draw with the
+ * deterministic Font of the harness, so their checksums hold on any host.
+ * <p>
+ * Runs on J2SE with the MIDP stand-ins of the harness, from the project
+ * directory:
+ * <pre>
+ * javac -encoding UTF-8 -sourcepath src:harness/src:bench -d /tmp/bench bench/framework/util/PixelKernelBenchmark.java
+ * java -Djava.awt.headless=true -cp /tmp/bench framework.util.PixelKernelBenchmark [--update]
+ * </pre>
+ *
+ * @author Oscar Cai
+ */
+
+public final class PixelKernelBenchmark {
+    private static final int WARMUP_ROUNDS = 2000;
+    private static final int MEASURE_ROUNDS = 500;
+
+    private static final String CHECKSUM_FILE = "bench/checksums.txt";
+
+    /**
+     * A kernel on fixed inputs.
+     */
+    public abstract static class Kernel {
+        final String name;
+
+        protected Kernel(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Run the kernel once.
+         *
+         * @return the output, an int[] or an Image.
+         */
+        public abstract Object run();
+    }
+
+    private static Object sink;
+
+    public static void main(String[] args) throws IOException {
+        boolean update = args.length > 0 && args[0].equals("--update");
+
+        Vector kernels = new Vector();
+        addDrawUtilKernels(kernels);
+        EffectKernels.addKernels(kernels);
+
+        com.sun.management.ThreadMXBean threadBean = null;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadBean = (com.sun.management.ThreadMXBean) bean;
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        long threadId = Thread.currentThread().getId();
+
+        Hashtable golden = update ? new Hashtable() : readChecksums();
+        Hashtable checksums = new Hashtable();
+        int failures = 0;
+
+        System.out.println("case                                 pixels    ns/px       B/op  checksum");
+        for (int i = 0; i < kernels.size(); i++) {
+            Kernel kernel = (Kernel) kernels.elementAt(i);
+
+            for (int j = 0; j < WARMUP_ROUNDS; j++) {
+                sink = kernel.run();
+            }
+            long allocated = threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int j = 0; j < MEASURE_ROUNDS; j++) {
+                sink = kernel.run();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (threadBean != null) {
+                allocated = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+            }
+
+            int[] argb = getArgb(sink);
+            String checksum = Integer.toHexString(checksum(argb));
+            checksums.put(kernel.name, checksum);
+
+            String expected = (String) golden.get(kernel.name);
+            String status = "";
+            if (!update) {
+                if (expected == null) {
+                    status = "  NEW";
+                    failures++;
+                } else if (!expected.equals(checksum)) {
+                    status = "  CHANGED, was " + expected;
+                    failures++;
+                }
+            }
+
+            System.out.println(pad(kernel.name, 35) + padLeft(String.valueOf(argb.length), 8)
+                    + padLeft(format((double) elapsed / MEASURE_ROUNDS / argb.length), 9)
+                    + padLeft(threadBean == null ? "n/a" : String.valueOf(allocated / MEASURE_ROUNDS), 11)
+                    + "  " + checksum + status);
+        }
+
+        if (update) {
+            writeChecksums(kernels, checksums);
+            System.out.println("Checksums written to " + CHECKSUM_FILE);
+        } else if (failures > 0) {
+            System.out.println(failures + " case(s) differ from " + CHECKSUM_FILE
+                    + "; run with --update if the change is intended.");
+            System.exit(1);
+        }
+    }
+
+    private static void addDrawUtilKernels(Vector kernels) {
+        kernels.addElement(new Kernel("gradient 240x40") {
+            public Object run() {
+                // title bar
+                return DrawUtil.getVerticalGradientRgb(240, 40, 0xFF4A7DB5, 0xFF1D4E89, 0x00000000);
+            }
+        });
+        kernels.addElement(new Kernel("gradient round 200x36 arc 8") {
+            public Object run() {
+                // dialog button
+                return DrawUtil.getVerticalGradientRgb(200, 36, 0xFFFFFFFF, 0xFFC8D8E8, 0xFF6080A0, 8);
+            }
+        });
+
+        Random random = new Random(20100315L);
+
+        final Image patch = Image.createRGBImage(randomArgb(random, 21 * 21, true), 21, 21, true);
+        kernels.addElement(new Kernel("9-patch 21x21 -> 240x64") {
+            public Object run() {
+                // list row background
+                return DrawUtil.stretch9PatchImage(patch, 240, 64, false);
+            }
+        });
+        final Image bubble = Image.createRGBImage(randomArgb(random, 31 * 31, true), 31, 31, true);
+        kernels.addElement(new Kernel("9-patch 31x31 -> 200x120") {
+            public Object run() {
+                // dialog frame
+                return DrawUtil.stretch9PatchImage(bubble, 200, 120, true);
+            }
+        });
+
+        final Image logo = Image.createRGBImage(randomArgb(random, 72 * 72, true), 72, 72, true);
+        kernels.addElement(new Kernel("scale 72x72 -> 48x48") {
+            public Object run() {
+                // logo into a list row
+                return DrawUtil.scaleImage(logo, 48, 48);
+            }
+        });
+        final Image snapshot = Image.createRGBImage(randomArgb(random, 240 * 320, false), 240, 320, false);
+        kernels.addElement(new Kernel("scale 240x320 -> 180x240") {
+            public Object run() {
+                // snapshot into AppInfoActivity
+                return DrawUtil.scaleImage(snapshot, 180, 240);
+            }
+        });
+    }
+
+    /**
+     * Get fixed random pixels, with transparent and translucent ones if
+     * alpha is true.
+     */
+    public static int[] randomArgb(Random random, int length, boolean alpha) {
+        int[] argb = new int[length];
+        for (int i = 0; i < length; i++) {
+            argb[i] = random.nextInt();
+            if (!alpha) {
+                argb[i] |= 0xFF000000;
+            }
+        }
+        return argb;
+    }
+
+    private static int[] getArgb(Object output) {
+        if (output instanceof Image) {
+            Image image = (Image) output;
+            int[] argb = new int[image.getWidth() * image.getHeight()];
+            image.getRGB(argb, 0, image.getWidth(), 0, 0, image.getWidth(), image.getHeight());
+            return argb;
+        }
+        return (int[]) output;
+    }
+
+    /**
+     * FNV-1a hash of the pixels.
+     */
+    private static int checksum(int[] argb) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < argb.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                hash ^= (argb[i] >>> shift) & 0xFF;
+                hash *= 0x01000193;
+            }
+        }
+        return hash;
+    }
+
+    private static Hashtable readChecksums() throws IOException {
+        Hashtable checksums = new Hashtable();
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(CHECKSUM_FILE), "UTF-8"));
+        } catch (IOException e) {
+            return checksums;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int eq = line.lastIndexOf('=');
+                if (eq > 0 && !line.startsWith("#")) {
+                    checksums.put(line.substring(0, eq), line.substring(eq + 1));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return checksums;
+    }
+
+    private static void writeChecksums(Vector kernels, Hashtable checksums) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(CHECKSUM_FILE), "UTF-8");
+        try {
+            writer.write("# Output checksums of PixelKernelBenchmark, see its --update option.\n");
+            for (int i = 0; i < kernels.size(); i++) {
+                String name = ((Kernel) kernels.elementAt(i)).name;
+                writer.write(name + "=" + checksums.get(name) + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String format(double value) {
+        return String.valueOf(Math.round(value * 100) / 100.0);
+    }
+
+    private static String pad(String text, int width) {
+        StringBuffer sb = new StringBuffer(text);
+        while (sb.length() < width) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static String padLeft(String text, int width) {
+        StringBuffer sb = new StringBuffer();
+        while (sb.length() + text.length() < width) {
+            sb.append(' ');
+        }
+        return sb.append(text).toString();
+    }
+}
@@ -0,0 +1,16 @@
+#!/bin/sh
+# Compile the store with the MIDP stand-ins of the harness, and run a script.
+# Usage: harness/run.sh SCRIPT [--warmup N] [--iterations N] [--screen WxH]
+set -e
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BUILD=${HARNESS_BUILD:-/tmp/harness-build}
+
+rm -rf "$BUILD"
+mkdir -p "$BUILD/src" "$BUILD/classes"
+cp -r "$ROOT/src/." "$ROOT/harness/src/." "$BUILD/src/"
+# Some sources start with a UTF-8 byte order mark, which javac rejects.
+find "$BUILD/src" -name '*.java' -exec sed -i '1s/^\xEF\xBB\xBF//' {} +
+find "$BUILD/src" -name '*.java' > "$BUILD/sources.txt"
+javac -encoding UTF-8 -nowarn -d "$BUILD/classes" "@$BUILD/sources.txt"
+
+exec java -Djava.awt.headless=true -Dfile.encoding=UTF-8 -Dstdout.encoding=UTF-8 -cp "$BUILD/classes:$ROOT/res" harness.Harness "$@"
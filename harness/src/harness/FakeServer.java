@@ -0,0 +1,454 @@
+package harness;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Hashtable;
+
+import javax.imageio.ImageIO;
+import javax.microedition.io.HttpConnection;
+
+/**
+ * FakeServer serves the requests of the store from a generated catalog, so
+ * that runs are repeatable and do not need the network.
+ * <p>
+ * The catalog has {@code apps} applets, ranked by total downloads, in
+ * {@code categories} categories, the first of which is divided into three
+ * subcategories. soft.php serves pages of {@code pageSize} applets, filtered
+ * by "type" and "keyword", or the changes since a "since" version; type.php
+ * serves the categories; notify.php accepts everything; logos and snapshots
+ * are generated PNG images. Every response is delayed by {@code latency}
+ * milliseconds.
+ *
+ * @author Oscar Cai
+ */
+
+public final class FakeServer {
+
+    private static final FakeServer instance = new FakeServer();
+
+    private static final String DOWNLOAD_BASE = "http://127.0.0.1/down/";
+
+    private int appCount = 120;
+    private int pageSize = 20;
+    private int categoryCount = 6;
+    private int logoSize = 48;
+    private long latency = 0;
+
+    private int version = 1;
+    private int[] changedAt; // the version in which each applet last changed
+    private int[] totalDowns;
+    private int[] monthDowns;
+    private int[] weekDowns;
+
+    private final Hashtable images = new Hashtable();
+
+    private int inFlight;
+    private int requestCount;
+    private long responseBytes;
+
+    private FakeServer() {
+        generate();
+    }
+
+    public static FakeServer getInstance() {
+        return instance;
+    }
+
+    /**
+     * Set a parameter of the catalog: apps, pageSize, categories, logoSize
+     * or latency. The catalog is generated again.
+     */
+    public synchronized void configure(String key, String value) {
+        int n = Integer.parseInt(value);
+        if (key.equals("apps")) {
+            appCount = n;
+        } else if (key.equals("pageSize")) {
+            pageSize = n;
+        } else if (key.equals("categories")) {
+            categoryCount = n;
+        } else if (key.equals("logoSize")) {
+            logoSize = n;
+            images.clear();
+        } else if (key.equals("latency")) {
+            latency = n;
+        } else {
+            throw new IllegalArgumentException("Unknown server parameter " + key);
+        }
+        generate();
+    }
+
+    private void generate() {
+        version = 1;
+        changedAt = new int[appCount];
+        totalDowns = new int[appCount];
+        monthDowns = new int[appCount];
+        weekDowns = new int[appCount];
+        for (int i = 0; i < appCount; i++) {
+            totalDowns[i] = 100000 - i * 37;
+            monthDowns[i] = (i * 7919) % 5000;
+            weekDowns[i] = (i * 104729) % 700;
+        }
+    }
+
+    /**
+     * Change the download counts of the specified count of applets, in a new
+     * version of the catalog.
+     */
+    public synchronized void mutate(int count) {
+        version++;
+        for (int k = 0; k < count && appCount > 0; k++) {
+            int i = (version * 31 + k * 17) % appCount;
+            totalDowns[i] += 5;
+            monthDowns[i] += 3;
+            weekDowns[i] += 1;
+            changedAt[i] = version;
+        }
+    }
+
+    /**
+     * Whether a connection is open, i.e. a request is being served or its
+     * response being handled.
+     */
+    public synchronized boolean isBusy() {
+        return inFlight > 0;
+    }
+
+    public synchronized int getRequestCount() {
+        return requestCount;
+    }
+
+    public synchronized long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * Open a connection to the specified URL.
+     */
+    public synchronized HttpConnection open(String url) {
+        inFlight++;
+        requestCount++;
+        return new Connection(url);
+    }
+
+    private synchronized void closed(int bytes) {
+        inFlight--;
+        responseBytes += bytes;
+    }
+
+    /**
+     * Serve the request.
+     *
+     * @return {content type, byte[] body}, or null if not found.
+     */
+    private synchronized Object[] serve(String url) throws UnsupportedEncodingException {
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        Hashtable params = parseQuery(query < 0 ? "" : url.substring(query + 1));
+
+        String json;
+        if (path.endsWith("/soft.php")) {
+            json = serveApps(params);
+        } else if (path.endsWith("/type.php")) {
+            json = serveCategories((String) params.get("parent"));
+        } else if (path.endsWith("/notify.php")) {
+            json = "{\"result\":1}";
+        } else if (path.startsWith(DOWNLOAD_BASE + "logo/")) {
+            return new Object[] {"image/png", getImage(path, logoSize, logoSize)};
+        } else if (path.startsWith(DOWNLOAD_BASE + "img/")) {
+            return new Object[] {"image/png", getImage(path, 176, 208)};
+        } else {
+            return null;
+        }
+        return new Object[] {"text/plain; charset=UTF-8", json.getBytes("UTF-8")};
+    }
+
+    private String serveApps(Hashtable params) {
+        String since = (String) params.get("since");
+        if (since != null && since.startsWith("v")) {
+            int sinceVersion = Integer.parseInt(since.substring(1));
+            if (sinceVersion <= version) {
+                return serveDelta(sinceVersion);
+            }
+        }
+
+        String type = (String) params.get("type");
+        String keyword = (String) params.get("keyword");
+        int[] matches = new int[appCount];
+        int count = 0;
+        for (int i = 0; i < appCount; i++) {
+            if ((type == null || isInCategory(i, type))
+                    && (keyword == null || getName(i).toLowerCase().indexOf(keyword.toLowerCase()) >= 0)) {
+                matches[count++] = i;
+            }
+        }
+
+        int page = params.containsKey("page") ? Integer.parseInt((String) params.get("page")) : 1;
+        int pages = Math.max(1, (count + pageSize - 1) / pageSize);
+        StringBuffer sb = new StringBuffer();
+        sb.append("{\"result\":1,\"version\":\"v").append(version)
+                .append("\",\"downloadBase\":\"").append(DOWNLOAD_BASE)
+                .append("\",\"pages\":").append(pages).append(",\"apps\":[");
+        for (int k = (page - 1) * pageSize; k < Math.min(count, page * pageSize); k++) {
+            if (k > (page - 1) * pageSize) {
+                sb.append(',');
+            }
+            appendApp(sb, matches[k]);
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private String serveDelta(int sinceVersion) {
+        StringBuffer sb = new StringBuffer();
+        sb.append("{\"result\":1,\"delta\":true,\"version\":\"v").append(version)
+                .append("\",\"downloadBase\":\"").append(DOWNLOAD_BASE)
+                .append("\",\"added\":[],\"removed\":[],\"changed\":[");
+        boolean first = true;
+        for (int i = 0; i < appCount; i++) {
+            if (changedAt[i] > sinceVersion) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                sb.append("{\"id\":\"a").append(i)
+                        .append("\",\"down\":").append(totalDowns[i])
+                        .append(",\"mdown\":").append(monthDowns[i])
+                        .append(",\"wdown\":").append(weekDowns[i]).append('}');
+            }
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private void appendApp(StringBuffer sb, int i) {
+        sb.append("{\"id\":\"a").append(i)
+                .append("\",\"appname\":\"").append(getName(i))
+                .append("\",\"suitename\":\"").append(getName(i)).append(" Suite")
+                .append("\",\"vendor\":\"Vendor ").append(i % 13)
+                .append("\",\"appVersion\":\"1.").append(i % 10)
+                .append("\",\"logo\":\"logo/").append(i).append(".png")
+                .append("\",\"img\":\"img/").append(i).append(".png")
+                .append("\",\"jad\":\"jad/").append(i).append(".jad")
+                .append("\",\"down\":").append(totalDowns[i])
+                .append(",\"mdown\":").append(monthDowns[i])
+                .append(",\"wdown\":").append(weekDowns[i])
+                .append(",\"intro\":\"");
+        for (int k = 0; k < 3 + i % 5; k++) {
+            sb.append("这是一个用于测试排版的应用简介，The quick brown fox jumps over the lazy dog. ");
+        }
+        sb.append("\"}");
+    }
+
+    private static String getName(int i) {
+        switch (i % 4) {
+        case 0:
+            return "Game " + i;
+        case 1:
+            return "应用" + i;
+        case 2:
+            return "A Rather Long Application Name Number " + i;
+        default:
+            return "中文名称很长的测试应用第" + i + "号";
+        }
+    }
+
+    private String serveCategories(String parent) {
+        StringBuffer sb = new StringBuffer("{\"result\":1,\"types\":[");
+        if (parent == null) {
+            for (int k = 0; k < categoryCount; k++) {
+                if (k > 0) {
+                    sb.append(',');
+                }
+                appendCategory(sb, "t" + k, "分类" + k, k == 0 ? 3 : 0);
+            }
+        } else {
+            for (int s = 0; s < 3; s++) {
+                if (s > 0) {
+                    sb.append(',');
+                }
+                appendCategory(sb, parent + "." + s, "子分类" + s, 0);
+            }
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private void appendCategory(StringBuffer sb, String id, String name, int subCount) {
+        int count = 0;
+        for (int i = 0; i < appCount; i++) {
+            if (isInCategory(i, id)) {
+                count++;
+            }
+        }
+        sb.append("{\"id\":\"").append(id).append("\",\"name\":\"").append(name)
+                .append("\",\"count\":").append(count).append(",\"sub\":").append(subCount).append('}');
+    }
+
+    /**
+     * Whether the applet is in the category "tK", or its subcategory "tK.S".
+     */
+    private boolean isInCategory(int i, String id) {
+        int dot = id.indexOf('.');
+        int k = Integer.parseInt(id.substring(1, dot < 0 ? id.length() : dot));
+        if (i % categoryCount != k) {
+            return false;
+        }
+        return dot < 0 || (i / categoryCount) % 3 == Integer.parseInt(id.substring(dot + 1));
+    }
+
+    private byte[] getImage(String path, int width, int height) {
+        byte[] data = (byte[]) images.get(path);
+        if (data == null) {
+            int seed = path.hashCode();
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int r = (seed >> 16) + x * 255 / width;
+                    int g = (seed >> 8) + y * 255 / height;
+                    int b = seed + (x ^ y);
+                    image.setRGB(x, y, 0xFF000000 | ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                ImageIO.write(image, "png", out);
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage());
+            }
+            data = out.toByteArray();
+            images.put(path, data);
+        }
+        return data;
+    }
+
+    private static Hashtable parseQuery(String query) throws UnsupportedEncodingException {
+        Hashtable params = new Hashtable();
+        int start = 0;
+        while (start < query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            int eq = query.indexOf('=', start);
+            if (eq > start && eq < end) {
+                params.put(decode(query.substring(start, eq)), decode(query.substring(eq + 1, end)));
+            }
+            start = end + 1;
+        }
+        return params;
+    }
+
+    /**
+     * Decode %XX escapes, repeatedly, since parameters may be encoded twice
+     * on the way, e.g. by TextUtil.urlEncode() and then by HttpTask.
+     */
+    private static String decode(String s) throws UnsupportedEncodingException {
+        while (true) {
+            boolean escaped = false;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '%' && i + 2 < s.length()
+                        && Character.digit(s.charAt(i + 1), 16) >= 0 && Character.digit(s.charAt(i + 2), 16) >= 0) {
+                    out.write(Integer.parseInt(s.substring(i + 1, i + 3), 16));
+                    i += 2;
+                    escaped = true;
+                } else if (c == '+') {
+                    out.write(' ');
+                } else {
+                    byte[] bytes = String.valueOf(c).getBytes("UTF-8");
+                    out.write(bytes, 0, bytes.length);
+                }
+            }
+            s = new String(out.toByteArray(), "UTF-8");
+            if (!escaped) {
+                return s;
+            }
+        }
+    }
+
+    /**
+     * A connection served by the FakeServer.
+     */
+    private final class Connection implements HttpConnection {
+
+        private final String url;
+        private Object[] response;
+        private boolean served;
+        private boolean closed;
+        private int bytes;
+
+        Connection(String url) {
+            this.url = url;
+        }
+
+        private void ensureServed() throws IOException {
+            if (served) {
+                return;
+            }
+            served = true;
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    throw new IOException("Interrupted");
+                }
+            }
+            response = serve(url);
+        }
+
+        public String getURL() {
+            return url;
+        }
+
+        public void setRequestMethod(String method) {
+        }
+
+        public void setRequestProperty(String key, String value) {
+        }
+
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        public InputStream openInputStream() throws IOException {
+            ensureServed();
+            if (response == null) {
+                throw new IOException("Not found: " + url);
+            }
+            byte[] body = (byte[]) response[1];
+            bytes = body.length;
+            return new ByteArrayInputStream(body);
+        }
+
+        public int getResponseCode() throws IOException {
+            ensureServed();
+            return response == null ? HTTP_NOT_FOUND : HTTP_OK;
+        }
+
+        public String getResponseMessage() throws IOException {
+            ensureServed();
+            return response == null ? "Not Found" : "OK";
+        }
+
+        public String getHeaderField(String name) throws IOException {
+            ensureServed();
+            if (response != null && name.equalsIgnoreCase("content-type")) {
+                return (String) response[0];
+            }
+            return null;
+        }
+
+        public void close() {
+            if (!closed) {
+                closed = true;
+                closed(bytes);
+            }
+        }
+    }
+}
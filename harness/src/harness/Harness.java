@@ -0,0 +1,420 @@
+package harness;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Vector;
+
+import javax.imageio.ImageIO;
+import javax.microedition.lcdui.Device;
+import javax.microedition.lcdui.Displayable;
+import javax.microedition.midlet.MIDlet;
+
+/**
+ * Harness runs the store headless on J2SE, on the stand-ins of the MIDP
+ * classes in harness/src, and reports the time and allocations of every
+ * operation of a script, in the manner of a JMH benchmark: the measured part
+ * of the script is run for warmup iterations, then for measured iterations.
+ * <p>
+ * A script is a list of operations, one per line; '#' starts a comment. The
+ * operations before "loop" set up the run and are run once, the operations
+ * after it are the measured iteration, which must end in the state it starts
+ * in. Operations:
+ * <pre>
+ * server KEY=VALUE ...  configure the {@link FakeServer}
+ * mutate N              change N applets in a new catalog version
+ * start CLASS           start the MIDlet
+ * settle                wait until the requests are handled, painting, and
+ *                       then for SETTLE_QUIET_MILLIS without requests
+ * key NAME[*N]          press and release a key N times, e.g. key DOWN*5
+ * tap X Y               press and release the pointer
+ * swipe X Y1 Y2 STEPS   drag the pointer from (X, Y1) to (X, Y2)
+ * text STRING           enter the text into the shown TextBox
+ * paint                 repaint the whole screen
+ * expect NAME           fail unless the shown Displayable is a NAME
+ * sleep MS              sleep, e.g. until a delayed search starts
+ * snapshot FILE         save the screen as PNG
+ * </pre>
+ * Every operation is followed by painting the area it invalidated, and both
+ * are measured together. Allocations are those of the harness thread, which
+ * delivers the events, paints and runs the serial calls as the event thread
+ * of a handset would; the tasks allocate on their own threads, uncounted.
+ * <p>
+ * Runs on J2SE, from the project directory:
+ * <pre>
+ * harness/run.sh harness/scripts/applist.script --warmup 5 --iterations 20
+ * </pre>
+ *
+ * @author Oscar Cai
+ */
+
+public final class Harness {
+
+    private static final long SETTLE_QUIET_MILLIS = 50;
+    private static final long SETTLE_TIMEOUT_MILLIS = 10000;
+
+    private static final String[] KEY_NAMES = {
+        "UP", "DOWN", "LEFT", "RIGHT", "SELECT", "SOFT1", "SOFT2", "CLEAR", "BACK", "FIRE",
+        "NUM0", "NUM1", "NUM2", "NUM3", "NUM4", "NUM5", "NUM6", "NUM7", "NUM8", "NUM9", "STAR", "POUND",
+    };
+    private static final int[] KEY_CODES = {
+        -1, -2, -3, -4, -5, -6, -7, -8, -13, 8,
+        48, 49, 50, 51, 52, 53, 54, 55, 56, 57, 42, 35,
+    };
+
+    private static com.sun.management.ThreadMXBean threadBean;
+
+    private MIDlet midlet;
+
+    /**
+     * The measured operations, one per line of the measured iteration.
+     */
+    private final Vector operations = new Vector();
+
+    public static void main(String[] args) throws Exception {
+        String script = null;
+        int warmup = 5;
+        int iterations = 20;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--warmup")) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--iterations")) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--screen")) {
+                String size = args[++i];
+                int x = size.indexOf('x');
+                Device.setScreenSize(Integer.parseInt(size.substring(0, x)), Integer.parseInt(size.substring(x + 1)));
+            } else {
+                script = args[i];
+            }
+        }
+        if (script == null) {
+            System.err.println("Usage: Harness SCRIPT [--warmup N] [--iterations N] [--screen WxH]");
+            System.exit(2);
+        }
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadBean = (com.sun.management.ThreadMXBean) bean;
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        int status = 0;
+        Harness harness = new Harness();
+        try {
+            harness.run(readScript(script), warmup, iterations);
+            harness.report(warmup, iterations);
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        harness.stop();
+        // The tasks and animations run on threads which never end.
+        System.exit(status);
+    }
+
+    private static Vector readScript(String path) throws IOException {
+        Vector lines = new Vector();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (line.length() > 0) {
+                    lines.addElement(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    private void run(Vector script, int warmup, int iterations) throws Exception {
+        int loop = script.indexOf("loop");
+        int setupEnd = loop < 0 ? script.size() : loop;
+        for (int i = 0; i < setupEnd; i++) {
+            execute((String) script.elementAt(i), null);
+        }
+        if (loop < 0) {
+            return;
+        }
+
+        for (int iteration = 0; iteration < warmup + iterations; iteration++) {
+            boolean measured = iteration >= warmup;
+            for (int i = loop + 1; i < script.size(); i++) {
+                String line = (String) script.elementAt(i);
+                if (operations.size() < i - loop) {
+                    operations.addElement(new Operation(line, getRepeat(line) * iterations));
+                }
+                execute(line, measured ? (Operation) operations.elementAt(i - loop - 1) : null);
+            }
+        }
+    }
+
+    private void stop() {
+        if (midlet != null) {
+            try {
+                MIDlet.destroy(midlet);
+            } catch (Exception e) {
+                // Exiting anyway
+            }
+        }
+    }
+
+    private static int getRepeat(String line) {
+        int star = line.lastIndexOf('*');
+        return line.startsWith("key ") && star > 0 ? Integer.parseInt(line.substring(star + 1)) : 1;
+    }
+
+    /**
+     * Execute one line of the script, recording its samples if an operation
+     * is specified.
+     */
+    private void execute(String line, Operation operation) throws Exception {
+        String[] words = split(line);
+        String op = words[0];
+
+        if (op.equals("server")) {
+            for (int i = 1; i < words.length; i++) {
+                int eq = words[i].indexOf('=');
+                FakeServer.getInstance().configure(words[i].substring(0, eq), words[i].substring(eq + 1));
+            }
+        } else if (op.equals("mutate")) {
+            FakeServer.getInstance().mutate(Integer.parseInt(words[1]));
+        } else if (op.equals("start")) {
+            long[] sample = begin();
+            midlet = (MIDlet) Class.forName(words[1]).getDeclaredConstructor().newInstance();
+            MIDlet.start(midlet);
+            end(sample, operation);
+        } else if (op.equals("settle")) {
+            long[] sample = begin();
+            settle();
+            end(sample, operation);
+        } else if (op.equals("key")) {
+            int star = words[1].indexOf('*');
+            String name = star < 0 ? words[1] : words[1].substring(0, star);
+            int keyCode = getKeyCode(name);
+            for (int i = 0; i < getRepeat(line); i++) {
+                long[] sample = begin();
+                Device.keyPressed(keyCode);
+                Device.runSerialCalls();
+                Device.paint();
+                Device.keyReleased(keyCode);
+                end(sample, operation);
+            }
+        } else if (op.equals("tap")) {
+            int x = Integer.parseInt(words[1]);
+            int y = Integer.parseInt(words[2]);
+            long[] sample = begin();
+            Device.pointerPressed(x, y);
+            Device.runSerialCalls();
+            Device.paint();
+            Device.pointerReleased(x, y);
+            end(sample, operation);
+        } else if (op.equals("swipe")) {
+            int x = Integer.parseInt(words[1]);
+            int y1 = Integer.parseInt(words[2]);
+            int y2 = Integer.parseInt(words[3]);
+            int steps = Integer.parseInt(words[4]);
+            long[] sample = begin();
+            Device.pointerPressed(x, y1);
+            for (int i = 1; i <= steps; i++) {
+                Device.runSerialCalls();
+                Device.paint();
+                Device.pointerDragged(x, y1 + (y2 - y1) * i / steps);
+            }
+            Device.runSerialCalls();
+            Device.paint();
+            Device.pointerReleased(x, y2);
+            end(sample, operation);
+        } else if (op.equals("text")) {
+            long[] sample = begin();
+            if (!Device.enterText(line.substring(line.indexOf(' ') + 1))) {
+                throw new IllegalStateException("No TextBox shown: " + line);
+            }
+            end(sample, operation);
+        } else if (op.equals("paint")) {
+            long[] sample = begin();
+            Device.paintAll();
+            end(sample, operation);
+        } else if (op.equals("expect")) {
+            Displayable current = Device.getCurrent();
+            String name = current == null ? "null" : current.getClass().getName();
+            if (!name.equals(words[1]) && !name.endsWith("." + words[1])) {
+                throw new IllegalStateException("Expected " + words[1] + " but " + name + " is shown");
+            }
+        } else if (op.equals("sleep")) {
+            Thread.sleep(Long.parseLong(words[1]));
+        } else if (op.equals("snapshot")) {
+            Device.runSerialCalls();
+            Device.paint();
+            ImageIO.write(Device.getScreen().getBufferedImage(), "png", new File(words[1]));
+        } else {
+            throw new IllegalArgumentException("Unknown operation: " + line);
+        }
+    }
+
+    private static int getKeyCode(String name) {
+        for (int i = 0; i < KEY_NAMES.length; i++) {
+            if (KEY_NAMES[i].equals(name)) {
+                return KEY_CODES[i];
+            }
+        }
+        return Integer.parseInt(name);
+    }
+
+    /**
+     * Run the serial calls and paint until no request has been open for
+     * SETTLE_QUIET_MILLIS, and no serial call is queued.
+     */
+    private static void settle() throws InterruptedException {
+        FakeServer server = FakeServer.getInstance();
+        long start = System.currentTimeMillis();
+        long quietSince = start;
+        int requests = server.getRequestCount();
+        while (true) {
+            Device.runSerialCalls();
+            Device.paint();
+
+            long now = System.currentTimeMillis();
+            if (server.isBusy() || Device.hasSerialCalls() || server.getRequestCount() != requests) {
+                requests = server.getRequestCount();
+                quietSince = now;
+            } else if (now - quietSince >= SETTLE_QUIET_MILLIS) {
+                return;
+            }
+            if (now - start > SETTLE_TIMEOUT_MILLIS) {
+                throw new IllegalStateException("Not settled in " + SETTLE_TIMEOUT_MILLIS + " ms");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static long[] begin() {
+        return new long[] {allocatedBytes(), System.nanoTime()};
+    }
+
+    /**
+     * Paint what the operation invalidated, and record the sample.
+     */
+    private static void end(long[] sample, Operation operation) {
+        Device.runSerialCalls();
+        Device.paint();
+        long elapsed = System.nanoTime() - sample[1];
+        long allocated = allocatedBytes() - sample[0];
+        if (operation != null) {
+            operation.times[operation.count] = elapsed;
+            operation.allocations[operation.count] = allocated;
+            operation.count++;
+        }
+    }
+
+    private static long allocatedBytes() {
+        return threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void report(int warmup, int iterations) {
+        System.out.println("# Warmup: " + warmup + " iterations, measurement: " + iterations + " iterations");
+        System.out.println("# Screen: " + Device.getWidth() + "x" + Device.getHeight()
+                + ", requests: " + FakeServer.getInstance().getRequestCount()
+                + ", response bytes: " + FakeServer.getInstance().getResponseBytes()
+                + ", paints: " + Device.getPaintCount());
+        System.out.println();
+        System.out.println(pad("operation", 28) + padLeft("n", 6) + padLeft("mean us", 11) + padLeft("p50 us", 11)
+                + padLeft("p95 us", 11) + padLeft("max us", 11) + padLeft("B/op", 11));
+        for (int i = 0; i < operations.size(); i++) {
+            Operation op = (Operation) operations.elementAt(i);
+            int n = op.count;
+            if (n == 0) {
+                continue; // Not measured, e.g. expect
+            }
+            long[] sorted = new long[n];
+            System.arraycopy(op.times, 0, sorted, 0, n);
+            Arrays.sort(sorted);
+            long total = 0;
+            long allocated = 0;
+            for (int j = 0; j < n; j++) {
+                total += op.times[j];
+                allocated += op.allocations[j];
+            }
+            System.out.println(pad(op.label, 28) + padLeft(String.valueOf(n), 6)
+                    + padLeft(micros(total / Math.max(1, n)), 11)
+                    + padLeft(micros(percentile(sorted, 50)), 11)
+                    + padLeft(micros(percentile(sorted, 95)), 11)
+                    + padLeft(micros(sorted[n - 1]), 11)
+                    + padLeft(threadBean == null ? "n/a" : String.valueOf(allocated / Math.max(1, n)), 11));
+        }
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (sorted.length * percent + 99) / 100 - 1)];
+    }
+
+    private static String micros(long nanos) {
+        return String.valueOf(Math.round(nanos / 100.0) / 10.0);
+    }
+
+    private static String[] split(String line) {
+        Vector words = new Vector();
+        int start = 0;
+        while (start < line.length()) {
+            int end = line.indexOf(' ', start);
+            if (end < 0) {
+                end = line.length();
+            }
+            if (end > start) {
+                words.addElement(line.substring(start, end));
+            }
+            start = end + 1;
+        }
+        String[] result = new String[words.size()];
+        words.copyInto(result);
+        return result;
+    }
+
+    private static String pad(String text, int width) {
+        StringBuffer sb = new StringBuffer(text.length() > width - 1 ? text.substring(0, width - 1) : text);
+        while (sb.length() < width) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static String padLeft(String text, int width) {
+        StringBuffer sb = new StringBuffer();
+        while (sb.length() + text.length() < width) {
+            sb.append(' ');
+        }
+        return sb.append(text).toString();
+    }
+
+    /**
+     * The samples of a measured operation: elapsed nanoseconds and allocated
+     * bytes, one per repetition per iteration.
+     */
+    private static final class Operation {
+        final String label;
+        final long[] times;
+        final long[] allocations;
+        int count;
+
+        Operation(String label, int capacity) {
+            this.label = label;
+            times = new long[capacity];
+            allocations = new long[capacity];
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package javax.microedition.io;
+
+import java.io.IOException;
+
+/**
+ * Harness stand-in for the GCF Connection.
+ *
+ * @author Oscar Cai
+ */
+
+public interface Connection {
+
+    void close() throws IOException;
+}
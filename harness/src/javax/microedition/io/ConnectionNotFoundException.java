@@ -0,0 +1,19 @@
+package javax.microedition.io;
+
+import java.io.IOException;
+
+/**
+ * Harness stand-in for the GCF ConnectionNotFoundException.
+ *
+ * @author Oscar Cai
+ */
+
+public class ConnectionNotFoundException extends IOException {
+
+    public ConnectionNotFoundException() {
+    }
+
+    public ConnectionNotFoundException(String s) {
+        super(s);
+    }
+}
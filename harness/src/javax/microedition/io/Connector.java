@@ -0,0 +1,36 @@
+package javax.microedition.io;
+
+import java.io.IOException;
+
+import harness.FakeServer;
+
+/**
+ * Harness stand-in for the GCF Connector. Every HTTP connection is served by
+ * the {@link FakeServer}, nothing goes to the network.
+ *
+ * @author Oscar Cai
+ */
+
+public class Connector {
+    public static final int READ = 1;
+    public static final int WRITE = 2;
+    public static final int READ_WRITE = 3;
+
+    private Connector() {
+    }
+
+    public static Connection open(String name) throws IOException {
+        if (!name.startsWith("http://") && !name.startsWith("https://")) {
+            throw new ConnectionNotFoundException(name);
+        }
+        return FakeServer.getInstance().open(name);
+    }
+
+    public static Connection open(String name, int mode) throws IOException {
+        return open(name);
+    }
+
+    public static Connection open(String name, int mode, boolean timeouts) throws IOException {
+        return open(name);
+    }
+}
@@ -0,0 +1,36 @@
+package javax.microedition.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Harness stand-in for the MIDP HttpConnection, the part the store uses.
+ *
+ * @author Oscar Cai
+ */
+
+public interface HttpConnection extends Connection {
+    String GET = "GET";
+    String POST = "POST";
+    String HEAD = "HEAD";
+    int HTTP_OK = 200;
+    int HTTP_NOT_FOUND = 404;
+    int HTTP_INTERNAL_ERROR = 500;
+
+    void setRequestMethod(String method) throws IOException;
+
+    void setRequestProperty(String key, String value) throws IOException;
+
+    OutputStream openOutputStream() throws IOException;
+
+    InputStream openInputStream() throws IOException;
+
+    int getResponseCode() throws IOException;
+
+    String getResponseMessage() throws IOException;
+
+    String getHeaderField(String name) throws IOException;
+
+    String getURL();
+}
@@ -0,0 +1,135 @@
+package javax.microedition.lcdui;
+
+/**
+ * Harness stand-in for the MIDP Canvas. Repaint requests are collected by
+ * the {@link Device}, which paints the shown Canvas when the harness asks.
+ *
+ * @author Oscar Cai
+ */
+
+public abstract class Canvas extends Displayable {
+    public static final int UP = 1;
+    public static final int DOWN = 6;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 5;
+    public static final int FIRE = 8;
+    public static final int GAME_A = 9;
+    public static final int GAME_B = 10;
+    public static final int GAME_C = 11;
+    public static final int GAME_D = 12;
+    public static final int KEY_NUM0 = 48;
+    public static final int KEY_NUM1 = 49;
+    public static final int KEY_NUM2 = 50;
+    public static final int KEY_NUM3 = 51;
+    public static final int KEY_NUM4 = 52;
+    public static final int KEY_NUM5 = 53;
+    public static final int KEY_NUM6 = 54;
+    public static final int KEY_NUM7 = 55;
+    public static final int KEY_NUM8 = 56;
+    public static final int KEY_NUM9 = 57;
+    public static final int KEY_STAR = 42;
+    public static final int KEY_POUND = 35;
+
+    protected Canvas() {
+    }
+
+    public void setFullScreenMode(boolean mode) {
+    }
+
+    protected abstract void paint(Graphics g);
+
+    public final void repaint() {
+        Device.repaint(this, 0, 0, getWidth(), getHeight());
+    }
+
+    public final void repaint(int x, int y, int width, int height) {
+        Device.repaint(this, x, y, width, height);
+    }
+
+    public final void serviceRepaints() {
+        Device.serviceRepaints(this);
+    }
+
+    public boolean isDoubleBuffered() {
+        return true;
+    }
+
+    public boolean hasPointerEvents() {
+        return true;
+    }
+
+    public boolean hasPointerMotionEvents() {
+        return true;
+    }
+
+    public boolean hasRepeatEvents() {
+        return true;
+    }
+
+    public int getGameAction(int keyCode) {
+        switch (keyCode) {
+        case -1:
+        case KEY_NUM2:
+            return UP;
+        case -2:
+        case KEY_NUM8:
+            return DOWN;
+        case -3:
+        case KEY_NUM4:
+            return LEFT;
+        case -4:
+        case KEY_NUM6:
+            return RIGHT;
+        case -5:
+        case KEY_NUM5:
+            return FIRE;
+        default:
+            return 0;
+        }
+    }
+
+    public int getKeyCode(int gameAction) {
+        switch (gameAction) {
+        case UP:
+            return -1;
+        case DOWN:
+            return -2;
+        case LEFT:
+            return -3;
+        case RIGHT:
+            return -4;
+        case FIRE:
+            return -5;
+        default:
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public String getKeyName(int keyCode) {
+        return String.valueOf(keyCode);
+    }
+
+    protected void showNotify() {
+    }
+
+    protected void hideNotify() {
+    }
+
+    protected void keyPressed(int keyCode) {
+    }
+
+    protected void keyReleased(int keyCode) {
+    }
+
+    protected void keyRepeated(int keyCode) {
+    }
+
+    protected void pointerPressed(int x, int y) {
+    }
+
+    protected void pointerReleased(int x, int y) {
+    }
+
+    protected void pointerDragged(int x, int y) {
+    }
+}
@@ -0,0 +1,12 @@
+package javax.microedition.lcdui;
+
+/**
+ * Harness stand-in for the MIDP CommandListener.
+ *
+ * @author Oscar Cai
+ */
+
+public interface CommandListener {
+
+    void commandAction(Command c, Displayable d);
+}
@@ -0,0 +1,265 @@
+package javax.microedition.lcdui;
+
+import java.util.Vector;
+
+/**
+ * The simulated handset behind the harness stand-ins: its screen, the shown
+ * {@link Displayable}, the pending repaint area and the calls queued by
+ * {@link Display#callSerially(Runnable)}.
+ * <p>
+ * Nothing runs by itself: the harness delivers key and pointer events,
+ * paints the shown Canvas and runs the queued calls on its own thread, so
+ * that every operation is measured on one thread, as the event thread of a
+ * handset would run it. The tasks of the code under test still run on their
+ * own threads.
+ *
+ * @author Oscar Cai
+ */
+
+public final class Device {
+
+    private static int width = 240;
+    private static int height = 320;
+    private static Image screen;
+    private static Graphics screenGraphics;
+
+    private static Displayable current;
+
+    private static boolean repaintPending;
+    private static int repaintLeft;
+    private static int repaintTop;
+    private static int repaintRight;
+    private static int repaintBottom;
+
+    private static final Vector serialCalls = new Vector();
+
+    private static int paintCount;
+
+    private Device() {
+    }
+
+    /**
+     * Set the size of the screen, before anything is shown.
+     */
+    public static synchronized void setScreenSize(int w, int h) {
+        width = w;
+        height = h;
+        screen = null;
+        screenGraphics = null;
+    }
+
+    public static synchronized int getWidth() {
+        return width;
+    }
+
+    public static synchronized int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the screen, as last painted.
+     */
+    public static synchronized Image getScreen() {
+        if (screen == null) {
+            screen = Image.createImage(width, height);
+            screenGraphics = new Graphics(screen);
+        }
+        return screen;
+    }
+
+    public static synchronized Displayable getCurrent() {
+        return current;
+    }
+
+    static void setCurrent(Displayable next) {
+        Displayable previous;
+        synchronized (Device.class) {
+            if (next == null || next == current) {
+                return;
+            }
+            previous = current;
+            current = next;
+        }
+        if (previous instanceof Canvas) {
+            ((Canvas) previous).hideNotify();
+        }
+        if (next instanceof Canvas) {
+            ((Canvas) next).showNotify();
+            repaint((Canvas) next, 0, 0, width, height);
+        }
+    }
+
+    static synchronized void repaint(Canvas canvas, int x, int y, int w, int h) {
+        if (canvas != current || w <= 0 || h <= 0) {
+            return;
+        }
+        if (!repaintPending) {
+            repaintLeft = x;
+            repaintTop = y;
+            repaintRight = x + w;
+            repaintBottom = y + h;
+            repaintPending = true;
+        } else {
+            repaintLeft = Math.min(repaintLeft, x);
+            repaintTop = Math.min(repaintTop, y);
+            repaintRight = Math.max(repaintRight, x + w);
+            repaintBottom = Math.max(repaintBottom, y + h);
+        }
+    }
+
+    static void serviceRepaints(Canvas canvas) {
+        if (canvas == getCurrent()) {
+            paint();
+        }
+    }
+
+    static synchronized void callSerially(Runnable r) {
+        serialCalls.addElement(r);
+    }
+
+    /**
+     * Paint the pending repaint area of the shown Canvas, if any.
+     *
+     * @return true if anything was painted.
+     */
+    public static boolean paint() {
+        Canvas canvas;
+        Graphics g;
+        synchronized (Device.class) {
+            if (!repaintPending || !(current instanceof Canvas)) {
+                return false;
+            }
+            canvas = (Canvas) current;
+            getScreen();
+            g = screenGraphics;
+            g.reset();
+            g.setClip(repaintLeft, repaintTop, repaintRight - repaintLeft, repaintBottom - repaintTop);
+            repaintPending = false;
+            paintCount++;
+        }
+        canvas.paint(g);
+        return true;
+    }
+
+    /**
+     * Repaint the whole shown Canvas.
+     */
+    public static void paintAll() {
+        Displayable d = getCurrent();
+        if (d instanceof Canvas) {
+            repaint((Canvas) d, 0, 0, width, height);
+            paint();
+        }
+    }
+
+    /**
+     * Get the count of paints so far.
+     */
+    public static synchronized int getPaintCount() {
+        return paintCount;
+    }
+
+    /**
+     * Run the calls queued by {@link Display#callSerially(Runnable)}.
+     *
+     * @return the count of calls run.
+     */
+    public static int runSerialCalls() {
+        int count = 0;
+        while (true) {
+            Runnable r;
+            synchronized (Device.class) {
+                if (serialCalls.isEmpty()) {
+                    return count;
+                }
+                r = (Runnable) serialCalls.elementAt(0);
+                serialCalls.removeElementAt(0);
+            }
+            r.run();
+            count++;
+        }
+    }
+
+    public static synchronized boolean hasSerialCalls() {
+        return !serialCalls.isEmpty();
+    }
+
+    public static void keyPressed(int keyCode) {
+        Displayable d = getCurrent();
+        if (d instanceof Canvas) {
+            ((Canvas) d).keyPressed(keyCode);
+        }
+    }
+
+    public static void keyRepeated(int keyCode) {
+        Displayable d = getCurrent();
+        if (d instanceof Canvas) {
+            ((Canvas) d).keyRepeated(keyCode);
+        }
+    }
+
+    public static void keyReleased(int keyCode) {
+        Displayable d = getCurrent();
+        if (d instanceof Canvas) {
+            ((Canvas) d).keyReleased(keyCode);
+        }
+    }
+
+    public static void pointerPressed(int x, int y) {
+        Displayable d = getCurrent();
+        if (d instanceof Canvas) {
+            ((Canvas) d).pointerPressed(x, y);
+        }
+    }
+
+    public static void pointerDragged(int x, int y) {
+        Displayable d = getCurrent();
+        if (d instanceof Canvas) {
+            ((Canvas) d).pointerDragged(x, y);
+        }
+    }
+
+    public static void pointerReleased(int x, int y) {
+        Displayable d = getCurrent();
+        if (d instanceof Canvas) {
+            ((Canvas) d).pointerReleased(x, y);
+        }
+    }
+
+    /**
+     * Invoke the first command of the specified type of the shown
+     * Displayable, e.g. {@link Command#OK}.
+     *
+     * @return true if there was such a command.
+     */
+    public static boolean invokeCommand(int commandType) {
+        Displayable d = getCurrent();
+        if (d == null || d.commandListener == null) {
+            return false;
+        }
+        for (int i = 0; i < d.commands.size(); i++) {
+            Command c = (Command) d.commands.elementAt(i);
+            if (c.getCommandType() == commandType) {
+                d.commandListener.commandAction(c, d);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Enter the text into the shown TextBox and confirm it with its OK
+     * command.
+     *
+     * @return true if a TextBox was shown.
+     */
+    public static boolean enterText(String text) {
+        Displayable d = getCurrent();
+        if (!(d instanceof TextBox)) {
+            return false;
+        }
+        ((TextBox) d).setString(text);
+        invokeCommand(Command.OK);
+        return true;
+    }
+}
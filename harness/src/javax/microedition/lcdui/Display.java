@@ -0,0 +1,53 @@
+package javax.microedition.lcdui;
+
+import javax.microedition.midlet.MIDlet;
+
+/**
+ * Harness stand-in for the MIDP Display, the display of the {@link Device}.
+ *
+ * @author Oscar Cai
+ */
+
+public class Display {
+
+    private static final Display display = new Display();
+
+    private Display() {
+    }
+
+    public static Display getDisplay(MIDlet m) {
+        return display;
+    }
+
+    public Displayable getCurrent() {
+        return Device.getCurrent();
+    }
+
+    public void setCurrent(Displayable next) {
+        Device.setCurrent(next);
+    }
+
+    public void callSerially(Runnable r) {
+        Device.callSerially(r);
+    }
+
+    public boolean isColor() {
+        return true;
+    }
+
+    public int numColors() {
+        return 1 << 24;
+    }
+
+    public int numAlphaLevels() {
+        return 256;
+    }
+
+    public boolean vibrate(int duration) {
+        return false;
+    }
+
+    public boolean flashBacklight(int duration) {
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package javax.microedition.lcdui;
+
+import java.util.Vector;
+
+/**
+ * Harness stand-in for the MIDP Displayable, sized as the {@link Device}
+ * screen.
+ *
+ * @author Oscar Cai
+ */
+
+public abstract class Displayable {
+
+    private String title;
+    final Vector commands = new Vector();
+    CommandListener commandListener;
+
+    Displayable() {
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public int getWidth() {
+        return Device.getWidth();
+    }
+
+    public int getHeight() {
+        return Device.getHeight();
+    }
+
+    public boolean isShown() {
+        return Device.getCurrent() == this;
+    }
+
+    public void addCommand(Command cmd) {
+        if (!commands.contains(cmd)) {
+            commands.addElement(cmd);
+        }
+    }
+
+    public void removeCommand(Command cmd) {
+        commands.removeElement(cmd);
+    }
+
+    public void setCommandListener(CommandListener l) {
+        commandListener = l;
+    }
+
+    protected void sizeChanged(int w, int h) {
+    }
+}
@@ -0,0 +1,112 @@
+package javax.microedition.lcdui;
+
+/**
+ * Harness stand-in for the MIDP Font, with deterministic metrics which do not
+ * depend on the fonts installed on the build box: the height depends on the
+ * size only, Latin characters are half as wide as high, one pixel wider in
+ * bold, and CJK characters are square.
+ *
+ * @author Oscar Cai
+ */
+
+public class Font {
+    public static final int FACE_SYSTEM = 0;
+    public static final int FACE_MONOSPACE = 32;
+    public static final int FACE_PROPORTIONAL = 64;
+    public static final int STYLE_PLAIN = 0;
+    public static final int STYLE_BOLD = 1;
+    public static final int STYLE_ITALIC = 2;
+    public static final int STYLE_UNDERLINED = 4;
+    public static final int SIZE_MEDIUM = 0;
+    public static final int SIZE_SMALL = 8;
+    public static final int SIZE_LARGE = 16;
+
+    private static final Font[] fonts = new Font[3 * 8 * 3];
+
+    private final int face;
+    private final int style;
+    private final int size;
+    private final int height;
+
+    private Font(int face, int style, int size) {
+        this.face = face;
+        this.style = style;
+        this.size = size;
+        height = size == SIZE_SMALL ? 14 : (size == SIZE_LARGE ? 20 : 16);
+    }
+
+    public static synchronized Font getFont(int face, int style, int size) {
+        if ((face != FACE_SYSTEM && face != FACE_MONOSPACE && face != FACE_PROPORTIONAL)
+                || (style & ~7) != 0
+                || (size != SIZE_SMALL && size != SIZE_MEDIUM && size != SIZE_LARGE)) {
+            throw new IllegalArgumentException();
+        }
+        int index = ((face >> 5) * 8 + style) * 3 + (size >> 3);
+        if (fonts[index] == null) {
+            fonts[index] = new Font(face, style, size);
+        }
+        return fonts[index];
+    }
+
+    public static Font getDefaultFont() {
+        return getFont(FACE_SYSTEM, STYLE_PLAIN, SIZE_MEDIUM);
+    }
+
+    public int getFace() {
+        return face;
+    }
+
+    public int getStyle() {
+        return style;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isPlain() {
+        return style == STYLE_PLAIN;
+    }
+
+    public boolean isBold() {
+        return (style & STYLE_BOLD) != 0;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBaselinePosition() {
+        return height - height / 5;
+    }
+
+    public int charWidth(char ch) {
+        if (ch >= 0x2E80) {
+            return height;
+        }
+        if (ch == ' ') {
+            return height / 3;
+        }
+        return height / 2 + (isBold() ? 1 : 0);
+    }
+
+    public int charsWidth(char[] ch, int offset, int length) {
+        int width = 0;
+        for (int i = offset; i < offset + length; i++) {
+            width += charWidth(ch[i]);
+        }
+        return width;
+    }
+
+    public int stringWidth(String str) {
+        return substringWidth(str, 0, str.length());
+    }
+
+    public int substringWidth(String str, int offset, int len) {
+        int width = 0;
+        for (int i = offset; i < offset + len; i++) {
+            width += charWidth(str.charAt(i));
+        }
+        return width;
+    }
+}
@@ -0,0 +1,364 @@
+package javax.microedition.lcdui;
+
+import javax.microedition.lcdui.game.Sprite;
+
+/**
+ * Harness stand-in for the MIDP Graphics, drawing into the pixel array of an
+ * {@link Image} without allocating, so that the allocations measured by the
+ * harness are those of the code under test. Text is drawn as one box per
+ * character with the deterministic {@link Font} metrics.
+ *
+ * @author Oscar Cai
+ */
+
+public class Graphics {
+    public static final int HCENTER = 1;
+    public static final int VCENTER = 2;
+    public static final int LEFT = 4;
+    public static final int RIGHT = 8;
+    public static final int TOP = 16;
+    public static final int BOTTOM = 32;
+    public static final int BASELINE = 64;
+    public static final int SOLID = 0;
+    public static final int DOTTED = 1;
+
+    private final Image target;
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+
+    private int translateX;
+    private int translateY;
+
+    // The clip in target coordinates, the right and bottom exclusive.
+    private int clipLeft;
+    private int clipTop;
+    private int clipRight;
+    private int clipBottom;
+
+    private int color;
+    private Font font;
+    private int strokeStyle;
+
+    Graphics(Image target) {
+        this.target = target;
+        pixels = target.pixels;
+        width = target.width;
+        height = target.height;
+        reset();
+    }
+
+    /**
+     * Reset the translation, clip, color and font, as for a new paint.
+     */
+    void reset() {
+        translateX = 0;
+        translateY = 0;
+        clipLeft = 0;
+        clipTop = 0;
+        clipRight = width;
+        clipBottom = height;
+        color = 0;
+        font = Font.getDefaultFont();
+        strokeStyle = SOLID;
+    }
+
+    public void translate(int x, int y) {
+        translateX += x;
+        translateY += y;
+    }
+
+    public int getTranslateX() {
+        return translateX;
+    }
+
+    public int getTranslateY() {
+        return translateY;
+    }
+
+    public void setClip(int x, int y, int width, int height) {
+        clipLeft = Math.max(0, x + translateX);
+        clipTop = Math.max(0, y + translateY);
+        clipRight = Math.min(this.width, x + translateX + Math.max(0, width));
+        clipBottom = Math.min(this.height, y + translateY + Math.max(0, height));
+    }
+
+    public void clipRect(int x, int y, int width, int height) {
+        clipLeft = Math.max(clipLeft, x + translateX);
+        clipTop = Math.max(clipTop, y + translateY);
+        clipRight = Math.min(clipRight, x + translateX + Math.max(0, width));
+        clipBottom = Math.min(clipBottom, y + translateY + Math.max(0, height));
+    }
+
+    public int getClipX() {
+        return clipLeft - translateX;
+    }
+
+    public int getClipY() {
+        return clipTop - translateY;
+    }
+
+    public int getClipWidth() {
+        return Math.max(0, clipRight - clipLeft);
+    }
+
+    public int getClipHeight() {
+        return Math.max(0, clipBottom - clipTop);
+    }
+
+    public void setColor(int rgb) {
+        color = rgb & 0xFFFFFF;
+    }
+
+    public void setColor(int red, int green, int blue) {
+        color = ((red & 0xFF) << 16) | ((green & 0xFF) << 8) | (blue & 0xFF);
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public int getDisplayColor(int rgb) {
+        return rgb & 0xFFFFFF;
+    }
+
+    public void setFont(Font font) {
+        this.font = font == null ? Font.getDefaultFont() : font;
+    }
+
+    public Font getFont() {
+        return font;
+    }
+
+    public void setStrokeStyle(int style) {
+        strokeStyle = style;
+    }
+
+    public int getStrokeStyle() {
+        return strokeStyle;
+    }
+
+    public void fillRect(int x, int y, int width, int height) {
+        int left = Math.max(clipLeft, x + translateX);
+        int top = Math.max(clipTop, y + translateY);
+        int right = Math.min(clipRight, x + translateX + width);
+        int bottom = Math.min(clipBottom, y + translateY + height);
+        int argb = 0xFF000000 | color;
+        for (int row = top; row < bottom; row++) {
+            int offset = row * this.width;
+            for (int col = left; col < right; col++) {
+                pixels[offset + col] = argb;
+            }
+        }
+    }
+
+    public void drawRect(int x, int y, int width, int height) {
+        if (width < 0 || height < 0) {
+            return;
+        }
+        fillRect(x, y, width + 1, 1);
+        fillRect(x, y + height, width + 1, 1);
+        fillRect(x, y + 1, 1, height - 1);
+        fillRect(x + width, y + 1, 1, height - 1);
+    }
+
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        if (y1 == y2) {
+            fillRect(Math.min(x1, x2), y1, Math.abs(x2 - x1) + 1, 1);
+            return;
+        }
+        if (x1 == x2) {
+            fillRect(x1, Math.min(y1, y2), 1, Math.abs(y2 - y1) + 1);
+            return;
+        }
+
+        int argb = 0xFF000000 | color;
+        int dx = Math.abs(x2 - x1);
+        int dy = -Math.abs(y2 - y1);
+        int sx = x1 < x2 ? 1 : -1;
+        int sy = y1 < y2 ? 1 : -1;
+        int err = dx + dy;
+        int x = x1 + translateX;
+        int y = y1 + translateY;
+        int endX = x2 + translateX;
+        int endY = y2 + translateY;
+        while (true) {
+            if (x >= clipLeft && x < clipRight && y >= clipTop && y < clipBottom) {
+                pixels[y * this.width + x] = argb;
+            }
+            if (x == endX && y == endY) {
+                break;
+            }
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y += sy;
+            }
+        }
+    }
+
+    public void drawString(String str, int x, int y, int anchor) {
+        drawSubstring(str, 0, str.length(), x, y, anchor);
+    }
+
+    public void drawSubstring(String str, int offset, int len, int x, int y, int anchor) {
+        int textWidth = font.substringWidth(str, offset, len);
+        if ((anchor & HCENTER) != 0) {
+            x -= textWidth / 2;
+        } else if ((anchor & RIGHT) != 0) {
+            x -= textWidth;
+        }
+        if ((anchor & BASELINE) != 0) {
+            y -= font.getBaselinePosition();
+        } else if ((anchor & BOTTOM) != 0) {
+            y -= font.getHeight();
+        }
+
+        int glyphTop = y + font.getHeight() / 5;
+        int glyphHeight = font.getBaselinePosition() - font.getHeight() / 5;
+        for (int i = offset; i < offset + len; i++) {
+            char ch = str.charAt(i);
+            int charWidth = font.charWidth(ch);
+            if (ch > ' ') {
+                fillRect(x + 1, glyphTop, charWidth - 2, glyphHeight);
+            }
+            x += charWidth;
+        }
+    }
+
+    public void drawChar(char character, int x, int y, int anchor) {
+        drawString(String.valueOf(character), x, y, anchor);
+    }
+
+    public void drawImage(Image img, int x, int y, int anchor) {
+        x = anchorX(x, img.width, anchor);
+        y = anchorY(y, img.height, anchor);
+        blit(img.pixels, 0, img.width, x, y, img.width, img.height, true);
+    }
+
+    public void drawRegion(Image src, int xSrc, int ySrc, int width, int height,
+            int transform, int xDest, int yDest, int anchor) {
+        if (xSrc < 0 || ySrc < 0 || xSrc + width > src.width || ySrc + height > src.height) {
+            throw new IllegalArgumentException("Region out of image");
+        }
+        if (transform == Sprite.TRANS_NONE) {
+            xDest = anchorX(xDest, width, anchor);
+            yDest = anchorY(yDest, height, anchor);
+            blit(src.pixels, ySrc * src.width + xSrc, src.width, xDest, yDest, width, height, true);
+            return;
+        }
+
+        int[] region = new int[width * height];
+        src.getRGB(region, 0, width, xSrc, ySrc, width, height);
+        int[] transformed = new int[width * height];
+        Image.transform(region, width, height, transform, transformed);
+        boolean swap = Image.isSwapping(transform);
+        int dstWidth = swap ? height : width;
+        int dstHeight = swap ? width : height;
+        xDest = anchorX(xDest, dstWidth, anchor);
+        yDest = anchorY(yDest, dstHeight, anchor);
+        blit(transformed, 0, dstWidth, xDest, yDest, dstWidth, dstHeight, true);
+    }
+
+    public void drawRGB(int[] rgbData, int offset, int scanlength, int x, int y,
+            int width, int height, boolean processAlpha) {
+        blit(rgbData, offset, scanlength, x, y, width, height, processAlpha);
+    }
+
+    public void copyArea(int xSrc, int ySrc, int width, int height, int xDest, int yDest, int anchor) {
+        xSrc += translateX;
+        ySrc += translateY;
+        if (xSrc < 0 || ySrc < 0 || xSrc + width > this.width || ySrc + height > this.height) {
+            throw new IllegalArgumentException("Region out of image");
+        }
+        int dstLeft = anchorX(xDest, width, anchor) + translateX;
+        int dstTop = anchorY(yDest, height, anchor) + translateY;
+
+        int left = Math.max(clipLeft, dstLeft);
+        int top = Math.max(clipTop, dstTop);
+        int right = Math.min(clipRight, dstLeft + width);
+        int bottom = Math.min(clipBottom, dstTop + height);
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        int srcLeft = xSrc + left - dstLeft;
+        int srcTop = ySrc + top - dstTop;
+        int rows = bottom - top;
+        int cols = right - left;
+        // Copy the rows in the order which does not overwrite unread rows.
+        if (top > srcTop) {
+            for (int row = rows - 1; row >= 0; row--) {
+                System.arraycopy(pixels, (srcTop + row) * this.width + srcLeft,
+                        pixels, (top + row) * this.width + left, cols);
+            }
+        } else {
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(pixels, (srcTop + row) * this.width + srcLeft,
+                        pixels, (top + row) * this.width + left, cols);
+            }
+        }
+    }
+
+    private static int anchorX(int x, int width, int anchor) {
+        if ((anchor & HCENTER) != 0) {
+            return x - width / 2;
+        } else if ((anchor & RIGHT) != 0) {
+            return x - width;
+        }
+        return x;
+    }
+
+    private static int anchorY(int y, int height, int anchor) {
+        if ((anchor & VCENTER) != 0) {
+            return y - height / 2;
+        } else if ((anchor & BOTTOM) != 0) {
+            return y - height;
+        }
+        return y;
+    }
+
+    /**
+     * Draw ARGB pixels at (x, y) in translated coordinates, blending them over
+     * the target if processAlpha is true.
+     */
+    private void blit(int[] src, int srcOffset, int srcScan, int x, int y,
+            int width, int height, boolean processAlpha) {
+        int dstLeft = x + translateX;
+        int dstTop = y + translateY;
+        int left = Math.max(clipLeft, dstLeft);
+        int top = Math.max(clipTop, dstTop);
+        int right = Math.min(clipRight, dstLeft + width);
+        int bottom = Math.min(clipBottom, dstTop + height);
+
+        for (int row = top; row < bottom; row++) {
+            int s = srcOffset + (row - dstTop) * srcScan + (left - dstLeft);
+            int d = row * this.width + left;
+            for (int col = left; col < right; col++, s++, d++) {
+                int argb = src[s];
+                int alpha = argb >>> 24;
+                if (!processAlpha || alpha == 0xFF) {
+                    pixels[d] = argb | 0xFF000000;
+                } else if (alpha != 0) {
+                    pixels[d] = blend(argb, alpha, pixels[d]);
+                }
+            }
+        }
+    }
+
+    private static int blend(int src, int alpha, int dst) {
+        int inverse = 0xFF - alpha;
+        int r = (((src >> 16) & 0xFF) * alpha + ((dst >> 16) & 0xFF) * inverse) / 0xFF;
+        int g = (((src >> 8) & 0xFF) * alpha + ((dst >> 8) & 0xFF) * inverse) / 0xFF;
+        int b = ((src & 0xFF) * alpha + (dst & 0xFF) * inverse) / 0xFF;
+        int a = alpha + ((dst >>> 24) * inverse) / 0xFF;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    Image getTarget() {
+        return target;
+    }
+}
@@ -0,0 +1,199 @@
+package javax.microedition.lcdui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+import javax.microedition.lcdui.game.Sprite;
+
+/**
+ * Harness stand-in for the MIDP Image, backed by a TYPE_INT_ARGB
+ * BufferedImage whose pixel array {@link Graphics} draws into directly, so
+ * that drawing allocates nothing. A mutable image is opaque, and starts
+ * white as on a handset.
+ *
+ * @author Oscar Cai
+ */
+
+public class Image {
+
+    final BufferedImage bufferedImage;
+    final int[] pixels;
+    final int width;
+    final int height;
+    private final boolean mutable;
+
+    private Image(int width, int height, boolean mutable) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.mutable = mutable;
+        bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        pixels = ((DataBufferInt) bufferedImage.getRaster().getDataBuffer()).getData();
+    }
+
+    public static Image createImage(int width, int height) {
+        Image image = new Image(width, height, true);
+        java.util.Arrays.fill(image.pixels, 0xFFFFFFFF);
+        return image;
+    }
+
+    public static Image createImage(String name) throws IOException {
+        InputStream in = Image.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("No resource " + name);
+        }
+        try {
+            return decode(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    public static Image createImage(byte[] imageData, int imageOffset, int imageLength) {
+        try {
+            return decode(new ByteArrayInputStream(imageData, imageOffset, imageLength));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+    }
+
+    public static Image createImage(InputStream stream) throws IOException {
+        return decode(stream);
+    }
+
+    public static Image createImage(Image source) {
+        if (!source.mutable) {
+            return source;
+        }
+        Image image = new Image(source.width, source.height, false);
+        System.arraycopy(source.pixels, 0, image.pixels, 0, source.pixels.length);
+        return image;
+    }
+
+    public static Image createImage(Image image, int x, int y, int width, int height, int transform) {
+        if (x < 0 || y < 0 || x + width > image.width || y + height > image.height) {
+            throw new IllegalArgumentException("Region out of image");
+        }
+        int[] region = new int[width * height];
+        image.getRGB(region, 0, width, x, y, width, height);
+        boolean swap = isSwapping(transform);
+        Image result = new Image(swap ? height : width, swap ? width : height, false);
+        transform(region, width, height, transform, result.pixels);
+        return result;
+    }
+
+    public static Image createRGBImage(int[] rgb, int width, int height, boolean processAlpha) {
+        Image image = new Image(width, height, false);
+        System.arraycopy(rgb, 0, image.pixels, 0, width * height);
+        if (!processAlpha) {
+            for (int i = 0; i < image.pixels.length; i++) {
+                image.pixels[i] |= 0xFF000000;
+            }
+        }
+        return image;
+    }
+
+    private static Image decode(InputStream in) throws IOException {
+        BufferedImage decoded = ImageIO.read(in);
+        if (decoded == null) {
+            throw new IOException("Unsupported image format");
+        }
+        Image image = new Image(decoded.getWidth(), decoded.getHeight(), false);
+        decoded.getRGB(0, 0, image.width, image.height, image.pixels, 0, image.width);
+        return image;
+    }
+
+    public Graphics getGraphics() {
+        if (!mutable) {
+            throw new IllegalStateException("Immutable image");
+        }
+        return new Graphics(this);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isMutable() {
+        return mutable;
+    }
+
+    public void getRGB(int[] rgbData, int offset, int scanlength, int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Region out of image");
+        }
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(pixels, (y + row) * this.width + x, rgbData, offset + row * scanlength, width);
+        }
+    }
+
+    /**
+     * Get the BufferedImage backing this image, e.g. to save the screen.
+     */
+    public BufferedImage getBufferedImage() {
+        return bufferedImage;
+    }
+
+    static boolean isSwapping(int transform) {
+        return transform == Sprite.TRANS_ROT90 || transform == Sprite.TRANS_ROT270
+                || transform == Sprite.TRANS_MIRROR_ROT90 || transform == Sprite.TRANS_MIRROR_ROT270;
+    }
+
+    /**
+     * Transform the pixels of a width x height region as a Sprite transform.
+     */
+    static void transform(int[] src, int width, int height, int transform, int[] dst) {
+        int dstWidth = isSwapping(transform) ? height : width;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int dx;
+                int dy;
+                switch (transform) {
+                case Sprite.TRANS_MIRROR:
+                    dx = width - 1 - x;
+                    dy = y;
+                    break;
+                case Sprite.TRANS_ROT180:
+                    dx = width - 1 - x;
+                    dy = height - 1 - y;
+                    break;
+                case Sprite.TRANS_MIRROR_ROT180:
+                    dx = x;
+                    dy = height - 1 - y;
+                    break;
+                case Sprite.TRANS_ROT90:
+                    dx = height - 1 - y;
+                    dy = x;
+                    break;
+                case Sprite.TRANS_ROT270:
+                    dx = y;
+                    dy = width - 1 - x;
+                    break;
+                case Sprite.TRANS_MIRROR_ROT90:
+                    dx = height - 1 - y;
+                    dy = width - 1 - x;
+                    break;
+                case Sprite.TRANS_MIRROR_ROT270:
+                    dx = y;
+                    dy = x;
+                    break;
+                default:
+                    dx = x;
+                    dy = y;
+                    break;
+                }
+                dst[dy * dstWidth + dx] = src[y * width + x];
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package javax.microedition.lcdui;
+
+/**
+ * Harness stand-in for the MIDP Screen.
+ *
+ * @author Oscar Cai
+ */
+
+public abstract class Screen extends Displayable {
+
+    Screen() {
+    }
+}
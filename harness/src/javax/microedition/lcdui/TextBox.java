@@ -0,0 +1,60 @@
+package javax.microedition.lcdui;
+
+/**
+ * Harness stand-in for the MIDP TextBox. The text is entered by the harness,
+ * see {@link Device#enterText(String)}.
+ *
+ * @author Oscar Cai
+ */
+
+public class TextBox extends Screen {
+
+    private String text;
+    private int maxSize;
+    private int constraints;
+
+    public TextBox(String title, String text, int maxSize, int constraints) {
+        setTitle(title);
+        this.maxSize = maxSize;
+        this.constraints = constraints;
+        setString(text);
+    }
+
+    public String getString() {
+        return text;
+    }
+
+    public void setString(String text) {
+        if (text == null) {
+            text = "";
+        }
+        if (text.length() > maxSize) {
+            throw new IllegalArgumentException("Text too long");
+        }
+        this.text = text;
+    }
+
+    public int size() {
+        return text.length();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        if (text.length() > maxSize) {
+            text = text.substring(0, maxSize);
+        }
+        return maxSize;
+    }
+
+    public int getConstraints() {
+        return constraints;
+    }
+
+    public void setConstraints(int constraints) {
+        this.constraints = constraints;
+    }
+}
@@ -0,0 +1,18 @@
+package javax.microedition.lcdui;
+
+/**
+ * Harness stand-in for the MIDP TextField, only its constraints.
+ *
+ * @author Oscar Cai
+ */
+
+public class TextField {
+    public static final int ANY = 0;
+    public static final int EMAILADDR = 1;
+    public static final int NUMERIC = 2;
+    public static final int PHONENUMBER = 3;
+    public static final int URL = 4;
+    public static final int DECIMAL = 5;
+    public static final int PASSWORD = 0x10000;
+    public static final int CONSTRAINT_MASK = 0xFFFF;
+}
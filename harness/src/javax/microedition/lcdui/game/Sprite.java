@@ -0,0 +1,18 @@
+package javax.microedition.lcdui.game;
+
+/**
+ * Harness stand-in for the MIDP Sprite, only its transform constants.
+ *
+ * @author Oscar Cai
+ */
+
+public class Sprite {
+    public static final int TRANS_NONE = 0;
+    public static final int TRANS_MIRROR_ROT180 = 1;
+    public static final int TRANS_MIRROR = 2;
+    public static final int TRANS_ROT180 = 3;
+    public static final int TRANS_MIRROR_ROT270 = 4;
+    public static final int TRANS_ROT90 = 5;
+    public static final int TRANS_ROT270 = 6;
+    public static final int TRANS_MIRROR_ROT90 = 7;
+}
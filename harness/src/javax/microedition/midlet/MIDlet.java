@@ -0,0 +1,83 @@
+package javax.microedition.midlet;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+import javax.microedition.io.ConnectionNotFoundException;
+
+/**
+ * Harness stand-in for the MIDP MIDlet. The application properties are set
+ * by the harness, and platform requests are recorded rather than served.
+ *
+ * @author Oscar Cai
+ */
+
+public abstract class MIDlet {
+
+    private static final Hashtable properties = new Hashtable();
+    private static final Vector platformRequests = new Vector();
+    private boolean destroyed;
+
+    protected MIDlet() {
+    }
+
+    protected abstract void startApp() throws MIDletStateChangeException;
+
+    protected abstract void pauseApp();
+
+    protected abstract void destroyApp(boolean unconditional) throws MIDletStateChangeException;
+
+    public final void notifyDestroyed() {
+        destroyed = true;
+    }
+
+    public final void notifyPaused() {
+    }
+
+    public final void resumeRequest() {
+    }
+
+    public final String getAppProperty(String key) {
+        return (String) properties.get(key);
+    }
+
+    public final boolean platformRequest(String url) throws ConnectionNotFoundException {
+        platformRequests.addElement(url);
+        return false;
+    }
+
+    /**
+     * Whether the MIDlet has called {@link #notifyDestroyed()}.
+     */
+    public final boolean isDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * Set an application property, as in the JAD.
+     */
+    public static void setAppProperty(String key, String value) {
+        properties.put(key, value);
+    }
+
+    /**
+     * Get the URLs requested by {@link #platformRequest(String)} so far.
+     */
+    public static Vector getPlatformRequests() {
+        return platformRequests;
+    }
+
+    /**
+     * Start the MIDlet as the AMS does.
+     */
+    public static void start(MIDlet midlet) throws MIDletStateChangeException {
+        midlet.startApp();
+    }
+
+    /**
+     * Destroy the MIDlet as the AMS does.
+     */
+    public static void destroy(MIDlet midlet) throws MIDletStateChangeException {
+        midlet.destroyApp(true);
+    }
+}
@@ -0,0 +1,17 @@
+package javax.microedition.midlet;
+
+/**
+ * Harness stand-in for the MIDP MIDletStateChangeException.
+ *
+ * @author Oscar Cai
+ */
+
+public class MIDletStateChangeException extends Exception {
+
+    public MIDletStateChangeException() {
+    }
+
+    public MIDletStateChangeException(String s) {
+        super(s);
+    }
+}
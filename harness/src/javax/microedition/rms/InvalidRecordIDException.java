@@ -0,0 +1,17 @@
+package javax.microedition.rms;
+
+/**
+ * Harness stand-in for the MIDP InvalidRecordIDException.
+ *
+ * @author Oscar Cai
+ */
+
+public class InvalidRecordIDException extends RecordStoreException {
+
+    public InvalidRecordIDException() {
+    }
+
+    public InvalidRecordIDException(String message) {
+        super(message);
+    }
+}
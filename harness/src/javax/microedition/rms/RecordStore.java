@@ -0,0 +1,192 @@
+package javax.microedition.rms;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * Harness stand-in for the MIDP RecordStore, kept in memory, so every run
+ * starts without persisted data unless the harness fills it.
+ *
+ * @author Oscar Cai
+ */
+
+public class RecordStore {
+
+    /**
+     * The space of every record store, in bytes.
+     */
+    private static final int CAPACITY = 1024 * 1024;
+
+    private static final Hashtable stores = new Hashtable();
+
+    private final String name;
+    private final Vector records = new Vector(); // index = id - 1, null if deleted
+    private int openCount;
+
+    private RecordStore(String name) {
+        this.name = name;
+    }
+
+    public static synchronized RecordStore openRecordStore(String recordStoreName, boolean createIfNecessary)
+            throws RecordStoreException {
+        RecordStore store = (RecordStore) stores.get(recordStoreName);
+        if (store == null) {
+            if (!createIfNecessary) {
+                throw new RecordStoreNotFoundException(recordStoreName);
+            }
+            store = new RecordStore(recordStoreName);
+            stores.put(recordStoreName, store);
+        }
+        store.openCount++;
+        return store;
+    }
+
+    public static synchronized void deleteRecordStore(String recordStoreName) throws RecordStoreException {
+        if (stores.remove(recordStoreName) == null) {
+            throw new RecordStoreNotFoundException(recordStoreName);
+        }
+    }
+
+    public static synchronized String[] listRecordStores() {
+        if (stores.isEmpty()) {
+            return null;
+        }
+        String[] names = new String[stores.size()];
+        int i = 0;
+        for (java.util.Enumeration e = stores.keys(); e.hasMoreElements();) {
+            names[i++] = (String) e.nextElement();
+        }
+        return names;
+    }
+
+    /**
+     * Delete all record stores, e.g. between runs.
+     */
+    public static synchronized void deleteAll() {
+        stores.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void closeRecordStore() throws RecordStoreException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            openCount--;
+        }
+    }
+
+    public int addRecord(byte[] data, int offset, int numBytes) throws RecordStoreException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            if (getSize() + numBytes > CAPACITY) {
+                throw new RecordStoreFullException();
+            }
+            records.addElement(copy(data, offset, numBytes));
+            return records.size();
+        }
+    }
+
+    public void setRecord(int recordId, byte[] newData, int offset, int numBytes) throws RecordStoreException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            byte[] old = getExisting(recordId);
+            if (getSize() - old.length + numBytes > CAPACITY) {
+                throw new RecordStoreFullException();
+            }
+            records.setElementAt(copy(newData, offset, numBytes), recordId - 1);
+        }
+    }
+
+    public byte[] getRecord(int recordId) throws RecordStoreException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            byte[] data = getExisting(recordId);
+            return data.length == 0 ? null : copy(data, 0, data.length);
+        }
+    }
+
+    public int getRecord(int recordId, byte[] buffer, int offset) throws RecordStoreException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            byte[] data = getExisting(recordId);
+            System.arraycopy(data, 0, buffer, offset, data.length);
+            return data.length;
+        }
+    }
+
+    public int getRecordSize(int recordId) throws RecordStoreException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            return getExisting(recordId).length;
+        }
+    }
+
+    public void deleteRecord(int recordId) throws RecordStoreException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            getExisting(recordId);
+            records.setElementAt(null, recordId - 1);
+        }
+    }
+
+    public int getNumRecords() throws RecordStoreNotOpenException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            int count = 0;
+            for (int i = 0; i < records.size(); i++) {
+                if (records.elementAt(i) != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    public int getNextRecordID() throws RecordStoreException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            return records.size() + 1;
+        }
+    }
+
+    public int getSize() throws RecordStoreNotOpenException {
+        synchronized (RecordStore.class) {
+            checkOpen();
+            int size = 0;
+            for (int i = 0; i < records.size(); i++) {
+                byte[] data = (byte[]) records.elementAt(i);
+                if (data != null) {
+                    size += data.length;
+                }
+            }
+            return size;
+        }
+    }
+
+    public int getSizeAvailable() throws RecordStoreNotOpenException {
+        return CAPACITY - getSize();
+    }
+
+    private void checkOpen() throws RecordStoreNotOpenException {
+        if (openCount <= 0) {
+            throw new RecordStoreNotOpenException(name);
+        }
+    }
+
+    private byte[] getExisting(int recordId) throws InvalidRecordIDException {
+        if (recordId < 1 || recordId > records.size() || records.elementAt(recordId - 1) == null) {
+            throw new InvalidRecordIDException(String.valueOf(recordId));
+        }
+        return (byte[]) records.elementAt(recordId - 1);
+    }
+
+    private static byte[] copy(byte[] data, int offset, int length) {
+        byte[] result = new byte[length];
+        if (length > 0) {
+            System.arraycopy(data, offset, result, 0, length);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,17 @@
+package javax.microedition.rms;
+
+/**
+ * Harness stand-in for the MIDP RecordStoreException.
+ *
+ * @author Oscar Cai
+ */
+
+public class RecordStoreException extends Exception {
+
+    public RecordStoreException() {
+    }
+
+    public RecordStoreException(String message) {
+        super(message);
+    }
+}
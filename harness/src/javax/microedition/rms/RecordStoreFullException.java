@@ -0,0 +1,17 @@
+package javax.microedition.rms;
+
+/**
+ * Harness stand-in for the MIDP RecordStoreFullException.
+ *
+ * @author Oscar Cai
+ */
+
+public class RecordStoreFullException extends RecordStoreException {
+
+    public RecordStoreFullException() {
+    }
+
+    public RecordStoreFullException(String message) {
+        super(message);
+    }
+}
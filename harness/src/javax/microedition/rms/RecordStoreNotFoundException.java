@@ -0,0 +1,17 @@
+package javax.microedition.rms;
+
+/**
+ * Harness stand-in for the MIDP RecordStoreNotFoundException.
+ *
+ * @author Oscar Cai
+ */
+
+public class RecordStoreNotFoundException extends RecordStoreException {
+
+    public RecordStoreNotFoundException() {
+    }
+
+    public RecordStoreNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package javax.microedition.rms;
+
+/**
+ * Harness stand-in for the MIDP RecordStoreNotOpenException.
+ *
+ * @author Oscar Cai
+ */
+
+public class RecordStoreNotOpenException extends RecordStoreException {
+
+    public RecordStoreNotOpenException() {
+    }
+
+    public RecordStoreNotOpenException(String message) {
+        super(message);
+    }
+}
@@ -17,7 +17,8 @@ import main.config.StringResource;
 import framework.util.TextUtil;
 
 /**
- * HttpTask wraps an asynchronous way to communicate with HTTP server.
+ * HttpTask wraps an asynchronous way to communicate with HTTP server. The
+ * communication runs on the shared {@link NetworkExecutor}.
  *
  * @author Oscar Cai
  */
@@ -102,6 +103,23 @@ public class HttpTask implements Runnable {
      */
     private long startTime;
 
+    /**
+     * The raw response bytes, available once the communication succeeds.
+     */
+    private byte[] responseData;
+
+    /**
+     * Whether the communication is cancelled, the listener is not notified
+     * once it's cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The priority to run the communication on the {@link NetworkExecutor},
+     * the default value is {@link NetworkExecutor#PRIORITY_NORMAL}.
+     */
+    private int priority = NetworkExecutor.PRIORITY_NORMAL;
+
     /**
      * Create an HttpTask using Get method.
      *
@@ -175,6 +193,36 @@ public class HttpTask implements Runnable {
         return runningState == FINISHED;
     }
 
+    /**
+     * Get the raw bytes of the response, e.g. the compressed bytes of an
+     * image response, to store them.
+     *
+     * @return the response bytes, or null if the communication has not
+     * succeeded.
+     */
+    public byte[] getResponseData() {
+        return responseData;
+    }
+
+    /**
+     * Tell whether the communication is cancelled.
+     *
+     * @return true if the communication is cancelled, false otherwise.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Set the priority to run the communication, before it starts.
+     *
+     * @param priority {@link NetworkExecutor#PRIORITY_NORMAL} or
+     * {@link NetworkExecutor#PRIORITY_HIGH}.
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
     public boolean isTimeout() {
         long curTime = System.currentTimeMillis();
         return runningState == RUNNING && curTime - startTime > TIME_OUT;
@@ -185,7 +233,35 @@ public class HttpTask implements Runnable {
      */
     public void start() {
         runningState = RUNNING;
-        new Thread(this).start();
+        startTime = System.currentTimeMillis();
+        NetworkExecutor.execute(this, priority);
+    }
+
+    /**
+     * Cancel the communication. If it has not started, it's removed from the
+     * {@link NetworkExecutor}, otherwise the connection is closed to abort
+     * the blocking read, and the response is dropped without being decoded.
+     * The listener is not notified either way.
+     */
+    public void cancel() {
+        cancelled = true;
+        if (NetworkExecutor.remove(this)) {
+            runningState = FINISHED;
+            return;
+        }
+
+        InputStream is = inputStream;
+        HttpConnection conn = connection;
+        try {
+            if (is != null) {
+                is.close();
+            }
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (IOException e) {
+            // run() finds the task cancelled
+        }
     }
 
     /**
@@ -219,7 +295,7 @@ public class HttpTask implements Runnable {
      * See {@link HttpListener#onHttpResult(HttpTask, boolean, Object, int, String)}.
      */
     private void notifySuccess(Object response, int responseType) {
-        if (listener != null) {
+        if (listener != null && !cancelled) {
             listener.onHttpResult(this, true, response, responseType, null);
         }
     }
@@ -230,7 +306,7 @@ public class HttpTask implements Runnable {
      * See {@link HttpListener#onHttpResult(HttpTask, boolean, Object, int, String)}.
      */
     private void notifyFailure(String errMsg) {
-        if (listener != null) {
+        if (listener != null && !cancelled) {
             listener.onHttpResult(this, false, null, HttpListener.UNKNOWN, errMsg);
         }
     }
@@ -265,6 +341,11 @@ public class HttpTask implements Runnable {
      * @see java.lang.Runnable#run()
      */
     public void run() {
+        if (cancelled) {
+            runningState = FINISHED;
+            return;
+        }
+
         // record starting time
         startTime = System.currentTimeMillis();
 
@@ -276,6 +357,9 @@ public class HttpTask implements Runnable {
         try {
             // create connection instance
             connection = (HttpConnection) Connector.open(url);
+            if (cancelled) {
+                return;
+            }
             connection.setRequestMethod(method);
 
             // set request property
@@ -306,6 +390,11 @@ public class HttpTask implements Runnable {
             inputStream = connection.openInputStream();
             byte[] buf = readAllData(inputStream);
             inputStream.close();
+            if (cancelled) {
+                // Drop the response before it's decoded.
+                return;
+            }
+            responseData = buf;
 
             // parse response content type.
             String contentType = connection.getHeaderField("content-type");
@@ -0,0 +1,212 @@
+package framework.net;
+
+import java.util.Vector;
+
+import main.util.Log;
+
+/**
+ * NetworkExecutor runs the network work of the application, e.g.
+ * {@link HttpTask}s, on a few shared worker threads, rather than a new thread
+ * per request, which costs a stack per request and lets dozens of logo
+ * requests compete for a slow connection.
+ * <p>
+ * Work runs in the order it's due, and work due at the same time runs in the
+ * order it's submitted. Work can be delayed, e.g. to retry a request later,
+ * and work which has not started can be removed, e.g. when it's cancelled.
+ * <p>
+ * Work of {@link #PRIORITY_HIGH}, e.g. the requests of a page the user is
+ * waiting for, runs before any due work of {@link #PRIORITY_NORMAL}, e.g.
+ * logos, and one more worker only runs work of {@link #PRIORITY_HIGH}, so it
+ * never waits for slow logo downloads to time out.
+ * <p>
+ * The workers are started on demand and never stop.
+ *
+ * @author Oscar Cai
+ */
+
+public final class NetworkExecutor {
+
+    /**
+     * The maximum count of shared worker threads, besides the one running
+     * work of {@link #PRIORITY_HIGH} only.
+     */
+    public static final int WORKER_COUNT = 2;
+
+    /**
+     * The priority of work which can wait, e.g. fetching images.
+     */
+    public static final int PRIORITY_NORMAL = 0;
+
+    /**
+     * The priority of work the user is waiting for, e.g. the requests of
+     * {@link framework.task.StoreTask}s.
+     */
+    public static final int PRIORITY_HIGH = 1;
+
+    private static final String TAG = "RiceStore.NetworkExecutor";
+
+    private static final Object lock = new Object();
+
+    /**
+     * The pending work and the time it's due, in milliseconds.
+     */
+    private static final Vector queue = new Vector();
+    private static final Vector dueTimes = new Vector();
+    private static final Vector priorities = new Vector();
+
+    private static int workers;
+    private static int idleWorkers;
+    private static boolean highPriorityWorkerStarted;
+
+    private NetworkExecutor() {
+    }
+
+    /**
+     * Run the work of {@link #PRIORITY_NORMAL} as soon as a worker is free.
+     *
+     * @param work the work to run.
+     */
+    public static void execute(Runnable work) {
+        schedule(work, 0, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Run the work as soon as a worker is free.
+     *
+     * @param work the work to run.
+     * @param priority {@link #PRIORITY_NORMAL} or {@link #PRIORITY_HIGH}.
+     */
+    public static void execute(Runnable work, int priority) {
+        schedule(work, 0, priority);
+    }
+
+    /**
+     * Run the work of {@link #PRIORITY_NORMAL} after the specified delay.
+     *
+     * @param work the work to run.
+     * @param delay the delay in milliseconds.
+     */
+    public static void schedule(Runnable work, long delay) {
+        schedule(work, delay, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Run the work after the specified delay.
+     *
+     * @param work the work to run.
+     * @param delay the delay in milliseconds.
+     * @param priority {@link #PRIORITY_NORMAL} or {@link #PRIORITY_HIGH}.
+     */
+    public static void schedule(Runnable work, long delay, int priority) {
+        synchronized (lock) {
+            queue.addElement(work);
+            dueTimes.addElement(new Long(System.currentTimeMillis() + Math.max(delay, 0)));
+            priorities.addElement(new Integer(priority));
+            if (priority == PRIORITY_HIGH && !highPriorityWorkerStarted) {
+                highPriorityWorkerStarted = true;
+                new Thread(new Worker(true)).start();
+            } else if (idleWorkers == 0 && workers < WORKER_COUNT) {
+                workers++;
+                new Thread(new Worker(false)).start();
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Remove the work if it has not started.
+     *
+     * @param work the work to remove.
+     * @return true if the work is removed, false if it has started or is not
+     * submitted.
+     */
+    public static boolean remove(Runnable work) {
+        synchronized (lock) {
+            int index = queue.indexOf(work);
+            if (index < 0) {
+                return false;
+            }
+            queue.removeElementAt(index);
+            dueTimes.removeElementAt(index);
+            priorities.removeElementAt(index);
+            return true;
+        }
+    }
+
+    /**
+     * Wait for due work and take it from the queue, the work of the highest
+     * priority first, then the earliest due work.
+     *
+     * @param highPriorityOnly true to take the work of {@link #PRIORITY_HIGH}
+     * only.
+     */
+    private static Runnable take(boolean highPriorityOnly) {
+        synchronized (lock) {
+            while (true) {
+                long now = System.currentTimeMillis();
+                int next = -1;
+                int nextPriority = PRIORITY_NORMAL;
+                long nextDueTime = Long.MAX_VALUE;
+                long wakeTime = Long.MAX_VALUE;
+                for (int i = 0; i < dueTimes.size(); i++) {
+                    int priority = ((Integer) priorities.elementAt(i)).intValue();
+                    if (highPriorityOnly && priority != PRIORITY_HIGH) {
+                        continue;
+                    }
+                    long dueTime = ((Long) dueTimes.elementAt(i)).longValue();
+                    if (dueTime > now) {
+                        wakeTime = Math.min(wakeTime, dueTime);
+                    } else if (next < 0 || priority > nextPriority
+                            || priority == nextPriority && dueTime < nextDueTime) {
+                        next = i;
+                        nextPriority = priority;
+                        nextDueTime = dueTime;
+                    }
+                }
+                if (next >= 0) {
+                    Runnable work = (Runnable) queue.elementAt(next);
+                    queue.removeElementAt(next);
+                    dueTimes.removeElementAt(next);
+                    priorities.removeElementAt(next);
+                    return work;
+                }
+
+                if (!highPriorityOnly) {
+                    idleWorkers++;
+                }
+                try {
+                    if (wakeTime == Long.MAX_VALUE) {
+                        lock.wait();
+                    } else {
+                        lock.wait(wakeTime - now);
+                    }
+                } catch (InterruptedException e) {
+                    // check the queue again
+                } finally {
+                    if (!highPriorityOnly) {
+                        idleWorkers--;
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Worker implements Runnable {
+        private final boolean highPriorityOnly;
+
+        Worker(boolean highPriorityOnly) {
+            this.highPriorityOnly = highPriorityOnly;
+        }
+
+        public void run() {
+            while (true) {
+                Runnable work = take(highPriorityOnly);
+                try {
+                    work.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to run network work", e);
+                }
+            }
+        }
+    }
+}
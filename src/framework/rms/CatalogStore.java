@@ -0,0 +1,175 @@
+package framework.rms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Vector;
+
+import javax.microedition.rms.RecordStore;
+import javax.microedition.rms.RecordStoreException;
+
+import framework.task.AppInfo;
+
+import main.util.Log;
+
+/**
+ * CatalogStore persists the fetched pages of the applets list in a
+ * RecordStore, so that the list can be shown at once on next launch while
+ * it's being fetched again.
+ * <p>
+ * The whole catalog is kept in one record: the count of fetched pages, the
+ * total count of pages, the version of the catalog on the server, and the
+ * information of at most {@link #MAX_APPS}
+ * applets, without their images.
+ *
+ * @author Oscar Cai
+ */
+
+public final class CatalogStore {
+
+    /**
+     * The maximum count of applets to persist.
+     */
+    public static final int MAX_APPS = 60;
+
+    private static final String STORE_NAME = "catalog";
+    private static final String TAG = "RiceStore.CatalogStore";
+    private static final int VERSION = 2;
+
+    private Vector apps;
+    private int pages;
+    private int totalPages;
+    private String catalogVersion;
+
+    private CatalogStore(Vector apps, int pages, int totalPages, String catalogVersion) {
+        this.apps = apps;
+        this.pages = pages;
+        this.totalPages = totalPages;
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Get the persisted applets.
+     */
+    public Vector getApps() {
+        return apps;
+    }
+
+    /**
+     * Get the count of the fetched pages the persisted applets come from.
+     */
+    public int getPages() {
+        return pages;
+    }
+
+    /**
+     * Get the total count of pages when the catalog was persisted.
+     */
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * Get the version of the catalog on the server when it was persisted, or
+     * null if unknown.
+     */
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Load the persisted catalog.
+     *
+     * @return the catalog, or null if there is no catalog or it's broken.
+     */
+    public static synchronized CatalogStore load() {
+        RecordStore store = null;
+        try {
+            store = RecordStore.openRecordStore(STORE_NAME, false);
+            if (store.getNumRecords() == 0) {
+                return null;
+            }
+            byte[] data = store.getRecord(1);
+            if (data == null) {
+                return null;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            int pages = in.readInt();
+            int totalPages = in.readInt();
+            String catalogVersion = in.readUTF();
+            int count = in.readInt();
+            Vector apps = new Vector(count);
+            for (int i = 0; i < count; i++) {
+                apps.addElement(new AppInfo(in));
+            }
+            return apps.isEmpty() ? null : new CatalogStore(apps, pages, totalPages,
+                    catalogVersion.length() == 0 ? null : catalogVersion);
+        } catch (RecordStoreException e) {
+            // No catalog yet.
+            return null;
+        } catch (IOException e) {
+            Log.e(TAG, "Broken catalog", e);
+            return null;
+        } finally {
+            close(store);
+        }
+    }
+
+    /**
+     * Persist the catalog, replacing the persisted one. Only the first
+     * {@link #MAX_APPS} applets are persisted.
+     *
+     * @param apps the applets.
+     * @param pages the count of the fetched pages the applets come from.
+     * @param totalPages the total count of pages.
+     * @param catalogVersion the version of the catalog on the server, null if
+     * unknown.
+     */
+    public static synchronized void save(Vector apps, int pages, int totalPages, String catalogVersion) {
+        RecordStore store = null;
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+            int count = Math.min(apps.size(), MAX_APPS);
+            out.writeInt(VERSION);
+            out.writeInt(count < apps.size() ? Math.max(1, pages * count / apps.size()) : pages);
+            out.writeInt(totalPages);
+            out.writeUTF(catalogVersion == null ? "" : catalogVersion);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                ((AppInfo) apps.elementAt(i)).write(out);
+            }
+            out.close();
+            byte[] data = baos.toByteArray();
+
+            store = RecordStore.openRecordStore(STORE_NAME, true);
+            if (store.getNumRecords() == 0) {
+                store.addRecord(data, 0, data.length);
+            } else {
+                store.setRecord(1, data, 0, data.length);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write catalog", e);
+        } catch (RecordStoreException e) {
+            Log.e(TAG, "Failed to save catalog", e);
+        } finally {
+            close(store);
+        }
+    }
+
+    private static void close(RecordStore store) {
+        if (store != null) {
+            try {
+                store.closeRecordStore();
+            } catch (RecordStoreException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package framework.rms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+import javax.microedition.rms.InvalidRecordIDException;
+import javax.microedition.rms.RecordStore;
+import javax.microedition.rms.RecordStoreException;
+import javax.microedition.rms.RecordStoreFullException;
+
+import main.util.Log;
+
+/**
+ * IconStore keeps the fetched applet logos in a RecordStore, so that they are
+ * not fetched again on next launch. The logos are stored as the compressed
+ * bytes fetched, e.g. PNG, rather than decoded pixels.
+ * <p>
+ * Every logo is keyed by the applet id, and is only returned for the logo URL
+ * it was stored with, so that a logo changed on the server is fetched again.
+ * The first record is an index of all logos, which is loaded once into a
+ * Hashtable, therefore, looking up a logo reads only its own record.
+ * <p>
+ * When the store is full, or holds more than {@link #MAX_BYTES}, the least
+ * recently used logos are deleted until it's no more than 3/4 full.
+ *
+ * @author Oscar Cai
+ */
+
+public final class IconStore {
+
+    /**
+     * The maximum bytes of the stored logos.
+     */
+    public static final int MAX_BYTES = 96 * 1024;
+
+    private static final String STORE_NAME = "icons";
+    private static final String TAG = "RiceStore.IconStore";
+    private static final int INDEX_VERSION = 1;
+
+    private static IconStore instance;
+
+    private RecordStore store;
+    private int indexRecordId;
+
+    /**
+     * The index, applet id -> Entry.
+     */
+    private Hashtable entries = new Hashtable();
+    private int totalBytes;
+    private int useCounter;
+    private boolean indexDirty;
+
+    /**
+     * The index entry of a stored logo.
+     */
+    private static final class Entry {
+        String url;
+        int recordId;
+        int size;
+        int lastUse;
+    }
+
+    private IconStore() {
+    }
+
+    /**
+     * Get the stored logo of the applet.
+     *
+     * @param id the applet id.
+     * @param url the logo URL.
+     * @return the logo bytes, or null if the logo of the URL is not stored.
+     */
+    public static byte[] get(String id, String url) {
+        IconStore s = getInstance();
+        return s == null ? null : s.getIcon(id, url);
+    }
+
+    /**
+     * Store the logo of the applet, replacing the stored one.
+     *
+     * @param id the applet id.
+     * @param url the logo URL.
+     * @param data the logo bytes.
+     */
+    public static void put(String id, String url, byte[] data) {
+        IconStore s = getInstance();
+        if (s != null) {
+            s.putIcon(id, url, data);
+        }
+    }
+
+    /**
+     * Write the index and close the store, call this when the MIDlet exits.
+     */
+    public static synchronized void close() {
+        if (instance != null) {
+            instance.closeStore();
+            instance = null;
+        }
+    }
+
+    private static synchronized IconStore getInstance() {
+        if (instance == null) {
+            IconStore s = new IconStore();
+            if (s.open()) {
+                instance = s;
+            }
+        }
+        return instance;
+    }
+
+    private synchronized boolean open() {
+        try {
+            store = RecordStore.openRecordStore(STORE_NAME, true);
+            if (store.getNumRecords() == 0) {
+                indexRecordId = store.addRecord(null, 0, 0);
+                indexDirty = true;
+                writeIndex();
+            } else {
+                // The index is always the first record added.
+                indexRecordId = 1;
+                if (!readIndex()) {
+                    // Broken store, start over.
+                    store.closeRecordStore();
+                    RecordStore.deleteRecordStore(STORE_NAME);
+                    return open();
+                }
+            }
+            return true;
+        } catch (RecordStoreException e) {
+            Log.e(TAG, "Failed to open icon store", e);
+            store = null;
+            return false;
+        }
+    }
+
+    private synchronized byte[] getIcon(String id, String url) {
+        Entry entry = (Entry) entries.get(id);
+        if (entry == null || !entry.url.equals(url)) {
+            return null;
+        }
+        try {
+            byte[] data = store.getRecord(entry.recordId);
+            entry.lastUse = ++useCounter;
+            indexDirty = true;
+            return data;
+        } catch (RecordStoreException e) {
+            Log.e(TAG, "Failed to read icon of " + id, e);
+            removeEntry(id);
+            writeIndex();
+            return null;
+        }
+    }
+
+    private synchronized void putIcon(String id, String url, byte[] data) {
+        if (data == null || data.length == 0 || data.length > MAX_BYTES / 4) {
+            return;
+        }
+
+        Entry entry = (Entry) entries.get(id);
+        if (entry != null && !entry.url.equals(url)) {
+            removeEntry(id);
+            entry = null;
+        }
+        if (totalBytes - (entry == null ? 0 : entry.size) + data.length > MAX_BYTES) {
+            compact(MAX_BYTES * 3 / 4 - data.length);
+            entry = (Entry) entries.get(id);
+        }
+
+        for (int retry = 0; retry < 2; retry++) {
+            try {
+                if (entry != null) {
+                    store.setRecord(entry.recordId, data, 0, data.length);
+                    totalBytes += data.length - entry.size;
+                } else {
+                    entry = new Entry();
+                    entry.url = url;
+                    entry.recordId = store.addRecord(data, 0, data.length);
+                    entries.put(id, entry);
+                    totalBytes += data.length;
+                }
+                entry.size = data.length;
+                entry.lastUse = ++useCounter;
+                indexDirty = true;
+                writeIndex();
+                return;
+            } catch (RecordStoreFullException e) {
+                // Make room and try again.
+                compact(totalBytes * 3 / 4 - data.length);
+                entry = (Entry) entries.get(id);
+            } catch (RecordStoreException e) {
+                Log.e(TAG, "Failed to store icon of " + id, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delete the least recently used logos until the stored bytes are no
+     * more than the specified bytes.
+     */
+    private void compact(int maxBytes) {
+        while (totalBytes > maxBytes && !entries.isEmpty()) {
+            String oldestId = null;
+            int oldestUse = Integer.MAX_VALUE;
+            for (Enumeration e = entries.keys(); e.hasMoreElements();) {
+                String id = (String) e.nextElement();
+                Entry entry = (Entry) entries.get(id);
+                if (entry.lastUse < oldestUse) {
+                    oldestId = id;
+                    oldestUse = entry.lastUse;
+                }
+            }
+            removeEntry(oldestId);
+        }
+        writeIndex();
+    }
+
+    private void removeEntry(String id) {
+        Entry entry = (Entry) entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        totalBytes -= entry.size;
+        indexDirty = true;
+        try {
+            store.deleteRecord(entry.recordId);
+        } catch (InvalidRecordIDException e) {
+            // already deleted
+        } catch (RecordStoreException e) {
+            Log.e(TAG, "Failed to delete icon of " + id, e);
+        }
+    }
+
+    /**
+     * Load the index record.
+     *
+     * @return false if the index is broken.
+     */
+    private boolean readIndex() {
+        try {
+            byte[] data = store.getRecord(indexRecordId);
+            if (data == null) {
+                return false;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != INDEX_VERSION) {
+                return false;
+            }
+            useCounter = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                Entry entry = new Entry();
+                entry.url = in.readUTF();
+                entry.recordId = in.readInt();
+                entry.size = in.readInt();
+                entry.lastUse = in.readInt();
+                entries.put(id, entry);
+                totalBytes += entry.size;
+            }
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Broken icon index", e);
+            return false;
+        } catch (RecordStoreException e) {
+            Log.e(TAG, "Failed to read icon index", e);
+            return false;
+        }
+    }
+
+    private void writeIndex() {
+        if (!indexDirty) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(useCounter);
+            out.writeInt(entries.size());
+            for (Enumeration e = entries.keys(); e.hasMoreElements();) {
+                String id = (String) e.nextElement();
+                Entry entry = (Entry) entries.get(id);
+                out.writeUTF(id);
+                out.writeUTF(entry.url);
+                out.writeInt(entry.recordId);
+                out.writeInt(entry.size);
+                out.writeInt(entry.lastUse);
+            }
+            out.close();
+            byte[] data = baos.toByteArray();
+            store.setRecord(indexRecordId, data, 0, data.length);
+            indexDirty = false;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write icon index", e);
+        } catch (RecordStoreException e) {
+            Log.e(TAG, "Failed to write icon index", e);
+        }
+    }
+
+    private synchronized void closeStore() {
+        writeIndex();
+        try {
+            store.closeRecordStore();
+        } catch (RecordStoreException e) {
+            Log.e(TAG, "Failed to close icon store", e);
+        }
+        store = null;
+    }
+}
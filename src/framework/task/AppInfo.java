@@ -1,6 +1,9 @@
 
 package framework.task;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Hashtable;
 import java.util.Vector;
 
@@ -10,7 +13,13 @@ import framework.json.me.JSONException;
 import framework.json.me.JSONObject;
 import framework.net.HttpListener;
 import framework.net.HttpTask;
+import framework.rms.IconStore;
 import framework.ui.component.DataUpdateListener;
+import framework.util.DrawUtil;
+import framework.util.ImageOwner;
+import framework.util.ImageRegistry;
+
+import main.config.Config;
 
 /**
  * Records Rice App Store applet information.
@@ -18,7 +27,19 @@ import framework.ui.component.DataUpdateListener;
  * @author Oscar Cai
  */
 
-public class AppInfo implements HttpListener {
+public class AppInfo implements HttpListener, ImageOwner {
+
+    /**
+     * The count of differently sized logos to keep, e.g. for the list rows and
+     * the AppInfoActivity.
+     */
+    private static final int SCALED_LOGO_COUNT = 2;
+
+    /**
+     * The kinds of images accounted by {@link ImageRegistry}.
+     */
+    private static final int IMAGE_LOGO = 0;
+    private static final int IMAGE_SNAPSHOT = 1;
 
 /**
  * TODO: Uncomment the following definitions when use them.
@@ -29,7 +50,11 @@ public class AppInfo implements HttpListener {
     private String id; // MIDlet id
     private String name; // MIDlet name
     private String logoUrl; // MIDlet logo url
-    private Image logoImg; // MIDlet logo
+    private Image logoImg; // MIDlet logo, dropped once it's scaled
+    private Image[] scaledLogos = new Image[SCALED_LOGO_COUNT];
+    private int[] scaledLogoWidths = new int[SCALED_LOGO_COUNT];
+    private int[] scaledLogoHeights = new int[SCALED_LOGO_COUNT];
+    private int nextScaledLogo;
     private boolean logoFetching;
     private Vector listeners;
     private String snapshotUrl; // MIDlet snapshot url
@@ -44,8 +69,12 @@ public class AppInfo implements HttpListener {
     private int monthDown; // download count of latest month
     private int weekDown; // download count of latest week
 
+    private int listPosition; // position in the applets list, -1 if not listed
+    private boolean snapshotInUse; // whether the snapshot is on screen
+
     HttpTask logoFetchTask;
     HttpTask snapshotFetchTask;
+    private String logoFetchUrl; // the URL logoFetchTask fetches
 
     public AppInfo(String downBaseUrl, JSONObject jsonObj) throws JSONException {
 /**
@@ -78,9 +107,127 @@ public class AppInfo implements HttpListener {
         weekDown = jsonObj.getInt("wdown");
         intro = jsonObj.getString("intro");
 
+        listPosition = -1;
+        snapshotInUse = false;
+
         listeners = new Vector();
     }
 
+    /**
+     * Create an AppInfo from the data written by {@link #write(DataOutputStream)}.
+     *
+     * @param in the stream to read.
+     * @throws IOException if the data is broken.
+     */
+    public AppInfo(DataInputStream in) throws IOException {
+        id = in.readUTF();
+        name = in.readUTF();
+        logoUrl = in.readUTF();
+        snapshotUrl = in.readUTF();
+        intro = in.readUTF();
+        suiteName = in.readUTF();
+        vendor = in.readUTF();
+        appVersion = in.readUTF();
+        jadUrl = in.readUTF();
+        totalDown = in.readInt();
+        monthDown = in.readInt();
+        weekDown = in.readInt();
+
+        listPosition = -1;
+        snapshotInUse = false;
+
+        listeners = new Vector();
+    }
+
+    /**
+     * Write the applet information, but not the images, to persist it.
+     *
+     * @param out the stream to write.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeUTF(id);
+        out.writeUTF(name);
+        out.writeUTF(logoUrl);
+        out.writeUTF(snapshotUrl);
+        out.writeUTF(intro);
+        out.writeUTF(suiteName);
+        out.writeUTF(vendor);
+        out.writeUTF(appVersion);
+        out.writeUTF(jadUrl);
+        out.writeInt(totalDown);
+        out.writeInt(monthDown);
+        out.writeInt(weekDown);
+    }
+
+    /**
+     * Update the information of the same applet in place, so that the images
+     * and listeners of this AppInfo are kept. The logo or snapshot is dropped
+     * if its URL changed.
+     *
+     * @param other the newer information of the same applet.
+     * @return true if anything changed, false otherwise.
+     */
+    public boolean update(AppInfo other) {
+        boolean changed = false;
+        if (!logoUrl.equals(other.logoUrl)) {
+            setLogoUrl(other.logoUrl);
+            changed = true;
+        }
+        if (!snapshotUrl.equals(other.snapshotUrl)) {
+            setSnapshotUrl(other.snapshotUrl);
+            changed = true;
+        }
+        if (!name.equals(other.name) || !intro.equals(other.intro)
+                || !suiteName.equals(other.suiteName) || !vendor.equals(other.vendor)
+                || !appVersion.equals(other.appVersion) || !jadUrl.equals(other.jadUrl)
+                || totalDown != other.totalDown || monthDown != other.monthDown
+                || weekDown != other.weekDown) {
+            name = other.name;
+            intro = other.intro;
+            suiteName = other.suiteName;
+            vendor = other.vendor;
+            appVersion = other.appVersion;
+            jadUrl = other.jadUrl;
+            totalDown = other.totalDown;
+            monthDown = other.monthDown;
+            weekDown = other.weekDown;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Change the logo URL: the logo is dropped, and the fetch of the old one
+     * is cancelled so that the new one is fetched when needed.
+     */
+    private void setLogoUrl(String url) {
+        synchronized (this) {
+            logoUrl = url;
+            if (logoFetchTask != null) {
+                logoFetchTask.cancel();
+                logoFetchTask = null;
+            }
+            logoFetching = false;
+        }
+        onImageEvicted(IMAGE_LOGO);
+    }
+
+    /**
+     * Change the snapshot URL, see {@link #setLogoUrl(String)}.
+     */
+    private void setSnapshotUrl(String url) {
+        synchronized (this) {
+            snapshotUrl = url;
+            if (snapshotFetchTask != null) {
+                snapshotFetchTask.cancel();
+                snapshotFetchTask = null;
+            }
+            snapshotFetching = false;
+        }
+        onImageEvicted(IMAGE_SNAPSHOT);
+    }
+
     public String getId() {
         return id;
     }
@@ -121,49 +268,403 @@ public class AppInfo implements HttpListener {
         return snapshot;
     }
 
+    /**
+     * Set the position of the applet in the applets list, which decides how
+     * eagerly its logo is evicted when the images exceed the budget, see
+     * {@link ImageRegistry#getDistanceFromViewport(int)}.
+     *
+     * @param position the position, or -1 if the applet is not listed.
+     */
+    public void setListPosition(int position) {
+        listPosition = position;
+    }
+
+    public int getListPosition() {
+        return listPosition;
+    }
+
+    /**
+     * Set whether the snapshot is on screen. The snapshot is evicted before
+     * any logo once it's not on screen and the images exceed the budget.
+     *
+     * @param inUse true if the snapshot is on screen, false otherwise.
+     */
+    public void setSnapshotInUse(boolean inUse) {
+        snapshotInUse = inUse;
+    }
+
     public String getIntroduction() {
         return intro;
     }
 
-    public Image getLogo() {
-        return logoImg;
+    /**
+     * Whether the logo has been fetched.
+     *
+     * @return true if the logo is available, false otherwise.
+     */
+    public synchronized boolean hasLogo() {
+        return logoImg != null || scaledLogos[0] != null;
+    }
+
+    /**
+     * Get the logo scaled to fit the specified size, keeping aspect ratio.
+     * The scaled logo is cached, so that binding views again doesn't scale it
+     * again. Once scaled, the full size logo is dropped. Logos of other sizes
+     * are scaled from a cached one at least as large, otherwise from the full
+     * size logo, decoded again from {@link IconStore} if it was dropped, so
+     * that a larger logo is not enlarged from a small one.
+     *
+     * @param width the width to fit.
+     * @param height the height to fit.
+     * @return the scaled logo, or null if the logo has not been fetched.
+     */
+    public Image getLogo(int width, int height) {
+        Image source;
+        synchronized (this) {
+            source = logoImg;
+            for (int i = 0; i < SCALED_LOGO_COUNT && scaledLogos[i] != null; i++) {
+                if (scaledLogoWidths[i] == width && scaledLogoHeights[i] == height) {
+                    return scaledLogos[i];
+                }
+                if (source == null && scaledLogoWidths[i] >= width && scaledLogoHeights[i] >= height) {
+                    source = scaledLogos[i];
+                }
+            }
+            if (scaledLogos[0] == null && source == null) {
+                return null;
+            }
+        }
+
+        if (source == null) {
+            source = decodeStoredLogo();
+        }
+
+        Image scaled;
+        int logoBytes;
+        synchronized (this) {
+            if (source == null) {
+                // Not stored, enlarge the largest one
+                for (int i = 0; i < SCALED_LOGO_COUNT && scaledLogos[i] != null; i++) {
+                    if (source == null || scaledLogos[i].getWidth() > source.getWidth()) {
+                        source = scaledLogos[i];
+                    }
+                }
+                if (source == null) {
+                    return null; // evicted meanwhile
+                }
+            }
+
+            scaled = DrawUtil.scaleImage(source, width, height);
+            scaledLogos[nextScaledLogo] = scaled;
+            scaledLogoWidths[nextScaledLogo] = width;
+            scaledLogoHeights[nextScaledLogo] = height;
+            nextScaledLogo = (nextScaledLogo + 1) % SCALED_LOGO_COUNT;
+            logoImg = null;
+            logoBytes = getLogoBytes();
+        }
+        ImageRegistry.register(this, IMAGE_LOGO, logoBytes);
+        return scaled;
+    }
+
+    private int getLogoBytes() {
+        int bytes = ImageRegistry.getBytes(logoImg);
+        for (int i = 0; i < SCALED_LOGO_COUNT; i++) {
+            bytes += ImageRegistry.getBytes(scaledLogos[i]);
+        }
+        return bytes;
     }
 
-    public void fetchLogo(DataUpdateListener listener) {
+    /**
+     * Fetch the logo. If the logo has been stored in {@link IconStore}, it's
+     * loaded at once, and the listener is not notified. Otherwise it's fetched
+     * from the server, and the listener is notified once it's fetched.
+     *
+     * @param listener the listener to notify.
+     * @return true if the logo is available when this method returns, false
+     * if it's being fetched from the server.
+     */
+    public boolean fetchLogo(DataUpdateListener listener) {
         if (!listeners.contains(listener)) {
             listeners.addElement(listener);
         }
-        if (!logoFetching) {
-            logoFetching = true;
-            logoFetchTask = new HttpTask(logoUrl, (Hashtable) null, (HttpListener) this);
-            logoFetchTask.start();
+        if (hasLogo() || loadStoredLogo()) {
+            return true;
+        }
+        synchronized (this) {
+            if (!logoFetching) {
+                logoFetching = true;
+                logoFetchUrl = logoUrl;
+                logoFetchTask = new HttpTask(logoUrl, (Hashtable) null, (HttpListener) this);
+                logoFetchTask.start();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancel fetching the logo from the server, e.g. when no item showing it
+     * is on screen any more. It's fetched again when needed.
+     */
+    public void cancelLogoFetch() {
+        synchronized (this) {
+            if (logoFetchTask != null) {
+                logoFetchTask.cancel();
+                logoFetchTask = null;
+            }
+            logoFetching = false;
+        }
+    }
+
+    private boolean loadStoredLogo() {
+        Image logo = decodeStoredLogo();
+        if (logo == null) {
+            return false;
         }
+        setLogo(logo);
+        return true;
+    }
+
+    private Image decodeStoredLogo() {
+        byte[] data = IconStore.get(id, logoUrl);
+        if (data == null) {
+            return null;
+        }
+        try {
+            return Image.createImage(data, 0, data.length);
+        } catch (IllegalArgumentException e) {
+            // not a decodable image
+            return null;
+        }
+    }
+
+    private void setLogo(Image logo) {
+        int logoBytes;
+        synchronized (this) {
+            logoImg = logo;
+            for (int i = 0; i < SCALED_LOGO_COUNT; i++) {
+                scaledLogos[i] = null;
+            }
+            nextScaledLogo = 0;
+            logoBytes = getLogoBytes();
+        }
+        ImageRegistry.register(this, IMAGE_LOGO, logoBytes);
     }
 
     public void fetchSnapshot(DataUpdateListener listener) {
         if (!listeners.contains(listener)) {
             listeners.addElement(listener);
         }
-        if (!snapshotFetching) {
-            snapshotFetching = true;
-            snapshotFetchTask = new HttpTask(snapshotUrl, (Hashtable) null, (HttpListener) this);
-            snapshotFetchTask.start();
+        synchronized (this) {
+            if (!snapshotFetching) {
+                snapshotFetching = true;
+                snapshotFetchTask = new HttpTask(snapshotUrl, (Hashtable) null, (HttpListener) this);
+                snapshotFetchTask.start();
+            }
         }
     }
 
     public void onHttpResult(HttpTask task, boolean success, Object response, int responseType, String errMsg) {
-        if (success && responseType == HttpListener.IMAGE) {
-            // FIXME: How about if multiple logo/snapshot fetching is ongoing?
+        boolean isLogo;
+        String url;
+        synchronized (this) {
             if (task == logoFetchTask) {
-                logoImg = (Image) response;
+                isLogo = true;
+                url = logoFetchUrl;
+                logoFetchTask = null;
                 logoFetching = false;
             } else if (task == snapshotFetchTask) {
-                snapshot = (Image) response;
+                isLogo = false;
+                url = snapshotUrl;
+                snapshotFetchTask = null;
                 snapshotFetching = false;
+            } else {
+                return; // cancelled since the URL changed
+            }
+        }
+        if (!success || responseType != HttpListener.IMAGE) {
+            return; // fetched again when needed
+        }
+
+        if (isLogo) {
+            // Stored under the URL fetched, which the logo URL may no more be.
+            IconStore.put(id, url, task.getResponseData());
+            if (!url.equals(logoUrl)) {
+                return;
+            }
+            setLogo((Image) response);
+        } else {
+            if (!url.equals(snapshotUrl)) {
+                return;
+            }
+            snapshot = (Image) response;
+            ImageRegistry.register(this, IMAGE_SNAPSHOT, ImageRegistry.getBytes(snapshot));
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Apply the changed fields of a delta catalog response in place, see
+     * {@link GetAppListTask}. Only the fields present are changed, with the
+     * same names as in the full response. The logo or snapshot is dropped if
+     * its URL changed.
+     *
+     * @param downBaseUrl the base URL of the logo, snapshot and JAD.
+     * @param changes the changed fields.
+     * @return true if anything changed, false otherwise.
+     * @throws JSONException if a field has a wrong type.
+     */
+    public boolean applyChanges(String downBaseUrl, JSONObject changes) throws JSONException {
+        if (!downBaseUrl.endsWith("/")) {
+            downBaseUrl += "/";
+        }
+
+        boolean changed = false;
+        if (changes.has("logo")) {
+            String url = downBaseUrl + changes.getString("logo");
+            if (!url.equals(logoUrl)) {
+                setLogoUrl(url);
+                changed = true;
+            }
+        }
+        if (changes.has("img")) {
+            String url = downBaseUrl + changes.getString("img");
+            if (!url.equals(snapshotUrl)) {
+                setSnapshotUrl(url);
+                changed = true;
+            }
+        }
+        if (changes.has("appname")) {
+            String value = changes.getString("appname");
+            if (!value.equals(name)) {
+                name = value;
+                changed = true;
+            }
+        }
+        if (changes.has("suitename")) {
+            String value = changes.getString("suitename");
+            if (!value.equals(suiteName)) {
+                suiteName = value;
+                changed = true;
+            }
+        }
+        if (changes.has("vendor")) {
+            String value = changes.getString("vendor");
+            if (!value.equals(vendor)) {
+                vendor = value;
+                changed = true;
+            }
+        }
+        if (changes.has("appVersion")) {
+            String value = changes.getString("appVersion");
+            if (!value.equals(appVersion)) {
+                appVersion = value;
+                changed = true;
+            }
+        }
+        if (changes.has("jad")) {
+            String value = downBaseUrl + changes.getString("jad");
+            if (!value.equals(jadUrl)) {
+                jadUrl = value;
+                changed = true;
+            }
+        }
+        if (changes.has("intro")) {
+            String value = changes.getString("intro");
+            if (!value.equals(intro)) {
+                intro = value;
+                changed = true;
+            }
+        }
+        if (changes.has("down")) {
+            int value = changes.getInt("down");
+            if (value != totalDown) {
+                totalDown = value;
+                changed = true;
+            }
+        }
+        if (changes.has("mdown")) {
+            int value = changes.getInt("mdown");
+            if (value != monthDown) {
+                monthDown = value;
+                changed = true;
+            }
+        }
+        if (changes.has("wdown")) {
+            int value = changes.getInt("wdown");
+            if (value != weekDown) {
+                weekDown = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Drop the images of an applet removed from the catalog, so that they
+     * are no more accounted by {@link ImageRegistry}.
+     */
+    public void release() {
+        synchronized (this) {
+            logoImg = null;
+            snapshot = null;
+            for (int i = 0; i < SCALED_LOGO_COUNT; i++) {
+                scaledLogos[i] = null;
             }
-            for (int i = 0; i < listeners.size(); i++) {
-                ((DataUpdateListener)listeners.elementAt(i)).onDataUpdated(this);
+            nextScaledLogo = 0;
+        }
+        ImageRegistry.unregister(this, IMAGE_LOGO);
+        ImageRegistry.unregister(this, IMAGE_SNAPSHOT);
+        setListPosition(-1);
+    }
+
+    /**
+     * Stop notifying the listener of fetched images.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeListener(DataUpdateListener listener) {
+        listeners.removeElement(listener);
+    }
+
+    private void notifyListeners() {
+        for (int i = 0; i < listeners.size(); i++) {
+            ((DataUpdateListener)listeners.elementAt(i)).onDataUpdated(this);
+        }
+    }
+
+    public int getEvictionPriority(int kind) {
+        if (kind == IMAGE_SNAPSHOT) {
+            return snapshotInUse ? -1 : Integer.MAX_VALUE;
+        }
+        // Logos on screen are kept, the farther the earlier evicted.
+        int distance = ImageRegistry.getDistanceFromViewport(listPosition);
+        return distance == 0 ? -1 : distance;
+    }
+
+    /**
+     * Drop the evicted images. The listeners are notified later on the event
+     * thread, since the images may be evicted while a listener is updating
+     * its views, and they can fetch the images again when they need them.
+     */
+    public void onImageEvicted(int kind) {
+        synchronized (this) {
+            if (kind == IMAGE_SNAPSHOT) {
+                snapshot = null;
+            } else {
+                logoImg = null;
+                for (int i = 0; i < SCALED_LOGO_COUNT; i++) {
+                    scaledLogos[i] = null;
+                }
+                nextScaledLogo = 0;
             }
         }
+        // Images registered again meanwhile are dropped too.
+        ImageRegistry.unregister(this, kind);
+
+        Config.getGlobalDisplay().callSerially(new Runnable() {
+            public void run() {
+                notifyListeners();
+            }
+        });
     }
 }
@@ -0,0 +1,40 @@
+package framework.task;
+
+/**
+ * BackoffRetryPolicy retries a failed request a limited count of times,
+ * doubling the delay after every retry up to a maximum delay, so that a flaky
+ * connection gets a few quick retries while a dead one is not hammered.
+ *
+ * @author Oscar Cai
+ */
+
+public class BackoffRetryPolicy implements RetryPolicy {
+
+    private int maxRetries;
+    private long initialDelay;
+    private long maxDelay;
+
+    /**
+     * Create a BackoffRetryPolicy.
+     *
+     * @param maxRetries the maximum count of retries.
+     * @param initialDelay the delay before the first retry, in milliseconds.
+     * @param maxDelay the maximum delay, in milliseconds.
+     */
+    public BackoffRetryPolicy(int maxRetries, long initialDelay, long maxDelay) {
+        this.maxRetries = maxRetries;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public long getRetryDelay(int attempt, String errMsg) {
+        if (attempt >= maxRetries) {
+            return -1;
+        }
+        long delay = initialDelay;
+        for (int i = 0; i < attempt && delay < maxDelay; i++) {
+            delay <<= 1;
+        }
+        return Math.min(delay, maxDelay);
+    }
+}
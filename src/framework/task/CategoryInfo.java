@@ -0,0 +1,45 @@
+package framework.task;
+
+import framework.json.me.JSONException;
+import framework.json.me.JSONObject;
+
+/**
+ * Records Rice App Store category information.
+ *
+ * @author Oscar Cai
+ */
+
+public class CategoryInfo {
+
+    private String id; // category id
+    private String name; // category name
+    private int appCount; // count of applets in the category
+    private int subCount; // count of subcategories, 0 if it lists applets
+
+    public CategoryInfo(JSONObject jsonObj) throws JSONException {
+        id = jsonObj.getString("id");
+        name = jsonObj.getString("name");
+        appCount = jsonObj.optInt("count", 0);
+        subCount = jsonObj.optInt("sub", 0);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAppCount() {
+        return appCount;
+    }
+
+    /**
+     * Whether the category is divided into subcategories rather than listing
+     * applets itself.
+     */
+    public boolean hasSubcategories() {
+        return subCount > 0;
+    }
+}
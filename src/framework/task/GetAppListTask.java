@@ -10,11 +10,19 @@ import framework.json.me.JSONArray;
 import framework.json.me.JSONException;
 import framework.json.me.JSONObject;
 import framework.net.HttpListener;
-import framework.net.HttpTask;
 import framework.util.TextUtil;
 
 /**
  * Get applications list of specified type.
+ * <p>
+ * Once the catalog has been fetched, it can be brought up to date by asking
+ * for the changes since its version, see {@link #setSinceVersion(String)}.
+ * Every response carries the current "version" of the catalog. A delta
+ * response has "delta" set to true, and lists the "added" applets as in a
+ * full response, the "changed" applets by "id" with only the changed fields,
+ * and the ids of the "removed" applets, so a refresh without any change costs
+ * one tiny response. The server may still answer with the full first page,
+ * e.g. if the version is too old to compute the changes.
  *
  * @author Oscar Cai
  */
@@ -39,14 +47,63 @@ public class GetAppListTask extends StoreTask {
 
     private int totalPages;
 
+    private String keyword;
+
+    private String categoryId;
+
+    private String sinceVersion;
+
+    private String version;
+
+    private boolean delta;
+
+    private String downloadBase;
+
+    private Vector changes;
+
+    private Vector removedIds;
+
     public GetAppListTask(int page, TaskListener listener) {
+        this(page, null, listener);
+    }
+
+    /**
+     * Create a GetAppListTask searching the applets on the server.
+     *
+     * @param page the page of the results to get, from 1.
+     * @param keyword the keyword to search, null to get the whole list.
+     * @param listener the listener to notify.
+     */
+    public GetAppListTask(int page, String keyword, TaskListener listener) {
         super(listener);
+        this.keyword = keyword;
+        setRetryPolicy(new BackoffRetryPolicy(2, 1000, 4000));
         this.page = page;
         totalPages = 0;
         apps = null;
     }
 
-    public void execute() {
+    /**
+     * Get the applets of the specified category only. Must be called before
+     * the task is executed.
+     *
+     * @param categoryId the id of the category, null for all applets.
+     */
+    public void setCategory(String categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    /**
+     * Ask for the changes of the catalog since the specified version instead
+     * of the first page. Must be called before the task is executed.
+     *
+     * @param version the version of the catalog, see {@link #getVersion()}.
+     */
+    public void setSinceVersion(String version) {
+        sinceVersion = version;
+    }
+
+    protected void onExecute() {
         String url = Config.getSoftListUrl();
         Hashtable params;
         if (TextUtil.isEmpty(Config.getClientId())) {
@@ -57,12 +114,21 @@ public class GetAppListTask extends StoreTask {
         }
         params.put("page", new Integer(page));
         params.put("order", "down"); // set sort order by total download times
+        if (!TextUtil.isEmpty(keyword)) {
+            params.put("keyword", TextUtil.urlEncode(keyword));
+        }
+        if (!TextUtil.isEmpty(categoryId)) {
+            params.put("type", categoryId);
+        }
+        if (!TextUtil.isEmpty(sinceVersion)) {
+            params.put("since", TextUtil.urlEncode(sinceVersion));
+        }
 
-        new HttpTask(url, params, (HttpListener) this).start();
+        sendRequest(url, params);
         notifyProgress(false, false, StringResource.START_GET_APP_LIST);
     }
 
-    public void onHttpResult(HttpTask task, boolean success, Object response, int responseType, String errMsg) {
+    protected void onResponse(boolean success, Object response, int responseType, String errMsg) {
         if (success) {
             boolean allAppsParsed = false;
             if (responseType == HttpListener.TEXT && !TextUtil.isEmpty((String)response)) {
@@ -70,24 +136,16 @@ public class GetAppListTask extends StoreTask {
                     JSONObject jsonObj = new JSONObject((String)response);
                     int result = jsonObj.getInt("result");
                     if (result == SUCCESS) {
-                        String downloadBase = jsonObj.getString("downloadBase");
-                        totalPages = jsonObj.getInt("pages");
-
-                        JSONArray appAry = null;
-                        try {
-                            appAry = jsonObj.getJSONArray("apps");
-                        } catch (JSONException e) {
-                            /* In this case, the value of 'apps' is a JSONArray expressed string. */
-                            String appAryStr = jsonObj.getString("apps");
-                            appAry = new JSONArray(appAryStr);
-                        }
+                        version = jsonObj.optString("version", null);
+                        downloadBase = jsonObj.getString("downloadBase");
+                        totalPages = jsonObj.optInt("pages", totalPages);
 
-                        apps = new Vector();
-                        for (int i = 0; i < appAry.length(); i++) {
-                            apps.addElement(new AppInfo(downloadBase, appAry.getJSONObject(i)));
+                        if (sinceVersion != null && jsonObj.optBoolean("delta")) {
+                            allAppsParsed = parseDelta(jsonObj);
+                        } else {
+                            totalPages = jsonObj.getInt("pages");
+                            allAppsParsed = parseApps(getArray(jsonObj, "apps"));
                         }
-
-                        allAppsParsed = true;
                     } else if (result == FAIL) {
                         // the application list is not updated, do nothing.
                     }
@@ -105,11 +163,109 @@ public class GetAppListTask extends StoreTask {
         }
     }
 
+    /**
+     * Parse the changes of a delta response.
+     */
+    private boolean parseDelta(JSONObject jsonObj) throws JSONException {
+        Vector changed = new Vector();
+        JSONArray changedAry = getArray(jsonObj, "changed");
+        for (int i = 0; i < changedAry.length(); i++) {
+            changed.addElement(changedAry.getJSONObject(i));
+        }
+
+        Vector removed = new Vector();
+        JSONArray removedAry = getArray(jsonObj, "removed");
+        for (int i = 0; i < removedAry.length(); i++) {
+            removed.addElement(removedAry.getString(i));
+        }
+
+        if (!parseApps(getArray(jsonObj, "added"))) {
+            return false;
+        }
+        changes = changed;
+        removedIds = removed;
+        delta = true;
+        return true;
+    }
+
+    private boolean parseApps(JSONArray appAry) throws JSONException {
+        Vector parsed = new Vector();
+        for (int i = 0; i < appAry.length(); i++) {
+            if (isCancelled()) {
+                // Stop parsing the stale page.
+                return false;
+            }
+            parsed.addElement(new AppInfo(downloadBase, appAry.getJSONObject(i)));
+        }
+        apps = parsed;
+        return true;
+    }
+
+    /**
+     * Get the array of the specified name, which may also be expressed as a
+     * string, or an empty array if there is none.
+     */
+    private static JSONArray getArray(JSONObject jsonObj, String name) throws JSONException {
+        if (!jsonObj.has(name)) {
+            return new JSONArray();
+        }
+        try {
+            return jsonObj.getJSONArray(name);
+        } catch (JSONException e) {
+            /* In this case, the value is a JSONArray expressed string. */
+            return new JSONArray(jsonObj.getString(name));
+        }
+    }
+
+    public int getPage() {
+        return page;
+    }
+
     public int getTotalPages() {
         return totalPages;
     }
 
+    /**
+     * Get the applets of the page, or the added applets of a delta response.
+     */
     public Vector getApps() {
         return apps;
     }
+
+    /**
+     * Get the version of the catalog, or null if the server did not tell it.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Whether the response is a delta rather than the first page, see
+     * {@link #setSinceVersion(String)}.
+     */
+    public boolean isDelta() {
+        return delta;
+    }
+
+    /**
+     * Get the base URL of the logos, snapshots and JADs of the response.
+     */
+    public String getDownloadBase() {
+        return downloadBase;
+    }
+
+    /**
+     * Get the changed fields of a delta response, one JSONObject with the
+     * "id" of the applet per changed applet.
+     */
+    public Vector getChanges() {
+        return changes;
+    }
+
+    /**
+     * Get the ids of the removed applets of a delta response.
+     */
+    public Vector getRemovedIds() {
+        return removedIds;
+    }
 }
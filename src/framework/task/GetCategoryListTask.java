@@ -0,0 +1,95 @@
+package framework.task;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+import main.config.Config;
+import main.config.StringResource;
+import framework.json.me.JSONArray;
+import framework.json.me.JSONException;
+import framework.json.me.JSONObject;
+import framework.net.HttpListener;
+import framework.util.TextUtil;
+
+/**
+ * Get the categories, or the subcategories of a category.
+ *
+ * @author Oscar Cai
+ */
+
+public class GetCategoryListTask extends StoreTask {
+
+    /**
+     * Means the request for the category list is handled by the server
+     * successfully.
+     */
+    private static final int SUCCESS = 1;
+
+    private String parentId;
+
+    private Vector categories;
+
+    /**
+     * Create a GetCategoryListTask.
+     *
+     * @param parentId the id of the category to get the subcategories of,
+     * null to get the top level categories.
+     * @param listener the listener to notify.
+     */
+    public GetCategoryListTask(String parentId, TaskListener listener) {
+        super(listener);
+        setRetryPolicy(new BackoffRetryPolicy(2, 1000, 4000));
+        this.parentId = parentId;
+        categories = null;
+    }
+
+    protected void onExecute() {
+        String url = Config.getCategoryListUrl();
+        Hashtable params;
+        if (TextUtil.isEmpty(Config.getClientId())) {
+            params = Config.getCompanyBatchParams();
+        } else {
+            params = new Hashtable();
+            params.put("userid", Config.getClientId());
+        }
+        if (!TextUtil.isEmpty(parentId)) {
+            params.put("parent", parentId);
+        }
+
+        sendRequest(url, params);
+        notifyProgress(false, false, StringResource.START_GET_CATEGORY_LIST);
+    }
+
+    protected void onResponse(boolean success, Object response, int responseType, String errMsg) {
+        boolean parsed = false;
+        if (success && responseType == HttpListener.TEXT && !TextUtil.isEmpty((String)response)) {
+            try {
+                JSONObject jsonObj = new JSONObject((String)response);
+                if (jsonObj.getInt("result") == SUCCESS) {
+                    JSONArray typeAry = jsonObj.getJSONArray("types");
+                    Vector list = new Vector();
+                    for (int i = 0; i < typeAry.length(); i++) {
+                        list.addElement(new CategoryInfo(typeAry.getJSONObject(i)));
+                    }
+                    categories = list;
+                    parsed = true;
+                }
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (parsed) {
+            notifyProgress(true, true, StringResource.GET_CATEGORY_LIST_SUCCESS);
+        } else {
+            notifyProgress(true, false, StringResource.GET_CATEGORY_LIST_FAIL);
+        }
+    }
+
+    /**
+     * Get the categories, null if the task has not succeeded.
+     */
+    public Vector getCategories() {
+        return categories;
+    }
+}
@@ -0,0 +1,20 @@
+package framework.task;
+
+/**
+ * A policy deciding whether and when a failed {@link StoreTask} request is
+ * sent again.
+ *
+ * @author Oscar Cai
+ */
+
+public interface RetryPolicy {
+
+    /**
+     * Get the delay before sending the failed request again.
+     *
+     * @param attempt the count of retries so far, 0 for the first failure.
+     * @param errMsg the failure description.
+     * @return the delay in milliseconds, or a negative value to give up.
+     */
+    public long getRetryDelay(int attempt, String errMsg);
+}
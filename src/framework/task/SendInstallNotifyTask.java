@@ -8,7 +8,6 @@ import main.config.StringResource;
 import framework.json.me.JSONException;
 import framework.json.me.JSONObject;
 import framework.net.HttpListener;
-import framework.net.HttpTask;
 import framework.util.TextUtil;
 
 /**
@@ -23,10 +22,11 @@ public class SendInstallNotifyTask extends StoreTask {
 
     public SendInstallNotifyTask(String appId, TaskListener listener) {
         super(listener);
+        setRetryPolicy(new BackoffRetryPolicy(3, 2000, 16000));
         this.appId = appId;
     }
 
-    public void execute() {
+    protected void onExecute() {
         String url = Config.getNotifyUrl();
         Hashtable params;
         if (TextUtil.isEmpty(Config.getClientId())) {
@@ -37,11 +37,11 @@ public class SendInstallNotifyTask extends StoreTask {
         }
         params.put("id", appId);
 
-        new HttpTask(url, params, (HttpListener) this).start();
+        sendRequest(url, params);
         notifyProgress(false, false, StringResource.START_SEND_INSTALL_NOTIFY);
     }
 
-    public void onHttpResult(HttpTask task, boolean success, Object response, int responseType, String errMsg) {
+    protected void onResponse(boolean success, Object response, int responseType, String errMsg) {
         if (success) {
             boolean sent = false;
             if (responseType == HttpListener.TEXT && !TextUtil.isEmpty((String)response)) {
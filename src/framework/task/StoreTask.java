@@ -1,24 +1,126 @@
-
 package framework.task;
 
+import java.util.Hashtable;
+
+import main.config.StringResource;
+
 import framework.net.HttpListener;
+import framework.net.HttpTask;
+import framework.net.NetworkExecutor;
 
 /**
  * StoreTask provides communication with Rice App Store server.
+ * <p>
+ * A StoreTask runs once, through the states {@link #IDLE}, {@link #RUNNING}
+ * and then one of {@link #SUCCEEDED}, {@link #FAILED} or {@link #CANCELLED}.
+ * A failed request is sent again as its {@link RetryPolicy} decides, and a
+ * task can be followed by another one, see {@link #then(StoreTask)}.
+ * <p>
+ * Once a task is cancelled, its listener is never notified, its pending
+ * request or retry is dropped, and a response arriving later is dropped
+ * before it's parsed.
  *
  * @author Oscar Cai
  */
 
 public abstract class StoreTask implements HttpListener {
 
+    /**
+     * The task is not executed yet.
+     */
+    public static final int IDLE = 0;
+
+    /**
+     * The task is communicating with the server, or waiting to retry.
+     */
+    public static final int RUNNING = 1;
+
+    /**
+     * The task has finished successfully.
+     */
+    public static final int SUCCEEDED = 2;
+
+    /**
+     * The task has finished with failure.
+     */
+    public static final int FAILED = 3;
+
+    /**
+     * The task is cancelled.
+     */
+    public static final int CANCELLED = 4;
+
     protected TaskListener listener;
 
+    private int state = IDLE;
+    private RetryPolicy retryPolicy;
+    private int attempt;
+
+    private String url;
+    private Hashtable params;
+    private HttpTask request;
+    private Runnable pendingRetry;
+
+    private StoreTask next;
+
     public StoreTask(TaskListener listener) {
         this.listener = listener;
     }
 
     /**
-     * Notify the listener of the progress of current task.
+     * Set the listener to notify of the progress of the task.
+     *
+     * @param listener the listener.
+     */
+    public void setListener(TaskListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Set the policy to retry failed requests, null not to retry.
+     *
+     * @param retryPolicy the retry policy.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Get the state of the task, one of {@link #IDLE}, {@link #RUNNING},
+     * {@link #SUCCEEDED}, {@link #FAILED} and {@link #CANCELLED}.
+     */
+    public synchronized int getState() {
+        return state;
+    }
+
+    public synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    /**
+     * Execute the specified task once this task succeeds. If this task fails
+     * or is cancelled, the specified task is cancelled.
+     *
+     * @param task the task to execute next.
+     * @return the specified task, to chain more tasks after it.
+     */
+    public StoreTask then(StoreTask task) {
+        int current;
+        synchronized (this) {
+            next = task;
+            current = state;
+        }
+        if (current == SUCCEEDED) {
+            task.execute();
+        } else if (current == FAILED || current == CANCELLED) {
+            task.cancel();
+        }
+        return task;
+    }
+
+    /**
+     * Notify the listener of the progress of current task. Nothing is
+     * notified once the task has finished or is cancelled.
      *
      * @param done true if this task finishes, false otherwise.
      * @param success whether the task operates successfully, only available
@@ -26,17 +128,153 @@ public abstract class StoreTask implements HttpListener {
      * @param msg the status description.
      */
     protected void notifyProgress(boolean done, boolean success, String msg) {
-        if (listener != null) {
+        TaskListener l;
+        StoreTask following = null;
+        synchronized (this) {
+            if (state != RUNNING) {
+                return;
+            }
             if (done) {
-                listener.onFinished(success, msg);
+                state = success ? SUCCEEDED : FAILED;
+                following = next;
+            }
+            l = listener;
+        }
+
+        if (l != null) {
+            if (done) {
+                l.onFinished(this, success, msg);
+            } else {
+                l.onUpdated(this, msg);
+            }
+        }
+
+        if (following != null) {
+            if (success) {
+                following.execute();
             } else {
-                listener.onUpdated(msg);
+                following.cancel();
+            }
+        }
+    }
+
+    /**
+     * Starts executing the task. A task is only executed once.
+     */
+    public final void execute() {
+        synchronized (this) {
+            if (state != IDLE) {
+                return;
+            }
+            state = RUNNING;
+        }
+        onExecute();
+    }
+
+    /**
+     * Cancel the task and the tasks following it. A cancelled task never
+     * notifies its listener.
+     */
+    public void cancel() {
+        HttpTask r;
+        Runnable retry;
+        StoreTask following;
+        synchronized (this) {
+            if (state == IDLE || state == RUNNING) {
+                state = CANCELLED;
+            }
+            r = request;
+            retry = pendingRetry;
+            following = next;
+            request = null;
+            pendingRetry = null;
+        }
+
+        if (r != null) {
+            r.cancel();
+        }
+        if (retry != null) {
+            NetworkExecutor.remove(retry);
+        }
+        if (following != null) {
+            following.cancel();
+        }
+    }
+
+    /**
+     * Send the request of the task, which is sent again on failure as the
+     * retry policy decides.
+     *
+     * @param url the URL of the request.
+     * @param params the query parameters of the request.
+     */
+    protected void sendRequest(String url, Hashtable params) {
+        HttpTask r;
+        synchronized (this) {
+            if (state != RUNNING) {
+                return;
+            }
+            this.url = url;
+            this.params = params;
+            r = request = new HttpTask(url, params, (HttpListener) this);
+        }
+        // The user is waiting for it, don't queue it behind the images.
+        r.setPriority(NetworkExecutor.PRIORITY_HIGH);
+        r.start();
+    }
+
+    private void retry() {
+        HttpTask r;
+        synchronized (this) {
+            if (state != RUNNING) {
+                return;
             }
+            pendingRetry = null;
+            r = request = new HttpTask(url, params, (HttpListener) this);
         }
+        r.setPriority(NetworkExecutor.PRIORITY_HIGH);
+        r.start();
     }
 
+    public final void onHttpResult(HttpTask task, boolean success, Object response, int responseType, String errMsg) {
+        long delay = -1;
+        synchronized (this) {
+            if (state != RUNNING || task != request) {
+                // Stale response, e.g. of a cancelled task.
+                return;
+            }
+            request = null;
+            if (!success && retryPolicy != null) {
+                delay = retryPolicy.getRetryDelay(attempt, errMsg);
+            }
+            if (delay >= 0) {
+                attempt++;
+                pendingRetry = new Runnable() {
+                    public void run() {
+                        retry();
+                    }
+                };
+                NetworkExecutor.schedule(pendingRetry, delay, NetworkExecutor.PRIORITY_HIGH);
+            }
+        }
+
+        if (delay >= 0) {
+            notifyProgress(false, false, StringResource.RETRYING);
+        } else {
+            onResponse(success, response, responseType, errMsg);
+        }
+    }
+
+    /**
+     * Start the task, usually by calling {@link #sendRequest(String, Hashtable)}.
+     */
+    protected abstract void onExecute();
+
     /**
-     * Starts executing the task.
+     * Handle the response of the request, after retries if any, and notify
+     * the listener that the task finishes.
+     * <p>
+     * See {@link HttpListener#onHttpResult(HttpTask, boolean, Object, int, String)}.
      */
-    public abstract void execute();
+    protected abstract void onResponse(boolean success, Object response, int responseType, String errMsg);
 }
@@ -13,15 +13,19 @@ public interface TaskListener {
     /**
      * Notify the task progress.
      *
+     * @param task the task in progress
      * @param msg task status description
      */
-    public void onUpdated(String msg);
+    public void onUpdated(StoreTask task, String msg);
 
     /**
-     * Notify the task has finished.
+     * Notify the task has finished. The task may be replaced or cancelled
+     * right before it's notified, e.g. on refresh, so the listener should
+     * drop the result of a task it no more waits for.
      *
+     * @param task the finished task
      * @param success whether the task operates successfully
      * @param msg task success or failure description
      */
-    public void onFinished(boolean success, String msg);
+    public void onFinished(StoreTask task, boolean success, String msg);
 }
@@ -0,0 +1,27 @@
+package framework.ui;
+
+/**
+ * Interface used to run an animation step on every frame of
+ * {@link FrameScheduler}.
+ *
+ * @author Oscar Cai
+ */
+
+public interface FrameCallback {
+
+    /**
+     * This method will be invoked on every frame while the Canvas the callback
+     * is registered with is shown. Animations should compute their state from
+     * the frame time rather than count frames, so that they stay in phase
+     * with each other and don't slow down when frames are late.
+     * <p>
+     * The callback should request repainting via
+     * {@link FrameScheduler#requestRepaint(javax.microedition.lcdui.Canvas)}
+     * if its state changed.
+     *
+     * @param now the frame time, in milliseconds, the same for all callbacks
+     * of the frame.
+     * @return true to be called on the next frame, false to be removed.
+     */
+    public boolean tick(long now);
+}
@@ -0,0 +1,291 @@
+package framework.ui;
+
+import java.util.Vector;
+
+import javax.microedition.lcdui.Canvas;
+
+import framework.ui.component.View;
+
+/**
+ * FrameScheduler runs all animations of the UI framework on one thread at a
+ * fixed frame rate.
+ * <p>
+ * Every {@link FrameCallback} is registered with the Canvas it animates, and
+ * is only called while that Canvas is shown, see {@link #onShown(Canvas)} and
+ * {@link #onHidden(Canvas)}. When no callback of the shown Canvas is
+ * registered, the thread waits without waking up.
+ * <p>
+ * Repaint requests made during a frame are coalesced into one repaint of the
+ * union of the requested areas, issued at the end of the frame.
+ *
+ * @author Oscar Cai
+ */
+
+public final class FrameScheduler implements Runnable {
+
+    /**
+     * The interval between frames, in milliseconds.
+     */
+    public static final int FRAME_INTERVAL = 33;
+
+    private static final FrameScheduler instance = new FrameScheduler();
+
+    private Vector callbacks = new Vector();
+    private Vector callbackCanvases = new Vector();
+    private Canvas shownCanvas;
+    private Thread thread;
+
+    /**
+     * The count of {@link #addCallback(FrameCallback, Canvas)} calls, so that a
+     * callback registered again while its last tick was finishing is kept.
+     */
+    private int addCount;
+
+    /**
+     * The repaint area requested during the current frame.
+     */
+    private boolean repaintRequested;
+    private boolean fullRepaint;
+    private int repaintLeft;
+    private int repaintTop;
+    private int repaintRight;
+    private int repaintBottom;
+
+    private FrameScheduler() {
+    }
+
+    /**
+     * Register a callback to be called on every frame while the specified
+     * Canvas is shown. A callback which is already registered is registered
+     * with the new Canvas.
+     *
+     * @param callback the callback to register.
+     * @param canvas the Canvas the callback animates.
+     */
+    public static void add(FrameCallback callback, Canvas canvas) {
+        instance.addCallback(callback, canvas);
+    }
+
+    /**
+     * Unregister a callback.
+     *
+     * @param callback the callback to unregister.
+     */
+    public static void remove(FrameCallback callback) {
+        instance.removeCallback(callback);
+    }
+
+    /**
+     * Request to repaint the whole Canvas at the end of the current frame.
+     *
+     * @param canvas the Canvas to repaint.
+     */
+    public static void requestRepaint(Canvas canvas) {
+        instance.addRepaint(canvas, null);
+    }
+
+    /**
+     * Request to repaint the area of the View at the end of the current frame.
+     *
+     * @param canvas the Canvas to repaint.
+     * @param view the View to repaint.
+     */
+    public static void requestRepaint(Canvas canvas, View view) {
+        instance.addRepaint(canvas, view);
+    }
+
+    /**
+     * Call this when a Canvas is shown, to resume the callbacks registered
+     * with it.
+     *
+     * @param canvas the shown Canvas.
+     */
+    public static void onShown(Canvas canvas) {
+        instance.setShownCanvas(canvas);
+    }
+
+    /**
+     * Call this when a Canvas is hidden, to pause the callbacks registered
+     * with it.
+     *
+     * @param canvas the hidden Canvas.
+     */
+    public static void onHidden(Canvas canvas) {
+        synchronized (instance) {
+            if (instance.shownCanvas == canvas) {
+                instance.setShownCanvas(null);
+            }
+        }
+    }
+
+    private synchronized void addCallback(FrameCallback callback, Canvas canvas) {
+        addCount++;
+        int index = callbacks.indexOf(callback);
+        if (index >= 0) {
+            callbackCanvases.setElementAt(canvas, index);
+        } else {
+            callbacks.addElement(callback);
+            callbackCanvases.addElement(canvas);
+        }
+        wakeUp();
+    }
+
+    private synchronized void removeCallback(FrameCallback callback) {
+        int index = callbacks.indexOf(callback);
+        if (index >= 0) {
+            callbacks.removeElementAt(index);
+            callbackCanvases.removeElementAt(index);
+        }
+    }
+
+    /**
+     * Remove a callback whose tick returned false, unless any callback was
+     * registered since the tick started: the callback may have been started
+     * again meanwhile, e.g. a new fling. If not, its next tick returns false
+     * again and it's removed then.
+     */
+    private synchronized void removeFinishedCallback(FrameCallback callback, int addCountBeforeTick) {
+        if (addCount == addCountBeforeTick) {
+            removeCallback(callback);
+        }
+    }
+
+    private synchronized void setShownCanvas(Canvas canvas) {
+        shownCanvas = canvas;
+        repaintRequested = false;
+        wakeUp();
+    }
+
+    private synchronized void addRepaint(Canvas canvas, View view) {
+        if (canvas == null || canvas != shownCanvas) {
+            return;
+        }
+        if (view == null) {
+            fullRepaint = true;
+        } else {
+            int left = view.getScreenLeft();
+            int top = view.getScreenTop();
+            int right = left + view.getWidth();
+            int bottom = top + view.getHeight();
+            if (!repaintRequested) {
+                repaintLeft = left;
+                repaintTop = top;
+                repaintRight = right;
+                repaintBottom = bottom;
+            } else {
+                repaintLeft = Math.min(repaintLeft, left);
+                repaintTop = Math.min(repaintTop, top);
+                repaintRight = Math.max(repaintRight, right);
+                repaintBottom = Math.max(repaintBottom, bottom);
+            }
+        }
+        repaintRequested = true;
+    }
+
+    /**
+     * Start the thread or wake it up if there is anything to animate.
+     */
+    private void wakeUp() {
+        if (!hasShownCallback()) {
+            return;
+        }
+        if (thread == null) {
+            thread = new Thread(this);
+            thread.start();
+        } else {
+            notify();
+        }
+    }
+
+    private boolean hasShownCallback() {
+        return shownCanvas != null && callbackCanvases.contains(shownCanvas);
+    }
+
+    public void run() {
+        long nextFrameTime = System.currentTimeMillis();
+        FrameCallback[] frameCallbacks = new FrameCallback[4];
+
+        while (true) {
+            Canvas canvas;
+            int count = 0;
+            int adds;
+            synchronized (this) {
+                while (!hasShownCallback()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                    }
+                    nextFrameTime = System.currentTimeMillis();
+                }
+
+                canvas = shownCanvas;
+                for (int i = 0; i < callbacks.size(); i++) {
+                    if (callbackCanvases.elementAt(i) == canvas) {
+                        if (count == frameCallbacks.length) {
+                            FrameCallback[] larger = new FrameCallback[count * 2];
+                            System.arraycopy(frameCallbacks, 0, larger, 0, count);
+                            frameCallbacks = larger;
+                        }
+                        frameCallbacks[count++] = (FrameCallback) callbacks.elementAt(i);
+                    }
+                }
+                adds = addCount;
+            }
+
+            // Run callbacks out of the lock, they may register or unregister.
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < count; i++) {
+                try {
+                    if (!frameCallbacks[i].tick(now)) {
+                        removeFinishedCallback(frameCallbacks[i], adds);
+                    }
+                } catch (RuntimeException e) {
+                    removeCallback(frameCallbacks[i]);
+                }
+                frameCallbacks[i] = null;
+            }
+
+            flushRepaint(canvas);
+
+            nextFrameTime += FRAME_INTERVAL;
+            long delay = nextFrameTime - System.currentTimeMillis();
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                }
+            } else {
+                // Frames are late, don't try to catch up.
+                nextFrameTime = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Issue the repaint requested during the frame.
+     */
+    private void flushRepaint(Canvas canvas) {
+        boolean full;
+        int left, top, right, bottom;
+        synchronized (this) {
+            if (!repaintRequested || canvas != shownCanvas) {
+                repaintRequested = false;
+                fullRepaint = false;
+                return;
+            }
+            full = fullRepaint;
+            left = repaintLeft;
+            top = repaintTop;
+            right = repaintRight;
+            bottom = repaintBottom;
+            repaintRequested = false;
+            fullRepaint = false;
+        }
+
+        if (full) {
+            canvas.repaint();
+        } else {
+            canvas.repaint(left, top, right - left, bottom - top);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package framework.ui;
+
+import javax.microedition.lcdui.Graphics;
+import javax.microedition.lcdui.Image;
+import javax.microedition.lcdui.game.Sprite;
+
+import framework.util.DrawUtil;
+
+/**
+ * NinePatch draws a nine-patch image stretched to any size at paint time,
+ * without expanding it into a full size image.
+ * <p>
+ * Just like {@link DrawUtil#stretch9PatchImage(Image, int, int, boolean)}, the
+ * middle column and the middle row of the image are the stretched area, and
+ * the rest are four corners. The corners are drawn from the image directly,
+ * the edges are drawn by repeating small strips built from the middle column
+ * and row, and the centre is filled with the color of the centre pixel.
+ * Therefore, the memory used doesn't grow with the drawn size.
+ *
+ * @author Oscar Cai
+ */
+
+public final class NinePatch {
+
+    /**
+     * The length of the edge strips, which are drawn repeatedly along the
+     * edges.
+     */
+    private static final int STRIP_LENGTH = 32;
+
+    private Image image;
+
+    /**
+     * The sizes of the corners.
+     */
+    private int leftWidth;
+    private int rightWidth;
+    private int topHeight;
+    private int bottomHeight;
+
+    /**
+     * The edge strips: the top and bottom ones are STRIP_LENGTH wide, while
+     * the left and right ones are STRIP_LENGTH high.
+     */
+    private int[] topStrip;
+    private int[] bottomStrip;
+    private int[] leftStrip;
+    private int[] rightStrip;
+
+    private int centerColor;
+
+    /**
+     * Create a NinePatch from a nine-patch image.
+     *
+     * @param image the nine-patch image, whose width and height should be odd.
+     */
+    public NinePatch(Image image) {
+        this.image = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int hMiddle = width >> 1;
+        int vMiddle = height >> 1;
+        leftWidth = hMiddle;
+        rightWidth = width - hMiddle - 1;
+        topHeight = vMiddle;
+        bottomHeight = height - vMiddle - 1;
+
+        int[] column = new int[height];
+        int[] row = new int[width];
+        image.getRGB(column, 0, 1, hMiddle, 0, 1, height);
+        image.getRGB(row, 0, width, 0, vMiddle, width, 1);
+        centerColor = column[vMiddle];
+
+        topStrip = createHorizontalStrip(column, 0, topHeight);
+        bottomStrip = createHorizontalStrip(column, vMiddle + 1, bottomHeight);
+        leftStrip = createVerticalStrip(row, 0, leftWidth);
+        rightStrip = createVerticalStrip(row, hMiddle + 1, rightWidth);
+    }
+
+    /**
+     * Get the horizontal size of the corners, i.e. the width of the NinePatch
+     * excluding the stretched area.
+     */
+    public int getHorizontalPadding() {
+        return leftWidth + rightWidth;
+    }
+
+    /**
+     * Get the vertical size of the corners, i.e. the height of the NinePatch
+     * excluding the stretched area.
+     */
+    public int getVerticalPadding() {
+        return topHeight + bottomHeight;
+    }
+
+    /**
+     * Draw the NinePatch stretched to the specified size. The size should not
+     * be smaller than the corners.
+     *
+     * @param g the Graphics to draw on.
+     * @param x the left of the destination.
+     * @param y the top of the destination.
+     * @param width the width of the destination.
+     * @param height the height of the destination.
+     */
+    public void draw(Graphics g, int x, int y, int width, int height) {
+        int innerWidth = width - leftWidth - rightWidth;
+        int innerHeight = height - topHeight - bottomHeight;
+        if (innerWidth < 0 || innerHeight < 0) {
+            // Shrinking is not supported, just draw the image.
+            g.drawImage(image, x, y, Graphics.LEFT | Graphics.TOP);
+            return;
+        }
+
+        int innerLeft = x + leftWidth;
+        int innerTop = y + topHeight;
+        int right = innerLeft + innerWidth;
+        int bottom = innerTop + innerHeight;
+        int srcRight = leftWidth + 1;
+        int srcBottom = topHeight + 1;
+
+        // corners
+        drawCorner(g, 0, 0, leftWidth, topHeight, x, y);
+        drawCorner(g, srcRight, 0, rightWidth, topHeight, right, y);
+        drawCorner(g, 0, srcBottom, leftWidth, bottomHeight, x, bottom);
+        drawCorner(g, srcRight, srcBottom, rightWidth, bottomHeight, right, bottom);
+
+        // edges
+        for (int i = 0; i < innerWidth; i += STRIP_LENGTH) {
+            int length = Math.min(STRIP_LENGTH, innerWidth - i);
+            if (topHeight > 0) {
+                g.drawRGB(topStrip, 0, STRIP_LENGTH, innerLeft + i, y, length, topHeight, true);
+            }
+            if (bottomHeight > 0) {
+                g.drawRGB(bottomStrip, 0, STRIP_LENGTH, innerLeft + i, bottom, length, bottomHeight, true);
+            }
+        }
+        for (int i = 0; i < innerHeight; i += STRIP_LENGTH) {
+            int length = Math.min(STRIP_LENGTH, innerHeight - i);
+            if (leftWidth > 0) {
+                g.drawRGB(leftStrip, 0, leftWidth, x, innerTop + i, leftWidth, length, true);
+            }
+            if (rightWidth > 0) {
+                g.drawRGB(rightStrip, 0, rightWidth, right, innerTop + i, rightWidth, length, true);
+            }
+        }
+
+        // centre
+        if (innerWidth > 0 && innerHeight > 0) {
+            int alpha = DrawUtil.getAlpha(centerColor);
+            if (alpha == 0x0FF) {
+                g.setColor(centerColor);
+                g.fillRect(innerLeft, innerTop, innerWidth, innerHeight);
+            } else if (alpha > 0) {
+                DrawUtil.fillTranslucentRect(g, centerColor, innerLeft, innerTop, innerWidth, innerHeight);
+            }
+        }
+    }
+
+    private void drawCorner(Graphics g, int srcX, int srcY, int width, int height, int x, int y) {
+        if (width > 0 && height > 0) {
+            g.drawRegion(image, srcX, srcY, width, height, Sprite.TRANS_NONE,
+                    x, y, Graphics.LEFT | Graphics.TOP);
+        }
+    }
+
+    /**
+     * Create a STRIP_LENGTH wide strip whose rows are the specified pixels.
+     */
+    private static int[] createHorizontalStrip(int[] column, int offset, int height) {
+        int[] strip = new int[STRIP_LENGTH * height];
+        for (int y = 0, i = 0; y < height; y++) {
+            int color = column[offset + y];
+            for (int x = 0; x < STRIP_LENGTH; x++) {
+                strip[i++] = color;
+            }
+        }
+        return strip;
+    }
+
+    /**
+     * Create a STRIP_LENGTH high strip whose columns are the specified pixels.
+     */
+    private static int[] createVerticalStrip(int[] row, int offset, int width) {
+        int[] strip = new int[width * STRIP_LENGTH];
+        for (int y = 0; y < STRIP_LENGTH; y++) {
+            System.arraycopy(row, offset, strip, y * width, width);
+        }
+        return strip;
+    }
+}
@@ -0,0 +1,328 @@
+package framework.ui;
+
+import java.util.Vector;
+
+import javax.microedition.lcdui.Font;
+import javax.microedition.lcdui.Graphics;
+
+import main.util.Log;
+
+/**
+ * Profiler measures the rendering of every frame: the time spent painting,
+ * the time spent laying out views since the previous frame, the count of
+ * views painted, the bytes of Images and int arrays allocated while
+ * painting, and the hit rate of the text rendering cache of
+ * {@link framework.ui.effect.Effect}.
+ * <p>
+ * The measurements of the latest frame are drawn as a compact HUD over the
+ * Activity, and the measurements of the latest {@link #LOG_SIZE} frames are
+ * kept in a rolling log, whose summary is written to {@link Log} every
+ * LOG_SIZE frames.
+ * <p>
+ * Profiler is switched off at build time by {@link #ENABLED}. Every call
+ * must be guarded by <code>if (Profiler.ENABLED)</code>, so that the
+ * compiler strips the calls and they cost nothing in release builds.
+ * <p>
+ * Layouts may run on any thread while painting runs on the event thread,
+ * so nested layouts are only counted once per thread at a time, and the
+ * times of layouts running concurrently on several threads are added up.
+ *
+ * @author Oscar Cai
+ */
+
+public final class Profiler {
+
+    /**
+     * The build time switch of the profiler.
+     */
+    public static final boolean ENABLED = false;
+
+    /**
+     * The count of frames kept in the rolling log.
+     */
+    public static final int LOG_SIZE = 32;
+
+    private static final String TAG = "RiceStore.Profiler";
+
+    private static final int HUD_BG_COLOR = 0x0000000;
+    private static final int HUD_FG_COLOR = 0x000FF00;
+    private static final int HUD_SLOW_COLOR = 0x0FF4040;
+
+    /**
+     * A frame painted longer than this is drawn in HUD_SLOW_COLOR, in
+     * milliseconds.
+     */
+    private static final int SLOW_FRAME_TIME = FrameScheduler.FRAME_INTERVAL;
+
+    /**
+     * The columns of the rolling log.
+     */
+    private static final int PAINT_TIME = 0;
+    private static final int LAYOUT_TIME = 1;
+    private static final int VIEWS = 2;
+    private static final int IMAGE_BYTES = 3;
+    private static final int ARRAY_BYTES = 4;
+    private static final int TEXT_HITS = 5;
+    private static final int TEXT_MISSES = 6;
+    private static final int COLUMNS = 7;
+
+    private static final Object lock = new Object();
+
+    /**
+     * The rolling log, logPos is the index of the next frame, and logCount is
+     * the count of logged frames.
+     */
+    private static final int[][] log = new int[LOG_SIZE][COLUMNS];
+    private static int logPos;
+    private static int logCount;
+
+    /**
+     * The measurements of the current frame.
+     */
+    private static final int[] current = new int[COLUMNS];
+    private static Thread paintThread;
+    private static long paintStartTime;
+
+    /**
+     * The threads laying out, with the depths of their nested layouts and
+     * the start times of their outermost layouts, parallel.
+     */
+    private static final Vector layoutThreads = new Vector();
+    private static final Vector layoutDepths = new Vector();
+    private static final Vector layoutStartTimes = new Vector();
+
+    private static Font hudFont;
+
+    private Profiler() {
+    }
+
+    /**
+     * Call this before painting a frame.
+     */
+    public static void beginFrame() {
+        synchronized (lock) {
+            paintThread = Thread.currentThread();
+            paintStartTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Call this after painting a frame, to log the frame and reset the
+     * measurements for the next frame.
+     */
+    public static void endFrame() {
+        boolean dump;
+        synchronized (lock) {
+            if (paintThread == null) {
+                return;
+            }
+            current[PAINT_TIME] = (int) (System.currentTimeMillis() - paintStartTime);
+            paintThread = null;
+
+            int[] entry = log[logPos];
+            System.arraycopy(current, 0, entry, 0, COLUMNS);
+            for (int i = 0; i < COLUMNS; i++) {
+                current[i] = 0;
+            }
+            logPos = (logPos + 1) % LOG_SIZE;
+            if (logCount < LOG_SIZE) {
+                logCount++;
+            }
+            dump = logPos == 0;
+        }
+        if (dump) {
+            Log.d(TAG, getSummary());
+        }
+    }
+
+    /**
+     * Call this when a View starts laying out.
+     */
+    public static void beginLayout() {
+        synchronized (lock) {
+            Thread thread = Thread.currentThread();
+            int i = layoutThreads.indexOf(thread);
+            if (i < 0) {
+                layoutThreads.addElement(thread);
+                layoutDepths.addElement(new Integer(1));
+                layoutStartTimes.addElement(new Long(System.currentTimeMillis()));
+            } else {
+                int depth = ((Integer) layoutDepths.elementAt(i)).intValue();
+                layoutDepths.setElementAt(new Integer(depth + 1), i);
+            }
+        }
+    }
+
+    /**
+     * Call this when a View finishes laying out.
+     */
+    public static void endLayout() {
+        synchronized (lock) {
+            int i = layoutThreads.indexOf(Thread.currentThread());
+            if (i < 0) {
+                return;
+            }
+            int depth = ((Integer) layoutDepths.elementAt(i)).intValue() - 1;
+            if (depth > 0) {
+                layoutDepths.setElementAt(new Integer(depth), i);
+                return;
+            }
+            long startTime = ((Long) layoutStartTimes.elementAt(i)).longValue();
+            current[LAYOUT_TIME] += (int) (System.currentTimeMillis() - startTime);
+            layoutThreads.removeElementAt(i);
+            layoutDepths.removeElementAt(i);
+            layoutStartTimes.removeElementAt(i);
+        }
+    }
+
+    /**
+     * Call this when a View is painted.
+     */
+    public static void onViewPainted() {
+        synchronized (lock) {
+            if (isPainting()) {
+                current[VIEWS]++;
+            }
+        }
+    }
+
+    /**
+     * Call this when an Image is created, it's only counted while painting.
+     *
+     * @param width the width of the Image.
+     * @param height the height of the Image.
+     */
+    public static void onImageAllocated(int width, int height) {
+        synchronized (lock) {
+            if (isPainting()) {
+                current[IMAGE_BYTES] += width * height * 4;
+            }
+        }
+    }
+
+    /**
+     * Call this when an int array is created, it's only counted while
+     * painting.
+     *
+     * @param length the length of the array.
+     */
+    public static void onArrayAllocated(int length) {
+        synchronized (lock) {
+            if (isPainting()) {
+                current[ARRAY_BYTES] += length * 4;
+            }
+        }
+    }
+
+    /**
+     * Call this when the rendered text is looked up in the text cache.
+     *
+     * @param hit true if the rendered text is reused, false if it has to be
+     * rendered again.
+     */
+    public static void onTextCacheLookup(boolean hit) {
+        synchronized (lock) {
+            current[hit ? TEXT_HITS : TEXT_MISSES]++;
+        }
+    }
+
+    private static boolean isPainting() {
+        return paintThread == Thread.currentThread();
+    }
+
+    /**
+     * Draw the measurements of the latest frame at the specified position.
+     *
+     * @param g the Graphics to draw on.
+     * @param x the left of the HUD.
+     * @param y the top of the HUD.
+     */
+    public static void drawHud(Graphics g, int x, int y) {
+        String line1, line2, line3;
+        boolean slow;
+        synchronized (lock) {
+            if (logCount == 0) {
+                return;
+            }
+            int[] entry = log[(logPos + LOG_SIZE - 1) % LOG_SIZE];
+            slow = entry[PAINT_TIME] > SLOW_FRAME_TIME;
+            line1 = "P" + entry[PAINT_TIME] + "ms L" + entry[LAYOUT_TIME] + "ms V" + entry[VIEWS];
+            line2 = "I" + (entry[IMAGE_BYTES] >> 10) + "K A" + (entry[ARRAY_BYTES] >> 10) + "K";
+            line3 = "T" + getHitRate(entry[TEXT_HITS], entry[TEXT_MISSES]);
+        }
+
+        if (hudFont == null) {
+            hudFont = Font.getFont(Font.FACE_MONOSPACE, Font.STYLE_PLAIN, Font.SIZE_SMALL);
+        }
+        int lineHeight = hudFont.getHeight();
+        int width = Math.max(hudFont.stringWidth(line1),
+                Math.max(hudFont.stringWidth(line2), hudFont.stringWidth(line3))) + 4;
+
+        g.setColor(HUD_BG_COLOR);
+        g.fillRect(x, y, width, lineHeight * 3 + 2);
+        g.setFont(hudFont);
+        g.setColor(slow ? HUD_SLOW_COLOR : HUD_FG_COLOR);
+        g.drawString(line1, x + 2, y + 1, Graphics.LEFT | Graphics.TOP);
+        g.drawString(line2, x + 2, y + 1 + lineHeight, Graphics.LEFT | Graphics.TOP);
+        g.drawString(line3, x + 2, y + 1 + lineHeight * 2, Graphics.LEFT | Graphics.TOP);
+    }
+
+    /**
+     * Get the summary of the rolling log: the average and the maximum of each
+     * measurement over the logged frames.
+     *
+     * @return the summary, or an empty string if no frame is logged.
+     */
+    public static String getSummary() {
+        synchronized (lock) {
+            if (logCount == 0) {
+                return "";
+            }
+            int[] sums = new int[COLUMNS];
+            int[] maxs = new int[COLUMNS];
+            for (int i = 0; i < logCount; i++) {
+                int[] entry = log[i];
+                for (int j = 0; j < COLUMNS; j++) {
+                    sums[j] += entry[j];
+                    maxs[j] = Math.max(maxs[j], entry[j]);
+                }
+            }
+            return logCount + " frames:"
+                    + " paint " + sums[PAINT_TIME] / logCount + "/" + maxs[PAINT_TIME] + "ms"
+                    + " layout " + sums[LAYOUT_TIME] / logCount + "/" + maxs[LAYOUT_TIME] + "ms"
+                    + " views " + sums[VIEWS] / logCount + "/" + maxs[VIEWS]
+                    + " image " + sums[IMAGE_BYTES] / logCount + "/" + maxs[IMAGE_BYTES] + "B"
+                    + " array " + sums[ARRAY_BYTES] / logCount + "/" + maxs[ARRAY_BYTES] + "B"
+                    + " text hits " + getHitRate(sums[TEXT_HITS], sums[TEXT_MISSES]);
+        }
+    }
+
+    /**
+     * Get the rolling log, one line per frame from the oldest to the latest,
+     * with the columns: paint time, layout time, views painted, Image bytes,
+     * int array bytes, text cache hits and text cache misses.
+     *
+     * @return the rolling log.
+     */
+    public static String getLog() {
+        synchronized (lock) {
+            StringBuffer buf = new StringBuffer();
+            for (int i = logCount; i > 0; i--) {
+                int[] entry = log[(logPos + LOG_SIZE - i) % LOG_SIZE];
+                for (int j = 0; j < COLUMNS; j++) {
+                    if (j > 0) {
+                        buf.append('\t');
+                    }
+                    buf.append(entry[j]);
+                }
+                buf.append('\n');
+            }
+            return buf.toString();
+        }
+    }
+
+    private static String getHitRate(int hits, int misses) {
+        int total = hits + misses;
+        return total == 0 ? "-" : (hits * 100 / total) + "%";
+    }
+}
@@ -5,6 +5,8 @@ import javax.microedition.lcdui.Canvas;
 import javax.microedition.lcdui.Graphics;
 import javax.microedition.lcdui.Image;
 
+import framework.ui.FrameScheduler;
+import framework.ui.Profiler;
 import framework.ui.component.Container;
 import framework.ui.component.View;
 
@@ -21,6 +23,13 @@ public abstract class Activity extends Canvas {
 
     protected Container frame;
 
+    /**
+     * The reusable snapshot of the frame, rendered when the content version of
+     * the frame was snapshotVersion.
+     */
+    private Image snapshot;
+    private int snapshotVersion;
+
     public Activity() {
         setFullScreenMode(true);
 
@@ -41,20 +50,82 @@ public abstract class Activity extends Canvas {
      */
     protected void paint(Graphics g) {
         g.setClip(frame.getLeft(), frame.getTop(), frame.getWidth(), frame.getHeight());
-        frame.paint(g);
+        paintFrame(g);
+    }
+
+    /**
+     * Paint the frame, measured by {@link Profiler} if it is enabled.
+     *
+     * @param g the Graphics to paint on.
+     */
+    protected final void paintFrame(Graphics g) {
+        if (Profiler.ENABLED) {
+            Profiler.beginFrame();
+            frame.paint(g);
+            Profiler.endFrame();
+            Profiler.drawHud(g, frame.getLeft(), frame.getTop());
+        } else {
+            frame.paint(g);
+        }
     }
 
     /**
      * Get a snapshot of the Activity.
+     * <p>
+     * The snapshot Image is kept and reused. It is rendered again only if the
+     * frame has been invalidated since last time, therefore, callers must not
+     * draw on it, and it may change while the Activity changes.
      *
      * @return the snapshot Image.
      */
-    protected Image getSnapshot() {
-        Image snapshot = Image.createImage(frame.getWidth(), frame.getHeight());
-        frame.paint(snapshot.getGraphics());
+    protected synchronized Image getSnapshot() {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int version = frame.getContentVersion();
+        if (snapshot != null && snapshot.getWidth() == width
+                && snapshot.getHeight() == height && snapshotVersion == version) {
+            return snapshot;
+        }
+
+        Graphics g;
+        if (snapshot == null || snapshot.getWidth() != width || snapshot.getHeight() != height) {
+            snapshot = Image.createImage(width, height);
+            g = snapshot.getGraphics();
+        } else {
+            g = snapshot.getGraphics();
+            // Clear the last rendering, just like a new mutable Image.
+            g.setColor(0xFFFFFF);
+            g.fillRect(0, 0, width, height);
+        }
+        frame.paint(g);
+        snapshotVersion = version;
         return snapshot;
     }
 
+    /**
+     * Resume the animations of the activity when it is shown.
+     * <p>
+     * <em>Derived classes must call through to the super class's
+     * implementation of this method.</em>
+     *
+     * @see javax.microedition.lcdui.Canvas#showNotify()
+     */
+    protected void showNotify() {
+        FrameScheduler.onShown(this);
+    }
+
+    /**
+     * Pause the animations of the activity when it is hidden.
+     * <p>
+     * <em>Derived classes must call through to the super class's
+     * implementation of this method.</em>
+     *
+     * @see javax.microedition.lcdui.Canvas#hideNotify()
+     */
+    protected void hideNotify() {
+        FrameScheduler.onHidden(this);
+    }
+
     /**
      * Call this when your activity should be shown.
      */
@@ -81,6 +152,7 @@ public abstract class Activity extends Canvas {
     public void destroy() {
         hide();
         frame.destroy();
+        snapshot = null;
         Config.getActivityManager().remove(this);
         onDestroy();
     }
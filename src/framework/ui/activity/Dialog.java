@@ -4,6 +4,8 @@ package framework.ui.activity;
 import javax.microedition.lcdui.Graphics;
 import javax.microedition.lcdui.Image;
 
+import framework.ui.FrameCallback;
+import framework.ui.FrameScheduler;
 import framework.ui.component.Container;
 import framework.ui.component.View;
 import framework.util.DrawUtil;
@@ -29,7 +31,7 @@ import main.config.Theme;
  * @author Oscar Cai
  */
 
-public abstract class Dialog extends Activity implements Runnable {
+public abstract class Dialog extends Activity implements FrameCallback {
 
     private static final int BGCOLOR_GRADIENT_STEPS = 10;
     private static final int[] BGCOLOR_GRADIENTS = DrawUtil.getGradient(
@@ -38,6 +40,8 @@ public abstract class Dialog extends Activity implements Runnable {
     private static final int ANIMATE_INTERVAL = ANIMATE_DURATION / BGCOLOR_GRADIENTS.length;
 
     private int bgGradientIndex;
+    private int fadeStartIndex;
+    private long fadeStartTime;
     private boolean canPaint;
     private View dialogPanel;
     private int bindFlag;
@@ -130,11 +134,17 @@ public abstract class Dialog extends Activity implements Runnable {
     }
 
     protected void showNotify() {
+        super.showNotify();
         canPaint = true;
-        new Thread(this).start();
+        if (bgGradientIndex < BGCOLOR_GRADIENTS.length - 1) {
+            fadeStartIndex = bgGradientIndex;
+            fadeStartTime = System.currentTimeMillis();
+            FrameScheduler.add(this, this);
+        }
     }
 
     protected void hideNotify() {
+        super.hideNotify();
         canPaint = false;
     }
 
@@ -147,26 +157,29 @@ public abstract class Dialog extends Activity implements Runnable {
         }
 
         g.setClip(frame.getLeft(), frame.getTop(), frame.getWidth(), frame.getHeight());
-        frame.paint(g);
+        paintFrame(g);
     }
 
     protected void onDestroy() {
         super.onDestroy();
+        FrameScheduler.remove(this);
         bgGradientIndex = 0;
     }
 
-    public void run() {
+    public boolean tick(long now) {
         /**
          * Update gradient background color until it reaches the end gradient
          * color.
          */
-        try {
-            for (; bgGradientIndex < BGCOLOR_GRADIENTS.length; bgGradientIndex++) {
-                alphaMaskPanel.setBackgroundColor(BGCOLOR_GRADIENTS[bgGradientIndex]);
-                repaint();
-                Thread.sleep(ANIMATE_INTERVAL);
-            }
-        } catch (Exception e) {
+        int index = fadeStartIndex + (int) ((now - fadeStartTime) / ANIMATE_INTERVAL);
+        if (index >= BGCOLOR_GRADIENTS.length) {
+            index = BGCOLOR_GRADIENTS.length - 1;
+        }
+        if (index != bgGradientIndex) {
+            bgGradientIndex = index;
+            alphaMaskPanel.setBackgroundColor(BGCOLOR_GRADIENTS[bgGradientIndex]);
+            FrameScheduler.requestRepaint(this);
         }
+        return bgGradientIndex < BGCOLOR_GRADIENTS.length - 1;
     }
 }
@@ -83,7 +83,7 @@ public class Menu extends Activity {
 
         for (int i = end - 1; i >= start; i--) {
             MenuItem menuItem = (MenuItem) items.elementAt(i);
-            IconView menuItemView = new IconView(menuItem.getIcon(), menuItem.getTitle(), Theme.MENU_TITLE_EFFECT, IconView.LABEL_ALIGN_BOTTOM);
+            IconView menuItemView = new IconView(menuItem.getIcon(), menuItem.getTitle(), Theme.getMenuTitleEffect(), IconView.LABEL_ALIGN_BOTTOM);
             menuItem.setView(menuItemView);
 
             hAlign = View.ALIGN_LEFT_OF;
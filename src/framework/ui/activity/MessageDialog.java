@@ -50,11 +50,11 @@ public class MessageDialog extends Dialog {
 
     private void initButtons() {
         if (buttonOk == null) {
-            buttonOk = new ButtonView(StringResource.BUTTON_OK, Theme.DEFAULT_EFFECT);
+            buttonOk = new ButtonView(StringResource.BUTTON_OK, Theme.getDefaultEffect());
             buttonOk.setCanvas(this);
         }
         if (buttonCancel == null) {
-            buttonCancel = new ButtonView(StringResource.BUTTON_CANCEL, Theme.DEFAULT_EFFECT);
+            buttonCancel = new ButtonView(StringResource.BUTTON_CANCEL, Theme.getDefaultEffect());
             buttonCancel.setCanvas(this);
         }
     }
@@ -68,7 +68,7 @@ public class MessageDialog extends Dialog {
          * screen. Need to wrap it.
          */
 
-        TextView msgView = new TextView(message, Theme.DIALOG_DEFAULT_EFFECT);
+        TextView msgView = new TextView(message, Theme.getDialogDefaultEffect());
         msgView.setAlignment(panel, View.WRAP_CONTENT, View.WRAP_CONTENT, 0, View.ALIGN_PARENT_TOP | View.ALIGN_CENTER);
         panel.addChild(msgView);
 
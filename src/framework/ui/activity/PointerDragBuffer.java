@@ -1,30 +1,58 @@
-
 package framework.ui.activity;
 
 /**
- * <code>PointerDragBuffer</code> records certain pointerDragged events.
- * <p>
- * Only when the buffer is fulfilled, <code>PointerDragBuffer</code> notifies
- * {@link PointerDragListener} via invoking
- * {@link PointerDragListener#onPointerDragged()} method.
+ * <code>PointerDragBuffer</code> records pointerDragged events with their
+ * times.
  * <p>
- * The depth of the buffer should be appropriate. Big depth will ignore slim
- * dragging, while small depth will make the buffer meaningless.
+ * Once the pointer has moved farther than the touch slop from where it was
+ * pressed, <code>PointerDragBuffer</code> notifies {@link PointerDragListener}
+ * of every drag sample via invoking
+ * {@link PointerDragListener#onPointerDragged(int, int)} method, with the
+ * distance from the previous notified position.
  * <p>
- * Component can get drag direction and distance from <code>PointerDragBuffer</code>.
+ * The latest samples are kept to compute the dragging velocity when the
+ * pointer is released, e.g. to fling a scroll view.
  *
  * @author Oscar Cai
  */
 
 public class PointerDragBuffer {
-    private static final int TRACK_POS_BUF_DEPTH = 5;
-    private int[][] trackPosBuffer;
+    private static final int TRACK_POS_BUF_DEPTH = 8;
+
+    /**
+     * The distance in pixels the pointer must move before dragging starts,
+     * so that a slightly moving tap is not taken as dragging.
+     */
+    private static final int TOUCH_SLOP = 6;
+
+    /**
+     * Only the samples within this period before releasing are used to
+     * compute velocity, in milliseconds.
+     */
+    private static final int VELOCITY_WINDOW = 100;
+
+    /**
+     * The maximum velocity to report, in pixels per second.
+     */
+    private static final int MAX_VELOCITY = 4000;
+
+    /**
+     * The samples as {x, y, time} in a ring buffer, trackBufPos is the index
+     * of the next sample, and trackBufCount is the count of valid samples.
+     */
+    private long[][] trackPosBuffer;
     private int trackBufPos;
+    private int trackBufCount;
+
+    private boolean tracking;
+    private boolean dragging;
+    private int lastX;
+    private int lastY;
     private PointerDragListener listener;
 
     public PointerDragBuffer(PointerDragListener listener) {
         this.listener = listener;
-        trackPosBuffer = new int[TRACK_POS_BUF_DEPTH][2];
+        trackPosBuffer = new long[TRACK_POS_BUF_DEPTH][3];
         resetTrackPosBuffer();
     }
 
@@ -32,67 +60,144 @@ public class PointerDragBuffer {
      * Reset track position buffer.
      */
     synchronized public void resetTrackPosBuffer() {
-        for (int i = 0; i < trackPosBuffer.length; i++) {
-            trackPosBuffer[i][0] = trackPosBuffer[i][1] = 0;
-        }
         trackBufPos = 0;
+        trackBufCount = 0;
+        tracking = false;
+        dragging = false;
     }
 
     /**
-     * Get the horizontal dragging distance, ignoring dragging details.
-     * @return the distance in pixels.
+     * Start tracking when the pointer is pressed.
+     *
+     * @param x
+     * @param y
      */
-    private int getHorizontalDistance() {
-        if (trackBufPos > 0) {
-            int i = trackBufPos;
-            if (trackBufPos >= TRACK_POS_BUF_DEPTH) {
-                i = TRACK_POS_BUF_DEPTH - 1;
-            }
-            return trackPosBuffer[i][0] - trackPosBuffer[0][0];
-        }
-        return 0;
+    synchronized public void startTracking(int x, int y) {
+        resetTrackPosBuffer();
+        tracking = true;
+        lastX = x;
+        lastY = y;
+        addSample(x, y);
     }
 
     /**
-     * Get the vertical dragging distance, ignoring dragging details.
-     * @return the distance in pixels.
+     * Record the position where the pointer is released, which is also used to
+     * compute velocity.
+     *
+     * @param x
+     * @param y
      */
-    private int getVerticalDistance() {
-        if (trackBufPos > 0) {
-            int i = trackBufPos;
-            if (trackBufPos >= TRACK_POS_BUF_DEPTH) {
-                i = TRACK_POS_BUF_DEPTH - 1;
-            }
-            return trackPosBuffer[i][1] - trackPosBuffer[0][1];
+    synchronized public void stopTracking(int x, int y) {
+        if (tracking) {
+            addSample(x, y);
+            tracking = false;
         }
-        return 0;
     }
 
     /**
-     * Record drag position.
+     * Whether the pointer has moved far enough to be taken as dragging since
+     * it was pressed.
+     *
+     * @return true if dragging, false otherwise.
+     */
+    synchronized public boolean isDragging() {
+        return dragging;
+    }
+
+    /**
+     * Record drag position, and notify the listener of the distance from the
+     * previous notified position once dragging has started.
      *
      * @param x
      * @param y
-     * @return true if the buffer is fulfilled, false otherwise.
      */
     synchronized public void bufferTrackPos(int x, int y) {
-        if (trackBufPos >= TRACK_POS_BUF_DEPTH) {
-            resetTrackPosBuffer();
+        if (!tracking) {
+            // Some implementations don't send pointerPressed before dragging.
+            startTracking(x, y);
+            return;
+        }
+        addSample(x, y);
+
+        int dx = x - lastX;
+        int dy = y - lastY;
+        if (!dragging) {
+            if (Math.abs(dx) <= TOUCH_SLOP && Math.abs(dy) <= TOUCH_SLOP) {
+                return;
+            }
+            dragging = true;
+        }
+        lastX = x;
+        lastY = y;
+
+        if (listener != null && (dx != 0 || dy != 0)) {
+            listener.onPointerDragged(dx, dy);
+        }
+    }
+
+    /**
+     * Get the horizontal dragging velocity at the latest sample.
+     *
+     * @return the velocity in pixels per second. Positive value means
+     * dragging right, while negative value means dragging left.
+     */
+    synchronized public int getHorizontalVelocity() {
+        return getVelocity(0);
+    }
+
+    /**
+     * Get the vertical dragging velocity at the latest sample.
+     *
+     * @return the velocity in pixels per second. Positive value means
+     * dragging down, while negative value means dragging up.
+     */
+    synchronized public int getVerticalVelocity() {
+        return getVelocity(1);
+    }
+
+    /**
+     * Compute the velocity over the samples within the velocity window before
+     * the latest sample.
+     *
+     * @param axis 0 for horizontal, 1 for vertical.
+     * @return the velocity in pixels per second.
+     */
+    private int getVelocity(int axis) {
+        if (!dragging || trackBufCount < 2) {
+            return 0;
         }
 
-        boolean fulfilled = false;
-        if (trackBufPos == (TRACK_POS_BUF_DEPTH - 1)) {
-            fulfilled = true;
-        } else {
-            fulfilled = false;
+        long[] latest = trackPosBuffer[(trackBufPos + TRACK_POS_BUF_DEPTH - 1) % TRACK_POS_BUF_DEPTH];
+        long[] oldest = latest;
+        for (int i = 2; i <= trackBufCount; i++) {
+            long[] sample = trackPosBuffer[(trackBufPos + TRACK_POS_BUF_DEPTH - i) % TRACK_POS_BUF_DEPTH];
+            if (latest[2] - sample[2] > VELOCITY_WINDOW) {
+                break;
+            }
+            oldest = sample;
         }
-        trackPosBuffer[trackBufPos][0] = x;
-        trackPosBuffer[trackBufPos][1] = y;
-        trackBufPos++;
 
-        if (fulfilled && listener != null) {
-            listener.onPointerDragged(getHorizontalDistance(), getVerticalDistance());
-            resetTrackPosBuffer();
+        long duration = latest[2] - oldest[2];
+        if (duration <= 0) {
+            return 0;
+        }
+        long velocity = (latest[axis] - oldest[axis]) * 1000 / duration;
+        if (velocity > MAX_VELOCITY) {
+            velocity = MAX_VELOCITY;
+        } else if (velocity < -MAX_VELOCITY) {
+            velocity = -MAX_VELOCITY;
+        }
+        return (int) velocity;
+    }
+
+    private void addSample(int x, int y) {
+        long[] sample = trackPosBuffer[trackBufPos];
+        sample[0] = x;
+        sample[1] = y;
+        sample[2] = System.currentTimeMillis();
+        trackBufPos = (trackBufPos + 1) % TRACK_POS_BUF_DEPTH;
+        if (trackBufCount < TRACK_POS_BUF_DEPTH) {
+            trackBufCount++;
         }
     }
 }
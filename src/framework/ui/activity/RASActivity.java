@@ -6,6 +6,7 @@ import java.util.Vector;
 import javax.microedition.lcdui.Image;
 
 import framework.ui.component.Container;
+import framework.ui.component.ScrollView;
 import framework.ui.component.ShadowBottomBorder;
 import framework.ui.component.TitleBar;
 import framework.ui.component.View;
@@ -85,6 +86,17 @@ public abstract class RASActivity extends Activity implements OnMenuItemSelected
         menu.show();
     }
 
+    /**
+     * Create the menu items again, e.g. when they depend on the fields of a
+     * derived class, which are not set yet when the menu is created by the
+     * constructor of RASActivity.
+     */
+    protected void recreateMenu() {
+        menuItems.removeAllElements();
+        backMenuItem = null;
+        createMenu(menuItems);
+    }
+
     /**
      * Set the menu item responding to right soft button.
      *
@@ -97,6 +109,32 @@ public abstract class RASActivity extends Activity implements OnMenuItemSelected
     protected abstract void bindContentView();
     protected abstract void createMenu(Vector menuItems);
 
+    /**
+     * Get the ScrollView to fling when the pointer is released after dragging.
+     * <p>
+     * Class <code>RASActivity</code> returns null, and the subclass has to
+     * redefine it if it has a ScrollView scrolled by dragging.
+     *
+     * @return the ScrollView, or null if there is none.
+     */
+    protected ScrollView getScrollView() {
+        return null;
+    }
+
+    /**
+     * Called when the pointer is pressed.
+     * <p>
+     * <em>Derived classes must call through to the super class's
+     * implementation of this method.</em>
+     */
+    protected void pointerPressed(int x, int y) {
+        ScrollView scrollView = getScrollView();
+        if (scrollView != null) {
+            scrollView.stopFling();
+        }
+        dragBuffer.startTracking(x, y);
+    }
+
     /**
      * Handle key released events.
      * <p>
@@ -126,10 +164,16 @@ public abstract class RASActivity extends Activity implements OnMenuItemSelected
      * implementation of this method.</em>
      */
     protected void pointerReleased(int x, int y) {
-        dragBuffer.resetTrackPosBuffer();
+        dragBuffer.stopTracking(x, y);
         if (justDragged) {
             justDragged = false;
+            ScrollView scrollView = getScrollView();
+            if (scrollView != null) {
+                scrollView.fling(dragBuffer.getVerticalVelocity(), this);
+            }
+            dragBuffer.resetTrackPosBuffer();
         } else {
+            dragBuffer.resetTrackPosBuffer();
             onPointerReleased(x, y);
         }
     }
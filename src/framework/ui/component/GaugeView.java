@@ -2,9 +2,10 @@
 package framework.ui.component;
 
 import javax.microedition.lcdui.Canvas;
-import javax.microedition.lcdui.Image;
 
-import framework.util.DrawUtil;
+import framework.ui.FrameCallback;
+import framework.ui.FrameScheduler;
+import framework.ui.effect.Effect;
 
 import main.config.Theme;
 
@@ -15,27 +16,22 @@ import main.config.Theme;
  * @author Oscar Cai
  */
 
-public class GaugeView extends IconView implements Runnable {
+public class GaugeView extends IconView implements FrameCallback {
 
-    private static final Image[] ANIMATE_IMAGES = Theme.getGaugeImages();
+    private static final int ANIMATE_FRAMES = Theme.GAUGE_FRAME_COUNT;
     private static final int ANIMATE_DURATION = 1000; // in milliseconds
-    private static final int ANIMATE_INTERVAL = ANIMATE_DURATION / ANIMATE_IMAGES.length;
+    private static final int ANIMATE_INTERVAL = ANIMATE_DURATION / ANIMATE_FRAMES;
 
     /**
-     * The GaugeView animator icon updating thread
+     * The time when the animation started
      */
-    private Thread animateThread;
+    private long animateStartTime;
 
     /**
      * The GaugeView animator icon frame index
      */
     private int animateIndex;
 
-    /**
-     * Whether continue updating animator icon or not
-     */
-    private boolean runAnimate;
-
     /**
      * The Canvas contains the GaugeView
      */
@@ -47,23 +43,23 @@ public class GaugeView extends IconView implements Runnable {
     private boolean fullRepaint;
 
     public GaugeView(String label, Canvas canvas) {
-        super(ANIMATE_IMAGES[0], label, Theme.GAUGE_EFFECT, LABEL_ALIGN_RIGHT, Theme.ITEM_GAP_SIZE);
+        super(new ImageView(Theme.getGaugeStrip(), Theme.getGaugeEffect(), ANIMATE_FRAMES),
+                label, Theme.getGaugeEffect(), LABEL_ALIGN_RIGHT, Theme.ITEM_GAP_SIZE,
+                Effect.WIDTH_UNKNOWN, false);
         this.canvas = canvas;
         stop();
     }
 
     public void start() {
-        runAnimate = true;
         fullRepaint = true;
-        animateThread = new Thread(this);
-        animateThread.start();
+        animateStartTime = System.currentTimeMillis();
+        FrameScheduler.add(this, canvas);
     }
 
     public void stop() {
+        FrameScheduler.remove(this);
         animateIndex = 0;
         fullRepaint = false;
-        runAnimate = false;
-        animateThread = null;
     }
 
     protected void onDestroy() {
@@ -72,23 +68,21 @@ public class GaugeView extends IconView implements Runnable {
         canvas = null;
     }
 
-    public void run() {
-        while (runAnimate) {
-            try {
-                if (fullRepaint) {
-                    canvas.repaint();
-                    fullRepaint = false;
-                } else {
-                    DrawUtil.repaintCanvas(canvas, iconView);
-                }
-                animateIndex++;
-                if (animateIndex >= ANIMATE_IMAGES.length) {
-                    animateIndex = 0;
-                }
-                iconView.updateImage(ANIMATE_IMAGES[animateIndex]);
-                Thread.sleep(ANIMATE_INTERVAL);
-            } catch (Exception e) {
-            }
+    public boolean tick(long now) {
+        if (canvas == null) {
+            return false;
+        }
+        if (fullRepaint) {
+            FrameScheduler.requestRepaint(canvas);
+            fullRepaint = false;
+        }
+
+        int index = (int) ((now - animateStartTime) / ANIMATE_INTERVAL) % ANIMATE_FRAMES;
+        if (index != animateIndex) {
+            animateIndex = index;
+            iconView.setFrame(animateIndex);
+            FrameScheduler.requestRepaint(canvas, iconView);
         }
+        return true;
     }
 }
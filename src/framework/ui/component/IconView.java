@@ -6,6 +6,7 @@ import javax.microedition.lcdui.Image;
 
 import main.config.Theme;
 
+import framework.ui.NinePatch;
 import framework.ui.effect.Effect;
 import framework.util.DrawUtil;
 
@@ -31,7 +32,7 @@ public class IconView extends View {
     protected TextView labelView;
     protected boolean focused;
 
-    private Image selectedBackground;
+    private NinePatch selectedBackground;
 
     public IconView(Image icon, String label, Effect effect, int labelAlign) {
         this(icon, label, effect, labelAlign, 0, Effect.WIDTH_UNKNOWN, false);
@@ -46,7 +47,15 @@ public class IconView extends View {
     }
 
     public IconView(Image icon, String label, Effect effect, int labelAlign, int labelLeftPadding, int maxDstWidth, boolean ellipsize) {
-        iconView = new ImageView(icon, effect);
+        this(new ImageView(icon, effect), label, effect, labelAlign, labelLeftPadding, maxDstWidth, ellipsize);
+    }
+
+    /**
+     * Create an IconView with the specified ImageView as the icon, e.g. one
+     * showing frames of an image.
+     */
+    protected IconView(ImageView icon, String label, Effect effect, int labelAlign, int labelLeftPadding, int maxDstWidth, boolean ellipsize) {
+        iconView = icon;
         addChild(iconView);
 
         if (labelAlign != LABEL_ALIGN_CENTER && labelAlign != LABEL_ALIGN_BOTTOM && maxDstWidth > 0) {
@@ -103,10 +112,9 @@ public class IconView extends View {
         iconView.updateImage(icon);
     }
 
-    private Image getSelectedBackgroundImage() {
+    private NinePatch getSelectedBackground() {
         if (selectedBackground == null) {
-            Image img = Theme.getIconBackgroudnSelected();
-            selectedBackground = DrawUtil.stretch9PatchImage(img, getWidth(), getHeight(), false);
+            selectedBackground = new NinePatch(Theme.getIconBackgroudnSelected());
         }
         return selectedBackground;
     }
@@ -118,7 +126,7 @@ public class IconView extends View {
     public void requestFocus() {
         if (!focused) {
             focused = true;
-            setBackgroundImage(getSelectedBackgroundImage());
+            setBackgroundNinePatch(getSelectedBackground());
         }
     }
 
@@ -3,6 +3,7 @@ package framework.ui.component;
 
 import javax.microedition.lcdui.Graphics;
 import javax.microedition.lcdui.Image;
+import javax.microedition.lcdui.game.Sprite;
 
 import framework.ui.effect.Effect;
 
@@ -17,6 +18,13 @@ public class ImageView extends View {
     protected Image image;
     private Effect effect;
 
+    /**
+     * The count of frames packed from left to right in the image, and the
+     * index of the shown frame.
+     */
+    private int frameCount = 1;
+    private int frame;
+
     private int effectPaddingLeft;
     private int effectPaddingTop;
     private int effectPaddingRight;
@@ -26,6 +34,38 @@ public class ImageView extends View {
         updateImage(img, effect);
     }
 
+    /**
+     * Create an ImageView showing one frame of an image at a time, e.g. the
+     * frames of an animation packed in one image, which is cheaper to load
+     * than one image per frame. The effect is applied to the whole image, so
+     * it should not add paddings.
+     *
+     * @param img the image containing the frames of the same size from left
+     * to right.
+     * @param effect the effect to apply.
+     * @param frameCount the count of frames in the image.
+     */
+    public ImageView(Image img, Effect effect, int frameCount) {
+        this.frameCount = Math.max(1, frameCount);
+        updateImage(img, effect);
+    }
+
+    /**
+     * Show the specified frame of the image.
+     *
+     * @param index the index of the frame, from 0 to frame count - 1.
+     */
+    public void setFrame(int index) {
+        if (index != frame && index >= 0 && index < frameCount) {
+            frame = index;
+            invalidate();
+        }
+    }
+
+    public int getFrame() {
+        return frame;
+    }
+
     public void updateImage(Image img) {
         updateImage(img, effect);
     }
@@ -43,12 +83,14 @@ public class ImageView extends View {
             image = img;
         }
         updateSize();
+        invalidate();
     }
 
     protected void updateSize() {
         if (image != null) {
-            changeSize(image.getWidth(), image.getHeight());
-            setContentWidth(image.getWidth() - effectPaddingLeft - effectPaddingRight);
+            int imageWidth = image.getWidth() / frameCount;
+            changeSize(imageWidth, image.getHeight());
+            setContentWidth(imageWidth - effectPaddingLeft - effectPaddingRight);
             setContentHeight(image.getHeight() - effectPaddingTop - effectPaddingBottom);
 
             /**
@@ -89,7 +131,14 @@ public class ImageView extends View {
     }
 
     protected void paintContent(Graphics g, int left, int top, int width, int height) {
-        if (image != null) {
+        if (image != null && frameCount > 1) {
+            int frameWidth = image.getWidth() / frameCount;
+            g.drawRegion(image, frame * frameWidth, 0, frameWidth, image.getHeight(),
+                         Sprite.TRANS_NONE,
+                         left + getPaddingLeft() - effectPaddingLeft,
+                         top + getPaddingTop() - effectPaddingTop,
+                         Graphics.LEFT | Graphics.TOP);
+        } else if (image != null) {
             g.drawImage(image,
                         left + getPaddingLeft() - effectPaddingLeft,
                         top + getPaddingTop() - effectPaddingTop,
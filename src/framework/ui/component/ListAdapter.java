@@ -43,6 +43,31 @@ public abstract class ListAdapter extends Vector {
         }
     }
 
+    /**
+     * Notify that only the data at the specified position has changed, so
+     * that only the View of the item is updated and laid out again.
+     *
+     * @param position The position of the changed item within the adapter's
+     * data set.
+     */
+    public void notifyItemChanged(int position) {
+        if (listView != null) {
+            listView.onItemChanged(position);
+        }
+    }
+
+    /**
+     * This method will be invoked when the range of items on screen changes,
+     * e.g. when the ListView is scrolled or laid out again.
+     *
+     * @param first the position of the first item on screen, or
+     * {@link ListView#NO_SELECTION} if there is no item.
+     * @param last the position of the last item on screen, or
+     * {@link ListView#NO_SELECTION} if there is no item.
+     */
+    protected void onVisibleRangeChanged(int first, int last) {
+    }
+
     /**
      * Get a View that displays the data at the specified position in the data
      * set.
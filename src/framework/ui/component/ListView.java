@@ -22,6 +22,21 @@ public class ListView extends ScrollView {
     private ListAdapter adapter;
     private TextView emptyView;
 
+    /**
+     * The tops of the item Views relative to the content View, in item order,
+     * used to find the item at a position by binary search. Rebuilt lazily
+     * after the items are changed or laid out again.
+     */
+    private int[] itemTops;
+    private int itemTopsCount;
+    private boolean itemTopsValid;
+
+    /**
+     * The range of items on screen, last reported to the adapter.
+     */
+    private int visibleFirst = NO_SELECTION;
+    private int visibleLast = NO_SELECTION;
+
     /**
      * Create a ListView.
      *
@@ -32,7 +47,7 @@ public class ListView extends ScrollView {
         preDataCount = -1; // -1 means not initialized, 0 means no data.
         selectIndex = NO_SELECTION;
 
-        emptyView = new TextView(emptyMessage, Theme.LIST_TITLE_EFFECT);
+        emptyView = new TextView(emptyMessage, Theme.getListTitleEffect());
         emptyView.setPaddings(Theme.LIST_ITEM_PADDING,
                               Theme.LIST_ITEM_PADDING * 3,
                               Theme.LIST_ITEM_PADDING,
@@ -79,27 +94,46 @@ public class ListView extends ScrollView {
             i = adapter.size() - 1;
         }
         if (selectIndex != i) {
-            int j;
-            selectIndex = i;
-            for (j = -1, i = 0; i < contentView.getChildCount(); i++) {
-                View v = contentView.getChild(i);
-                if (isItemView(v)) {
-                    j++;
-                    if (selectIndex == j) {
-                        // Count divider for scrolling
-                        Rect rct = v.getScreenRect();
-                        rct.height += Theme.LIST_DIVIDER_HEIGHT;
-                        scrollToRect(rct);
-
-                        v.setBackgroundImage(Theme.getListItemSelectedBg(v.getWidth(), v.getHeight()));
-                    } else {
-                        v.setBackgroundImage(Theme.getListItemBg(j, v.getWidth(), v.getHeight()));
-                    }
-                }
+            changeSelection(i);
+            View v = getItemView(i);
+            if (v != null) {
+                // Count divider for scrolling
+                scrollToArea(v.getScreenTop(), v.getHeight() + Theme.LIST_DIVIDER_HEIGHT);
             }
         }
     }
 
+    /**
+     * Move the selection to the specified item, only changing the backgrounds
+     * of the previously and newly selected item Views.
+     *
+     * @param i the index of the item to select.
+     */
+    private void changeSelection(int i) {
+        int preSelectIndex = selectIndex;
+        selectIndex = i;
+        View v = getItemView(preSelectIndex);
+        if (v != null) {
+            updateItemBackground(preSelectIndex, v);
+        }
+        v = getItemView(i);
+        if (v != null) {
+            updateItemBackground(i, v);
+        }
+    }
+
+    /**
+     * Set the background of the item View according to its position, size and
+     * selection state.
+     */
+    private void updateItemBackground(int position, View v) {
+        if (position == selectIndex) {
+            v.setBackgroundImage(Theme.getListItemSelectedBg(v.getWidth(), v.getHeight()));
+        } else {
+            v.setBackgroundImage(Theme.getListItemBg(position, v.getWidth(), v.getHeight()));
+        }
+    }
+
     public void selectPrevious() {
         setSelect(selectIndex - 1);
     }
@@ -122,6 +156,10 @@ public class ListView extends ScrollView {
 
     synchronized public void onDataSetChanged() {
         initComponents();
+        itemTopsValid = false;
+        // The items on screen may be others now, report the range again.
+        visibleFirst = NO_SELECTION;
+        visibleLast = NO_SELECTION;
 
         int h = 0;
         if (adapter == null || adapter.isEmpty()) {
@@ -144,8 +182,11 @@ public class ListView extends ScrollView {
             for (i = 0, j = 0; i < contentView.getChildCount() && j < persistCount; i++) {
                 v = contentView.getChild(i);
                 if (isItemView(v)) {
-                    vHeight = adapter.updateView(j, (Container) v);
-                    v.setContentHeight(vHeight);
+                    vHeight = v.getHeight();
+                    v.setContentHeight(adapter.updateView(j, (Container) v));
+                    if (v.getHeight() != vHeight) {
+                        updateItemBackground(j, v);
+                    }
                     j++;
                 }
                 h += v.getHeight();
@@ -191,65 +232,226 @@ public class ListView extends ScrollView {
         }
     }
 
-    synchronized public void onPointerPressed(int x, int y) {
-        if (!contains(x, y) || adapter == null || adapter.isEmpty()) {
+    /**
+     * Update the item View at the specified position only. Only the item View
+     * is laid out again, rather than the whole list, and if its height
+     * changed, the Views after it are moved by the difference.
+     *
+     * @param position the position of the changed item.
+     */
+    synchronized public void onItemChanged(int position) {
+        View v = getItemView(position);
+        if (v == null) {
+            // The item has no View yet, rebuild it with the whole data set.
+            onDataSetChanged();
             return;
         }
 
-        View curSelectedItem = null;
-        View pressedItem = null;
-        int pressedIndex = NO_SELECTION;
-        for (int i = 0, j = -1; i < contentView.getChildCount(); i++) {
-            View v = contentView.getChild(i);
-            if (isItemView(v)) {
-                j++;
-                if (j == selectIndex) {
-                    curSelectedItem = v;
-                }
-                if (v.contains(x, y)) {
-                    pressedItem = v;
-                    pressedIndex = j;
+        if (getParent() == null) {
+            // Not laid out yet, the change is laid out with the whole list.
+            itemTopsValid = false;
+            int oldHeight = v.getHeight();
+            v.setContentHeight(adapter.updateView(position, (Container) v));
+            int delta = v.getHeight() - oldHeight;
+            if (delta != 0) {
+                updateItemBackground(position, v);
+                contentView.setContentHeight(contentView.getContentHeight() + delta);
+            }
+            return;
+        }
+
+        int delta;
+        contentView.setInLayout(true);
+        try {
+            int oldHeight = v.getHeight();
+            v.setContentHeight(adapter.updateView(position, (Container) v));
+            delta = v.getHeight() - oldHeight;
+            v.layout();
+            if (delta != 0) {
+                updateItemBackground(position, v);
+                // Each View is aligned below the previous one, and has not
+                // changed itself, so laying it out only moves it.
+                for (int i = position * 2 + 1; i < contentView.getChildCount(); i++) {
+                    contentView.getChild(i).layout();
                 }
+                contentView.setContentHeight(contentView.getContentHeight() + delta);
             }
+        } finally {
+            contentView.setInLayout(false);
         }
 
-        if (pressedItem != null && pressedItem != curSelectedItem) {
-            if (curSelectedItem != null) {
-                curSelectedItem.setBackgroundImage(Theme.getListItemBg(selectIndex, curSelectedItem.getWidth(), curSelectedItem.getHeight()));
+        if (delta != 0) {
+            if (itemTopsValid) {
+                for (int i = position + 1; i < itemTopsCount; i++) {
+                    itemTops[i] += delta;
+                }
             }
-            pressedItem.setBackgroundImage(Theme.getListItemSelectedBg(pressedItem.getWidth(), pressedItem.getHeight()));
-            selectIndex = pressedIndex;
+            // Only updates the scroll indicator, the content has been laid out.
+            super.layout();
+            updateVisibleRange();
         }
     }
 
-    public int getClickedItemIndex(int x, int y) {
-        if (!contains(x, y) || adapter == null || adapter.isEmpty()) {
-            return NO_SELECTION;
+    /**
+     * Get the item View at the specified position. Each item View is followed
+     * by a Divider in the content View.
+     *
+     * @param position the position of the item.
+     * @return the item View, or null if there is no such View.
+     */
+    private View getItemView(int position) {
+        if (adapter == null || position < 0 || position >= preDataCount) {
+            return null;
         }
-
-        View curSelectedItem = null;
-        View clickedItem = null;
-        int clickedIndex = NO_SELECTION;
-        for (int i = 0, j = -1; i < contentView.getChildCount(); i++) {
+        int i = position * 2;
+        if (i < contentView.getChildCount()) {
             View v = contentView.getChild(i);
             if (isItemView(v)) {
-                j++;
-                if (j == selectIndex) {
-                    curSelectedItem = v;
-                }
-                if (v.contains(x, y)) {
-                    clickedItem = v;
-                    clickedIndex = j;
-                }
+                return v;
             }
         }
+        return null;
+    }
+
+    public synchronized void layout() {
+        super.layout();
+        itemTopsValid = false;
+        updateVisibleRange();
+    }
+
+    public synchronized void scrollYBy(int distance) {
+        super.scrollYBy(distance);
+        updateVisibleRange();
+    }
+
+    /**
+     * Report the range of items on screen to the adapter if it changed.
+     */
+    private void updateVisibleRange() {
+        if (adapter == null || contentView == null) {
+            return;
+        }
+
+        int first = NO_SELECTION;
+        int last = NO_SELECTION;
+        updateItemTops();
+        if (itemTopsCount > 0) {
+            int top = getScreenTop() - contentView.getScreenTop();
+            first = findItem(top);
+            last = findItem(top + getHeight() - 1);
+        }
+        if (first != visibleFirst || last != visibleLast) {
+            visibleFirst = first;
+            visibleLast = last;
+            adapter.onVisibleRangeChanged(first, last);
+        }
+    }
 
-        if (curSelectedItem == null || clickedItem != curSelectedItem) {
+    synchronized public void onPointerPressed(int x, int y) {
+        if (!contains(x, y) || adapter == null || adapter.isEmpty()) {
+            return;
+        }
+
+        int pressedIndex = getItemIndexAt(x, y);
+        if (pressedIndex != NO_SELECTION && pressedIndex != selectIndex) {
+            changeSelection(pressedIndex);
+        }
+    }
+
+    public synchronized int getClickedItemIndex(int x, int y) {
+        if (!contains(x, y) || adapter == null || adapter.isEmpty()) {
+            return NO_SELECTION;
+        }
+
+        int clickedIndex = getItemIndexAt(x, y);
+        if (selectIndex == NO_SELECTION || clickedIndex != selectIndex) {
             clickedIndex = NO_SELECTION;
         }
         return clickedIndex;
     }
 
+    /**
+     * Find the item whose View contains the specified screen position.
+     *
+     * @param x the x coordinate on screen.
+     * @param y the y coordinate on screen.
+     * @return the index of the item, or {@link #NO_SELECTION} if the position
+     * is not in any item View, e.g. on a divider.
+     */
+    private int getItemIndexAt(int x, int y) {
+        updateItemTops();
+        if (itemTopsCount == 0) {
+            return NO_SELECTION;
+        }
+
+        int index = findItem(y - contentView.getScreenTop());
+        View v = getItemView(index);
+        if (v != null && v.contains(x, y)) {
+            return index;
+        }
+        return NO_SELECTION;
+    }
+
+    /**
+     * Find the last item whose top is not below the specified offset by
+     * binary search. The item tops must be up to date.
+     *
+     * @param offset the offset relative to the content View.
+     * @return the index of the item, or 0 if the offset is above all items.
+     */
+    private int findItem(int offset) {
+        int low = 0;
+        int high = itemTopsCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (itemTops[mid] <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return Math.max(0, high);
+    }
+
+    /**
+     * Rebuild the item tops if the items have been changed or laid out since
+     * last time.
+     */
+    private void updateItemTops() {
+        if (itemTopsValid) {
+            return;
+        }
+
+        int count = adapter == null ? 0 : Math.max(0, Math.min(preDataCount, adapter.size()));
+        if (itemTops == null || itemTops.length < count) {
+            itemTops = new int[count];
+        }
+        itemTopsCount = 0;
+        for (int i = 0; i < count; i++) {
+            View v = getItemView(i);
+            if (v == null) {
+                break;
+            }
+            itemTops[itemTopsCount++] = v.getTop();
+        }
+        itemTopsValid = true;
+    }
+
+    /**
+     * Restore the selection and the scroll position saved from a ListView
+     * showing the same data, e.g. when a list is shown again. Must be called
+     * after the ListView is laid out.
+     *
+     * @param index the index of the selected item, or {@link #NO_SELECTION}.
+     * @param scrollY the scroll position, see {@link #getScrollY()}.
+     */
+    public synchronized void restorePosition(int index, int scrollY) {
+        if (adapter != null && index >= 0 && index < adapter.size()) {
+            changeSelection(index);
+        }
+        scrollYBy(getScrollY() - scrollY);
+    }
+
     public int getSelectedItemIndex() {
         return selectIndex;
     }
@@ -30,6 +30,7 @@ public class ScrollIndicator extends ImageView {
                              Theme.SCROLL_INDICATOR_START_COLOR, Theme.SCROLL_INDICATOR_END_COLOR,
                              Theme.SCROLL_INDICATOR_BORDER_COLOR, Theme.SCROLL_INDICATOR_ARC_WIDTH);
             image = Image.createRGBImage(argb, getWidth(), getHeight(), true);
+            invalidate();
         }
     }
 
@@ -1,7 +1,13 @@
 
 package framework.ui.component;
 
+import javax.microedition.lcdui.Canvas;
 import javax.microedition.lcdui.Graphics;
+import javax.microedition.lcdui.Image;
+
+import framework.ui.FrameCallback;
+import framework.ui.FrameScheduler;
+import framework.ui.Profiler;
 
 /**
  * ScrollView provides a scrollable container whose ScrollIndicator currently
@@ -10,7 +16,17 @@ import javax.microedition.lcdui.Graphics;
  * @author Oscar Cai
  */
 
-public class ScrollView extends View {
+public class ScrollView extends View implements FrameCallback {
+
+    /**
+     * The deceleration of fling, in pixels per second squared.
+     */
+    private static final int FLING_DECELERATION = 2500;
+
+    /**
+     * Fling stops when its velocity falls below this, in pixels per second.
+     */
+    private static final int FLING_MIN_VELOCITY = 50;
 
     private ScrollIndicator indicator;
     protected Container contentView;
@@ -22,6 +38,31 @@ public class ScrollView extends View {
     private int contentViewTop;
     private int indicatorTop;
 
+    /**
+     * Variables of the scroll backbuffer, see {@link #setScrollBuffered(boolean)}.
+     * The buffer holds the rendering of the content view (and the backdrop
+     * below it) when the content view top was bufferContentTop and the
+     * content version of this ScrollView was bufferVersion.
+     */
+    private boolean scrollBuffered;
+    private Image buffer;
+    private Graphics bufferGraphics;
+    private Image spareBuffer;
+    private Graphics spareBufferGraphics;
+    private boolean copyAreaUnsupported;
+    private boolean bufferValid;
+    private int bufferContentTop;
+    private int bufferVersion;
+
+    /**
+     * Variables of fling, see {@link #fling(int, Canvas)}.
+     */
+    private boolean flinging;
+    private int flingVelocity;
+    private long flingLastTime;
+    private int flingRemainder; // the distance not scrolled yet, in 1/1000 pixels
+    private Canvas flingCanvas;
+
     public Container getContentView() {
         initComponents();
         return contentView;
@@ -63,28 +104,141 @@ public class ScrollView extends View {
         }
     }
 
+    /**
+     * Get how far the content is scrolled, in pixels from its top.
+     */
+    public int getScrollY() {
+        return contentView == null ? 0 : -contentView.getTop();
+    }
+
     /**
      * Scrolls the view to the given child.
      *
      * @param childRect the screen rectangle to scroll to
      */
     public void scrollToRect(Rect childRect) {
-        Rect rect = getScreenRect();
-        int childBottom = childRect.getTop() + childRect.getHeight();
-        int bottom = rect.getTop() + rect.getHeight();
+        scrollToArea(childRect.getTop(), childRect.getHeight());
+    }
+
+    /**
+     * Scrolls the view to the given child view.
+     *
+     * @param child the descendant view to scroll to
+     */
+    public void scrollToView(View child) {
+        scrollToArea(child.getScreenTop(), child.getHeight());
+    }
+
+    /**
+     * Scrolls the view to the given vertical area.
+     *
+     * @param areaTop the top of the area on screen
+     * @param areaHeight the height of the area
+     */
+    public void scrollToArea(int areaTop, int areaHeight) {
+        int screenTop = getScreenTop();
+        int areaBottom = areaTop + areaHeight;
+        int bottom = screenTop + getHeight();
         int scrollYDelta = 0;
 
-        if (rect.getTop() > childRect.getTop()) {
-            scrollYDelta = rect.getTop() - childRect.getTop();
-        } else if (bottom < childBottom) {
-            scrollYDelta = bottom - childBottom;
+        if (screenTop > areaTop) {
+            scrollYDelta = screenTop - areaTop;
+        } else if (bottom < areaBottom) {
+            scrollYDelta = bottom - areaBottom;
         }
         scrollYBy(scrollYDelta);
     }
 
+    /**
+     * Start scrolling with the specified velocity, decelerating until it stops
+     * or reaches the top or bottom of the content. Any ongoing fling is
+     * replaced.
+     *
+     * @param velocity the initial velocity in pixels per second. Positive
+     * value scrolls the content down, just like dragging down.
+     * @param canvas the Canvas to repaint on every frame.
+     */
+    public synchronized void fling(int velocity, Canvas canvas) {
+        if (Math.abs(velocity) < FLING_MIN_VELOCITY || canvas == null) {
+            stopFling();
+            return;
+        }
+        flingVelocity = velocity;
+        flingCanvas = canvas;
+        if (!flinging) {
+            flinging = true;
+            flingLastTime = System.currentTimeMillis();
+            flingRemainder = 0;
+            FrameScheduler.add(this, canvas);
+        }
+    }
+
+    /**
+     * Stop the ongoing fling, e.g. when the pointer is pressed.
+     */
+    public synchronized void stopFling() {
+        if (flinging) {
+            flinging = false;
+            FrameScheduler.remove(this);
+        }
+        flingVelocity = 0;
+        flingCanvas = null;
+    }
+
+    public boolean isFlinging() {
+        return flinging;
+    }
+
+    /**
+     * The fling animator, which scrolls by the distance covered since the
+     * last frame.
+     */
+    public synchronized boolean tick(long now) {
+        if (!flinging || contentView == null) {
+            return false;
+        }
+        int elapsed = (int) (now - flingLastTime);
+        flingLastTime = now;
+        if (elapsed > FrameScheduler.FRAME_INTERVAL * 3) {
+            // Resumed after being paused, don't jump.
+            elapsed = FrameScheduler.FRAME_INTERVAL * 3;
+        }
+
+        flingRemainder += flingVelocity * elapsed;
+        int distance = flingRemainder / 1000;
+        flingRemainder -= distance * 1000;
+
+        int preContentViewTop = contentViewTop;
+        scrollYBy(distance);
+        FrameScheduler.requestRepaint(flingCanvas);
+
+        int decrease = FLING_DECELERATION * elapsed / 1000;
+        if (flingVelocity > 0) {
+            flingVelocity = Math.max(0, flingVelocity - decrease);
+        } else {
+            flingVelocity = Math.min(0, flingVelocity + decrease);
+        }
+
+        if ((distance != 0 && contentViewTop == preContentViewTop)
+                || Math.abs(flingVelocity) < FLING_MIN_VELOCITY) {
+            // Reached the top or bottom, or slowed down.
+            flinging = false;
+            flingVelocity = 0;
+            flingCanvas = null;
+            return false;
+        }
+        return true;
+    }
+
     public synchronized void scrollYBy(int distance) {
         int minContentViewTop = getHeight() - contentView.getHeight();
         if (distance != 0 && minContentViewTop < 0) {
+            /*
+             * Moving the content view and the indicator invalidates this
+             * ScrollView, but the backbuffer handles scrolling by itself.
+             */
+            boolean bufferUpToDate = bufferValid && bufferVersion == getContentVersion();
+
             contentViewTop = contentView.getTop() + distance;
             if (contentViewTop > 0) {
                 contentViewTop = 0;
@@ -96,9 +250,39 @@ public class ScrollView extends View {
                 indicatorTop = (int)((getTop() - contentView.getTop()) * vOffsetRadio);
                 indicator.setTop(indicatorTop);
             }
+            if (bufferUpToDate) {
+                bufferVersion = getContentVersion();
+            }
         }
     }
 
+    /**
+     * Set whether to keep the rendering of the content in an offscreen
+     * backbuffer. When scrolling by dy, the still visible part of the last
+     * rendering is copied by dy, and only the newly exposed strip is painted.
+     * Any other change of the content repaints the whole buffer.
+     * <p>
+     * In buffered mode the background of the nearest ancestor having one is
+     * painted below the content, so translucent content is blended with it
+     * rather than with whatever has been painted below the ScrollView.
+     *
+     * @param buffered true to enable the backbuffer, false to disable it.
+     */
+    public synchronized void setScrollBuffered(boolean buffered) {
+        scrollBuffered = buffered;
+        if (!buffered) {
+            releaseBuffers();
+        }
+    }
+
+    private void releaseBuffers() {
+        buffer = null;
+        bufferGraphics = null;
+        spareBuffer = null;
+        spareBufferGraphics = null;
+        bufferValid = false;
+    }
+
     public synchronized void layout() {
         super.layout();
         updateScrollIndicator();
@@ -108,8 +292,148 @@ public class ScrollView extends View {
 
     protected void onDestroy() {
         super.onDestroy();
+        stopFling();
         indicator = null;
         contentView = null;
+        releaseBuffers();
+    }
+
+    public void paint(Graphics g) {
+        if (!scrollBuffered || !isVisible() || contentView == null
+                || getWidth() <= 0 || getHeight() <= 0) {
+            super.paint(g);
+            return;
+        }
+
+        if (Profiler.ENABLED) {
+            Profiler.onViewPainted();
+        }
+        int screenX = getScreenLeft();
+        int screenY = getScreenTop();
+        synchronized (this) {
+            updateBuffer(screenX, screenY);
+            g.drawImage(buffer, screenX, screenY, Graphics.LEFT | Graphics.TOP);
+        }
+
+        if (indicator != null) {
+            int clipX = g.getClipX();
+            int clipY = g.getClipY();
+            int clipWidth = g.getClipWidth();
+            int clipHeight = g.getClipHeight();
+            g.clipRect(screenX, screenY, getWidth(), getHeight());
+            indicator.paint(g);
+            g.setClip(clipX, clipY, clipWidth, clipHeight);
+        }
+    }
+
+    /**
+     * Bring the backbuffer up to date, by copying the still visible part of
+     * the last rendering if only scrolled, or by repainting it all.
+     */
+    private void updateBuffer(int screenX, int screenY) {
+        int width = getWidth();
+        int height = getHeight();
+        if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+            releaseBuffers();
+            buffer = Image.createImage(width, height);
+            if (Profiler.ENABLED) {
+                Profiler.onImageAllocated(width, height);
+            }
+            bufferGraphics = buffer.getGraphics();
+        }
+
+        int version = getContentVersion();
+        int dy = contentViewTop - bufferContentTop;
+        if (!bufferValid || bufferVersion != version || dy >= height || -dy >= height) {
+            paintBuffer(screenX, screenY, 0, height);
+        } else if (dy != 0) {
+            scrollBuffer(dy);
+            if (dy > 0) {
+                paintBuffer(screenX, screenY, 0, dy);
+            } else {
+                paintBuffer(screenX, screenY, height + dy, -dy);
+            }
+        }
+        bufferValid = true;
+        bufferContentTop = contentViewTop;
+        bufferVersion = version;
+    }
+
+    /**
+     * Move the rendering in the backbuffer by dy.
+     */
+    private void scrollBuffer(int dy) {
+        int width = getWidth();
+        int height = getHeight();
+        bufferGraphics.translate(-bufferGraphics.getTranslateX(), -bufferGraphics.getTranslateY());
+        bufferGraphics.setClip(0, 0, width, height);
+
+        if (!copyAreaUnsupported) {
+            try {
+                bufferGraphics.copyArea(0, dy > 0 ? 0 : -dy, width, height - Math.abs(dy),
+                        0, dy > 0 ? dy : 0, Graphics.LEFT | Graphics.TOP);
+                return;
+            } catch (RuntimeException e) {
+                // Some implementations don't support copyArea, double buffer instead.
+                copyAreaUnsupported = true;
+            }
+        }
+
+        if (spareBuffer == null) {
+            spareBuffer = Image.createImage(width, height);
+            if (Profiler.ENABLED) {
+                Profiler.onImageAllocated(width, height);
+            }
+            spareBufferGraphics = spareBuffer.getGraphics();
+        }
+        spareBufferGraphics.translate(-spareBufferGraphics.getTranslateX(), -spareBufferGraphics.getTranslateY());
+        spareBufferGraphics.setClip(0, 0, width, height);
+        spareBufferGraphics.drawImage(buffer, 0, dy, Graphics.LEFT | Graphics.TOP);
+
+        Image image = buffer;
+        Graphics graphics = bufferGraphics;
+        buffer = spareBuffer;
+        bufferGraphics = spareBufferGraphics;
+        spareBuffer = image;
+        spareBufferGraphics = graphics;
+    }
+
+    /**
+     * Paint the specified rows of the backbuffer: the backdrop, the background
+     * of this ScrollView, and the child views of the content view crossing
+     * the rows.
+     */
+    private void paintBuffer(int screenX, int screenY, int top, int height) {
+        Graphics g = bufferGraphics;
+        g.translate(-screenX - g.getTranslateX(), -screenY - g.getTranslateY());
+        g.setClip(screenX, screenY + top, getWidth(), height);
+
+        View backdrop = getParent();
+        while (backdrop != null && !backdrop.hasBackground()) {
+            backdrop = backdrop.getParent();
+        }
+        if (backdrop != null) {
+            backdrop.paintBackground(g, backdrop.getScreenLeft(), backdrop.getScreenTop());
+        } else {
+            g.setColor(0xFFFFFF);
+            g.fillRect(screenX, screenY + top, getWidth(), height);
+        }
+        paintBackground(g, screenX, screenY);
+
+        if (!contentView.isVisible()) {
+            return;
+        }
+        contentView.paintBackground(g, contentView.getScreenLeft(), contentView.getScreenTop());
+        int clipTop = screenY + top;
+        int clipBottom = clipTop + height;
+        View v;
+        for (int i = 0; i < contentView.getChildCount(); i++) {
+            v = contentView.getChild(i);
+            int childTop = v.getScreenTop();
+            if (childTop < clipBottom && childTop + v.getHeight() > clipTop) {
+                v.paint(g);
+            }
+        }
     }
 
     protected void paintContent(Graphics g, int left, int top, int width, int height) {
@@ -63,6 +63,7 @@ public final class TextView extends View {
         changeSize(textImg.getWidth(), textImg.getHeight());
         setContentWidth(textImg.getWidth() - effectPaddingLeft - effectPaddingRight);
         setContentHeight(textImg.getHeight() - effectPaddingTop - effectPaddingBottom);
+        invalidate();
     }
 
     protected void onDestroy() {
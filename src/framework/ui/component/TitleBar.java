@@ -23,7 +23,7 @@ public class TitleBar extends View {
     }
 
     public TitleBar(View parent, Image icon, String label, int maxDstWidth, boolean ellipsize) {
-        iconView = new IconView(icon, label, Theme.TITLE_EFFECT, IconView.LABEL_ALIGN_RIGHT, Theme.ITEM_GAP_SIZE / 2, maxDstWidth, ellipsize);
+        iconView = new IconView(icon, label, Theme.getTitleEffect(), IconView.LABEL_ALIGN_RIGHT, Theme.ITEM_GAP_SIZE / 2, maxDstWidth, ellipsize);
         iconView.setAlignment(this, WRAP_CONTENT, WRAP_CONTENT, ALIGN_PARENT_LEFT | ALIGN_CENTER, 0);
         addChild(iconView);
 
@@ -6,6 +6,8 @@ import java.util.Vector;
 import javax.microedition.lcdui.Graphics;
 import javax.microedition.lcdui.Image;
 
+import framework.ui.NinePatch;
+import framework.ui.Profiler;
 import framework.util.DrawUtil;
 
 import main.config.Theme;
@@ -332,10 +334,11 @@ public abstract class View extends Rect {
     private Image bgImage;
 
     /**
-     * Specify the android style nine-patch background image of this view. If
-     * background image is not null, bgColor must be transparent.
+     * Specify the android style nine-patch background of this view, which is
+     * stretched to the size of the view at paint time. If it is not null,
+     * bgColor must be transparent and bgImage must be null.
      */
-    private Image ninePatchBgImage;
+    private NinePatch ninePatchBg;
 
     /**
      * The dimension of content
@@ -343,6 +346,52 @@ public abstract class View extends Rect {
     private int contentWidth;
     private int contentHeight;
 
+    /**
+     * The cached position of the View on screen, only available when
+     * screenPositionValid is true. See {@link #getScreenLeft()} and
+     * {@link #getScreenTop()}.
+     * <p>
+     * A valid cached position implies the cached positions of all ancestors
+     * are valid too, therefore, invalidating a View whose cached position is
+     * already invalid needn't walk its children.
+     */
+    private int screenLeft;
+    private int screenTop;
+    private boolean screenPositionValid;
+
+    /**
+     * The lock guarding the cached screen positions and the content versions
+     * of all Views, since Views can be changed by non-UI threads while being
+     * painted.
+     */
+    private static final Object SCREEN_POSITION_LOCK = new Object();
+
+    /**
+     * Whether the View or any of its descendants needs to be laid out again.
+     * See {@link #requestLayout()}.
+     */
+    private boolean layoutRequested = true;
+
+    /**
+     * Whether the View is laying out its child views.
+     */
+    private boolean inLayout;
+
+    /**
+     * The size with which the child views were laid out last time. If the
+     * View is not requested to layout and its size is unchanged, the
+     * measured sizes and positions of its child views are still valid.
+     */
+    private int laidOutWidth = -1;
+    private int laidOutHeight = -1;
+
+    /**
+     * The version of what the View and its descendants look like, increased
+     * by {@link #invalidate()}. A cached rendering of the View is still valid
+     * while the version is unchanged.
+     */
+    private int contentVersion;
+
     /**
      * Create a default View, whose position is at the left-top corner of the
      * View's parent, while size is 0 x 0.
@@ -389,7 +438,7 @@ public abstract class View extends Rect {
         }
         children.removeAllElements();
         bgImage = null;
-        ninePatchBgImage = null;
+        ninePatchBg = null;
         alignView = null;
         parent = null;
         onDestroy();
@@ -429,17 +478,27 @@ public abstract class View extends Rect {
     }
 
     public void setLeft(int l) {
-        left = l;
+        if (left != l) {
+            left = l;
+            invalidateScreenPosition();
+            invalidate();
+        }
     }
 
     public void setTop(int t) {
-        top = t;
+        if (top != t) {
+            top = t;
+            invalidateScreenPosition();
+            invalidate();
+        }
     }
 
     public void setWidth(int w) {
         if (width != w) {
             width = w;
             measureFlag |= WIDTH_MEASURED;
+            requestLayout();
+            invalidate();
         }
     }
 
@@ -447,6 +506,8 @@ public abstract class View extends Rect {
         if (height != h) {
             height = h;
             measureFlag |= HEIGHT_MEASURED;
+            requestLayout();
+            invalidate();
         }
     }
 
@@ -457,6 +518,8 @@ public abstract class View extends Rect {
                 width = contentWidth + paddingLeft + paddingRight;
                 measureFlag |= WIDTH_MEASURED;
             }
+            requestLayout();
+            invalidate();
             update9PatchBackgroundImage();
         }
     }
@@ -468,6 +531,8 @@ public abstract class View extends Rect {
                 height = contentHeight + paddingTop + paddingBottom;
                 measureFlag |= HEIGHT_MEASURED;
             }
+            requestLayout();
+            invalidate();
             update9PatchBackgroundImage();
         }
     }
@@ -502,6 +567,8 @@ public abstract class View extends Rect {
                 width = contentWidth + paddingLeft + paddingRight;
                 measureFlag |= WIDTH_MEASURED;
             }
+            requestLayout();
+            invalidate();
         }
     }
 
@@ -512,6 +579,8 @@ public abstract class View extends Rect {
                 width = contentWidth + paddingLeft + paddingRight;
                 measureFlag |= WIDTH_MEASURED;
             }
+            requestLayout();
+            invalidate();
         }
     }
 
@@ -522,6 +591,8 @@ public abstract class View extends Rect {
                 height = contentHeight + paddingTop + paddingBottom;
                 measureFlag |= HEIGHT_MEASURED;
             }
+            requestLayout();
+            invalidate();
         }
     }
 
@@ -532,6 +603,8 @@ public abstract class View extends Rect {
                 height = contentHeight + paddingTop + paddingBottom;
                 measureFlag |= HEIGHT_MEASURED;
             }
+            requestLayout();
+            invalidate();
         }
     }
 
@@ -541,8 +614,12 @@ public abstract class View extends Rect {
      * @param color exact color value, should be AARRGGBB
      */
     public void setBackgroundColor(int color) {
-        bgColor = color;
-        bgImage = null;
+        if (bgColor != color || bgImage != null || ninePatchBg != null) {
+            bgColor = color;
+            bgImage = null;
+            ninePatchBg = null;
+            invalidate();
+        }
     }
 
     /**
@@ -551,8 +628,38 @@ public abstract class View extends Rect {
      * @param img exact image instance.
      */
     public void setBackgroundImage(Image img) {
-        bgColor = Theme.TRANSPARENT;
-        bgImage = img;
+        if (bgImage != img || bgColor != Theme.TRANSPARENT || ninePatchBg != null) {
+            bgColor = Theme.TRANSPARENT;
+            bgImage = img;
+            ninePatchBg = null;
+            invalidate();
+        }
+    }
+
+    /**
+     * Set nine-patch background of this view, which is stretched to the size
+     * of this view when painted. The paddings are not changed, see
+     * {@link #set9PatchBackgroundImage(Image)}.
+     *
+     * @param ninePatch the nine-patch background.
+     */
+    public void setBackgroundNinePatch(NinePatch ninePatch) {
+        if (ninePatchBg != ninePatch || bgColor != Theme.TRANSPARENT || bgImage != null) {
+            bgColor = Theme.TRANSPARENT;
+            bgImage = null;
+            ninePatchBg = ninePatch;
+            invalidate();
+        }
+    }
+
+    /**
+     * Whether this view paints any background.
+     *
+     * @return true if the background color is not transparent or there is a
+     * background image, false otherwise.
+     */
+    public boolean hasBackground() {
+        return bgColor != Theme.TRANSPARENT || bgImage != null || ninePatchBg != null;
     }
 
     /**
@@ -569,33 +676,25 @@ public abstract class View extends Rect {
      * @param img exact image instance.
      */
     public void set9PatchBackgroundImage(Image img) {
-        if (ninePatchBgImage != null) {
-            ninePatchBgImage = null; // GC the old nine-patch background image
-        }
-        ninePatchBgImage = img;
+        setBackgroundNinePatch(img == null ? null : new NinePatch(img));
         update9PatchBackgroundImage();
     }
 
     private void update9PatchBackgroundImage() {
-        if (ninePatchBgImage == null) {
+        if (ninePatchBg == null) {
             return;
         }
 
-        Image bg;
-        if (getContentWidth() > 0 || getContentHeight() > 0) {
-            bg = DrawUtil.stretch9PatchImage(ninePatchBgImage, getContentWidth(), getContentHeight(), true);
-        } else {
-            bg = ninePatchBgImage;
-        }
-        setBackgroundImage(bg);
-
-        int hPadding = (bg.getWidth() - getContentWidth()) >> 1;
-        int vPadding = (bg.getHeight() - getContentHeight()) >> 1;
+        int hPadding = ninePatchBg.getHorizontalPadding() >> 1;
+        int vPadding = ninePatchBg.getVerticalPadding() >> 1;
         setPaddings(hPadding, vPadding, hPadding, vPadding);
     }
 
     public void setVisible(boolean shown) {
-        visible = shown;
+        if (visible != shown) {
+            visible = shown;
+            invalidate();
+        }
     }
 
     public synchronized void insertChild(View v, int position) {
@@ -605,6 +704,8 @@ public abstract class View extends Rect {
             } else if (position >= 0 && position <= children.size()) {
                 children.insertElementAt(v, position);
                 v.setParent(this);
+                requestLayout();
+                invalidate();
             }
         }
     }
@@ -613,6 +714,8 @@ public abstract class View extends Rect {
         if (v != null) {
             children.addElement(v);
             v.setParent(this);
+            requestLayout();
+            invalidate();
         }
     }
 
@@ -620,6 +723,8 @@ public abstract class View extends Rect {
         if (v != null) {
             children.removeElement(v);
             v.setParent(null);
+            requestLayout();
+            invalidate();
         }
     }
 
@@ -633,10 +738,13 @@ public abstract class View extends Rect {
             }
         }
         children.removeAllElements();
+        requestLayout();
+        invalidate();
     }
 
     public void setParent(View v) {
         parent = v;
+        invalidateScreenPosition();
     }
 
     /**
@@ -702,6 +810,69 @@ public abstract class View extends Rect {
         alignView = v;
         horizontalAlign = horizontal;
         verticalAlign = vertical;
+        requestLayout();
+    }
+
+    /**
+     * Call this when something has changed which has invalidated the layout
+     * of this View, e.g. its size or its child views. The request propagates
+     * to the ancestors, so that the next {@link #layout()} of any of them lays
+     * out this View again, while the subtrees which haven't requested layout
+     * are skipped.
+     * <p>
+     * The request stops at the View which is laying out its child views, since
+     * it will take the changes into account anyway.
+     */
+    public void requestLayout() {
+        for (View v = this; v != null && !v.inLayout; v = v.parent) {
+            v.layoutRequested = true;
+        }
+    }
+
+    /**
+     * Set whether the View is laying out its child views. While it is, the
+     * layout requested by its descendants stops at it, see
+     * {@link #requestLayout()}, e.g. while {@link ListView} updates a row in
+     * place and lays out the changed Views by itself.
+     *
+     * @param inLayout true if the caller lays out the child views.
+     */
+    void setInLayout(boolean inLayout) {
+        this.inLayout = inLayout;
+    }
+
+    /**
+     * Call this when what the View looks like has changed, e.g. its content,
+     * background, visibility or position. The change propagates to the
+     * ancestors, so that any cached rendering containing the View is known to
+     * be out of date. See {@link #getContentVersion()}.
+     */
+    public void invalidate() {
+        synchronized (SCREEN_POSITION_LOCK) {
+            for (View v = this; v != null; v = v.parent) {
+                v.contentVersion++;
+            }
+        }
+    }
+
+    /**
+     * Get the version of what the View and its descendants look like. The
+     * version changes whenever the View or any of its descendants is
+     * invalidated.
+     *
+     * @return the content version.
+     */
+    public int getContentVersion() {
+        return contentVersion;
+    }
+
+    /**
+     * Whether the View or any of its descendants needs to be laid out again.
+     *
+     * @return true if layout is requested, false otherwise.
+     */
+    public boolean isLayoutRequested() {
+        return layoutRequested;
     }
 
     /**
@@ -783,21 +954,70 @@ public abstract class View extends Rect {
 
     /**
      * Get the content area of the View on screen, including its internal padding.
+     * <p>
+     * This method allocates a new {@link Rect} in each call, use
+     * {@link #getScreenLeft()} and {@link #getScreenTop()} in painting or hit
+     * testing instead.
      *
      * @return the rectangle of the View's bounds.
      */
     public Rect getScreenRect() {
-        Rect rect = new Rect();
+        return new Rect(getScreenLeft(), getScreenTop(), width, height);
+    }
+
+    /**
+     * Get the left bound of the View on screen.
+     *
+     * @return the left position in pixels.
+     */
+    public int getScreenLeft() {
+        synchronized (SCREEN_POSITION_LOCK) {
+            if (!screenPositionValid) {
+                updateScreenPosition();
+            }
+            return screenLeft;
+        }
+    }
+
+    /**
+     * Get the top bound of the View on screen.
+     *
+     * @return the top position in pixels.
+     */
+    public int getScreenTop() {
+        synchronized (SCREEN_POSITION_LOCK) {
+            if (!screenPositionValid) {
+                updateScreenPosition();
+            }
+            return screenTop;
+        }
+    }
+
+    private void updateScreenPosition() {
         if (parent != null) {
-            Rect parentRect = parent.getScreenRect();
             // left and top have count parent paddings.
-            rect.moveTo(parentRect.getLeft() + left,
-                        parentRect.getTop() + top);
+            screenLeft = parent.getScreenLeft() + left;
+            screenTop = parent.getScreenTop() + top;
         } else {
-            rect.moveTo(left, top);
+            screenLeft = left;
+            screenTop = top;
+        }
+        screenPositionValid = true;
+    }
+
+    /**
+     * Invalidate the cached screen position of the View and its descendants,
+     * should be invoked whenever the View is moved or re-parented.
+     */
+    private void invalidateScreenPosition() {
+        synchronized (SCREEN_POSITION_LOCK) {
+            if (screenPositionValid) {
+                screenPositionValid = false;
+                for (int i = 0; i < children.size(); i++) {
+                    ((View) children.elementAt(i)).invalidateScreenPosition();
+                }
+            }
         }
-        rect.changeSize(width, height);
-        return rect;
     }
 
     private String getSizeTypeName(int type) {
@@ -868,8 +1088,25 @@ public abstract class View extends Rect {
      * View, the position and size of the other View must be figured out.</li>
      * <li>The first child of the View should has concrete alignment.</li>
      * </ul>
+     * <p>
+     * If neither the View nor any of its descendants has requested layout
+     * since last time, and the size of the View is unchanged, laying out the
+     * child views is skipped and only the View itself is positioned.
      */
     public synchronized void layout() {
+        if (Profiler.ENABLED) {
+            Profiler.beginLayout();
+            try {
+                performLayout();
+            } finally {
+                Profiler.endLayout();
+            }
+        } else {
+            performLayout();
+        }
+    }
+
+    private void performLayout() {
         String thisClass = getClass().getName();
 
         /**
@@ -941,34 +1178,16 @@ public abstract class View extends Rect {
          * due to widthType/heightType is WRAP_CONTENT.
          */
 
-        /**
-         * Layout child Views.
-         */
-        Rect childArea = new Rect();
-        View v;
-        for (int i = 0; i < getChildCount(); i++) {
-            v = getChild(i);
-            v.layout();
-            childArea.add((Rect)v);
-        }
-
-        /**
-         * Change self size if layout parameters specify wrap content, and there
-         * are child views, and the size is still not figured out.
-         */
-        if (getChildCount() > 0 && (measureFlag & (WIDTH_MEASURED | HEIGHT_MEASURED)) == 0) {
-            setContentWidth(childArea.getWidth());
-            setContentHeight(childArea.getHeight());
-        }
-
-        // Check measure state once more
-        if ((measureFlag & (WIDTH_MEASURED | HEIGHT_MEASURED)) == 0) {
-            throw new IllegalStateException(
-                "It's strange that the width and height are still not figured out here: "
-                + thisClass + " width="
-                + width + ", height=" + height + ", widthType="
-                + getSizeTypeName(widthType) + ", heightType="
-                + getSizeTypeName(heightType));
+        if (layoutRequested || width != laidOutWidth || height != laidOutHeight) {
+            inLayout = true;
+            try {
+                layoutChildren(thisClass);
+            } finally {
+                inLayout = false;
+            }
+            laidOutWidth = width;
+            laidOutHeight = height;
+            layoutRequested = false;
         }
 
         /**
@@ -1229,6 +1448,40 @@ public abstract class View extends Rect {
         }
     }
 
+    /**
+     * Layout child Views, and change self size if it wraps child Views.
+     *
+     * @param thisClass the class name of this View, for error message.
+     */
+    private void layoutChildren(String thisClass) {
+        Rect childArea = new Rect();
+        View v;
+        for (int i = 0; i < getChildCount(); i++) {
+            v = getChild(i);
+            v.layout();
+            childArea.add((Rect)v);
+        }
+
+        /**
+         * Change self size if layout parameters specify wrap content, and there
+         * are child views, and the size is still not figured out.
+         */
+        if (getChildCount() > 0 && (measureFlag & (WIDTH_MEASURED | HEIGHT_MEASURED)) == 0) {
+            setContentWidth(childArea.getWidth());
+            setContentHeight(childArea.getHeight());
+        }
+
+        // Check measure state once more
+        if ((measureFlag & (WIDTH_MEASURED | HEIGHT_MEASURED)) == 0) {
+            throw new IllegalStateException(
+                "It's strange that the width and height are still not figured out here: "
+                + thisClass + " width="
+                + width + ", height=" + height + ", widthType="
+                + getSizeTypeName(widthType) + ", heightType="
+                + getSizeTypeName(heightType));
+        }
+    }
+
     private void warnUnsupported(String msg) {
         try {
             throw new Exception(msg);
@@ -1244,38 +1497,23 @@ public abstract class View extends Rect {
         if (!isVisible()) {
             return;
         }
+        if (Profiler.ENABLED) {
+            Profiler.onViewPainted();
+        }
 
         // Calculate screen bounds first.
-        Rect screenRect = getScreenRect();
+        int screenX = getScreenLeft();
+        int screenY = getScreenTop();
 
         /**
          * Paint background
          */
-        if (bgColor != Theme.TRANSPARENT) {
-            int alpha = DrawUtil.getAlpha(bgColor);
-            if (alpha == 0x0FF) {
-                g.setColor(bgColor);
-                g.fillRect(screenRect.getLeft(), screenRect.getTop(),
-                           screenRect.getWidth(), screenRect.getHeight());
-            } else if (alpha > 0) {
-                int[] argb = new int[screenRect.getWidth() * screenRect.getHeight()];
-                for (int i = 0; i < argb.length; i++) {
-                    argb[i] = bgColor;
-                }
-                g.drawRGB(argb, 0, screenRect.getWidth(),
-                          screenRect.getLeft(), screenRect.getTop(),
-                          screenRect.getWidth(), screenRect.getHeight(),
-                          true);
-            }
-        }
-        if (bgImage != null) {
-            g.drawImage(bgImage, screenRect.getLeft(), screenRect.getTop(), Graphics.LEFT | Graphics.TOP);
-        }
+        paintBackground(g, screenX, screenY);
 
         /**
          * Paint any text/image content owned by the view.
          */
-        paintContent(g, screenRect.getLeft(), screenRect.getTop(), screenRect.getWidth(), screenRect.getHeight());
+        paintContent(g, screenX, screenY, width, height);
 
         /**
          * Paint child views.
@@ -1296,6 +1534,31 @@ public abstract class View extends Rect {
      */
     protected abstract void paintContent(Graphics g, int left, int top, int width, int height);
 
+    /**
+     * Paint the background of the View.
+     *
+     * @param g the Graphics to paint on.
+     * @param screenX the left of the View on screen.
+     * @param screenY the top of the View on screen.
+     */
+    protected void paintBackground(Graphics g, int screenX, int screenY) {
+        if (bgColor != Theme.TRANSPARENT) {
+            int alpha = DrawUtil.getAlpha(bgColor);
+            if (alpha == 0x0FF) {
+                g.setColor(bgColor);
+                g.fillRect(screenX, screenY, width, height);
+            } else if (alpha > 0) {
+                DrawUtil.fillTranslucentRect(g, bgColor, screenX, screenY, width, height);
+            }
+        }
+        if (bgImage != null) {
+            g.drawImage(bgImage, screenX, screenY, Graphics.LEFT | Graphics.TOP);
+        }
+        if (ninePatchBg != null) {
+            ninePatchBg.draw(g, screenX, screenY, width, height);
+        }
+    }
+
     /**
      * Handle key events.
      *
@@ -1313,7 +1576,8 @@ public abstract class View extends Rect {
      * @return
      */
     public boolean contains(int x, int y) {
-        Rect rct = getScreenRect();
-        return x >= rct.left && x < rct.left + rct.width && y >= rct.top && y < rct.top + rct.height;
+        int l = getScreenLeft();
+        int t = getScreenTop();
+        return x >= l && x < l + width && y >= t && y < t + height;
     }
 }
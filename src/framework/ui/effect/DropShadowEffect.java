@@ -376,7 +376,7 @@ public class DropShadowEffect extends Effect {
      * between source pixels and the resultant pixels.
      * @return the resultant pixels
      */
-    private ARGBInfo filterArgb(ARGBInfo srcInfo, int[] paddings) {
+    ARGBInfo filterArgb(ARGBInfo srcInfo, int[] paddings) {
         Rect srcContentRect = findContentBounds(srcInfo);
 
         if (srcContentRect.getWidth() <= 0 || srcContentRect.getHeight() <= 0) {
@@ -7,6 +7,7 @@ import javax.microedition.lcdui.Font;
 import javax.microedition.lcdui.Graphics;
 import javax.microedition.lcdui.Image;
 
+import framework.ui.Profiler;
 import framework.util.DrawUtil;
 import framework.util.TextUtil;
 
@@ -164,8 +165,14 @@ public abstract class Effect {
         if ((lastText == text ||
             (!TextUtil.isEmpty(lastText) && !TextUtil.isEmpty(text) && lastText.equals(text))) &&
             dstWidth == lastDstTextWidth) {
+            if (Profiler.ENABLED) {
+                Profiler.onTextCacheLookup(true);
+            }
             return lastFilteredText;
         }
+        if (Profiler.ENABLED) {
+            Profiler.onTextCacheLookup(false);
+        }
 
         lastText = text;
         lastFilteredText = null;
@@ -207,6 +214,9 @@ public abstract class Effect {
              * Combine all line ARGB pixels into one Image.
              */
             dstArgb = new int[dstWidth * dstHeight];
+            if (Profiler.ENABLED) {
+                Profiler.onArrayAllocated(dstArgb.length);
+            }
             int srcYOffset = 0;
             int dstYOffset = 0;
             for (int i = 0; i < lines.size(); i++) {
@@ -225,6 +235,9 @@ public abstract class Effect {
         }
 
         lastFilteredText = Image.createRGBImage(dstArgb, dstWidth, dstHeight, true);
+        if (Profiler.ENABLED) {
+            Profiler.onImageAllocated(dstWidth, dstHeight);
+        }
 
         return lastFilteredText;
     }
@@ -236,7 +249,7 @@ public abstract class Effect {
      * @param color the font color
      * @return the ARGB data that contains the given text
      */
-    private ARGBInfo getTextArgb(String text, int color) {
+    ARGBInfo getTextArgb(String text, int color) {
         int width = font.stringWidth(text);
         int height = font.getHeight();
 
@@ -268,6 +281,10 @@ public abstract class Effect {
 
         // get RGB-Data from Image
         int[] argb = new int[width * height];
+        if (Profiler.ENABLED) {
+            Profiler.onImageAllocated(width, height);
+            Profiler.onArrayAllocated(argb.length);
+        }
         img.getRGB(argb, 0, width, 0, 0, width, height);
 
         // check clearColor
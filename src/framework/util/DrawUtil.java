@@ -7,7 +7,7 @@ import javax.microedition.lcdui.Image;
 
 import main.config.Theme;
 
-import framework.ui.component.Rect;
+import framework.ui.Profiler;
 import framework.ui.component.View;
 
 /**
@@ -21,6 +21,29 @@ public final class DrawUtil {
     private static final int HORIZONTAL = 1;
     private static final int VERTICAL = 2;
 
+    /**
+     * The rows of each cached translucent fill tile. A tile is drawn repeatedly
+     * to cover the filled area, so the number of drawRGB() calls per fill is
+     * height / FILL_TILE_ROWS.
+     */
+    private static final int FILL_TILE_ROWS = 8;
+
+    /**
+     * The maximum count of translucent colors whose fill tiles are cached.
+     */
+    private static final int FILL_TILE_CACHE_SIZE = 4;
+
+    /**
+     * Cached translucent fill tiles, see
+     * {@link #fillTranslucentRect(Graphics, int, int, int, int, int)}.
+     * fillTileColors[i] is the color filled in fillTiles[i], while
+     * fillTileWidths[i] is the scan length of fillTiles[i].
+     */
+    private static final int[][] fillTiles = new int[FILL_TILE_CACHE_SIZE][];
+    private static final int[] fillTileColors = new int[FILL_TILE_CACHE_SIZE];
+    private static final int[] fillTileWidths = new int[FILL_TILE_CACHE_SIZE];
+    private static int nextFillTile = 0;
+
     /**
      * Creates a gradient of colors.
      * This method is highly optimized and only uses bit-shifting and additions
@@ -155,6 +178,88 @@ public final class DrawUtil {
         g.drawRGB(rgb, offset, scanlength, x, y, width, height, processAlpha);
     }
 
+    /**
+     * Fill the specified rectangle with a translucent color, blending it with
+     * what has been drawn.
+     * <p>
+     * Instead of expanding the whole rectangle into an ARGB array, a small tile
+     * of {@link #FILL_TILE_ROWS} rows is filled with the color once and drawn
+     * repeatedly. The tiles of recently used colors are cached and reused
+     * across views and frames, while the tile of the least recently cached
+     * color is refilled in place when a new color comes, so steady painting
+     * doesn't allocate any memory.
+     *
+     * @param g the graphics context
+     * @param color the ARGB color to fill
+     * @param x the horizontal start position
+     * @param y the vertical start position
+     * @param width the width of the rectangle
+     * @param height the height of the rectangle
+     */
+    public static void fillTranslucentRect(Graphics g, int color, int x, int y, int width, int height) {
+        // fit the rectangle into the clipping area
+        int clipX = g.getClipX();
+        int clipY = g.getClipY();
+        int right = Math.min(x + width, clipX + g.getClipWidth());
+        int bottom = Math.min(y + height, clipY + g.getClipHeight());
+        if (x < clipX) {
+            x = clipX;
+        }
+        if (y < clipY) {
+            y = clipY;
+        }
+        width = right - x;
+        height = bottom - y;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        synchronized (fillTiles) {
+            int i = getFillTile(color, width);
+            int[] tile = fillTiles[i];
+            int scanlength = fillTileWidths[i];
+            for (; y < bottom; y += FILL_TILE_ROWS) {
+                g.drawRGB(tile, 0, scanlength, x, y, width, Math.min(FILL_TILE_ROWS, bottom - y), true);
+            }
+        }
+    }
+
+    /**
+     * Get the index of the cached fill tile of the specified color, which is at
+     * least as wide as the specified width.
+     *
+     * @param color the ARGB color of the tile
+     * @param width the minimum width of the tile
+     * @return the index in {@link #fillTiles}.
+     */
+    private static int getFillTile(int color, int width) {
+        int i;
+        for (i = 0; i < FILL_TILE_CACHE_SIZE; i++) {
+            if (fillTiles[i] != null && fillTileColors[i] == color && fillTileWidths[i] >= width) {
+                return i;
+            }
+        }
+
+        i = nextFillTile;
+        nextFillTile = (nextFillTile + 1) % FILL_TILE_CACHE_SIZE;
+
+        // reuse the replaced tile if it is wide enough.
+        int[] tile = fillTiles[i];
+        if (tile == null || fillTileWidths[i] < width) {
+            tile = new int[width * FILL_TILE_ROWS];
+            if (Profiler.ENABLED) {
+                Profiler.onArrayAllocated(tile.length);
+            }
+            fillTiles[i] = tile;
+            fillTileWidths[i] = width;
+        }
+        for (int j = 0; j < tile.length; j++) {
+            tile[j] = color;
+        }
+        fillTileColors[i] = color;
+        return i;
+    }
+
     public static int[] getVerticalGradientRgb(int width, int height, int startColor,
             int endColor, int borderColor) {
         return getVerticalGradientRgb(width, height, startColor, endColor, borderColor, 0);
@@ -178,6 +283,9 @@ public final class DrawUtil {
     private static int[] getGradientRoundRectRgb(int width, int height, int startColor,
             int endColor, int borderColor, int arcR, int direct) {
         int[] rgb = new int[width * height];
+        if (Profiler.ENABLED) {
+            Profiler.onArrayAllocated(rgb.length);
+        }
         int gradientLen = direct == HORIZONTAL ? width : height;
         int[] gradient = getGradient(startColor, endColor, gradientLen);
 
@@ -399,8 +507,7 @@ public final class DrawUtil {
      * @param view
      */
     public static void repaintCanvas(Canvas canvas, View view) {
-        Rect rct = view.getScreenRect();
-        canvas.repaint(rct.getLeft(), rct.getTop(), rct.getWidth(), rct.getHeight());
+        canvas.repaint(view.getScreenLeft(), view.getScreenTop(), view.getWidth(), view.getHeight());
     }
 
     /**
@@ -418,124 +525,24 @@ public final class DrawUtil {
             return srcImg;
         }
 
-        int[] srcArgb = new int[srcImg.getWidth() * srcImg.getHeight()];
-        srcImg.getRGB(srcArgb, 0, srcImg.getWidth(), 0, 0, srcImg.getWidth(), srcImg.getHeight());
+        int srcWidth = srcImg.getWidth();
+        int srcHeight = srcImg.getHeight();
+        int[] srcArgb = new int[srcWidth * srcHeight];
+        srcImg.getRGB(srcArgb, 0, srcWidth, 0, 0, srcWidth, srcHeight);
 
         // keep aspect ratio
-        double dstRatio = (double) dstWidth / (double) dstHeight;
-        double srcRatio = (double) srcImg.getWidth() / (double) srcImg.getHeight();
-        if (dstRatio < srcRatio) {
-            dstHeight = (int) (dstWidth / srcRatio);
+        if (dstWidth * srcHeight < dstHeight * srcWidth) {
+            dstHeight = Math.max(1, dstWidth * srcHeight / srcWidth);
         } else {
-            dstWidth = (int) (dstHeight * srcRatio);
+            dstWidth = Math.max(1, dstHeight * srcWidth / srcHeight);
         }
 
         int[] dstArgb = new int[dstWidth * dstHeight];
-        bilinearScale(srcArgb, srcImg.getWidth(), srcImg.getHeight(),
-                      dstArgb, dstWidth, dstHeight);
-        return Image.createRGBImage(dstArgb, dstWidth, dstHeight, true);
-    }
-
-    /**
-     * Bilinear image scaling.<br>
-     * See <a href='http://blog.csdn.net/hhygcy/article/details/4434870'>
-     * http://blog.csdn.net/hhygcy/article/details/4434870</a>
-     * <p>
-     * This function scales images using <a href='http://en.wikipedia.org/wiki/Bilinear_interpolation'>
-     * Bilinear interpolation</a>.
-     *
-     * @param srcArgb the source image data
-     * @param srcWidth the width of source image
-     * @param srcHeight the height of source image
-     * @param dstArgb the destination image data
-     * @param dstWidth the destination width of scaling
-     * @param dstHeight the destination height of scaling
-     */
-    private static void bilinearScale(
-            final int[] srcArgb, int srcWidth, int srcHeight,
-            final int[] dstArgb, int dstWidth, int dstHeight) {
-        int x, y;
-        int ox, oy;
-        int tmpx,tmpy;
-        int ratio = (100 << 8) / (dstWidth * 100 / srcWidth);
-        int srcYOffset, dstYOffset = 0;
-        int srcLTOffset, srcRTOffset, srcLBOffset, srcRBOffset;
-        for (int j = 0; j < dstHeight; j ++) {
-            for (int i = 0; i < dstWidth; i ++) {
-                tmpx = i * ratio;
-                tmpy = j * ratio;
-                ox = tmpx >> 8;
-                oy = tmpy >> 8;
-                x = tmpx & 0xFF;
-                y = tmpy & 0xFF;
-
-                srcYOffset = oy * srcWidth;
-                srcLTOffset = srcYOffset + ox;
-                srcRTOffset = srcYOffset + ox + (ox < srcWidth - 1 ? 1 : 0);
-                srcLBOffset = oy < srcHeight - 1 ? srcLTOffset + srcWidth : srcLTOffset;
-                srcRBOffset = oy < srcHeight - 1 ? srcRTOffset + srcWidth : srcRTOffset;
-                dstArgb[dstYOffset + i] =
-                    bilinearCalculateColor(
-                            x, y,
-                            tryGetColor(srcArgb, srcLTOffset), tryGetColor(srcArgb, srcRTOffset),
-                            tryGetColor(srcArgb, srcLBOffset), tryGetColor(srcArgb, srcRBOffset));
-            }
-            dstYOffset += dstWidth;
-        }
-    }
-
-    /**
-     * Try to get the color of the specified point in the specified image.
-     * @param argb The ARGB array of the image.
-     * @param offset The linear logical offset of the point.
-     * @return if the specified point does inside the ARGB array, return its color. Otherwise,
-     * return full transparent, i.e. 0.
-     */
-    private static int tryGetColor(final int[] argb, int offset) {
-        return (offset >= 0 && offset < argb.length) ? argb[offset] : 0;
-    }
-
-    /**
-     * Calculate the color of bilinear interpolation point.
-     * <p>
-     * See <a href='http://en.wikipedia.org/wiki/Bilinear_interpolation'>
-     * Bilinear interpolation</a>.
-     *
-     * @return the color value
-     */
-    private static int bilinearCalculateColor(int x, int y, int color00, int color10, int color01, int color11) {
-        int b1 = (0x100 - x) * (0x100 - y);
-        int b2 = x * (0x100 - y);
-        int b3 = y * (0x100 - x);
-        int b4 = x * y;
-        int a = b1 * ((color00 >> 24) & 0x0FF) + b2 * ((color10 >> 24) & 0x0FF) + b3 * ((color01 >> 24) & 0x0FF) + b4 * ((color11 >> 24) & 0x0FF);
-        int r = b1 * ((color00 >> 16) & 0x0FF) + b2 * ((color10 >> 16) & 0x0FF) + b3 * ((color01 >> 16) & 0x0FF) + b4 * ((color11 >> 16) & 0x0FF);
-        int g = b1 * ((color00 >> 8) & 0x0FF) + b2 * ((color10 >> 8) & 0x0FF) + b3 * ((color01 >> 8) & 0x0FF) + b4 * ((color11 >> 8) & 0x0FF);
-        int b = b1 * (color00 & 0x0FF) + b2 * (color10 & 0x0FF) + b3 * (color01 & 0x0FF) + b4 * (color11 & 0x0FF);
-        a = a >> 16;
-        r = r >> 16;
-        g = g >> 16;
-        b = b >> 16;
-        if (a > 255) {
-            a = 255;
-        } else if (a < 0) {
-            a = 0;
+        if (Profiler.ENABLED) {
+            Profiler.onArrayAllocated(srcArgb.length + dstArgb.length);
+            Profiler.onImageAllocated(dstWidth, dstHeight);
         }
-        if (r > 255) {
-            r = 255;
-        } else if (r < 0) {
-            r = 0;
-        }
-        if (g > 255) {
-            g = 255;
-        } else if (g < 0) {
-            g = 0;
-        }
-        if (b > 255) {
-            b = 255;
-        } else if (b < 0) {
-            b = 0;
-        }
-        return (a << 24) | (r << 16) | (g << 8) | b;
+        ImageScaler.scale(srcArgb, srcWidth, srcHeight, dstArgb, dstWidth, dstHeight);
+        return Image.createRGBImage(dstArgb, dstWidth, dstHeight, true);
     }
 }
@@ -0,0 +1,123 @@
+package framework.util;
+
+import javax.microedition.lcdui.Font;
+
+/**
+ * FontMetrics caches the character widths of a Font, since
+ * {@link Font#charWidth(char)} is a native call on many implementations and
+ * laying out text asks for the width of every character.
+ * <p>
+ * The widths of the first 256 characters, which include ASCII, are measured
+ * when the FontMetrics is created. The widths of other characters, e.g. CJK,
+ * are kept in blocks of 256 characters, each created on first use and filled
+ * as its characters are measured.
+ *
+ * @author Oscar Cai
+ */
+
+public final class FontMetrics {
+
+    private static final int BLOCK_SHIFT = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    /**
+     * Marks a width which has not been measured. Characters are never that
+     * wide on a handset screen.
+     */
+    private static final byte UNKNOWN = (byte) 0xFF;
+
+    /**
+     * The maximum count of cached FontMetrics, the applet only uses a few
+     * fonts.
+     */
+    private static final int MAX_FONTS = 8;
+
+    private static final FontMetrics[] cache = new FontMetrics[MAX_FONTS];
+    private static int cacheCount;
+    private static int nextReplaced;
+
+    private final Font font;
+    private final int key;
+
+    /**
+     * The widths as unsigned bytes, blocks[c >> BLOCK_SHIFT][c & BLOCK_MASK].
+     */
+    private final byte[][] blocks = new byte[(Character.MAX_VALUE + 1) >> BLOCK_SHIFT][];
+
+    private FontMetrics(Font font, int key) {
+        this.font = font;
+        this.key = key;
+
+        byte[] first = new byte[BLOCK_SIZE];
+        for (int c = 0; c < BLOCK_SIZE; c++) {
+            first[c] = (byte) Math.min(font.charWidth((char) c), 0xFE);
+        }
+        blocks[0] = first;
+    }
+
+    /**
+     * Get the FontMetrics of the specified Font.
+     *
+     * @param font the Font.
+     * @return the FontMetrics.
+     */
+    public static synchronized FontMetrics get(Font font) {
+        int key = (font.getFace() << 16) | (font.getStyle() << 8) | font.getSize();
+        for (int i = 0; i < cacheCount; i++) {
+            if (cache[i].key == key) {
+                return cache[i];
+            }
+        }
+
+        FontMetrics metrics = new FontMetrics(font, key);
+        if (cacheCount < MAX_FONTS) {
+            cache[cacheCount++] = metrics;
+        } else {
+            cache[nextReplaced] = metrics;
+            nextReplaced = (nextReplaced + 1) % MAX_FONTS;
+        }
+        return metrics;
+    }
+
+    /**
+     * Get the width of the character.
+     *
+     * @param c the character.
+     * @return the width in pixels.
+     */
+    public int charWidth(char c) {
+        byte[] block = blocks[c >> BLOCK_SHIFT];
+        if (block == null) {
+            block = new byte[BLOCK_SIZE];
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                block[i] = UNKNOWN;
+            }
+            blocks[c >> BLOCK_SHIFT] = block;
+        }
+
+        byte width = block[c & BLOCK_MASK];
+        if (width == UNKNOWN) {
+            width = (byte) Math.min(font.charWidth(c), 0xFE);
+            block[c & BLOCK_MASK] = width;
+        }
+        return width & 0xFF;
+    }
+
+    /**
+     * Measure the width of a part of the string, as the sum of the widths of
+     * its characters.
+     *
+     * @param text the string.
+     * @param start the index of the first character to measure.
+     * @param end the index after the last character to measure.
+     * @return the width in pixels.
+     */
+    public int measure(String text, int start, int end) {
+        int width = 0;
+        for (int i = start; i < end; i++) {
+            width += charWidth(text.charAt(i));
+        }
+        return width;
+    }
+}
@@ -0,0 +1,147 @@
+package framework.util;
+
+import javax.microedition.lcdui.Image;
+
+/**
+ * A small least recently used cache of generated images, keyed by an image
+ * kind and the image size. The cost of an image is counted as 4 bytes per
+ * pixel, and least recently used images are dropped when the total cost
+ * exceeds the capacity.
+ * <p>
+ * Lookups do not allocate, so the cache may be queried while binding or
+ * painting views.
+ *
+ * @author Oscar Cai
+ */
+
+public final class ImageCache {
+    private final int maxEntries;
+    private final int maxBytes;
+
+    private final int[] kinds;
+    private final int[] widths;
+    private final int[] heights;
+    private final Image[] images;
+    private final long[] lastUses;
+    private int count;
+    private int bytes;
+    private long useCounter;
+
+    /**
+     * Create an ImageCache.
+     *
+     * @param maxEntries the maximum count of cached images.
+     * @param maxBytes the maximum total cost of cached images in bytes.
+     */
+    public ImageCache(int maxEntries, int maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        kinds = new int[maxEntries];
+        widths = new int[maxEntries];
+        heights = new int[maxEntries];
+        images = new Image[maxEntries];
+        lastUses = new long[maxEntries];
+    }
+
+    /**
+     * Get the cached image of the specified kind and size.
+     *
+     * @param kind the caller defined kind of the image.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @return the cached image, or null if there is no such image.
+     */
+    public synchronized Image get(int kind, int width, int height) {
+        for (int i = 0; i < count; i++) {
+            if (kinds[i] == kind && widths[i] == width && heights[i] == height) {
+                lastUses[i] = ++useCounter;
+                return images[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Put an image into the cache, dropping least recently used images if the
+     * cache is full. An image costing more than the capacity is not cached.
+     *
+     * @param kind the caller defined kind of the image.
+     * @param image the image to cache.
+     */
+    public synchronized void put(int kind, Image image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int cost = getCost(width, height);
+        if (cost > maxBytes) {
+            return;
+        }
+
+        remove(kind, width, height);
+        while (count > 0 && (count >= maxEntries || bytes + cost > maxBytes)) {
+            removeAt(getLeastRecentlyUsed());
+        }
+
+        kinds[count] = kind;
+        widths[count] = width;
+        heights[count] = height;
+        images[count] = image;
+        lastUses[count] = ++useCounter;
+        bytes += cost;
+        count++;
+    }
+
+    /**
+     * Drop all cached images.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < count; i++) {
+            images[i] = null;
+        }
+        count = 0;
+        bytes = 0;
+    }
+
+    /**
+     * Get the total cost of cached images.
+     *
+     * @return the cost in bytes.
+     */
+    public synchronized int getBytes() {
+        return bytes;
+    }
+
+    private void remove(int kind, int width, int height) {
+        for (int i = 0; i < count; i++) {
+            if (kinds[i] == kind && widths[i] == width && heights[i] == height) {
+                removeAt(i);
+                return;
+            }
+        }
+    }
+
+    private int getLeastRecentlyUsed() {
+        int lru = 0;
+        for (int i = 1; i < count; i++) {
+            if (lastUses[i] < lastUses[lru]) {
+                lru = i;
+            }
+        }
+        return lru;
+    }
+
+    private void removeAt(int i) {
+        bytes -= getCost(widths[i], heights[i]);
+        count--;
+        // Move the last entry into the hole, the order doesn't matter.
+        kinds[i] = kinds[count];
+        widths[i] = widths[count];
+        heights[i] = heights[count];
+        images[i] = images[count];
+        lastUses[i] = lastUses[count];
+        images[count] = null;
+    }
+
+    private static int getCost(int width, int height) {
+        return width * height * 4;
+    }
+}
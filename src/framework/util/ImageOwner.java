@@ -0,0 +1,33 @@
+package framework.util;
+
+/**
+ * Interface implemented by the objects whose images are accounted by
+ * {@link ImageRegistry}, so that the registry can choose and evict images when
+ * the image memory exceeds the budget.
+ *
+ * @author Oscar Cai
+ */
+
+public interface ImageOwner {
+
+    /**
+     * Get how eagerly the image of the specified kind should be evicted. This
+     * method is called while the registry is locked, it must not lock the
+     * owner or call the registry.
+     *
+     * @param kind the owner defined kind of the image.
+     * @return a negative value if the image must be kept, e.g. it is on
+     * screen, otherwise the larger the value is, the earlier the image is
+     * evicted.
+     */
+    public int getEvictionPriority(int kind);
+
+    /**
+     * This method will be invoked when the image of the specified kind is
+     * evicted. The owner should drop its references to the image, and fetch it
+     * again when it's needed.
+     *
+     * @param kind the owner defined kind of the image.
+     */
+    public void onImageEvicted(int kind);
+}
@@ -0,0 +1,204 @@
+package framework.util;
+
+import java.util.Vector;
+
+import javax.microedition.lcdui.Image;
+
+/**
+ * ImageRegistry accounts the decoded images held by {@link ImageOwner}s
+ * against a memory budget, where an image costs 4 bytes per pixel. When the
+ * accounted bytes exceed the budget, the images are evicted in the order of
+ * their eviction priorities until the bytes fit the budget again, or no
+ * image can be evicted.
+ * <p>
+ * The registry also records the viewport, i.e. the range of list items
+ * currently on screen, so that owners can tell how far their images are from
+ * the screen, see {@link #getDistanceFromViewport(int)}.
+ * <p>
+ * Owners are called back without the registry locked, therefore, owners may
+ * lock themselves in {@link ImageOwner#onImageEvicted(int)}, but must not
+ * call {@link #register(ImageOwner, int, int)} while locked, otherwise two
+ * owners evicting each other may dead lock.
+ *
+ * @author Oscar Cai
+ */
+
+public final class ImageRegistry {
+
+    /**
+     * The default budget in bytes, which leaves the most of a 2 MB heap to
+     * the rest of the application.
+     */
+    public static final int DEFAULT_BUDGET = 384 * 1024;
+
+    private static final Object lock = new Object();
+
+    private static Vector owners = new Vector();
+    private static Vector kinds = new Vector();
+    private static Vector sizes = new Vector();
+    private static int bytes;
+    private static int budget = DEFAULT_BUDGET;
+
+    private static int viewportFirst = -1;
+    private static int viewportLast = -1;
+
+    private ImageRegistry() {
+    }
+
+    /**
+     * Get the cost of an image in bytes.
+     *
+     * @param image the image.
+     * @return the cost, or 0 if the image is null.
+     */
+    public static int getBytes(Image image) {
+        return image == null ? 0 : image.getWidth() * image.getHeight() * 4;
+    }
+
+    /**
+     * Set the budget of the accounted images, evicting images if the
+     * accounted bytes exceed the new budget.
+     *
+     * @param bytes the budget in bytes.
+     */
+    public static void setBudget(int bytes) {
+        synchronized (lock) {
+            budget = bytes;
+        }
+        trim();
+    }
+
+    public static int getBudget() {
+        return budget;
+    }
+
+    /**
+     * Get the total bytes of the accounted images.
+     */
+    public static int getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Account the images of the specified kind held by the owner, replacing
+     * the bytes accounted for them before, then evict images if the
+     * accounted bytes exceed the budget. The images just registered may be
+     * evicted too, unless the owner reports a negative eviction priority for
+     * them.
+     *
+     * @param owner the owner of the images.
+     * @param kind the owner defined kind of the images.
+     * @param imageBytes the bytes of the images, 0 to unregister them.
+     */
+    public static void register(ImageOwner owner, int kind, int imageBytes) {
+        synchronized (lock) {
+            remove(owner, kind);
+            if (imageBytes > 0) {
+                owners.addElement(owner);
+                kinds.addElement(new Integer(kind));
+                sizes.addElement(new Integer(imageBytes));
+                bytes += imageBytes;
+            }
+        }
+        trim();
+    }
+
+    /**
+     * Stop accounting the images of the specified kind held by the owner.
+     *
+     * @param owner the owner of the images.
+     * @param kind the owner defined kind of the images.
+     */
+    public static void unregister(ImageOwner owner, int kind) {
+        synchronized (lock) {
+            remove(owner, kind);
+        }
+    }
+
+    private static void remove(ImageOwner owner, int kind) {
+        for (int i = owners.size() - 1; i >= 0; i--) {
+            if (owners.elementAt(i) == owner && ((Integer) kinds.elementAt(i)).intValue() == kind) {
+                removeAt(i);
+                return;
+            }
+        }
+    }
+
+    private static void removeAt(int i) {
+        bytes -= ((Integer) sizes.elementAt(i)).intValue();
+        owners.removeElementAt(i);
+        kinds.removeElementAt(i);
+        sizes.removeElementAt(i);
+    }
+
+    /**
+     * Evict images until the accounted bytes fit the budget, or no image can
+     * be evicted.
+     */
+    public static void trim() {
+        while (true) {
+            ImageOwner victim = null;
+            int victimKind = 0;
+            synchronized (lock) {
+                if (bytes <= budget) {
+                    return;
+                }
+
+                int victimIndex = -1;
+                int victimPriority = -1;
+                for (int i = 0; i < owners.size(); i++) {
+                    ImageOwner owner = (ImageOwner) owners.elementAt(i);
+                    int kind = ((Integer) kinds.elementAt(i)).intValue();
+                    int priority = owner.getEvictionPriority(kind);
+                    if (priority > victimPriority) {
+                        victimIndex = i;
+                        victimPriority = priority;
+                    }
+                }
+                if (victimIndex < 0) {
+                    return;
+                }
+
+                victim = (ImageOwner) owners.elementAt(victimIndex);
+                victimKind = ((Integer) kinds.elementAt(victimIndex)).intValue();
+                removeAt(victimIndex);
+            }
+            victim.onImageEvicted(victimKind);
+        }
+    }
+
+    /**
+     * Set the range of list items currently on screen.
+     *
+     * @param first the position of the first item on screen.
+     * @param last the position of the last item on screen.
+     */
+    public static void setViewport(int first, int last) {
+        synchronized (lock) {
+            viewportFirst = first;
+            viewportLast = last;
+        }
+    }
+
+    /**
+     * Get the distance in items from the list item at the specified position
+     * to the viewport.
+     *
+     * @param position the position of the list item.
+     * @return 0 if the item is on screen, or the count of items between it
+     * and the viewport plus one. Integer.MAX_VALUE if the position is
+     * negative, i.e. the item is not listed, or no viewport is set.
+     */
+    public static int getDistanceFromViewport(int position) {
+        int first = viewportFirst;
+        int last = viewportLast;
+        if (position < 0 || first < 0) {
+            return Integer.MAX_VALUE;
+        } else if (position < first) {
+            return first - position;
+        } else if (position > last) {
+            return position - last;
+        }
+        return 0;
+    }
+}
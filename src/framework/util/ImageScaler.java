@@ -0,0 +1,199 @@
+package framework.util;
+
+/**
+ * Scales ARGB pixel data. Enlarging and slight shrinking use bilinear
+ * interpolation, and shrinking by more than 2x averages every source pixel
+ * covered by a destination pixel (box filter), which avoids the aliasing
+ * caused by sampling only four source pixels.
+ * <p>
+ * The source coordinates are stepped separately in x and y with 16.16 fixed
+ * point, and the source columns and weights are computed once per call into
+ * tables, so the inner loops have neither bounds checks nor divisions.
+ * <p>
+ * This class doesn't depend on LCDUI, so that it can be benchmarked on any
+ * Java platform.
+ *
+ * @author Oscar Cai
+ */
+
+public final class ImageScaler {
+    private static final int MASK_RB = 0x00FF00FF;
+
+    /**
+     * Scale the source image data to the destination size. The aspect ratio
+     * is not kept, callers should compute a proper destination size.
+     *
+     * @param srcArgb the source image data
+     * @param srcWidth the width of source image
+     * @param srcHeight the height of source image
+     * @param dstArgb the destination image data, at least dstWidth * dstHeight
+     * long.
+     * @param dstWidth the destination width of scaling
+     * @param dstHeight the destination height of scaling
+     */
+    public static void scale(
+            final int[] srcArgb, int srcWidth, int srcHeight,
+            final int[] dstArgb, int dstWidth, int dstHeight) {
+        if (srcWidth <= 0 || srcHeight <= 0 || dstWidth <= 0 || dstHeight <= 0) {
+            return;
+        }
+
+        if (srcWidth > dstWidth * 2 || srcHeight > dstHeight * 2) {
+            boxScale(srcArgb, srcWidth, srcHeight, dstArgb, dstWidth, dstHeight);
+        } else {
+            bilinearScale(srcArgb, srcWidth, srcHeight, dstArgb, dstWidth, dstHeight);
+        }
+    }
+
+    /**
+     * Bilinear interpolation. Destination pixel (i, j) samples source point
+     * (i * srcWidth / dstWidth, j * srcHeight / dstHeight), and the taps out of
+     * the right and bottom edges are clamped to the edges.
+     */
+    private static void bilinearScale(
+            final int[] srcArgb, int srcWidth, int srcHeight,
+            final int[] dstArgb, int dstWidth, int dstHeight) {
+        int xStep = (srcWidth << 16) / dstWidth;
+        int yStep = (srcHeight << 16) / dstHeight;
+
+        // Per column: left source column, offset to the right tap, x weight.
+        int[] xIndex = new int[dstWidth];
+        int[] xNext = new int[dstWidth];
+        int[] xFrac = new int[dstWidth];
+        int fx = 0;
+        for (int i = 0; i < dstWidth; i++, fx += xStep) {
+            int ox = fx >> 16;
+            xIndex[i] = ox;
+            xNext[i] = ox < srcWidth - 1 ? 1 : 0;
+            xFrac[i] = (fx >> 8) & 0xFF;
+        }
+
+        int fy = 0;
+        int dstOffset = 0;
+        for (int j = 0; j < dstHeight; j++, fy += yStep) {
+            int oy = fy >> 16;
+            int y = (fy >> 8) & 0xFF;
+            int iy = 0x100 - y;
+            int row0 = oy * srcWidth;
+            int row1 = oy < srcHeight - 1 ? row0 + srcWidth : row0;
+
+            for (int i = 0; i < dstWidth; i++) {
+                int x = xFrac[i];
+                int ix = 0x100 - x;
+                int o0 = row0 + xIndex[i];
+                int o1 = row1 + xIndex[i];
+                int c00 = srcArgb[o0];
+                int c10 = srcArgb[o0 + xNext[i]];
+                int c01 = srcArgb[o1];
+                int c11 = srcArgb[o1 + xNext[i]];
+
+                // Two channels are interpolated at once, each in 16 bits.
+                int rbTop = (((c00 & MASK_RB) * ix + (c10 & MASK_RB) * x) >>> 8) & MASK_RB;
+                int rbBottom = (((c01 & MASK_RB) * ix + (c11 & MASK_RB) * x) >>> 8) & MASK_RB;
+                int agTop = ((((c00 >>> 8) & MASK_RB) * ix + ((c10 >>> 8) & MASK_RB) * x) >>> 8) & MASK_RB;
+                int agBottom = ((((c01 >>> 8) & MASK_RB) * ix + ((c11 >>> 8) & MASK_RB) * x) >>> 8) & MASK_RB;
+                int rb = ((rbTop * iy + rbBottom * y) >>> 8) & MASK_RB;
+                int ag = ((agTop * iy + agBottom * y) >>> 8) & MASK_RB;
+
+                dstArgb[dstOffset + i] = (ag << 8) | rb;
+            }
+            dstOffset += dstWidth;
+        }
+    }
+
+    /**
+     * Area averaging. Destination pixel (i, j) is the average of the source
+     * pixels in columns [xStart[i], xEnd[i]) and rows [yStart[j], yEnd[j]).
+     * The source rows of a destination row are first summed per column, then
+     * the column sums are summed per destination pixel.
+     */
+    private static void boxScale(
+            final int[] srcArgb, int srcWidth, int srcHeight,
+            final int[] dstArgb, int dstWidth, int dstHeight) {
+        int[] xStart = new int[dstWidth];
+        int[] xEnd = new int[dstWidth];
+        int[] yStart = new int[dstHeight];
+        int[] yEnd = new int[dstHeight];
+        getSpans(srcWidth, dstWidth, xStart, xEnd);
+        getSpans(srcHeight, dstHeight, yStart, yEnd);
+
+        // Column sums, two channels in each int with 16 bits per channel,
+        // which holds the sum of up to 257 rows. The area of a destination
+        // pixel is also kept within 16 bits for the reciprocals below.
+        int maxSpan = 1;
+        for (int i = 0; i < dstWidth; i++) {
+            maxSpan = Math.max(maxSpan, xEnd[i] - xStart[i]);
+        }
+        int maxRows = Math.max(1, Math.min(257, 0x10000 / maxSpan));
+        int[] columnAG = new int[srcWidth];
+        int[] columnRB = new int[srcWidth];
+
+        // 8.24 fixed point reciprocals of the areas of the destination pixels
+        // in a row, recomputed only when the count of rows changes. They are
+        // rounded up, so that multiplying a channel sum by them truncates to
+        // the same value as dividing it by the area; the product may take all
+        // 32 bits, hence the unsigned shifts.
+        int[] areaInverses = new int[dstWidth];
+        int areaRows = 0;
+
+        int dstOffset = 0;
+        for (int j = 0; j < dstHeight; j++) {
+            int y0 = yStart[j];
+            int y1 = yEnd[j];
+            if (y1 - y0 > maxRows) {
+                // Too many rows for the sums, average the middle ones only.
+                y0 = (y0 + y1 - maxRows) >> 1;
+                y1 = y0 + maxRows;
+            }
+            for (int x = 0; x < srcWidth; x++) {
+                columnAG[x] = columnRB[x] = 0;
+            }
+            for (int y = y0, row = y0 * srcWidth; y < y1; y++, row += srcWidth) {
+                for (int x = 0; x < srcWidth; x++) {
+                    int c = srcArgb[row + x];
+                    columnAG[x] += (c >>> 8) & MASK_RB;
+                    columnRB[x] += c & MASK_RB;
+                }
+            }
+
+            int rows = y1 - y0;
+            if (rows != areaRows) {
+                for (int i = 0; i < dstWidth; i++) {
+                    areaInverses[i] = 0x1000000 / (rows * (xEnd[i] - xStart[i])) + 1;
+                }
+                areaRows = rows;
+            }
+            for (int i = 0; i < dstWidth; i++) {
+                int a = 0, r = 0, g = 0, b = 0;
+                for (int x = xStart[i], end = xEnd[i]; x < end; x++) {
+                    int ag = columnAG[x];
+                    int rb = columnRB[x];
+                    a += ag >>> 16;
+                    g += ag & 0xFFFF;
+                    r += rb >>> 16;
+                    b += rb & 0xFFFF;
+                }
+                int inverse = areaInverses[i];
+                dstArgb[dstOffset + i] = (((a * inverse) >>> 24) << 24)
+                        | (((r * inverse) >>> 24) << 16)
+                        | (((g * inverse) >>> 24) << 8)
+                        | ((b * inverse) >>> 24);
+            }
+            dstOffset += dstWidth;
+        }
+    }
+
+    /**
+     * Split srcSize pixels into dstSize spans as evenly as possible. Every span
+     * covers at least one pixel, so spans overlap on an axis which is enlarged
+     * while the other axis is shrunk.
+     */
+    private static void getSpans(int srcSize, int dstSize, int[] starts, int[] ends) {
+        for (int i = 0; i < dstSize; i++) {
+            int start = (int) ((long) i * srcSize / dstSize);
+            int end = (int) ((long) (i + 1) * srcSize / dstSize);
+            starts[i] = start;
+            ends[i] = end > start ? end : start + 1;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package framework.util;
+
+/**
+ * A small least recently used cache of objects by key, holding at most a
+ * fixed count of entries, e.g. the state of the lists recently browsed.
+ * <p>
+ * The dropped value is returned to the caller, so that it can release what
+ * the value holds.
+ *
+ * @author Oscar Cai
+ */
+
+public final class LruCache {
+    private final Object[] keys;
+    private final Object[] values;
+    private final long[] lastUses;
+    private int count;
+    private long useCounter;
+
+    /**
+     * Create a LruCache.
+     *
+     * @param maxEntries the maximum count of entries.
+     */
+    public LruCache(int maxEntries) {
+        keys = new Object[maxEntries];
+        values = new Object[maxEntries];
+        lastUses = new long[maxEntries];
+    }
+
+    /**
+     * Get the value of the specified key, which becomes the most recently
+     * used.
+     *
+     * @param key the key.
+     * @return the value, or null if there is no such key.
+     */
+    public synchronized Object get(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        lastUses[i] = ++useCounter;
+        return values[i];
+    }
+
+    /**
+     * Put a value into the cache, replacing the value of the same key, or
+     * dropping the least recently used entry if the cache is full.
+     *
+     * @param key the key.
+     * @param value the value.
+     * @return the replaced or dropped value other than the specified value,
+     * or null if there is none.
+     */
+    public synchronized Object put(Object key, Object value) {
+        Object dropped = null;
+        int i = indexOf(key);
+        if (i < 0) {
+            if (count < keys.length) {
+                i = count++;
+            } else {
+                i = getLeastRecentlyUsed();
+            }
+            dropped = values[i];
+        } else if (values[i] != value) {
+            dropped = values[i];
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        lastUses[i] = ++useCounter;
+        return dropped;
+    }
+
+    /**
+     * Remove the entry of the specified key.
+     *
+     * @param key the key.
+     * @return the removed value, or null if there is no such key.
+     */
+    public synchronized Object remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object value = values[i];
+        count--;
+        // Move the last entry into the hole, the order doesn't matter.
+        keys[i] = keys[count];
+        values[i] = values[count];
+        lastUses[i] = lastUses[count];
+        keys[count] = null;
+        values[count] = null;
+        return value;
+    }
+
+    /**
+     * Get the count of entries.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < count; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int getLeastRecentlyUsed() {
+        int lru = 0;
+        for (int i = 1; i < count; i++) {
+            if (lastUses[i] < lastUses[lru]) {
+                lru = i;
+            }
+        }
+        return lru;
+    }
+}
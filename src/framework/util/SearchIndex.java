@@ -0,0 +1,403 @@
+package framework.util;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * SearchIndex finds items whose text fields contain a query, e.g. applets by
+ * name, suite name and vendor, fast enough to search as the user types.
+ * <p>
+ * Every pair of adjacent characters (bigram) of every field is indexed in a
+ * sorted array of longs, the bigram in the high 32 bits and the item number
+ * in the low 32 bits, therefore, the items containing a bigram are found by
+ * binary search without any object per entry. A query of two or more
+ * characters looks up its rarest bigram, and only the items containing it are
+ * checked against the whole query. Bigrams suit CJK text, which has no word
+ * boundaries, as well as Latin text. A query of one character is checked
+ * against every item.
+ * <p>
+ * Items are indexed incrementally: new entries are buffered and merged into
+ * the sorted array on the next search, so indexing a page of items costs
+ * sorting that page only. The entries of replaced and removed items are
+ * skipped until they outnumber the live ones, then the index is compacted.
+ * <p>
+ * Results are ranked by the first field containing the query, the earlier
+ * the better, then by a match at the start of the field, then by the order
+ * in which the items were indexed.
+ *
+ * @author Oscar Cai
+ */
+
+public final class SearchIndex {
+
+    /**
+     * The minimum count of replaced and removed items to compact the index,
+     * so that a few changes don't copy the whole index every time.
+     */
+    private static final int MIN_DEAD_ITEMS = 32;
+
+    /**
+     * Items, the item number is the index. A replaced or removed item is set
+     * to null.
+     */
+    private Vector items = new Vector();
+
+    /**
+     * The lower case fields of the items, parallel to items.
+     */
+    private Vector itemFields = new Vector();
+
+    /**
+     * Key -> item number.
+     */
+    private Hashtable keys = new Hashtable();
+
+    private long[] entries = new long[0];
+    private int entryCount;
+    private long[] pending = new long[64];
+    private int pendingCount;
+
+    /**
+     * The count of replaced and removed items, whose entries are still in the
+     * index.
+     */
+    private int deadCount;
+
+    /**
+     * Index the item, replacing the item indexed with the same key if its
+     * fields have changed.
+     *
+     * @param key the unique key of the item, e.g. the applet id.
+     * @param item the item.
+     * @param fields the text fields to search, in the order of relevance.
+     */
+    public synchronized void put(Object key, Object item, String[] fields) {
+        String[] lowerFields = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            lowerFields[i] = fields[i] == null ? "" : fields[i].toLowerCase();
+        }
+
+        Integer old = (Integer) keys.get(key);
+        if (old != null) {
+            int number = old.intValue();
+            if (isEqual((String[]) itemFields.elementAt(number), lowerFields)) {
+                items.setElementAt(item, number);
+                return;
+            }
+            // The entries of the replaced item are skipped from now on.
+            items.setElementAt(null, number);
+            itemFields.setElementAt(null, number);
+            deadCount++;
+        }
+
+        int number = items.size();
+        items.addElement(item);
+        itemFields.addElement(lowerFields);
+        keys.put(key, new Integer(number));
+
+        for (int i = 0; i < lowerFields.length; i++) {
+            String field = lowerFields[i];
+            for (int j = 0; j + 1 < field.length(); j++) {
+                addPending(bigram(field.charAt(j), field.charAt(j + 1)), number);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Remove the item indexed with the specified key, if any.
+     *
+     * @param key the unique key of the item.
+     */
+    public synchronized void remove(Object key) {
+        Integer old = (Integer) keys.remove(key);
+        if (old != null) {
+            // The entries of the removed item are skipped from now on.
+            items.setElementAt(null, old.intValue());
+            itemFields.setElementAt(null, old.intValue());
+            deadCount++;
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Remove all items.
+     */
+    public synchronized void clear() {
+        items.removeAllElements();
+        itemFields.removeAllElements();
+        keys.clear();
+        entries = new long[0];
+        entryCount = 0;
+        pendingCount = 0;
+        deadCount = 0;
+    }
+
+    /**
+     * Search the items containing the query in any field.
+     *
+     * @param query the query, case insensitive.
+     * @param maxResults the maximum count of results.
+     * @return the ranked items, the best first.
+     */
+    public synchronized Vector search(String query, int maxResults) {
+        Vector results = new Vector();
+        query = query.trim().toLowerCase();
+        if (query.length() == 0) {
+            return results;
+        }
+        flush();
+
+        int[] scores = new int[maxResults];
+        int[] numbers = new int[maxResults];
+        int count = 0;
+
+        if (query.length() == 1) {
+            for (int n = 0; n < items.size(); n++) {
+                count = rank(n, query, scores, numbers, count);
+            }
+        } else {
+            // Check the items containing the rarest bigram of the query.
+            int from = 0;
+            int to = -1;
+            for (int i = 0; i + 1 < query.length(); i++) {
+                long key = (long) bigram(query.charAt(i), query.charAt(i + 1)) << 32;
+                int lo = lowerBound(key);
+                int hi = lowerBound(key | 0xFFFFFFFFL);
+                if (to < 0 || hi - lo < to - from) {
+                    from = lo;
+                    to = hi;
+                }
+            }
+            int previous = -1;
+            for (int i = from; i < to; i++) {
+                int n = (int) entries[i];
+                if (n != previous) {
+                    count = rank(n, query, scores, numbers, count);
+                    previous = n;
+                }
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            results.addElement(items.elementAt(numbers[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Score the item and insert it into the results sorted by descending
+     * score, dropping the worst result if they are full.
+     *
+     * @return the count of results.
+     */
+    private int rank(int number, String query, int[] scores, int[] numbers, int count) {
+        String[] fields = (String[]) itemFields.elementAt(number);
+        if (fields == null) {
+            return count;
+        }
+
+        int score = 0;
+        for (int i = 0; i < fields.length && score == 0; i++) {
+            int index = fields[i].indexOf(query);
+            if (index >= 0) {
+                score = (fields.length - i) * 4 + (index == 0 ? 2 : 0)
+                        + (fields[i].length() == query.length() ? 1 : 0);
+            }
+        }
+        if (score == 0) {
+            return count;
+        }
+
+        // Items indexed earlier come first among equal scores.
+        int pos = count;
+        while (pos > 0 && scores[pos - 1] < score) {
+            pos--;
+        }
+        if (pos >= scores.length) {
+            return count;
+        }
+        int last = Math.min(count, scores.length - 1);
+        for (int i = last; i > pos; i--) {
+            scores[i] = scores[i - 1];
+            numbers[i] = numbers[i - 1];
+        }
+        scores[pos] = score;
+        numbers[pos] = number;
+        return Math.min(count + 1, scores.length);
+    }
+
+    private static int bigram(char c1, char c2) {
+        return (c1 << 16) | c2;
+    }
+
+    private static boolean isEqual(String[] a, String[] b) {
+        if (a == null || a.length != b.length) {
+            return false;
+        }
+        for (int i = 0; i < a.length; i++) {
+            if (!a[i].equals(b[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addPending(int bigram, int number) {
+        if (pendingCount == pending.length) {
+            long[] grown = new long[pending.length * 2];
+            System.arraycopy(pending, 0, grown, 0, pendingCount);
+            pending = grown;
+        }
+        pending[pendingCount++] = ((long) bigram << 32) | number;
+    }
+
+    /**
+     * Sort the pending entries and merge them into the sorted entries.
+     */
+    private void flush() {
+        if (pendingCount == 0) {
+            return;
+        }
+        sort(pending, 0, pendingCount - 1);
+
+        long[] merged = new long[entryCount + pendingCount];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < entryCount && j < pendingCount) {
+            merged[k++] = entries[i] <= pending[j] ? entries[i++] : pending[j++];
+        }
+        while (i < entryCount) {
+            merged[k++] = entries[i++];
+        }
+        while (j < pendingCount) {
+            merged[k++] = pending[j++];
+        }
+        entries = merged;
+        entryCount = merged.length;
+        pendingCount = 0;
+    }
+
+    /**
+     * Drop the replaced and removed items and their entries once they
+     * outnumber the live items, so that the index doesn't grow without bound
+     * as the items change. The live items are numbered again in the same
+     * order, so the entries stay sorted and the ranking is unchanged.
+     */
+    private void compactIfNeeded() {
+        if (deadCount < MIN_DEAD_ITEMS || deadCount <= items.size() - deadCount) {
+            return;
+        }
+
+        int[] numbers = new int[items.size()];
+        Vector liveItems = new Vector(items.size() - deadCount);
+        Vector liveFields = new Vector(items.size() - deadCount);
+        for (int n = 0; n < items.size(); n++) {
+            Object fields = itemFields.elementAt(n);
+            if (fields == null) {
+                numbers[n] = -1;
+            } else {
+                numbers[n] = liveItems.size();
+                liveItems.addElement(items.elementAt(n));
+                liveFields.addElement(fields);
+            }
+        }
+
+        Hashtable liveKeys = new Hashtable();
+        for (Enumeration e = keys.keys(); e.hasMoreElements();) {
+            Object key = e.nextElement();
+            liveKeys.put(key, new Integer(numbers[((Integer) keys.get(key)).intValue()]));
+        }
+
+        int count = renumber(entries, entryCount, numbers);
+        long[] liveEntries = new long[count];
+        System.arraycopy(entries, 0, liveEntries, 0, count);
+        pendingCount = renumber(pending, pendingCount, numbers);
+
+        items = liveItems;
+        itemFields = liveFields;
+        keys = liveKeys;
+        entries = liveEntries;
+        entryCount = count;
+        deadCount = 0;
+    }
+
+    /**
+     * Drop the entries of dead items and number the others again, in place.
+     *
+     * @return the count of entries left.
+     */
+    private static int renumber(long[] a, int count, int[] numbers) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int n = numbers[(int) a[i]];
+            if (n >= 0) {
+                a[kept++] = (a[i] & 0xFFFFFFFF00000000L) | n;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Get the index of the first entry not less than the key.
+     */
+    private int lowerBound(long key) {
+        int lo = 0;
+        int hi = entryCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entries[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static void sort(long[] a, int left, int right) {
+        while (left < right) {
+            if (right - left < 8) {
+                for (int i = left + 1; i <= right; i++) {
+                    long v = a[i];
+                    int j = i - 1;
+                    while (j >= left && a[j] > v) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = v;
+                }
+                return;
+            }
+
+            long pivot = a[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (a[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller part to bound the stack depth.
+            if (j - left < right - i) {
+                sort(a, left, j);
+                left = i;
+            } else {
+                sort(a, i, right);
+                right = j;
+            }
+        }
+    }
+}
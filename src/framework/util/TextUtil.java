@@ -14,6 +14,9 @@ import framework.ui.component.TextView;
  */
 
 public final class TextUtil {
+    private static final String ELLIPSIS = "...";
+    private static final String HEX_DIGITS = "0123456789ABCDEF";
+
     public static boolean isEmpty(String text) {
         return text == null || text.length() == 0;
     }
@@ -33,6 +36,35 @@ public final class TextUtil {
         return text2.equals(text1);
     }
 
+    /**
+     * Encode a string as a URL query parameter value, percent-encoding its
+     * UTF-8 bytes except unreserved characters.
+     *
+     * @param text the string to encode.
+     * @return the encoded string.
+     */
+    public static String urlEncode(String text) {
+        byte[] bytes;
+        try {
+            bytes = text.getBytes("UTF-8");
+        } catch (java.io.UnsupportedEncodingException e) {
+            bytes = text.getBytes();
+        }
+        StringBuffer sb = new StringBuffer(bytes.length * 3);
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                    || b == '-' || b == '_' || b == '.' || b == '~') {
+                sb.append((char) b);
+            } else {
+                sb.append('%');
+                sb.append(HEX_DIGITS.charAt(b >> 4));
+                sb.append(HEX_DIGITS.charAt(b & 0x0F));
+            }
+        }
+        return sb.toString();
+    }
+
     /**
      * Fit a string into the specified width. The string will be wrapped at
      * spaces within the text if possible, or ellipsized.
@@ -53,6 +85,7 @@ public final class TextUtil {
     }
 
     private static Vector wrapText(String text, Font font, int areaWidth) {
+        FontMetrics metrics = FontMetrics.get(font);
         Vector lines = new Vector();
         char c;
         int i;
@@ -80,7 +113,7 @@ public final class TextUtil {
                 continue;
             }
             isR = (c == '\r');
-            cWidth = font.charWidth(c);
+            cWidth = metrics.charWidth(c);
 
             xpos += cWidth;
             if (c == ' ' || c == '\r' || c == '\n') {
@@ -123,6 +156,7 @@ public final class TextUtil {
     }
 
     private static Vector ellipsizeText(String text, Font font, int areaWidth) {
+        FontMetrics metrics = FontMetrics.get(font);
         int i = 0;
         int lineWidth = 0;
         char c = 0;
@@ -130,9 +164,14 @@ public final class TextUtil {
 
         for (i = 0; i < text.length(); i++) {
             c = text.charAt(i);
-            lineWidth += font.charWidth(c);
+            lineWidth += metrics.charWidth(c);
             if (lineWidth > areaWidth) {
-                text = text.substring(0, i - 3) + "...";
+                // Drop characters until the rest and the ellipsis fit.
+                lineWidth += metrics.measure(ELLIPSIS, 0, ELLIPSIS.length()) - metrics.charWidth(c);
+                while (i > 0 && lineWidth > areaWidth) {
+                    lineWidth -= metrics.charWidth(text.charAt(--i));
+                }
+                text = text.substring(0, i) + ELLIPSIS;
                 break;
             }
             if (c == '\r' || c == '\n') {
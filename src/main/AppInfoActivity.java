@@ -12,6 +12,7 @@ import main.util.Log;
 import main.util.Utils;
 import framework.task.AppInfo;
 import framework.task.SendInstallNotifyTask;
+import framework.task.StoreTask;
 import framework.task.TaskListener;
 import framework.ui.activity.Dialog;
 import framework.ui.activity.MenuItem;
@@ -44,15 +45,14 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
     public AppInfoActivity(AppInfo info, Image defaultIcon) {
         super(info.getName());
         appInfo = info;
-        if (appInfo.getLogo() == null) {
-            appInfo.fetchLogo(this);
-        } else {
-            updateIcon(appInfo.getLogo());
+        appInfo.setSnapshotInUse(true);
+        this.defaultIcon = defaultIcon;
+        if (appInfo.fetchLogo(this)) {
+            updateLogo();
         }
         if (appInfo.getSnapshot() == null) {
             appInfo.fetchSnapshot(this);
         }
-        this.defaultIcon = defaultIcon;
         bindContentView();
     }
 
@@ -66,6 +66,7 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
         }
 
         scrollView = new ScrollView();
+        scrollView.setScrollBuffered(true);
         scrollView.setAlignment(contentView, View.MATCH_PARENT, View.MATCH_PARENT, View.ALIGN_PARENT_LEFT, View.ALIGN_PARENT_TOP);
         contentView.addChild(scrollView);
 
@@ -80,15 +81,17 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
         iconInfo.setPaddingBottom(Theme.ITEM_GAP_SIZE);
 
         int appSnapshotSideSize = frame.getWidth() / 3;
-        Image scaledSnapshot = defaultIcon;
+        Image scaledSnapshot = null;
         if (appInfo.getSnapshot() != null) {
-            scaledSnapshot = appInfo.getSnapshot();
-        } else if (appInfo.getLogo() != null) {
-            scaledSnapshot = appInfo.getLogo();
+            scaledSnapshot = DrawUtil.scaleImage(appInfo.getSnapshot(), appSnapshotSideSize, appSnapshotSideSize);
+        } else if (appInfo.hasLogo()) {
+            // Already scaled to fit
+            scaledSnapshot = appInfo.getLogo(appSnapshotSideSize, appSnapshotSideSize);
         }
-
-        scaledSnapshot = DrawUtil.scaleImage(scaledSnapshot, appSnapshotSideSize, appSnapshotSideSize);
-        appSnapshotView = new ImageView(scaledSnapshot, Theme.DIALOG_DEFAULT_EFFECT);
+        if (scaledSnapshot == null) {
+            scaledSnapshot = DrawUtil.scaleImage(defaultIcon, appSnapshotSideSize, appSnapshotSideSize);
+        }
+        appSnapshotView = new ImageView(scaledSnapshot, Theme.getDialogDefaultEffect());
         appSnapshotView.setAlignment(iconInfo, View.EXACT_SIZE, View.EXACT_SIZE, View.ALIGN_PARENT_LEFT, View.ALIGN_PARENT_TOP);
         appSnapshotView.setPaddingRight(Theme.ITEM_GAP_SIZE);
         appSnapshotView.setContentWidth(appSnapshotSideSize);
@@ -96,37 +99,37 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
         appSnapshotView.changeSize(appSnapshotView.getContentWidth() + Theme.ITEM_GAP_SIZE, appSnapshotView.getContentHeight());
         iconInfo.addChild(appSnapshotView);
 
-        buttons[BTN_INSTALL_TOP] = new ButtonView(StringResource.INSTALL, Theme.APPINFO_BUTTON_EFFECT);
+        buttons[BTN_INSTALL_TOP] = new ButtonView(StringResource.INSTALL, Theme.getAppInfoButtonEffect());
         buttons[BTN_INSTALL_TOP].setCanvas(this);
         buttons[BTN_INSTALL_TOP].setAlignment(appSnapshotView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_RIGHT_OF, View.ALIGN_TOP_WITH);
         buttons[BTN_INSTALL_TOP].requestFocus();
         iconInfo.addChild(buttons[BTN_INSTALL_TOP]);
 
-        TextView downloadTitle = new TextView(StringResource.DOWNLOAD_TITLE, Theme.SUB_TITLE_EFFECT);
+        TextView downloadTitle = new TextView(StringResource.DOWNLOAD_TITLE, Theme.getSubTitleEffect());
         downloadTitle.setAlignment(buttons[BTN_INSTALL_TOP], View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         iconInfo.addChild(downloadTitle);
 
-        TextView totalDownloadLabel = new TextView(StringResource.APP_TOTAL_DOWN_LABEL2, Theme.DEFAULT_EFFECT);
+        TextView totalDownloadLabel = new TextView(StringResource.APP_TOTAL_DOWN_LABEL2, Theme.getDefaultEffect());
         totalDownloadLabel.setAlignment(downloadTitle, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         iconInfo.addChild(totalDownloadLabel);
 
-        TextView totalDownCountView = new TextView(String.valueOf(appInfo.getTotalDownloadCount()), Theme.NUMBER_EFFECT);
+        TextView totalDownCountView = new TextView(String.valueOf(appInfo.getTotalDownloadCount()), Theme.getNumberEffect());
         totalDownCountView.setAlignment(totalDownloadLabel, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_RIGHT_OF | View.ALIGN_CENTER, 0);
         iconInfo.addChild(totalDownCountView);
 
-        TextView monthDownloadLabel = new TextView(StringResource.APP_MONTH_DOWN_LABEL, Theme.DEFAULT_EFFECT);
+        TextView monthDownloadLabel = new TextView(StringResource.APP_MONTH_DOWN_LABEL, Theme.getDefaultEffect());
         monthDownloadLabel.setAlignment(totalDownloadLabel, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         iconInfo.addChild(monthDownloadLabel);
 
-        TextView monthDownCountView = new TextView(String.valueOf(appInfo.getMonthDownloadCount()), Theme.NUMBER_EFFECT);
+        TextView monthDownCountView = new TextView(String.valueOf(appInfo.getMonthDownloadCount()), Theme.getNumberEffect());
         monthDownCountView.setAlignment(monthDownloadLabel, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_RIGHT_OF | View.ALIGN_CENTER, 0);
         iconInfo.addChild(monthDownCountView);
 
-        TextView weekDownloadLabel = new TextView(StringResource.APP_WEEK_DOWN_LABEL, Theme.DEFAULT_EFFECT);
+        TextView weekDownloadLabel = new TextView(StringResource.APP_WEEK_DOWN_LABEL, Theme.getDefaultEffect());
         weekDownloadLabel.setAlignment(monthDownloadLabel, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         iconInfo.addChild(weekDownloadLabel);
 
-        TextView weekDownCountView = new TextView(String.valueOf(appInfo.getWeekDownloadCount()), Theme.NUMBER_EFFECT);
+        TextView weekDownCountView = new TextView(String.valueOf(appInfo.getWeekDownloadCount()), Theme.getNumberEffect());
         weekDownCountView.setAlignment(weekDownloadLabel, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_RIGHT_OF | View.ALIGN_CENTER, 0);
         iconInfo.addChild(weekDownCountView);
 
@@ -137,33 +140,33 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
         scrollContentView.addChild(iconInfo);
         h += iconInfo.getHeight();
 
-        TextView nameView = new TextView(appInfo.getName(), Theme.LIST_TITLE_EFFECT, scrollContentView.getContentWidth(), false);
+        TextView nameView = new TextView(appInfo.getName(), Theme.getListTitleEffect(), scrollContentView.getContentWidth(), false);
         nameView.setAlignment(iconInfo, View.MATCH_PARENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         scrollContentView.addChild(nameView);
         h += nameView.getHeight();
 
         String versionStr = StringResource.APP_VERSION + appInfo.getVersion();
-        TextView versionView = new TextView(versionStr, Theme.DEFAULT_EFFECT);
+        TextView versionView = new TextView(versionStr, Theme.getDefaultEffect());
         versionView.setAlignment(nameView, View.MATCH_PARENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         scrollContentView.addChild(versionView);
         h += versionView.getHeight();
 
         String vendorStr = StringResource.APP_VENDOR + appInfo.getVendor();
-        TextView vendorView = new TextView(vendorStr, Theme.DEFAULT_EFFECT, scrollContentView.getContentWidth(), false);
+        TextView vendorView = new TextView(vendorStr, Theme.getDefaultEffect(), scrollContentView.getContentWidth(), false);
         vendorView.setAlignment(versionView, View.MATCH_PARENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         scrollContentView.addChild(vendorView);
         h += vendorView.getHeight();
 
         String introStr = StringResource.APP_INTRO + appInfo.getIntroduction();
-        TextView introView = new TextView(introStr, Theme.DEFAULT_EFFECT, scrollContentView.getContentWidth(), false);
+        TextView introView = new TextView(introStr, Theme.getDefaultEffect(), scrollContentView.getContentWidth(), false);
         introView.setContentWidth(scrollContentView.getContentWidth());
         introView.setAlignment(vendorView, View.MATCH_PARENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         scrollContentView.addChild(introView);
         h += introView.getHeight();
 
-        buttons[BTN_INSTALL_BOTTOM] = new ButtonView(StringResource.INSTALL, Theme.APPINFO_BUTTON_EFFECT);
+        buttons[BTN_INSTALL_BOTTOM] = new ButtonView(StringResource.INSTALL, Theme.getAppInfoButtonEffect());
         buttons[BTN_INSTALL_BOTTOM].setCanvas(this);
-        buttons[BTN_BACK] = new ButtonView(StringResource.MENU_BACK_TITLE, Theme.APPINFO_BUTTON_EFFECT);
+        buttons[BTN_BACK] = new ButtonView(StringResource.MENU_BACK_TITLE, Theme.getAppInfoButtonEffect());
         buttons[BTN_BACK].setCanvas(this);
 
         Container bottomBtns = new Container();
@@ -225,6 +228,10 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
         return buttons[idx] != null && !buttons[idx].isFocused();
     }
 
+    protected ScrollView getScrollView() {
+        return scrollView;
+    }
+
     protected void pointerPressed(int x, int y) {
         super.pointerPressed(x, y);
         for (int i = 0; i < BTN_COUNT; i++) {
@@ -269,11 +276,11 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
             if (buttons[BTN_INSTALL_TOP] != null && isButtonFocused(BTN_INSTALL_BOTTOM)) {
                 buttons[BTN_INSTALL_BOTTOM].clearFocus();
                 buttons[BTN_INSTALL_TOP].requestFocus();
-                scrollView.scrollToRect(buttons[BTN_INSTALL_TOP].getScreenRect());
+                scrollView.scrollToView(buttons[BTN_INSTALL_TOP]);
             } else if (buttons[BTN_INSTALL_BOTTOM] != null && isButtonFocused(BTN_BACK)) {
                 buttons[BTN_BACK].clearFocus();
                 buttons[BTN_INSTALL_BOTTOM].requestFocus();
-                scrollView.scrollToRect(buttons[BTN_INSTALL_BOTTOM].getScreenRect());
+                scrollView.scrollToView(buttons[BTN_INSTALL_BOTTOM]);
             }
             repaint();
             break;
@@ -287,11 +294,11 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
             if (buttons[BTN_INSTALL_BOTTOM] != null && isButtonFocused(BTN_INSTALL_TOP)) {
                 buttons[BTN_INSTALL_TOP].clearFocus();
                 buttons[BTN_INSTALL_BOTTOM].requestFocus();
-                scrollView.scrollToRect(buttons[BTN_INSTALL_BOTTOM].getScreenRect());
+                scrollView.scrollToView(buttons[BTN_INSTALL_BOTTOM]);
             } else if (buttons[BTN_BACK] != null && isButtonFocused(BTN_INSTALL_BOTTOM)) {
                 buttons[BTN_INSTALL_BOTTOM].clearFocus();
                 buttons[BTN_BACK].requestFocus();
-                scrollView.scrollToRect(buttons[BTN_BACK].getScreenRect());
+                scrollView.scrollToView(buttons[BTN_BACK]);
             }
             repaint();
             break;
@@ -317,10 +324,20 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
         super.keyReleased(keyCode);
     }
 
+    /**
+     * Show the logo in the title bar, at the size of the default icon so that
+     * the logo scaled for the list rows is reused.
+     */
+    private void updateLogo() {
+        if (defaultIcon != null) {
+            updateIcon(appInfo.getLogo(defaultIcon.getWidth(), defaultIcon.getHeight()));
+        }
+    }
+
     public void onDataUpdated(Object data) {
         if (appInfo == data) {
-            if (appInfo.getLogo() != null) {
-                updateIcon(appInfo.getLogo());
+            if (appInfo.hasLogo()) {
+                updateLogo();
             }
             if (appInfo.getSnapshot() != null) {
                 Image snapshot = DrawUtil.scaleImage(
@@ -333,7 +350,13 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
         }
     }
 
-    public void onFinished(boolean success, String msg) {
+    protected void onDestroy() {
+        super.onDestroy();
+        appInfo.removeListener(this);
+        appInfo.setSnapshotInUse(false);
+    }
+
+    public void onFinished(StoreTask task, boolean success, String msg) {
         Log.d("HTTP", (success ? "OKAY " : "FAIL ") + msg);
 
         MessageDialog msgDlg = new MessageDialog(msg, this, MessageDialog.BUTTON_OK, null);
@@ -348,7 +371,7 @@ public class AppInfoActivity extends RASActivity implements DataUpdateListener,
         System.gc();
     }
 
-    public void onUpdated(String msg) {
+    public void onUpdated(StoreTask task, String msg) {
         if (progressDlg == null) {
             progressDlg = new ProgressDialog(msg, this);
             progressDlg.show();
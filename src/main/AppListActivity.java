@@ -4,6 +4,7 @@ package main;
 import java.util.Vector;
 
 import javax.microedition.lcdui.Canvas;
+import javax.microedition.lcdui.Image;
 
 import main.config.Config;
 import main.config.StringResource;
@@ -11,10 +12,14 @@ import main.config.Theme;
 import main.util.Log;
 import main.util.Utils;
 
+import framework.rms.CatalogStore;
 import framework.task.AppInfo;
+import framework.task.CategoryInfo;
 import framework.task.GetAppListTask;
+import framework.task.StoreTask;
 import framework.task.TaskListener;
 import framework.ui.activity.Dialog;
+import framework.ui.activity.Menu;
 import framework.ui.activity.MenuItem;
 import framework.ui.activity.MessageDialog;
 import framework.ui.activity.OnClickListener;
@@ -22,38 +27,109 @@ import framework.ui.activity.ProgressDialog;
 import framework.ui.activity.RASActivity;
 import framework.ui.component.DataUpdateListener;
 import framework.ui.component.ListView;
+import framework.ui.component.ScrollView;
 import framework.ui.component.View;
+import framework.util.LruCache;
 
 /**
  * AppListActivity lists Rice Store applets of specified category.
+ * <p>
+ * The list of all applets is persisted in {@link CatalogStore}. The lists of
+ * the {@link #MAX_CACHED_CATEGORIES} categories browsed last are kept in
+ * memory, see {@link AppListState}, so switching between categories shows
+ * their lists again at once without holding every category.
  *
  * @author Oscar Cai
  */
 
 public class AppListActivity extends RASActivity implements TaskListener, DataUpdateListener, OnClickListener {
 
+    /**
+     * The maximum count of categories whose lists are kept in memory.
+     */
+    private static final int MAX_CACHED_CATEGORIES = 4;
+
+    /**
+     * Category id -> AppListState.
+     */
+    private static final LruCache categoryStates = new LruCache(MAX_CACHED_CATEGORIES);
+
+    /**
+     * The listed category, null if listing all applets.
+     */
+    private CategoryInfo category;
+    private AppListState state;
+
     private ListView appListView;
     private Dialog progressDlg;
     private AppListAdapter appListAdapter;
     private GetAppListTask getAppsTask;
+    private GetAppListTask revalidateTask;
     private int page;
     private int pageCount;
 
+    /**
+     * The count of applets in a full page, 0 if no full page is fetched yet.
+     */
+    private int pageSize;
+
+    /**
+     * The version of the shown catalog on the server, null if unknown.
+     */
+    private String catalogVersion;
+    private Vector sortMenuItems;
+
     public AppListActivity() {
-        super(Theme.getTransparentAppIcon(), StringResource.APP_TITLE);
+        this(null);
+    }
+
+    /**
+     * Create an AppListActivity listing the applets of the specified
+     * category, with the pages already fetched if the category was browsed
+     * recently.
+     *
+     * @param category the category, null to list all applets.
+     */
+    public AppListActivity(CategoryInfo category) {
+        super(Theme.getTransparentAppIcon(), category == null ? StringResource.APP_TITLE : category.getName());
+        this.category = category;
+        if (category != null) {
+            // The menu was created for the list of all applets.
+            recreateMenu();
+        }
         page = 0;
         pageCount = Integer.MAX_VALUE;
 
+        if (category != null) {
+            state = (AppListState) categoryStates.get(category.getId());
+        }
+        if (state != null) {
+            page = state.getPage();
+            pageCount = state.getPageCount();
+            catalogVersion = state.getCatalogVersion();
+            appListAdapter = state.getAdapter();
+            appListAdapter.setListener(this);
+        } else {
+            appListAdapter = new AppListAdapter(null, Utils.getMIDletDefaultIcon(), this);
+            if (category != null) {
+                state = new AppListState(appListAdapter);
+                AppListState dropped = (AppListState) categoryStates.put(category.getId(), state);
+                if (dropped != null) {
+                    dropped.release();
+                }
+            }
+        }
+
         /**
          * To here, appListView must be initialized
          */
-        appListAdapter = new AppListAdapter(null, Utils.getMIDletDefaultIcon(), this);
         appListView.setAdapter(appListAdapter);
     }
 
     protected void bindContentView() {
         if (appListView == null) {
             appListView = new ListView(null, StringResource.NO_LATEST_CONTENT);
+            appListView.setScrollBuffered(true);
             appListView.setAlignment(contentView, View.MATCH_PARENT, View.MATCH_PARENT, View.ALIGN_PARENT_LEFT, View.ALIGN_PARENT_TOP);
             contentView.addChild(appListView);
         }
@@ -61,6 +137,117 @@ public class AppListActivity extends RASActivity implements TaskListener, DataUp
         repaint();
     }
 
+    /**
+     * Show the catalog persisted last time at once if there is one, and fetch
+     * its changes, or the first page again if its version is unknown, in
+     * background to bring it up to date. Otherwise fetch the first page.
+     * <p>
+     * The list of a category is shown as it was left if it's kept in memory,
+     * otherwise its first page is fetched.
+     */
+    public void start() {
+        if (category != null) {
+            if (page == 0) {
+                getNextPageOfApps();
+            } else {
+                bindContentView();
+                appListView.restorePosition(state.getSelectedIndex(), state.getScrollY());
+                repaint();
+            }
+            return;
+        }
+
+        CatalogStore catalog = CatalogStore.load();
+        if (catalog == null) {
+            getNextPageOfApps();
+            return;
+        }
+
+        page = catalog.getPages();
+        pageCount = catalog.getTotalPages();
+        catalogVersion = catalog.getCatalogVersion();
+        appListAdapter.addApps(catalog.getApps());
+        bindContentView();
+
+        final GetAppListTask task = new GetAppListTask(1, null);
+        task.setSinceVersion(catalogVersion);
+        revalidateTask = task;
+        task.setListener(new TaskListener() {
+            public void onUpdated(StoreTask t, String msg) {
+            }
+
+            public void onFinished(StoreTask t, boolean success, String msg) {
+                onRevalidated(task, success, msg);
+            }
+        });
+        task.execute();
+    }
+
+    /**
+     * Apply the changes or merge the first page fetched in background into
+     * the shown catalog.
+     */
+    private void onRevalidated(GetAppListTask task, boolean success, String msg) {
+        Log.d("HTTP", (success ? "OKAY " : "FAIL ") + msg);
+        if (task != revalidateTask) {
+            // Cancelled by a refresh or by leaving the category.
+            return;
+        }
+        revalidateTask = null;
+        if (success) {
+            if (task.isDelta()) {
+                applyDelta(task);
+            } else {
+                pageCount = task.getTotalPages();
+                catalogVersion = task.getVersion();
+                appListAdapter.mergeFirstPage(task.getApps());
+            }
+            saveCatalog();
+            repaint();
+        }
+    }
+
+    /**
+     * Fetch the changes of the shown catalog since its version rather than
+     * fetching all its pages again.
+     */
+    private void syncCatalog() {
+        if (progressDlg != null) {
+            progressDlg.destroy();
+            progressDlg = null;
+        }
+
+        getAppsTask = createTask(1);
+        getAppsTask.setSinceVersion(catalogVersion);
+        progressDlg = new ProgressDialog(StringResource.START_GET_APP_LIST, this);
+        progressDlg.show();
+        getAppsTask.execute();
+    }
+
+    private void applyDelta(GetAppListTask task) {
+        if (task.getTotalPages() > 0) {
+            pageCount = task.getTotalPages();
+        }
+        if (task.getVersion() != null) {
+            catalogVersion = task.getVersion();
+        }
+        int removed = appListAdapter.applyDelta(task.getApps(), task.getChanges(), task.getRemovedIds(), task.getDownloadBase());
+        if (removed > 0) {
+            // The applets after the fetched pages have moved back into them
+            // on the server, fetch the pages they are in now again, the
+            // applets fetched twice are merged. Each removed applet moves
+            // them by at most one page if the page size is unknown.
+            int pages = pageSize > 0 ? (removed + pageSize - 1) / pageSize : removed;
+            page = Math.max(page - pages, 0);
+        }
+    }
+
+    private void saveCatalog() {
+        if (category == null) {
+            CatalogStore.save(appListAdapter.getFetchedApps(), page, pageCount, catalogVersion);
+        }
+    }
+
     public void getNextPageOfApps() {
         if (progressDlg != null) {
             progressDlg.destroy();
@@ -68,16 +255,55 @@ public class AppListActivity extends RASActivity implements TaskListener, DataUp
         }
 
         if (page < pageCount) {
-            getAppsTask = new GetAppListTask(page + 1, this);
+            getAppsTask = createTask(page + 1);
             progressDlg = new ProgressDialog(StringResource.START_GET_APP_LIST, this);
             progressDlg.show();
             getAppsTask.execute();
         }
     }
 
+    private GetAppListTask createTask(int page) {
+        GetAppListTask task = new GetAppListTask(page, this);
+        if (category != null) {
+            task.setCategory(category.getId());
+        }
+        return task;
+    }
+
     protected void createMenu(Vector menuItems) {
         menuItems.addElement(new MenuItem(Config.MENU_REFRESH_ID, Theme.getMenuRefreshIcon(), StringResource.MENU_REFRESH_TITLE));
-        menuItems.addElement(new MenuItem(Config.MENU_EXIT_ID, Theme.getMenuExitIcon(), StringResource.MENU_EXIT_TITLE));
+        menuItems.addElement(new MenuItem(Config.MENU_SEARCH_ID, Theme.getMenuSearchIcon(), StringResource.MENU_SEARCH_TITLE));
+        menuItems.addElement(new MenuItem(Config.MENU_SORT_ID, Theme.getMenuSortIcon(), StringResource.MENU_SORT_TITLE));
+        if (category == null) {
+            menuItems.addElement(new MenuItem(Config.MENU_CATEGORY_ID, Theme.getMenuCategoryIcon(), StringResource.MENU_CATEGORY_TITLE));
+            menuItems.addElement(new MenuItem(Config.MENU_EXIT_ID, Theme.getMenuExitIcon(), StringResource.MENU_EXIT_TITLE));
+        } else {
+            menuItems.addElement(new MenuItem(Config.MENU_BACK_ID, Theme.getMenuBackIcon(), StringResource.MENU_BACK_TITLE));
+            setBackMenuItem((MenuItem) menuItems.lastElement());
+        }
+    }
+
+    private void showSortMenu() {
+        if (sortMenuItems == null) {
+            Image icon = Theme.getMenuSortIcon();
+            sortMenuItems = new Vector();
+            sortMenuItems.addElement(new MenuItem(Config.MENU_SORT_TOTAL_ID, icon, StringResource.MENU_SORT_TOTAL_TITLE));
+            sortMenuItems.addElement(new MenuItem(Config.MENU_SORT_MONTH_ID, icon, StringResource.MENU_SORT_MONTH_TITLE));
+            sortMenuItems.addElement(new MenuItem(Config.MENU_SORT_WEEK_ID, icon, StringResource.MENU_SORT_WEEK_TITLE));
+            sortMenuItems.addElement(new MenuItem(Config.MENU_SORT_NAME_ID, icon, StringResource.MENU_SORT_NAME_TITLE));
+            sortMenuItems.addElement(new MenuItem(Config.MENU_SORT_VENDOR_ID, icon, StringResource.MENU_SORT_VENDOR_TITLE));
+        }
+        Menu menu = new Menu(sortMenuItems, getSnapshot(), this);
+        menu.show();
+    }
+
+    /**
+     * Sort the loaded applets locally. The pages not loaded yet are still
+     * fetched as the list is scrolled, and sorted into the list.
+     */
+    private void sortApps(int mode) {
+        appListAdapter.setSortMode(mode);
+        repaint();
     }
 
     private void showAppInfo(int index) {
@@ -91,12 +317,63 @@ public class AppListActivity extends RASActivity implements TaskListener, DataUp
     public void onMenuItemSelected(int menuItemId) {
         switch (menuItemId) {
         case Config.MENU_REFRESH_ID:
+            // Drop the responses still on the way, they would land in the
+            // cleared list.
+            if (revalidateTask != null) {
+                revalidateTask.cancel();
+                revalidateTask = null;
+            }
+            if (getAppsTask != null) {
+                getAppsTask.cancel();
+                getAppsTask = null;
+            }
+            if (catalogVersion != null && !appListAdapter.isEmpty()) {
+                syncCatalog();
+                break;
+            }
             appListView.clear();
             page = 0;
             pageCount = Integer.MAX_VALUE;
             getNextPageOfApps();
             break;
 
+        case Config.MENU_SEARCH_ID:
+            new SearchActivity(appListAdapter).show();
+            break;
+
+        case Config.MENU_CATEGORY_ID:
+            new CategoryActivity(null).start();
+            break;
+
+        case Config.MENU_SORT_ID:
+            showSortMenu();
+            break;
+
+        case Config.MENU_SORT_TOTAL_ID:
+            sortApps(AppListAdapter.SORT_TOTAL);
+            break;
+
+        case Config.MENU_SORT_MONTH_ID:
+            sortApps(AppListAdapter.SORT_MONTH);
+            break;
+
+        case Config.MENU_SORT_WEEK_ID:
+            sortApps(AppListAdapter.SORT_WEEK);
+            break;
+
+        case Config.MENU_SORT_NAME_ID:
+            sortApps(AppListAdapter.SORT_NAME);
+            break;
+
+        case Config.MENU_SORT_VENDOR_ID:
+            sortApps(AppListAdapter.SORT_VENDOR);
+            break;
+
+        case Config.MENU_BACK_ID:
+            leaveCategory();
+            destroy();
+            break;
+
         case Config.MENU_EXIT_ID:
             MessageDialog msgDlg = new MessageDialog(
                     StringResource.CONFIRM_EXIT, this,
@@ -106,23 +383,45 @@ public class AppListActivity extends RASActivity implements TaskListener, DataUp
         }
     }
 
-    public void onFinished(boolean success, String msg) {
+    public void onFinished(StoreTask task, boolean success, String msg) {
         Log.d("HTTP", (success ? "OKAY " : "FAIL ") + msg);
+        if (task != getAppsTask) {
+            // Cancelled by a refresh or by leaving the category.
+            return;
+        }
+        GetAppListTask appsTask = (GetAppListTask) task;
 
         if (!success) {
             MessageDialog msgDlg = new MessageDialog(msg, this, MessageDialog.BUTTON_OK, null);
             msgDlg.copyGradientBackground(progressDlg);
             msgDlg.show();
+        } else if (appsTask.isDelta()) {
+            applyDelta(appsTask);
+            saveCatalog();
+            repaint();
         } else {
+            if (appsTask.getPage() == 1 && page > 0) {
+                // The server sent the first page instead of the changes, e.g.
+                // the version is too old, list the catalog from scratch.
+                appListView.clear();
+                page = 0;
+            }
             page++;
-            pageCount = getAppsTask.getTotalPages();
+            pageCount = appsTask.getTotalPages();
+            if (page == 1) {
+                catalogVersion = appsTask.getVersion();
+            }
 
             // fetched new page of applets list
-            Vector nextApps = getAppsTask.getApps();
+            Vector nextApps = appsTask.getApps();
+            if (page < pageCount) {
+                pageSize = nextApps.size();
+            }
             if (!nextApps.isEmpty()) {
                 // add new applets
                 appListAdapter.addApps(nextApps);
                 bindContentView();
+                saveCatalog();
             }
         }
 
@@ -136,14 +435,33 @@ public class AppListActivity extends RASActivity implements TaskListener, DataUp
         System.gc();
     }
 
-    public void onUpdated(String msg) {
+    public void onUpdated(StoreTask task, String msg) {
+        if (task != getAppsTask) {
+            return;
+        }
         if (progressDlg != null) {
             progressDlg.setMessage(msg);
         }
         Log.d("HTTP", ".... " + msg);
     }
 
+    protected void showNotify() {
+        super.showNotify();
+        // The viewport may describe the list of another category meanwhile.
+        appListAdapter.setShown(true);
+    }
+
+    protected void hideNotify() {
+        super.hideNotify();
+        appListAdapter.setShown(false);
+    }
+
+    protected ScrollView getScrollView() {
+        return appListView;
+    }
+
     protected void pointerPressed(int x, int y) {
+        super.pointerPressed(x, y);
         if (appListView != null) {
             appListView.onPointerPressed(x, y);
             repaint();
@@ -215,11 +533,33 @@ public class AppListActivity extends RASActivity implements TaskListener, DataUp
 
     public void onDataUpdated(Object data) {
         if (appListAdapter != null) {
-            appListAdapter.notifyDataSetChanged();
+            int index = appListAdapter.positionOf(data);
+            if (index >= 0) {
+                appListAdapter.notifyItemChanged(index);
+            } else {
+                appListAdapter.notifyDataSetChanged();
+            }
             repaint();
         }
     }
 
+    /**
+     * Keep the state of the category list for the next time it's opened, and
+     * stop fetching it.
+     */
+    private void leaveCategory() {
+        if (getAppsTask != null) {
+            getAppsTask.cancel();
+            getAppsTask = null;
+            if (progressDlg != null) {
+                progressDlg.destroy();
+                progressDlg = null;
+            }
+        }
+        state.save(page, pageCount, catalogVersion, appListView);
+        appListAdapter.setListener(null);
+    }
+
     public void onClick(Object obj, int which) {
         /* In AppListActivity, only exit confirm dialog uses this callback */
         if (which == MessageDialog.BUTTON_OK) {
@@ -8,6 +8,8 @@ import javax.microedition.lcdui.Image;
 import main.config.StringResource;
 import main.config.Theme;
 
+import framework.json.me.JSONException;
+import framework.json.me.JSONObject;
 import framework.task.AppInfo;
 import framework.ui.component.Container;
 import framework.ui.component.DataUpdateListener;
@@ -16,7 +18,8 @@ import framework.ui.component.ListAdapter;
 import framework.ui.component.ListView;
 import framework.ui.component.TextView;
 import framework.ui.component.View;
-import framework.util.DrawUtil;
+import framework.util.ImageRegistry;
+import framework.util.SearchIndex;
 import framework.util.TextUtil;
 
 /**
@@ -30,20 +33,286 @@ import framework.util.TextUtil;
 
 public class AppListAdapter extends ListAdapter {
 
+    /**
+     * Sort by total downloads, the order of the server.
+     */
+    public static final int SORT_TOTAL = 0;
+
+    /**
+     * Sort by downloads in this month.
+     */
+    public static final int SORT_MONTH = 1;
+
+    /**
+     * Sort by downloads in this week.
+     */
+    public static final int SORT_WEEK = 2;
+
+    /**
+     * Sort by name.
+     */
+    public static final int SORT_NAME = 3;
+
+    /**
+     * Sort by vendor, then by name.
+     */
+    public static final int SORT_VENDOR = 4;
+
+    /**
+     * Keep the order in which the applets are added, e.g. ranked search
+     * results.
+     */
+    private static final int SORT_NONE = -1;
+
     private Image appDefaultIcon;
     private DataUpdateListener listener;
 
     /**
-     * Create an AppListAdapter.
+     * The applets in the order they are fetched from the server, which
+     * pages, merging and persisting depend on. The adapter itself lists them
+     * in the order of the sort mode.
+     */
+    private Vector fetched = new Vector();
+
+    /**
+     * The permutation from list positions to indices in fetched, kept
+     * between sorts so that sorting again after a page is appended or the
+     * counts are updated only moves a few entries.
+     */
+    private int[] order = new int[0];
+    private int orderCount;
+
+    private int sortMode;
+
+    private int visibleFirst = ListView.NO_SELECTION;
+    private int visibleLast = ListView.NO_SELECTION;
+
+    /**
+     * Whether the list is on screen. Catalog lists of other categories may
+     * be kept, only the one on screen records the viewport.
+     */
+    private boolean shown;
+
+    /**
+     * The applets whose logos are being fetched for the items on screen, to
+     * cancel the fetches once the items are scrolled off screen.
+     */
+    private Vector fetchingLogos = new Vector();
+
+    /**
+     * The index of the listed applets, null if this adapter lists search
+     * results rather than the catalog.
+     */
+    private SearchIndex searchIndex;
+
+    /**
+     * Create an AppListAdapter listing the catalog, which records the list
+     * positions of the applets and indexes them for searching.
      *
      * @param dataSet the initial applets
      * @param icon the applet default icon
      * @param listener the listener to notify applet icon updating.
      */
     public AppListAdapter(Vector dataSet, Image icon, DataUpdateListener listener) {
+        this(dataSet, icon, listener, true);
+    }
+
+    /**
+     * Create an AppListAdapter.
+     *
+     * @param dataSet the initial applets
+     * @param icon the applet default icon
+     * @param listener the listener to notify applet icon updating.
+     * @param catalog true if listing the catalog, false if listing a subset
+     * of it, e.g. search results, which does not own the list positions of
+     * the applets.
+     */
+    public AppListAdapter(Vector dataSet, Image icon, DataUpdateListener listener, boolean catalog) {
         super(dataSet);
         appDefaultIcon = icon;
         this.listener = listener;
+        if (catalog) {
+            searchIndex = new SearchIndex();
+            sortMode = SORT_TOTAL;
+        } else {
+            sortMode = SORT_NONE;
+        }
+        for (int i = 0; i < size(); i++) {
+            fetched.addElement(elementAt(i));
+        }
+        applyOrder();
+    }
+
+    /**
+     * Set the listener to notify applet icon updating, e.g. when the adapter
+     * is shown by another activity. The previous listener is no more notified
+     * by the listed applets.
+     *
+     * @param listener the listener.
+     */
+    public void setListener(DataUpdateListener listener) {
+        for (int i = 0; i < fetched.size(); i++) {
+            ((AppInfo) fetched.elementAt(i)).removeListener(this.listener);
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * Get the applets in the order they are fetched from the server.
+     */
+    public Vector getFetchedApps() {
+        return fetched;
+    }
+
+    public int getSortMode() {
+        return sortMode;
+    }
+
+    /**
+     * Sort the listed applets locally, without fetching them again. The rows
+     * are updated in place rather than created again.
+     *
+     * @param mode one of {@link #SORT_TOTAL}, {@link #SORT_MONTH},
+     * {@link #SORT_WEEK}, {@link #SORT_NAME} and {@link #SORT_VENDOR}.
+     */
+    public void setSortMode(int mode) {
+        if (sortMode == SORT_NONE || mode == sortMode) {
+            return;
+        }
+        sortMode = mode;
+        applyOrder();
+        // The rows show the count of the sort mode, update them even if the
+        // order is unchanged.
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Sort the applets of fetched into the adapter by the sort mode.
+     *
+     * @return true if the list changed.
+     */
+    private synchronized boolean applyOrder() {
+        int count = fetched.size();
+        if (order.length < count) {
+            int[] grown = new int[Math.max(count, order.length * 2)];
+            System.arraycopy(order, 0, grown, 0, orderCount);
+            order = grown;
+        }
+        // The applets appended since the last sort go to the end, and are
+        // moved into place by the insertion sort.
+        for (int i = orderCount; i < count; i++) {
+            order[i] = i;
+        }
+        orderCount = count;
+        if (sortMode != SORT_NONE) {
+            sortOrder();
+        }
+
+        boolean changed = size() != count;
+        setSize(count);
+        for (int i = 0; i < count; i++) {
+            Object appInfo = fetched.elementAt(order[i]);
+            if (elementAt(i) != appInfo) {
+                setElementAt(appInfo, i);
+                changed = true;
+            }
+            if (searchIndex != null) {
+                ((AppInfo) appInfo).setListPosition(i);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Binary insertion sort of order, in place. It costs few comparisons when
+     * order is almost sorted, e.g. after a page is appended, and the moves
+     * are done by System.arraycopy.
+     */
+    private void sortOrder() {
+        for (int i = 1; i < orderCount; i++) {
+            int key = order[i];
+            int lo = 0;
+            int hi = i;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(order[mid], key) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo < i) {
+                System.arraycopy(order, lo, order, lo + 1, i - lo);
+                order[lo] = key;
+            }
+        }
+    }
+
+    /**
+     * Compare the applets at the specified indices of fetched by the sort
+     * mode, the applets fetched earlier first if they are equal.
+     */
+    private int compare(int index1, int index2) {
+        AppInfo app1 = (AppInfo) fetched.elementAt(index1);
+        AppInfo app2 = (AppInfo) fetched.elementAt(index2);
+        int result = 0;
+        switch (sortMode) {
+        case SORT_TOTAL:
+            result = app2.getTotalDownloadCount() - app1.getTotalDownloadCount();
+            break;
+
+        case SORT_MONTH:
+            result = app2.getMonthDownloadCount() - app1.getMonthDownloadCount();
+            break;
+
+        case SORT_WEEK:
+            result = app2.getWeekDownloadCount() - app1.getWeekDownloadCount();
+            break;
+
+        case SORT_VENDOR:
+            result = compareText(app1.getVendor(), app2.getVendor());
+            if (result != 0) {
+                break;
+            }
+            // fall through to sort by name
+
+        case SORT_NAME:
+            result = compareText(app1.getName(), app2.getName());
+            break;
+        }
+        return result != 0 ? result : index1 - index2;
+    }
+
+    private static int compareText(String text1, String text2) {
+        if (text1 == null || text2 == null) {
+            return text1 == text2 ? 0 : (text1 == null ? 1 : -1);
+        }
+        return text1.compareTo(text2);
+    }
+
+    /**
+     * Get the download count shown in the row, which follows the sort mode.
+     */
+    private int getShownCount(AppInfo appInfo) {
+        switch (sortMode) {
+        case SORT_MONTH:
+            return appInfo.getMonthDownloadCount();
+        case SORT_WEEK:
+            return appInfo.getWeekDownloadCount();
+        default:
+            return appInfo.getTotalDownloadCount();
+        }
+    }
+
+    private String getShownCountLabel() {
+        switch (sortMode) {
+        case SORT_MONTH:
+            return StringResource.APP_MONTH_DOWN_LABEL;
+        case SORT_WEEK:
+            return StringResource.APP_WEEK_DOWN_LABEL;
+        default:
+            return StringResource.APP_TOTAL_DOWN_LABEL;
+        }
     }
 
     public Image getDefaultIcon() {
@@ -55,14 +324,15 @@ public class AppListAdapter extends ListAdapter {
 
         itemView.setPaddingRight(Theme.SCROLL_INDICATOR_WIDTH * 3 / 2);
 
-        Image icon = appInfo.getLogo();
-        if (icon == null) {
-            appInfo.fetchLogo(listener);
-        } else if (appDefaultIcon != null) {
-            icon = DrawUtil.scaleImage(icon, appDefaultIcon.getWidth(), appDefaultIcon.getHeight());
+        // Only a decoded logo is used here, since rows are bound off screen
+        // too. The logos of the rows on screen are loaded from the icon store
+        // or fetched by fetchMissingLogos().
+        Image icon = null;
+        if (appDefaultIcon != null && appInfo.hasLogo()) {
+            icon = appInfo.getLogo(appDefaultIcon.getWidth(), appDefaultIcon.getHeight());
         }
 
-        ImageView iconView = new ImageView(icon == null ? appDefaultIcon : icon, Theme.DEFAULT_EFFECT);
+        ImageView iconView = new ImageView(icon == null ? appDefaultIcon : icon, Theme.getDefaultEffect());
         iconView.setAlignment(itemView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_PARENT_LEFT, View.ALIGN_PARENT_CENTER);
         if (icon != null) {
             iconView.setPaddingLeft((appDefaultIcon.getWidth() - icon.getWidth()) / 2);
@@ -75,27 +345,27 @@ public class AppListAdapter extends ListAdapter {
 
         int maxWidth = itemView.getContentWidth() - iconView.getWidth();
 
-        TextView nameView = new TextView(appInfo.getName(), Theme.LIST_TITLE_EFFECT, maxWidth, true);
+        TextView nameView = new TextView(appInfo.getName(), Theme.getListTitleEffect(), maxWidth, true);
         nameView.setAlignment(infoContainer, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_PARENT_LEFT, View.ALIGN_PARENT_TOP);
         infoContainer.addChild(nameView);
 
         String versionStr = StringResource.APP_VERSION + appInfo.getVersion();
-        TextView versionView = new TextView(versionStr, Theme.LIST_SUMMARY_EFFECT);
+        TextView versionView = new TextView(versionStr, Theme.getListSummaryEffect());
         versionView.setAlignment(nameView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         infoContainer.addChild(versionView);
 
         String vendorStr = StringResource.APP_VENDOR + appInfo.getVendor();
-        TextView vendorView = new TextView(vendorStr, Theme.LIST_SUMMARY_EFFECT, maxWidth, true);
+        TextView vendorView = new TextView(vendorStr, Theme.getListSummaryEffect(), maxWidth, true);
         vendorView.setAlignment(versionView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
         infoContainer.addChild(vendorView);
 
         itemView.addChild(infoContainer);
 
-        TextView downCountView = new TextView(String.valueOf(appInfo.getTotalDownloadCount()), Theme.NUMBER_EFFECT);
+        TextView downCountView = new TextView(String.valueOf(getShownCount(appInfo)), Theme.getNumberEffect());
         downCountView.setAlignment(itemView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_PARENT_RIGHT, View.ALIGN_PARENT_CENTER);
         itemView.addChild(downCountView);
 
-        TextView downCountLabelView = new TextView(StringResource.APP_TOTAL_DOWN_LABEL, Theme.NUMBER_LABEL_EFFECT);
+        TextView downCountLabelView = new TextView(getShownCountLabel(), Theme.getNumberLabelEffect());
         downCountLabelView.setAlignment(downCountView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_LEFT_OF, View.ALIGN_TOP_WITH);
         itemView.addChild(downCountLabelView);
 
@@ -106,9 +376,15 @@ public class AppListAdapter extends ListAdapter {
         AppInfo appInfo = (AppInfo) elementAt(position);
 
         ImageView iconView = (ImageView) itemView.getChild(0);
-        Image icon = appInfo.getLogo();
-        if (icon != null && appDefaultIcon != null) {
-            icon = DrawUtil.scaleImage(icon, appDefaultIcon.getWidth(), appDefaultIcon.getHeight());
+        if (appDefaultIcon != null) {
+            // The logo may have been evicted, show the default icon until the
+            // item is on screen again, see onVisibleRangeChanged().
+            Image icon = appInfo.hasLogo()
+                    ? appInfo.getLogo(appDefaultIcon.getWidth(), appDefaultIcon.getHeight())
+                    : null;
+            if (icon == null) {
+                icon = appDefaultIcon;
+            }
             iconView.updateImage(icon);
             iconView.setPaddingLeft((appDefaultIcon.getWidth() - icon.getWidth()) / 2);
             iconView.setPaddingRight(iconView.getPaddingLeft() + Theme.ITEM_GAP_SIZE);
@@ -134,20 +410,312 @@ public class AppListAdapter extends ListAdapter {
         }
 
         TextView downCountView = (TextView) itemView.getChild(2);
-        String countStr = String.valueOf(appInfo.getTotalDownloadCount());
+        String countStr = String.valueOf(getShownCount(appInfo));
         if (!TextUtil.isEqual(downCountView.getText(), countStr)) {
             downCountView.updateText(countStr);
         }
 
+        TextView downCountLabelView = (TextView) itemView.getChild(3);
+        String labelStr = getShownCountLabel();
+        if (!TextUtil.isEqual(downCountLabelView.getText(), labelStr)) {
+            downCountLabelView.updateText(labelStr);
+        }
+
         return Math.max(iconView.getHeight(), nameView.getHeight() + versionView.getHeight() + vendorView.getHeight());
     }
 
+    /**
+     * Tell whether the list is on screen. A catalog list shown again records
+     * its items on screen as the viewport of the image registry at once, in
+     * place of the list shown meanwhile, and fetches the logos evicted or
+     * cancelled meanwhile again.
+     *
+     * @param shown true if the list is shown, false if it's hidden.
+     */
+    public void setShown(boolean shown) {
+        this.shown = shown;
+        if (shown) {
+            if (searchIndex != null) {
+                ImageRegistry.setViewport(visibleFirst, visibleLast);
+            }
+            fetchMissingLogos(visibleFirst, visibleLast);
+        }
+    }
+
+    /**
+     * Record the items on screen as the viewport of the image registry, fetch
+     * the logos evicted from the items on screen again, and cancel fetching
+     * the logos of the items scrolled off screen.
+     */
+    protected void onVisibleRangeChanged(int first, int last) {
+        if (searchIndex != null && shown) {
+            ImageRegistry.setViewport(first, last);
+        }
+        visibleFirst = first;
+        visibleLast = last;
+        cancelHiddenLogoFetches(first, last);
+        fetchMissingLogos(first, last);
+    }
+
+    /**
+     * Fetch the logos missing from the items in the specified range, loading
+     * them from the icon store if they are stored.
+     */
+    private void fetchMissingLogos(int first, int last) {
+        if (first < 0 || listener == null) {
+            return;
+        }
+        for (int i = first; i <= last && i < size(); i++) {
+            AppInfo appInfo = (AppInfo) elementAt(i);
+            if (appInfo.hasLogo()) {
+                continue;
+            }
+            if (appInfo.fetchLogo(listener)) {
+                // Loaded from the icon store, update the item at once.
+                listener.onDataUpdated(appInfo);
+            } else if (!fetchingLogos.contains(appInfo)) {
+                fetchingLogos.addElement(appInfo);
+            }
+        }
+    }
+
+    /**
+     * Cancel fetching the logos of the items out of the specified range, so
+     * that they don't hold up the logos on screen. They're fetched again once
+     * they're on screen again.
+     */
+    private void cancelHiddenLogoFetches(int first, int last) {
+        for (int i = fetchingLogos.size() - 1; i >= 0; i--) {
+            AppInfo appInfo = (AppInfo) fetchingLogos.elementAt(i);
+            if (appInfo.hasLogo()) {
+                fetchingLogos.removeElementAt(i);
+            } else if (!isInRange(appInfo, first, last)) {
+                appInfo.cancelLogoFetch();
+                fetchingLogos.removeElementAt(i);
+            }
+        }
+    }
+
+    private boolean isInRange(AppInfo appInfo, int first, int last) {
+        for (int i = Math.max(first, 0); i <= last && i < size(); i++) {
+            if (elementAt(i) == appInfo) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void removeAllElements() {
+        if (searchIndex != null) {
+            for (int i = 0; i < size(); i++) {
+                ((AppInfo) elementAt(i)).setListPosition(-1);
+            }
+            searchIndex.clear();
+        }
+        fetched.removeAllElements();
+        orderCount = 0;
+        super.removeAllElements();
+    }
+
+    /**
+     * Get the position of the listed applet, at once if this adapter lists
+     * the catalog, whose applets record their list positions.
+     *
+     * @param appInfo the applet.
+     * @return the position, or -1 if the applet is not listed.
+     */
+    public int positionOf(Object appInfo) {
+        if (searchIndex != null && appInfo instanceof AppInfo) {
+            int position = ((AppInfo) appInfo).getListPosition();
+            if (position >= 0 && position < size() && elementAt(position) == appInfo) {
+                return position;
+            }
+        }
+        return indexOf(appInfo);
+    }
+
+    /**
+     * Search the listed applets by name, suite name and vendor.
+     *
+     * @param query the query, case insensitive.
+     * @param maxResults the maximum count of results.
+     * @return the ranked applets, empty if this adapter lists search results.
+     */
+    public Vector search(String query, int maxResults) {
+        return searchIndex == null ? new Vector() : searchIndex.search(query, maxResults);
+    }
+
+    private void index(AppInfo appInfo) {
+        if (searchIndex != null) {
+            searchIndex.put(appInfo.getId(), appInfo, new String[] {
+                    appInfo.getName(), appInfo.getSuiteName(), appInfo.getVendor() });
+        }
+    }
+
+    /**
+     * Append the applets of the next page, and sort them into the list. The
+     * applets already listed, e.g. moved to the next page since the previous
+     * page was fetched, are updated in place rather than listed twice.
+     *
+     * @param apps the applets to append.
+     */
     public void addApps(Vector apps) {
         if (apps != null) {
             for (int i = 0; i < apps.size(); i++) {
-                addElement(apps.elementAt(i));
+                AppInfo appInfo = (AppInfo) apps.elementAt(i);
+                int index = indexOfApp(appInfo.getId(), 0);
+                if (index >= 0) {
+                    appInfo = (AppInfo) fetched.elementAt(index);
+                    appInfo.update((AppInfo) apps.elementAt(i));
+                } else {
+                    fetched.addElement(appInfo);
+                }
+                index(appInfo);
             }
         }
+        applyOrder();
         notifyDataSetChanged();
     }
+
+    /**
+     * Merge the freshly fetched first page into the list. The listed applets
+     * are updated in place, so they keep their logos, and only the rows which
+     * changed are updated if the order of the list does not change.
+     *
+     * @param apps the applets of the first page.
+     */
+    public void mergeFirstPage(Vector apps) {
+        if (apps == null) {
+            return;
+        }
+
+        boolean moved = false;
+        Vector updated = null;
+        for (int i = 0; i < apps.size(); i++) {
+            AppInfo fresh = (AppInfo) apps.elementAt(i);
+            int index = indexOfApp(fresh.getId(), i);
+            if (index == i) {
+                AppInfo appInfo = (AppInfo) fetched.elementAt(i);
+                if (appInfo.update(fresh)) {
+                    if (updated == null) {
+                        updated = new Vector();
+                    }
+                    updated.addElement(appInfo);
+                }
+            } else if (index > i) {
+                AppInfo appInfo = (AppInfo) fetched.elementAt(index);
+                appInfo.update(fresh);
+                fetched.removeElementAt(index);
+                fetched.insertElementAt(appInfo, i);
+                moved = true;
+            } else {
+                fetched.insertElementAt(fresh, i);
+                moved = true;
+            }
+            index((AppInfo) fetched.elementAt(i));
+        }
+
+        if (moved) {
+            // The indices in fetched have shifted, sort from scratch.
+            orderCount = 0;
+        }
+        if (applyOrder()) {
+            notifyDataSetChanged();
+        } else if (updated != null) {
+            for (int i = 0; i < updated.size(); i++) {
+                notifyItemChanged(positionOf(updated.elementAt(i)));
+            }
+        }
+    }
+
+    /**
+     * Apply the changes of the catalog since its last version in place, see
+     * {@link framework.task.GetAppListTask#setSinceVersion(String)}. Only the
+     * rows of the changed applets are updated if the order of the list does
+     * not change.
+     *
+     * @param added the added applets.
+     * @param changes the changed fields of the changed applets, one JSONObject
+     * with the "id" of the applet per changed applet.
+     * @param removedIds the ids of the removed applets.
+     * @param downloadBase the base URL of the changed logos, snapshots and
+     * JADs.
+     * @return the count of the fetched applets removed, so that the pages
+     * they leave room for can be fetched again.
+     */
+    public int applyDelta(Vector added, Vector changes, Vector removedIds, String downloadBase) {
+        int removedCount = 0;
+        for (int i = 0; removedIds != null && i < removedIds.size(); i++) {
+            String id = (String) removedIds.elementAt(i);
+            int index = indexOfApp(id, 0);
+            if (index >= 0) {
+                ((AppInfo) fetched.elementAt(index)).release();
+                fetched.removeElementAt(index);
+                if (searchIndex != null) {
+                    searchIndex.remove(id);
+                }
+                removedCount++;
+            }
+        }
+
+        Vector updated = null;
+        for (int i = 0; changes != null && i < changes.size(); i++) {
+            JSONObject change = (JSONObject) changes.elementAt(i);
+            int index = indexOfApp(change.optString("id"), 0);
+            if (index < 0) {
+                // Not fetched yet, its page brings it up to date.
+                continue;
+            }
+            AppInfo appInfo = (AppInfo) fetched.elementAt(index);
+            try {
+                if (appInfo.applyChanges(downloadBase, change)) {
+                    if (updated == null) {
+                        updated = new Vector();
+                    }
+                    updated.addElement(appInfo);
+                    index(appInfo);
+                }
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
+        }
+
+        boolean appended = added != null && !added.isEmpty();
+        if (appended) {
+            for (int i = 0; i < added.size(); i++) {
+                AppInfo appInfo = (AppInfo) added.elementAt(i);
+                if (indexOfApp(appInfo.getId(), 0) < 0) {
+                    fetched.addElement(appInfo);
+                    index(appInfo);
+                }
+            }
+        }
+
+        if (removedCount == 0 && !appended && updated == null) {
+            return 0;
+        }
+        if (removedCount > 0) {
+            // The indices in fetched have shifted, sort from scratch.
+            orderCount = 0;
+        }
+        if (applyOrder()) {
+            notifyDataSetChanged();
+        } else if (updated != null) {
+            for (int i = 0; i < updated.size(); i++) {
+                notifyItemChanged(positionOf(updated.elementAt(i)));
+            }
+        }
+        // The changed logos on screen are fetched again at once.
+        fetchMissingLogos(visibleFirst, visibleLast);
+        return removedCount;
+    }
+
+    private int indexOfApp(String id, int start) {
+        for (int i = start; i < fetched.size(); i++) {
+            if (((AppInfo) fetched.elementAt(i)).getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
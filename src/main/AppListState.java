@@ -0,0 +1,95 @@
+package main;
+
+import java.util.Vector;
+
+import framework.task.AppInfo;
+import framework.ui.component.ListView;
+
+/**
+ * AppListState keeps the fetched pages and the position of the applets list
+ * of a category while another category is browsed, so that the list is
+ * shown again at once, as it was left, when the category is opened again.
+ *
+ * @author Oscar Cai
+ */
+
+public class AppListState {
+
+    private AppListAdapter adapter;
+    private int page;
+    private int pageCount;
+    private String catalogVersion;
+    private int selectedIndex;
+    private int scrollY;
+
+    /**
+     * Create an AppListState without any fetched page.
+     *
+     * @param adapter the adapter listing the fetched applets.
+     */
+    public AppListState(AppListAdapter adapter) {
+        this.adapter = adapter;
+        page = 0;
+        pageCount = Integer.MAX_VALUE;
+        selectedIndex = ListView.NO_SELECTION;
+        scrollY = 0;
+    }
+
+    public AppListAdapter getAdapter() {
+        return adapter;
+    }
+
+    /**
+     * Get the count of the fetched pages.
+     */
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Get the version of the fetched applets on the server, null if unknown.
+     */
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public int getSelectedIndex() {
+        return selectedIndex;
+    }
+
+    public int getScrollY() {
+        return scrollY;
+    }
+
+    /**
+     * Record the state of the list being left.
+     *
+     * @param page the count of the fetched pages.
+     * @param pageCount the total count of pages.
+     * @param catalogVersion the version of the fetched applets, null if
+     * unknown.
+     * @param listView the ListView showing the adapter.
+     */
+    public void save(int page, int pageCount, String catalogVersion, ListView listView) {
+        this.page = page;
+        this.pageCount = pageCount;
+        this.catalogVersion = catalogVersion;
+        selectedIndex = listView.getSelectedItemIndex();
+        scrollY = listView.getScrollY();
+    }
+
+    /**
+     * Drop the images of the fetched applets once the state is dropped, so
+     * that they are no more accounted by the image registry.
+     */
+    public void release() {
+        Vector apps = adapter.getFetchedApps();
+        for (int i = 0; i < apps.size(); i++) {
+            ((AppInfo) apps.elementAt(i)).release();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package main;
+
+import java.util.Vector;
+
+import javax.microedition.lcdui.Canvas;
+
+import main.config.Config;
+import main.config.StringResource;
+import main.config.Theme;
+import main.util.Log;
+
+import framework.task.CategoryInfo;
+import framework.task.GetCategoryListTask;
+import framework.task.StoreTask;
+import framework.task.TaskListener;
+import framework.ui.activity.Dialog;
+import framework.ui.activity.MenuItem;
+import framework.ui.activity.MessageDialog;
+import framework.ui.activity.ProgressDialog;
+import framework.ui.activity.RASActivity;
+import framework.ui.component.ListView;
+import framework.ui.component.ScrollView;
+import framework.ui.component.View;
+
+/**
+ * CategoryActivity lists the Rice Store categories, or the subcategories of
+ * a category. A category divided into subcategories opens another
+ * CategoryActivity, otherwise it opens an {@link AppListActivity} listing its
+ * applets.
+ *
+ * @author Oscar Cai
+ */
+
+public class CategoryActivity extends RASActivity implements TaskListener {
+
+    private ListView categoryListView;
+    private CategoryListAdapter categoryListAdapter;
+    private Dialog progressDlg;
+    private GetCategoryListTask getCategoriesTask;
+    private CategoryInfo parent;
+
+    /**
+     * Create a CategoryActivity.
+     *
+     * @param parent the category to list the subcategories of, null to list
+     * the top level categories.
+     */
+    public CategoryActivity(CategoryInfo parent) {
+        super(Theme.getTransparentAppIcon(), parent == null ? StringResource.CATEGORY_TITLE : parent.getName());
+        this.parent = parent;
+
+        /**
+         * To here, categoryListView must be initialized
+         */
+        categoryListAdapter = new CategoryListAdapter(null);
+        categoryListView.setAdapter(categoryListAdapter);
+    }
+
+    protected void bindContentView() {
+        if (categoryListView == null) {
+            categoryListView = new ListView(null, StringResource.NO_CATEGORY);
+            categoryListView.setScrollBuffered(true);
+            categoryListView.setAlignment(contentView, View.MATCH_PARENT, View.MATCH_PARENT, View.ALIGN_PARENT_LEFT, View.ALIGN_PARENT_TOP);
+            contentView.addChild(categoryListView);
+        }
+        contentView.layout();
+        repaint();
+    }
+
+    /**
+     * Show the activity and fetch the categories.
+     */
+    public void start() {
+        show();
+        getCategories();
+    }
+
+    private void getCategories() {
+        if (getCategoriesTask != null) {
+            getCategoriesTask.cancel();
+        }
+        if (progressDlg != null) {
+            progressDlg.destroy();
+            progressDlg = null;
+        }
+
+        getCategoriesTask = new GetCategoryListTask(parent == null ? null : parent.getId(), this);
+        progressDlg = new ProgressDialog(StringResource.START_GET_CATEGORY_LIST, this);
+        progressDlg.show();
+        getCategoriesTask.execute();
+    }
+
+    protected void createMenu(Vector menuItems) {
+        menuItems.addElement(new MenuItem(Config.MENU_REFRESH_ID, Theme.getMenuRefreshIcon(), StringResource.MENU_REFRESH_TITLE));
+        menuItems.addElement(new MenuItem(Config.MENU_BACK_ID, Theme.getMenuBackIcon(), StringResource.MENU_BACK_TITLE));
+        setBackMenuItem((MenuItem) menuItems.lastElement());
+    }
+
+    public void onMenuItemSelected(int menuItemId) {
+        switch (menuItemId) {
+        case Config.MENU_REFRESH_ID:
+            getCategories();
+            break;
+
+        case Config.MENU_BACK_ID:
+            destroy();
+            break;
+        }
+    }
+
+    private void openCategory(int index) {
+        if (index < 0 || index >= categoryListAdapter.size()) {
+            return;
+        }
+
+        CategoryInfo category = (CategoryInfo) categoryListAdapter.elementAt(index);
+        if (category.hasSubcategories()) {
+            new CategoryActivity(category).start();
+        } else {
+            AppListActivity activity = new AppListActivity(category);
+            activity.show();
+            activity.start();
+        }
+    }
+
+    public void onFinished(StoreTask task, boolean success, String msg) {
+        Log.d("HTTP", (success ? "OKAY " : "FAIL ") + msg);
+        if (task != getCategoriesTask) {
+            // Replaced by a refresh, or the activity is destroyed.
+            return;
+        }
+
+        if (!success) {
+            MessageDialog msgDlg = new MessageDialog(msg, this, MessageDialog.BUTTON_OK, null);
+            msgDlg.copyGradientBackground(progressDlg);
+            msgDlg.show();
+        } else {
+            categoryListView.clear();
+            Vector categories = ((GetCategoryListTask) task).getCategories();
+            for (int i = 0; i < categories.size(); i++) {
+                categoryListAdapter.addElement(categories.elementAt(i));
+            }
+            categoryListAdapter.notifyDataSetChanged();
+            bindContentView();
+        }
+
+        getCategoriesTask = null;
+
+        if (progressDlg != null) {
+            progressDlg.destroy();
+            progressDlg = null;
+        }
+    }
+
+    public void onUpdated(StoreTask task, String msg) {
+        if (task != getCategoriesTask) {
+            return;
+        }
+        if (progressDlg != null) {
+            progressDlg.setMessage(msg);
+        }
+        Log.d("HTTP", ".... " + msg);
+    }
+
+    protected ScrollView getScrollView() {
+        return categoryListView;
+    }
+
+    protected void pointerPressed(int x, int y) {
+        super.pointerPressed(x, y);
+        if (categoryListView != null) {
+            categoryListView.onPointerPressed(x, y);
+            repaint();
+        }
+    }
+
+    protected void onPointerReleased(int x, int y) {
+        super.onPointerReleased(x, y);
+        if (categoryListView != null) {
+            openCategory(categoryListView.getClickedItemIndex(x, y));
+        }
+    }
+
+    public void onPointerDragged(int horizontalDistance, int verticalDistance) {
+        super.onPointerDragged(horizontalDistance, verticalDistance);
+        if (categoryListView != null) {
+            categoryListView.scrollYBy(verticalDistance);
+            repaint();
+        }
+    }
+
+    protected void keyPressed(int keyCode) {
+        switch (keyCode) {
+        case Config.KEYCODE_UP:
+        case Canvas.UP:
+        case Canvas.KEY_NUM2:
+            if (categoryListView != null) {
+                categoryListView.selectPrevious();
+                repaint();
+            }
+            break;
+
+        case Config.KEYCODE_DOWN:
+        case Canvas.DOWN:
+        case Canvas.KEY_NUM8:
+            if (categoryListView != null) {
+                categoryListView.selectNext();
+                repaint();
+            }
+            break;
+        }
+    }
+
+    protected void keyRepeated(int keyCode) {
+        this.keyPressed(keyCode);
+    }
+
+    protected void keyReleased(int keyCode) {
+        switch (keyCode) {
+        case Canvas.FIRE:
+        case Config.KEYCODE_SELECT:
+            if (categoryListView != null) {
+                openCategory(categoryListView.getSelectedItemIndex());
+            }
+            return;
+        }
+
+        super.keyReleased(keyCode);
+    }
+
+    protected void onDestroy() {
+        super.onDestroy();
+        if (getCategoriesTask != null) {
+            getCategoriesTask.cancel();
+            getCategoriesTask = null;
+        }
+    }
+}
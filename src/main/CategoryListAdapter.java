@@ -0,0 +1,67 @@
+package main;
+
+import java.util.Vector;
+
+import main.config.StringResource;
+import main.config.Theme;
+
+import framework.task.CategoryInfo;
+import framework.ui.component.Container;
+import framework.ui.component.ListAdapter;
+import framework.ui.component.ListView;
+import framework.ui.component.TextView;
+import framework.ui.component.View;
+import framework.util.TextUtil;
+
+/**
+ * A CategoryListAdapter object acts as a bridge between an {@link ListView}
+ * and the Rice Store categories. Each category is shown by its name and the
+ * count of its applets.
+ *
+ * @author Oscar Cai
+ */
+
+public class CategoryListAdapter extends ListAdapter {
+
+    public CategoryListAdapter(Vector dataSet) {
+        super(dataSet);
+    }
+
+    protected int bindView(int position, Container itemView) {
+        CategoryInfo category = (CategoryInfo) elementAt(position);
+
+        itemView.setPaddingRight(Theme.SCROLL_INDICATOR_WIDTH * 3 / 2);
+
+        TextView countView = new TextView(String.valueOf(category.getAppCount()), Theme.getNumberEffect());
+        countView.setAlignment(itemView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_PARENT_RIGHT, View.ALIGN_PARENT_CENTER);
+        itemView.addChild(countView);
+
+        TextView countLabelView = new TextView(StringResource.CATEGORY_APP_COUNT_LABEL, Theme.getNumberLabelEffect());
+        countLabelView.setAlignment(countView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_LEFT_OF, View.ALIGN_TOP_WITH);
+        itemView.addChild(countLabelView);
+
+        int maxWidth = itemView.getContentWidth() - countView.getWidth() - countLabelView.getWidth();
+        TextView nameView = new TextView(category.getName(), Theme.getListTitleEffect(), maxWidth, true);
+        nameView.setAlignment(itemView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_PARENT_LEFT, View.ALIGN_PARENT_CENTER);
+        itemView.addChild(nameView);
+
+        return Math.max(nameView.getHeight(), countView.getHeight());
+    }
+
+    protected int updateView(int position, Container itemView) {
+        CategoryInfo category = (CategoryInfo) elementAt(position);
+
+        TextView countView = (TextView) itemView.getChild(0);
+        String countStr = String.valueOf(category.getAppCount());
+        if (!TextUtil.isEqual(countView.getText(), countStr)) {
+            countView.updateText(countStr);
+        }
+
+        TextView nameView = (TextView) itemView.getChild(2);
+        if (!TextUtil.isEqual(nameView.getText(), category.getName())) {
+            nameView.updateText(category.getName());
+        }
+
+        return Math.max(nameView.getHeight(), countView.getHeight());
+    }
+}
@@ -4,10 +4,11 @@ package main;
 import javax.microedition.midlet.MIDlet;
 import javax.microedition.midlet.MIDletStateChangeException;
 
+import framework.rms.IconStore;
 import framework.ui.activity.ActivityManager;
+import framework.util.ImageRegistry;
 
 import main.config.Config;
-import main.config.Theme;
 
 public class Main extends MIDlet {
 
@@ -16,6 +17,7 @@ public class Main extends MIDlet {
     protected void destroyApp(boolean arg0) throws MIDletStateChangeException {
         Config.getGlobalDisplay().setCurrent(null);
         Config.getActivityManager().clear();
+        IconStore.close();
     }
 
     protected void pauseApp() {
@@ -25,10 +27,10 @@ public class Main extends MIDlet {
         Config.setMIDlet(this);
         Config.setActivityManager(new ActivityManager());
 
-        Theme.init();
+        ImageRegistry.setBudget(Config.IMAGE_BUDGET);
 
         home = new AppListActivity();
         home.show();
-        home.getNextPageOfApps();
+        home.start();
     }
 }
@@ -0,0 +1,323 @@
+package main;
+
+import java.util.Vector;
+
+import javax.microedition.lcdui.Canvas;
+import javax.microedition.lcdui.Command;
+import javax.microedition.lcdui.CommandListener;
+import javax.microedition.lcdui.Displayable;
+import javax.microedition.lcdui.TextBox;
+import javax.microedition.lcdui.TextField;
+
+import main.config.Config;
+import main.config.StringResource;
+import main.config.Theme;
+import main.util.Log;
+
+import framework.net.NetworkExecutor;
+import framework.task.AppInfo;
+import framework.task.GetAppListTask;
+import framework.task.StoreTask;
+import framework.task.TaskListener;
+import framework.ui.activity.MenuItem;
+import framework.ui.activity.RASActivity;
+import framework.ui.component.DataUpdateListener;
+import framework.ui.component.ListView;
+import framework.ui.component.ScrollView;
+import framework.ui.component.TextView;
+import framework.ui.component.View;
+
+/**
+ * SearchActivity searches the loaded applets by name, suite name and vendor
+ * as the user types, see {@link AppListAdapter#search(String, int)}.
+ * <p>
+ * Characters are typed with the keypad directly, or with the native input
+ * method in a TextBox, which is needed for CJK text. If no loaded applet
+ * matches, the server is searched once the user stops typing for
+ * {@link #SERVER_SEARCH_DELAY}.
+ *
+ * @author Oscar Cai
+ */
+
+public class SearchActivity extends RASActivity implements DataUpdateListener, TaskListener, CommandListener {
+
+    private static final int MAX_RESULTS = 30;
+    private static final int MAX_QUERY_LENGTH = 32;
+
+    /**
+     * The delay after the last key before searching the server, in
+     * milliseconds.
+     */
+    private static final long SERVER_SEARCH_DELAY = 800;
+
+    private TextView queryView;
+    private ListView resultListView;
+    private AppListAdapter catalog;
+    private AppListAdapter resultAdapter;
+    private StringBuffer query;
+    private TextBox inputBox;
+
+    private GetAppListTask serverTask;
+    private Runnable pendingServerSearch;
+
+    /**
+     * Create a SearchActivity.
+     *
+     * @param catalog the adapter of the loaded applets to search.
+     */
+    public SearchActivity(AppListAdapter catalog) {
+        super(StringResource.SEARCH_TITLE);
+        this.catalog = catalog;
+        query = new StringBuffer();
+
+        /**
+         * To here, resultListView must be initialized
+         */
+        resultAdapter = new AppListAdapter(null, catalog.getDefaultIcon(), this, false);
+        resultListView.setAdapter(resultAdapter);
+    }
+
+    protected void bindContentView() {
+        if (resultListView == null) {
+            queryView = new TextView(StringResource.SEARCH_LABEL + StringResource.SEARCH_HINT,
+                    Theme.getListTitleEffect(), contentView.getWidth() - Theme.ITEM_GAP_SIZE * 2, true);
+            queryView.setAlignment(contentView, View.WRAP_CONTENT, View.WRAP_CONTENT, View.ALIGN_PARENT_LEFT, View.ALIGN_PARENT_TOP);
+            queryView.setPaddingLeft(Theme.ITEM_GAP_SIZE);
+            queryView.setPaddingTop(Theme.ITEM_GAP_SIZE);
+            queryView.setPaddingBottom(Theme.ITEM_GAP_SIZE);
+            contentView.addChild(queryView);
+
+            resultListView = new ListView(null, StringResource.NO_SEARCH_RESULT);
+            resultListView.setScrollBuffered(true);
+            resultListView.setAlignment(queryView, View.EXACT_SIZE, View.EXACT_SIZE, View.ALIGN_LEFT_WITH, View.ALIGN_BELOW);
+            resultListView.changeSize(contentView.getWidth(), contentView.getHeight() - queryView.getHeight());
+            resultListView.setContentWidth(resultListView.getWidth());
+            resultListView.setContentHeight(resultListView.getHeight());
+            contentView.addChild(resultListView);
+        }
+        contentView.layout();
+        repaint();
+    }
+
+    protected void createMenu(Vector menuItems) {
+        menuItems.addElement(new MenuItem(Config.MENU_INPUT_ID, Theme.getMenuSearchIcon(), StringResource.MENU_INPUT_TITLE));
+        menuItems.addElement(new MenuItem(Config.MENU_BACK_ID, Theme.getMenuBackIcon(), StringResource.MENU_BACK_TITLE));
+        setBackMenuItem((MenuItem) menuItems.lastElement());
+    }
+
+    public void onMenuItemSelected(int menuItemId) {
+        switch (menuItemId) {
+        case Config.MENU_INPUT_ID:
+            showInputBox();
+            break;
+
+        case Config.MENU_BACK_ID:
+            destroy();
+            break;
+        }
+    }
+
+    /**
+     * Search the loaded applets for the current query and show the results,
+     * or search the server later if none matches.
+     */
+    private void search() {
+        cancelServerSearch();
+
+        String q = query.toString();
+        queryView.updateText(StringResource.SEARCH_LABEL + (q.length() == 0 ? StringResource.SEARCH_HINT : q));
+
+        Vector results = catalog.search(q, MAX_RESULTS);
+        showResults(results);
+        if (results.isEmpty() && q.trim().length() > 0) {
+            scheduleServerSearch(q);
+        }
+    }
+
+    private void showResults(Vector results) {
+        for (int i = 0; i < resultAdapter.size(); i++) {
+            ((AppInfo) resultAdapter.elementAt(i)).removeListener(this);
+        }
+        resultListView.clear();
+        resultAdapter.addApps(results);
+        contentView.layout();
+        repaint();
+    }
+
+    private synchronized void scheduleServerSearch(final String keyword) {
+        pendingServerSearch = new Runnable() {
+            public void run() {
+                startServerSearch(keyword, this);
+            }
+        };
+        NetworkExecutor.schedule(pendingServerSearch, SERVER_SEARCH_DELAY, NetworkExecutor.PRIORITY_HIGH);
+    }
+
+    private synchronized void startServerSearch(String keyword, Runnable search) {
+        if (search != pendingServerSearch) {
+            // The query has changed meanwhile.
+            return;
+        }
+        pendingServerSearch = null;
+        serverTask = new GetAppListTask(1, keyword, this);
+        serverTask.execute();
+    }
+
+    private synchronized void cancelServerSearch() {
+        if (pendingServerSearch != null) {
+            NetworkExecutor.remove(pendingServerSearch);
+            pendingServerSearch = null;
+        }
+        if (serverTask != null) {
+            serverTask.cancel();
+            serverTask = null;
+        }
+    }
+
+    public void onUpdated(StoreTask task, String msg) {
+        Log.d("HTTP", ".... " + msg);
+    }
+
+    public void onFinished(StoreTask task, boolean success, String msg) {
+        Log.d("HTTP", (success ? "OKAY " : "FAIL ") + msg);
+
+        synchronized (this) {
+            if (task != serverTask) {
+                // The query has changed meanwhile.
+                return;
+            }
+            serverTask = null;
+        }
+        Vector apps = ((GetAppListTask) task).getApps();
+        if (success && apps != null) {
+            showResults(apps);
+        }
+    }
+
+    private void showInputBox() {
+        if (inputBox == null) {
+            inputBox = new TextBox(StringResource.SEARCH_TITLE, query.toString(), MAX_QUERY_LENGTH, TextField.ANY);
+            inputBox.addCommand(new Command(StringResource.BUTTON_OK, Command.OK, 1));
+            inputBox.addCommand(new Command(StringResource.BUTTON_CANCEL, Command.CANCEL, 2));
+            inputBox.setCommandListener(this);
+        } else {
+            inputBox.setString(query.toString());
+        }
+        Config.getGlobalDisplay().setCurrent(inputBox);
+    }
+
+    public void commandAction(Command c, Displayable d) {
+        if (c.getCommandType() == Command.OK) {
+            query.setLength(0);
+            query.append(inputBox.getString());
+            search();
+        }
+        Config.getGlobalDisplay().setCurrent(this);
+    }
+
+    private void showAppInfo(int index) {
+        if (index >= 0 && index < resultAdapter.size()) {
+            AppInfo appInfo = (AppInfo) resultAdapter.elementAt(index);
+            AppInfoActivity activity = new AppInfoActivity(appInfo, resultAdapter.getDefaultIcon());
+            activity.show();
+        }
+    }
+
+    protected ScrollView getScrollView() {
+        return resultListView;
+    }
+
+    protected void pointerPressed(int x, int y) {
+        super.pointerPressed(x, y);
+        if (resultListView != null) {
+            resultListView.onPointerPressed(x, y);
+            repaint();
+        }
+    }
+
+    protected void onPointerReleased(int x, int y) {
+        super.onPointerReleased(x, y);
+        if (queryView != null && queryView.contains(x, y)) {
+            showInputBox();
+        } else if (resultListView != null) {
+            showAppInfo(resultListView.getClickedItemIndex(x, y));
+        }
+    }
+
+    public void onPointerDragged(int horizontalDistance, int verticalDistance) {
+        super.onPointerDragged(horizontalDistance, verticalDistance);
+        if (resultListView != null) {
+            resultListView.scrollYBy(verticalDistance);
+            repaint();
+        }
+    }
+
+    protected void keyPressed(int keyCode) {
+        switch (keyCode) {
+        case Config.KEYCODE_UP:
+        case Canvas.UP:
+            resultListView.selectPrevious();
+            repaint();
+            return;
+
+        case Config.KEYCODE_DOWN:
+        case Canvas.DOWN:
+            resultListView.selectNext();
+            repaint();
+            return;
+        }
+
+        // Printable keys, e.g. digits or the keys of a QWERTY keypad, are
+        // typed into the query at once.
+        if (keyCode >= ' ' && query.length() < MAX_QUERY_LENGTH) {
+            query.append((char) keyCode);
+            search();
+        }
+    }
+
+    protected void keyRepeated(int keyCode) {
+        this.keyPressed(keyCode);
+    }
+
+    protected void keyReleased(int keyCode) {
+        switch (keyCode) {
+        case Canvas.FIRE:
+        case Config.KEYCODE_SELECT:
+            int index = resultListView.getSelectedItemIndex();
+            if (index == ListView.NO_SELECTION) {
+                showInputBox();
+            } else {
+                showAppInfo(index);
+            }
+            return;
+
+        case Config.KEYCODE_CLEAR:
+            if (query.length() > 0) {
+                query.setLength(query.length() - 1);
+                search();
+                return;
+            }
+            break;
+        }
+
+        super.keyReleased(keyCode);
+    }
+
+    public void onDataUpdated(Object data) {
+        if (resultAdapter != null) {
+            int index = resultAdapter.indexOf(data);
+            if (index >= 0) {
+                resultAdapter.notifyItemChanged(index);
+                repaint();
+            }
+        }
+    }
+
+    protected void onDestroy() {
+        super.onDestroy();
+        cancelServerSearch();
+        for (int i = 0; i < resultAdapter.size(); i++) {
+            ((AppInfo) resultAdapter.elementAt(i)).removeListener(this);
+        }
+    }
+}
@@ -48,6 +48,18 @@ public class Config {
     public static final int MENU_INSTALL_ID = 1001;
     public static final int MENU_BACK_ID    = 1002;
     public static final int MENU_EXIT_ID    = 1003;
+    public static final int MENU_SEARCH_ID  = 1004;
+    public static final int MENU_INPUT_ID   = 1005;
+    public static final int MENU_SORT_ID    = 1006;
+    public static final int MENU_SORT_TOTAL_ID  = 1007;
+    public static final int MENU_SORT_MONTH_ID  = 1008;
+    public static final int MENU_SORT_WEEK_ID   = 1009;
+    public static final int MENU_SORT_NAME_ID   = 1010;
+    public static final int MENU_SORT_VENDOR_ID = 1011;
+    public static final int MENU_CATEGORY_ID    = 1012;
+
+    /** The budget of the decoded applet logos and snapshots, in bytes */
+    public static final int IMAGE_BUDGET = 384 * 1024;
 
     private static Display globalDisplay;
 
@@ -96,6 +108,10 @@ public class Config {
         return getServerletUrl("soft.php");
     }
 
+    public static String getCategoryListUrl() {
+        return getServerletUrl("type.php");
+    }
+
     public static String getNotifyUrl() {
         return getServerletUrl("notify.php");
     }
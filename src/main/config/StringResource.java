@@ -11,6 +11,7 @@ public final class StringResource {
     public static final String APP_TITLE = "烁米应用商店";
 
     public static final String CONNECTING_TIMEOUT = "连接超时！";
+    public static final String RETRYING = "连接失败，正在重试……";
 
     public static final String NO_LATEST_CONTENT = "本分类下没有最新内容";
 
@@ -18,6 +19,10 @@ public final class StringResource {
     public static final String GET_TYPE_APP_SUCCESS = "成功获取应用列表。";
     public static final String GET_TYPE_APP_FAIL = "无法获取应用列表！";
 
+    public static final String START_GET_CATEGORY_LIST = "正在获取分类列表……";
+    public static final String GET_CATEGORY_LIST_SUCCESS = "成功获取分类列表。";
+    public static final String GET_CATEGORY_LIST_FAIL = "无法获取分类列表！";
+
     public static final String START_SEND_INSTALL_NOTIFY = "正在发送安装通知……";
     public static final String SEND_INSTALL_NOTIFY_SUCCESS = "成功发送安装通知。";
     public static final String SEND_INSTALL_NOTIFY_FAIL = "无法发送安装通知！";
@@ -38,10 +43,29 @@ public final class StringResource {
 
     public static final String INSTALL = "下载安装";
 
+    public static final String CATEGORY_TITLE = "应用分类";
+    public static final String CATEGORY_APP_COUNT_LABEL = "应用：";
+    public static final String NO_CATEGORY = "暂时没有分类";
+
     public static final String MENU_REFRESH_TITLE = "刷新";
     public static final String MENU_INSTALL_TITLE = "安装";
     public static final String MENU_BACK_TITLE = "返回";
     public static final String MENU_EXIT_TITLE = "退出";
+    public static final String MENU_SEARCH_TITLE = "搜索";
+    public static final String MENU_INPUT_TITLE = "输入";
+    public static final String MENU_CATEGORY_TITLE = "分类";
+    public static final String MENU_SORT_TITLE = "排序";
+    public static final String MENU_SORT_TOTAL_TITLE = "总下载";
+    public static final String MENU_SORT_MONTH_TITLE = "本月下载";
+    public static final String MENU_SORT_WEEK_TITLE = "本周下载";
+    public static final String MENU_SORT_NAME_TITLE = "名称";
+    public static final String MENU_SORT_VENDOR_TITLE = "出品方";
+
+    public static final String SEARCH_TITLE = "搜索应用";
+    public static final String SEARCH_LABEL = "搜索：";
+    public static final String SEARCH_HINT = "请输入应用名称或出品方";
+    public static final String NO_SEARCH_RESULT = "没有找到相关应用";
+    public static final String SEARCHING_SERVER = "正在搜索服务器……";
 
     public static final String CONFIRM_EXIT = "您确定要退出本应用吗？";
 }
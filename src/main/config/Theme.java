@@ -5,14 +5,20 @@ import javax.microedition.lcdui.Font;
 import javax.microedition.lcdui.Graphics;
 import javax.microedition.lcdui.Image;
 
+import framework.ui.Profiler;
 import framework.ui.effect.DropShadowEffect;
 import framework.ui.effect.Effect;
 import framework.ui.effect.PlainEffect;
 import framework.util.DrawUtil;
+import framework.util.ImageCache;
 import main.util.Log;
 
 /**
  * Theme definitions
+ * <p>
+ * The image resources and the Effects are created on first use rather than
+ * when the MIDlet starts, so that the first screen only pays for what it
+ * shows.
  *
  * @author Oscar Cai
  */
@@ -25,12 +31,15 @@ public final class Theme {
     private static Image dialogBackground;
     private static Image[] buttonBackgrounds;
     private static Image softIcon;
-    private static Image[] gaugeImages;
+    private static Image gaugeStrip;
     private static Image iconBgSelected;
     private static Image menuRefresh;
     private static Image menuInstall;
     private static Image menuBack;
     private static Image menuExit;
+    private static Image menuSearch;
+    private static Image menuSort;
+    private static Image menuCategory;
     private static Image repeatedBg;
     private static int titlebarHeight;
 
@@ -53,17 +62,17 @@ public final class Theme {
 
     public static final Font TITLE_FONT = Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_BOLD, Font.SIZE_LARGE);
     public static final int TITLE_FGCOLOR = WHITE;
-    public static final Effect TITLE_EFFECT = new DropShadowEffect(TITLE_FONT, TITLE_FGCOLOR, SHADOW_COLOR);
+    private static Effect titleEffect;
 
     public static final Font SUB_TITLE_FONT = Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_BOLD, Font.SIZE_MEDIUM);
-    public static final Effect SUB_TITLE_EFFECT = new PlainEffect(SUB_TITLE_FONT, BLACK);
+    private static Effect subTitleEffect;
 
     public static final Font DEFAULT_FONT = Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_PLAIN, Font.SIZE_MEDIUM);
     public static final int DEFAULT_FGCOLOR = BLACK;
-    public static final Effect DEFAULT_EFFECT = new PlainEffect(DEFAULT_FONT, DEFAULT_FGCOLOR);
+    private static Effect defaultEffect;
 
     public static final int APPINFO_BUTTON_FGCOLOR = 0xFF404040;
-    public static final Effect APPINFO_BUTTON_EFFECT = new PlainEffect(DEFAULT_FONT, APPINFO_BUTTON_FGCOLOR);
+    private static Effect appInfoButtonEffect;
 
     public static final int BORDER_SHADOW_WIDTH = 6;
 
@@ -74,22 +83,28 @@ public final class Theme {
     public static final int SCROLL_INDICATOR_BORDER_COLOR = 0xB05A5A5A;
 
     public static final int ITEM_GAP_SIZE = 10;
-    public static final Effect GAUGE_EFFECT = new PlainEffect(DEFAULT_FONT, WHITE);
-    public static final Effect DIALOG_DEFAULT_EFFECT = new PlainEffect(DEFAULT_FONT, WHITE);
+    private static Effect gaugeEffect;
+    private static Effect dialogDefaultEffect;
+
+    /**
+     * The count of the gauge animation frames, which are packed from left to
+     * right in one image.
+     */
+    public static final int GAUGE_FRAME_COUNT = 12;
 
     public static final int DIVIDER_DARK = 0xFF808080;
     public static final int DIVIDER_LIGHT = 0xFFF0F0F0;
 
     public static final Font NUMBER_FONT = Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_BOLD | Font.STYLE_ITALIC, Font.SIZE_MEDIUM);
-    public static final Effect NUMBER_EFFECT = new PlainEffect(NUMBER_FONT, RED);
-    public static final Effect NUMBER_LABEL_EFFECT = new PlainEffect(NUMBER_FONT, BLACK);
+    private static Effect numberEffect;
+    private static Effect numberLabelEffect;
 
     public static final int LIST_ITEM_PADDING = 3;
     public static final int LIST_DIVIDER_HEIGHT = 1;
     public static final Font LIST_TITLE_FONT = Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_BOLD, Font.SIZE_LARGE);
     public static final Font LIST_SUMMARY_FONT = Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_ITALIC, Font.SIZE_MEDIUM);
-    public static final Effect LIST_TITLE_EFFECT = new PlainEffect(LIST_TITLE_FONT, BLACK);
-    public static final Effect LIST_SUMMARY_EFFECT = new PlainEffect(LIST_SUMMARY_FONT, BLACK);
+    private static Effect listTitleEffect;
+    private static Effect listSummaryEffect;
 
     public static final int LIST_ITEM_ODD_BGCOLOR_START = 0x80E0E6ED;
     public static final int LIST_ITEM_ODD_BGCOLOR_END = 0x805E7CA2;
@@ -97,56 +112,52 @@ public final class Theme {
     public static final int LIST_ITEM_EVEN_BGCOLOR_END = 0x80468C53;
     public static final int LIST_ITEM_SELECTED_BGCOLOR_START = 0x80FFEEDD;
     public static final int LIST_ITEM_SELECTED_BGCOLOR_END = 0x80FFC891;
-    private static Image listItemOddBg;
-    private static Image listItemEvenBg;
-    private static Image listItemSelectedBg;
+    private static final int LIST_ITEM_BG_EVEN = 0;
+    private static final int LIST_ITEM_BG_ODD = 1;
+    private static final int LIST_ITEM_BG_SELECTED = 2;
+    private static final ImageCache listItemBgCache = new ImageCache(8, 192 * 1024);
 
     public static final Font MENU_TITLE_FONT = Font.getFont(Font.FACE_PROPORTIONAL, Font.STYLE_BOLD, Font.SIZE_MEDIUM);
-    public static final Effect MENU_TITLE_EFFECT = new PlainEffect(MENU_TITLE_FONT, BLACK);
+    private static Effect menuTitleEffect;
     public static final int MENU_ITEM_BGCOLOR = 0xE0FFFFFF;
     public static final int MENU_ITEM_DIVIDER_SIZE = 1;
 
     public static final int SELECTED_BGCOLOR = 0xFFFFC891;
 
-    public static void init() {
+    /**
+     * Load an image resource, logging the failure.
+     *
+     * @param name the resource name.
+     * @return the image, or null if it fails to load.
+     */
+    private static Image loadImage(String name) {
         try {
-            appIcon = Image.createImage("/app_icon.png");
-            transparentAppIcon = Image.createImage("/transparent_app_icon.png");
-            dialogBackground = Image.createImage("/dialog_bg.png");
-            softIcon = Image.createImage("/soft_icon.png");
-            iconBgSelected = Image.createImage("/icon_bg_selected.png");
-            menuRefresh = Image.createImage("/menu_refresh.png");
-            menuInstall = Image.createImage("/menu_install.png");
-            menuBack = Image.createImage("/menu_back.png");
-            menuExit = Image.createImage("/menu_exit.png");
-
-            titlebarHeight = Math.max(TITLE_FONT.getHeight(), appIcon.getHeight()) * 3 / 2;
-
-            buttonBackgrounds = new Image[2];
-            buttonBackgrounds[0] = Image.createImage("/button_bg_normal.png");
-            buttonBackgrounds[1] = Image.createImage("/button_bg_selected.png");
-
-            gaugeImages = new Image[12];
-            for (int i = 0; i < 9; i++) {
-                gaugeImages[i] = Image.createImage("/gauge0" + (i + 1) + ".png");
-            }
-            for (int i = 9; i < 12; i++) {
-                gaugeImages[i] = Image.createImage("/gauge" + (i + 1) + ".png");
-            }
+            return Image.createImage(name);
         } catch (Exception e) {
-            Log.e(TAG, "Unable to load image resources", e);
+            Log.e(TAG, "Unable to load image resource " + name, e);
+            return null;
         }
     }
 
     public static int getTitlebarHeight() {
+        if (titlebarHeight == 0) {
+            Image icon = getAppIcon();
+            titlebarHeight = Math.max(TITLE_FONT.getHeight(), icon == null ? 0 : icon.getHeight()) * 3 / 2;
+        }
         return titlebarHeight;
     }
 
     public static Image getAppIcon() {
+        if (appIcon == null) {
+            appIcon = loadImage("/app_icon.png");
+        }
         return appIcon;
     }
 
     public static Image getTransparentAppIcon() {
+        if (transparentAppIcon == null) {
+            transparentAppIcon = loadImage("/transparent_app_icon.png");
+        }
         return transparentAppIcon;
     }
 
@@ -155,9 +166,10 @@ public final class Theme {
             return;
         }
 
-        int[] argb = DrawUtil.getVerticalGradientRgb(width, titlebarHeight,
+        int height = getTitlebarHeight();
+        int[] argb = DrawUtil.getVerticalGradientRgb(width, height,
                 TITLEBAR_BG_START_COLOR, TITLEBAR_BG_END_COLOR, TITLEBAR_BG_BORDER_COLOR);
-        titlebarBackground = Image.createRGBImage(argb, width, titlebarHeight, true);
+        titlebarBackground = Image.createRGBImage(argb, width, height, true);
     }
 
     public static Image getTitlebarBackground() {
@@ -165,68 +177,211 @@ public final class Theme {
     }
 
     public static Image getDialog9PatchBackground() {
+        if (dialogBackground == null) {
+            dialogBackground = loadImage("/dialog_bg.png");
+        }
         return dialogBackground;
     }
 
     public static Image getSoftIcon() {
+        if (softIcon == null) {
+            softIcon = loadImage("/soft_icon.png");
+        }
         return softIcon;
     }
 
-    public static Image[] getGaugeImages() {
-        return gaugeImages;
+    /**
+     * Get the gauge animation frames, {@link #GAUGE_FRAME_COUNT} frames of the
+     * same size packed from left to right.
+     */
+    public static Image getGaugeStrip() {
+        if (gaugeStrip == null) {
+            gaugeStrip = loadImage("/gauge.png");
+        }
+        return gaugeStrip;
     }
 
     public static Image[] getButtonBackgrounds() {
+        if (buttonBackgrounds == null) {
+            Image[] images = new Image[2];
+            images[0] = loadImage("/button_bg_normal.png");
+            images[1] = loadImage("/button_bg_selected.png");
+            buttonBackgrounds = images;
+        }
         return buttonBackgrounds;
     }
 
     public static Image getIconBackgroudnSelected() {
+        if (iconBgSelected == null) {
+            iconBgSelected = loadImage("/icon_bg_selected.png");
+        }
         return iconBgSelected;
     }
 
     public static Image getMenuRefreshIcon() {
+        if (menuRefresh == null) {
+            menuRefresh = loadImage("/menu_refresh.png");
+        }
         return menuRefresh;
     }
 
     public static Image getMenuInstallIcon() {
+        if (menuInstall == null) {
+            menuInstall = loadImage("/menu_install.png");
+        }
         return menuInstall;
     }
 
     public static Image getMenuBackIcon() {
+        if (menuBack == null) {
+            menuBack = loadImage("/menu_back.png");
+        }
         return menuBack;
     }
 
     public static Image getMenuExitIcon() {
+        if (menuExit == null) {
+            menuExit = loadImage("/menu_exit.png");
+        }
         return menuExit;
     }
 
+    public static Image getMenuSearchIcon() {
+        if (menuSearch == null) {
+            menuSearch = loadImage("/menu_search.png");
+        }
+        return menuSearch;
+    }
+
+    public static Image getMenuSortIcon() {
+        if (menuSort == null) {
+            menuSort = loadImage("/menu_sort.png");
+        }
+        return menuSort;
+    }
+
+    public static Image getMenuCategoryIcon() {
+        if (menuCategory == null) {
+            menuCategory = loadImage("/menu_category.png");
+        }
+        return menuCategory;
+    }
+
+    public static Effect getTitleEffect() {
+        if (titleEffect == null) {
+            titleEffect = new DropShadowEffect(TITLE_FONT, TITLE_FGCOLOR, SHADOW_COLOR);
+        }
+        return titleEffect;
+    }
+
+    public static Effect getSubTitleEffect() {
+        if (subTitleEffect == null) {
+            subTitleEffect = new PlainEffect(SUB_TITLE_FONT, BLACK);
+        }
+        return subTitleEffect;
+    }
+
+    public static Effect getDefaultEffect() {
+        if (defaultEffect == null) {
+            defaultEffect = new PlainEffect(DEFAULT_FONT, DEFAULT_FGCOLOR);
+        }
+        return defaultEffect;
+    }
+
+    public static Effect getAppInfoButtonEffect() {
+        if (appInfoButtonEffect == null) {
+            appInfoButtonEffect = new PlainEffect(DEFAULT_FONT, APPINFO_BUTTON_FGCOLOR);
+        }
+        return appInfoButtonEffect;
+    }
+
+    public static Effect getGaugeEffect() {
+        if (gaugeEffect == null) {
+            gaugeEffect = new PlainEffect(DEFAULT_FONT, WHITE);
+        }
+        return gaugeEffect;
+    }
+
+    public static Effect getDialogDefaultEffect() {
+        if (dialogDefaultEffect == null) {
+            dialogDefaultEffect = new PlainEffect(DEFAULT_FONT, WHITE);
+        }
+        return dialogDefaultEffect;
+    }
+
+    public static Effect getNumberEffect() {
+        if (numberEffect == null) {
+            numberEffect = new PlainEffect(NUMBER_FONT, RED);
+        }
+        return numberEffect;
+    }
+
+    public static Effect getNumberLabelEffect() {
+        if (numberLabelEffect == null) {
+            numberLabelEffect = new PlainEffect(NUMBER_FONT, BLACK);
+        }
+        return numberLabelEffect;
+    }
+
+    public static Effect getListTitleEffect() {
+        if (listTitleEffect == null) {
+            listTitleEffect = new PlainEffect(LIST_TITLE_FONT, BLACK);
+        }
+        return listTitleEffect;
+    }
+
+    public static Effect getListSummaryEffect() {
+        if (listSummaryEffect == null) {
+            listSummaryEffect = new PlainEffect(LIST_SUMMARY_FONT, BLACK);
+        }
+        return listSummaryEffect;
+    }
+
+    public static Effect getMenuTitleEffect() {
+        if (menuTitleEffect == null) {
+            menuTitleEffect = new PlainEffect(MENU_TITLE_FONT, BLACK);
+        }
+        return menuTitleEffect;
+    }
+
     public static Image getListItemBg(int position, int width, int height) {
-        Image res;
         if (position % 2 == 0) {
-            if (listItemEvenBg == null) {
-                int[] argb = DrawUtil.getVerticalGradientRgb(width, height,
-                        LIST_ITEM_EVEN_BGCOLOR_START, LIST_ITEM_EVEN_BGCOLOR_END, TRANSPARENT);
-                listItemEvenBg = Image.createRGBImage(argb, width, height, true);
-            }
-            res = listItemEvenBg;
+            return getListItemBg(LIST_ITEM_BG_EVEN, width, height,
+                    LIST_ITEM_EVEN_BGCOLOR_START, LIST_ITEM_EVEN_BGCOLOR_END);
         } else {
-            if (listItemOddBg == null) {
-                int[] argb = DrawUtil.getVerticalGradientRgb(width, height,
-                        LIST_ITEM_ODD_BGCOLOR_START, LIST_ITEM_ODD_BGCOLOR_END, TRANSPARENT);
-                listItemOddBg = Image.createRGBImage(argb, width, height, true);
-            }
-            res = listItemOddBg;
+            return getListItemBg(LIST_ITEM_BG_ODD, width, height,
+                    LIST_ITEM_ODD_BGCOLOR_START, LIST_ITEM_ODD_BGCOLOR_END);
         }
-        return res;
     }
 
     public static Image getListItemSelectedBg(int width, int height) {
-        if (listItemSelectedBg == null) {
-            int[] argb = DrawUtil.getVerticalGradientRgb(width, height,
-                    LIST_ITEM_SELECTED_BGCOLOR_START, LIST_ITEM_SELECTED_BGCOLOR_END, TRANSPARENT);
-            listItemSelectedBg = Image.createRGBImage(argb, width, height, true);
+        return getListItemBg(LIST_ITEM_BG_SELECTED, width, height,
+                LIST_ITEM_SELECTED_BGCOLOR_START, LIST_ITEM_SELECTED_BGCOLOR_END);
+    }
+
+    /**
+     * Get the list item background of the specified kind and size, generating
+     * it if it's not cached. Rows of different heights get their own
+     * backgrounds, while rows of the same size share one.
+     */
+    private static Image getListItemBg(int kind, int width, int height,
+            int startColor, int endColor) {
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        synchronized (listItemBgCache) {
+            Image res = listItemBgCache.get(kind, width, height);
+            if (res == null) {
+                int[] argb = DrawUtil.getVerticalGradientRgb(width, height,
+                        startColor, endColor, TRANSPARENT);
+                res = Image.createRGBImage(argb, width, height, true);
+                if (Profiler.ENABLED) {
+                    Profiler.onImageAllocated(width, height);
+                }
+                listItemBgCache.put(kind, res);
+            }
+            return res;
         }
-        return listItemSelectedBg;
     }
 
     public static void initRepeatedBg(int width, int height) {